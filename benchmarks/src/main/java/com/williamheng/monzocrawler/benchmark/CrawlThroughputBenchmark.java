@@ -0,0 +1,91 @@
+package com.williamheng.monzocrawler.benchmark;
+
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
+import com.williamheng.monzocrawler.crawler.CrawlConfiguration;
+import com.williamheng.monzocrawler.crawler.ExecutorMode;
+import com.williamheng.monzocrawler.crawler.MonzoCrawlerOrchestrator;
+import com.williamheng.monzocrawler.crawler.PipelinedMonzoCrawler;
+import com.williamheng.monzocrawler.http.ConnectionSettings;
+import com.williamheng.monzocrawler.http.ConnectorType;
+import com.williamheng.monzocrawler.http.HttpClients;
+import com.williamheng.monzocrawler.model.Graph;
+import org.openjdk.jmh.annotations.*;
+
+import javax.ws.rs.client.Client;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Crawls a whole {@link SyntheticSite} end to end with each executor mode, from the first request to the compacted graph.
+ *
+ * The site is served from the same JVM over loopback, so this measures the crawler rather than the network. Divide
+ * the number of pages by the time per crawl for pages per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class CrawlThroughputBenchmark {
+
+    private static final int NUMBER_OF_WORKERS = 16;
+
+    @Param({"1000", "10000"})
+    private int numberOfPages;
+
+    @Param({"pool", "async", "virtual", "pipeline"})
+    private String executor;
+
+    @Param({"jdk"})
+    private String connector;
+
+    private SyntheticSite site;
+    private int expectedVertices;
+    private Client client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        site = SyntheticSite.builder().numberOfPages(numberOfPages).build();
+        expectedVertices = site.expectedVertices();
+        client = HttpClients.create(ConnectionSettings.builder()
+                .connectorType(ConnectorType.fromOption(connector))
+                .connectionPoolSize(connectionPoolSize(ExecutorMode.fromOption(executor)))
+                .build());
+    }
+
+    private static int connectionPoolSize(ExecutorMode executorMode) {
+        switch (executorMode) {
+            case POOL:
+                return NUMBER_OF_WORKERS;
+            case PIPELINE:
+                return PipelinedMonzoCrawler.DEFAULT_FETCH_THREADS;
+            default:
+                return CrawlConfiguration.DEFAULT_MAX_IN_FLIGHT;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close();
+        site.close();
+    }
+
+    @Benchmark
+    public Graph crawl() throws Exception {
+        CrawlConfiguration configuration = CrawlConfiguration.builder()
+                .numberOfCrawlers(NUMBER_OF_WORKERS)
+                .executorMode(ExecutorMode.fromOption(executor))
+                .build();
+        MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(client, site.getURL(), new ConcurrentFrontier(), configuration);
+        try {
+            Graph graph = orchestrator.initCrawlOperation().get();
+            if (graph.getVertices().size() != expectedVertices) {
+                throw new IllegalStateException("Crawled " + graph.getVertices().size() + " of " + expectedVertices + " pages");
+            }
+            return graph;
+        } finally {
+            orchestrator.shutdown();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.williamheng.monzocrawler.benchmark;
+
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
+import com.williamheng.monzocrawler.crawler.Frontier;
+import com.williamheng.monzocrawler.crawler.PriorityFrontier;
+import com.williamheng.monzocrawler.model.Resource;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares admitting discovered links into the {@link ConcurrentFrontier} against the original
+ * "check the synchronised visited set, scan the queue, then add" approach.
+ *
+ * The frontier is pre-filled with {@code queuedResources} so that the cost of scanning the queue is visible.
+ * Each invocation offers a link drawn from twice that range, so roughly half of the offers are duplicates.
+ * {@link PriorityFrontier} is measured too: every duplicate offer moves a queued resource up to its new priority.
+ *
+ * See the README for how to run the benchmarks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class FrontierBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int queuedResources;
+
+    private Resource[] links;
+
+    private Frontier frontier;
+    private Frontier priorityFrontier;
+
+    private BlockingQueue<Resource> legacyQueue;
+    private Set<String> legacyVisitedURLs;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws MalformedURLException {
+        links = new Resource[queuedResources * 2];
+        for (int i = 0; i < links.length; i++) {
+            URL url = new URL("http://localhost:8080/page" + i);
+            links[i] = new Resource(url, url.getPath());
+        }
+
+        frontier = new ConcurrentFrontier();
+        priorityFrontier = new PriorityFrontier();
+        legacyQueue = new LinkedBlockingQueue<>();
+        legacyVisitedURLs = Collections.synchronizedSet(new HashSet<>());
+
+        for (int i = 0; i < queuedResources; i++) {
+            frontier.add(links[i]);
+            priorityFrontier.add(links[i]);
+            legacyQueue.add(links[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean concurrentFrontier() {
+        return frontier.add(nextLink());
+    }
+
+    @Benchmark
+    public boolean priorityFrontier() {
+        return priorityFrontier.add(nextLink());
+    }
+
+    @Benchmark
+    public boolean legacyQueue() {
+        Resource resource = nextLink();
+        boolean isResourceVisited = legacyVisitedURLs.contains(resource.getUrl().toString());
+        boolean isResourceInQueue = legacyQueue.contains(resource);
+        if (!isResourceVisited && !isResourceInQueue) {
+            return legacyQueue.add(resource);
+        }
+        return false;
+    }
+
+    private Resource nextLink() {
+        return links[ThreadLocalRandom.current().nextInt(links.length)];
+    }
+}
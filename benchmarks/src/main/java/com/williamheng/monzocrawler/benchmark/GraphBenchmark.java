@@ -0,0 +1,112 @@
+package com.williamheng.monzocrawler.benchmark;
+
+import com.williamheng.monzocrawler.D3Printer;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding crawled pages to the {@link Graph} from several threads at once, and printing graphs of 10k to 1M
+ * pages with the {@link D3Printer}.
+ *
+ * Every page links to {@code LINKS_PER_PAGE} others picked with a fixed seed, so the same graphs are built every time.
+ */
+public class GraphBenchmark {
+
+    private static final int LINKS_PER_PAGE = 10;
+
+    @State(Scope.Benchmark)
+    public static class Pages {
+
+        @Param({"10000"})
+        int numberOfPages;
+
+        Resource[] resources;
+        List<String>[] links;
+        Graph graph;
+
+        @Setup(Level.Trial)
+        public void setUp() throws MalformedURLException {
+            resources = resources(numberOfPages);
+            links = links(numberOfPages);
+        }
+
+        // Pages are added over and over, so each iteration starts from an empty graph to stop it growing without end
+        @Setup(Level.Iteration)
+        public void newGraph() {
+            graph = new Graph();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class CrawledGraph {
+
+        @Param({"10000", "100000", "1000000"})
+        int numberOfPages;
+
+        Graph graph;
+
+        @Setup(Level.Trial)
+        public void setUp() throws MalformedURLException {
+            Resource[] resources = resources(numberOfPages);
+            List<String>[] links = links(numberOfPages);
+            graph = new Graph();
+            for (int page = 0; page < numberOfPages; page++) {
+                graph.addVertex(resources[page], links[page]);
+            }
+            graph.compact();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    @Threads(4)
+    public void addVertex(Pages pages) {
+        int page = ThreadLocalRandom.current().nextInt(pages.numberOfPages);
+        pages.graph.addVertex(pages.resources[page], pages.links[page]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 3, time = 5)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+    public void printGraph(CrawledGraph crawledGraph) {
+        D3Printer.printGraph(crawledGraph.graph, "<html>" + D3Printer.GRAPH_PLACEHOLDER + "</html>", OutputStream.nullOutputStream());
+    }
+
+    private static Resource[] resources(int numberOfPages) throws MalformedURLException {
+        Resource[] resources = new Resource[numberOfPages];
+        for (int page = 0; page < numberOfPages; page++) {
+            resources[page] = new Resource(new URL("http://localhost:8080/page/" + page), "/page/" + page);
+        }
+        return resources;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String>[] links(int numberOfPages) {
+        Random random = new Random(42);
+        List<String>[] links = new List[numberOfPages];
+        for (int page = 0; page < numberOfPages; page++) {
+            links[page] = new ArrayList<>(LINKS_PER_PAGE);
+            for (int link = 0; link < LINKS_PER_PAGE; link++) {
+                links[page].add("/page/" + random.nextInt(numberOfPages));
+            }
+        }
+        return links;
+    }
+}
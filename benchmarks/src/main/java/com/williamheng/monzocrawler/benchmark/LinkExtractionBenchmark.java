@@ -0,0 +1,67 @@
+package com.williamheng.monzocrawler.benchmark;
+
+import com.williamheng.monzocrawler.crawler.MonzoHTMLScraper;
+import com.williamheng.monzocrawler.crawler.MonzoLinkExtractor;
+import org.apache.commons.io.IOUtils;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming {@link MonzoLinkExtractor} with the DOM-building {@link MonzoHTMLScraper}.
+ *
+ * The pages are copies of the crawler's test fixtures. The "large" page is them repeated until it is roughly the size
+ * of a real page, surrounded by the kind of markup neither approach is interested in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkExtractionBenchmark {
+
+    @Param({"index.html", "page2.html", "page3.html", "page4.html", "large"})
+    private String page;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (!page.equals("large")) {
+            body = fixture(page).getBytes(StandardCharsets.UTF_8);
+            return;
+        }
+
+        StringBuilder builder = new StringBuilder("<html><head><title>Large</title>");
+        builder.append("<script>var links = ['<a href=\"/not-a-link\">'];</script></head><body>");
+        while (builder.length() < 100_000) {
+            builder.append("<div class=\"content\"><p>Some <b>text</b> around the links</p>");
+            builder.append(fixture("index.html")).append(fixture("page2.html"));
+            builder.append("<img src=\"/image.png\" alt=\"image\"></div>");
+        }
+        body = builder.append("</body></html>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Elements scraper() {
+        return MonzoHTMLScraper.scrape(new String(body, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public void streamingExtractor(Blackhole blackhole) throws IOException {
+        MonzoLinkExtractor.extract(new ByteArrayInputStream(body), StandardCharsets.UTF_8, blackhole::consume);
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream inputStream = LinkExtractionBenchmark.class.getResourceAsStream("/pages/" + name)) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.williamheng.monzocrawler.benchmark;
+
+import com.williamheng.monzocrawler.BinaryGraph;
+import com.williamheng.monzocrawler.MonzoCrawlerApplication;
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
+import com.williamheng.monzocrawler.crawler.CrawlConfiguration;
+import com.williamheng.monzocrawler.crawler.ExecutorMode;
+import com.williamheng.monzocrawler.crawler.MonzoCrawlerOrchestrator;
+import com.williamheng.monzocrawler.crawler.PipelinedMonzoCrawler;
+import com.williamheng.monzocrawler.http.ConnectionSettings;
+import com.williamheng.monzocrawler.http.ConnectorType;
+import com.williamheng.monzocrawler.http.HttpClients;
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.Graph;
+import org.apache.commons.cli.*;
+
+import javax.ws.rs.client.Client;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Crawls a {@link SyntheticSite} with {@link MonzoCrawlerOrchestrator} and reports how fast it went and what it cost.
+ *
+ * How it works:
+ *
+ * 1. The site is generated and served in-process, and the number of pages a complete crawl finds is worked out
+ * 2. The site is crawled a number of times, each run starting from an empty frontier and a collected heap
+ * 3. Each run reports pages per second, the peak heap and the p99 fetch latency
+ * 4. The harness exits with a failure if a run did not find every page it should have, so it can gate changes locally
+ *
+ * The peak heap is the sum of the peaks of every heap pool, so it errs on the high side.
+ *
+ * With more than one node, every run instead starts that many crawler processes as a cluster on free local ports, each
+ * in a directory of its own, and checks the graph the coordinator writes. Only the wall-clock time is reported then.
+ */
+public class LoadTest {
+
+    private static final String LOG_LEVEL_PROPERTY = "org.slf4j.simpleLogger.defaultLogLevel";
+
+    private static final String PAGES_OPTION = "pages";
+    private static final String OUT_DEGREE_OPTION = "out-degree";
+    private static final String MEAN_OUT_DEGREE_OPTION = "mean-out-degree";
+    private static final String DEPTH_OPTION = "depth";
+    private static final String BROKEN_LINKS_OPTION = "broken-links";
+    private static final String REDIRECTS_OPTION = "redirects";
+    private static final String SLOW_PAGES_OPTION = "slow-pages";
+    private static final String SLOW_MILLIS_OPTION = "slow-millis";
+    private static final String ERROR_PAGES_OPTION = "error-pages";
+    private static final String SEED_OPTION = "seed";
+    private static final String EXECUTOR_OPTION = "executor";
+    private static final String WORKERS_OPTION = "workers";
+    private static final String MAX_IN_FLIGHT_OPTION = "max-in-flight";
+    private static final String CONNECTOR_OPTION = "connector";
+    private static final String RUNS_OPTION = "runs";
+    private static final String NODES_OPTION = "nodes";
+    private static final String HELP_OPTION = "help";
+
+    public static void main(String[] args) throws Exception {
+        // Logging every page crawled would slow the crawler down more than anything being measured
+        if (System.getProperty(LOG_LEVEL_PROPERTY) == null) System.setProperty(LOG_LEVEL_PROPERTY, "warn");
+
+        Options options = new Options();
+        options.addOption(option(PAGES_OPTION, "pages", "The number of pages on the site (default: 1000)"));
+        options.addOption(option(OUT_DEGREE_OPTION, "distribution", String.format("How many random links pages have, one of: %s (default: %s)", SyntheticSite.OutDegree.options(), SyntheticSite.OutDegree.FIXED.getOption())));
+        options.addOption(option(MEAN_OUT_DEGREE_OPTION, "links", "The mean number of random links on a page (default: 10)"));
+        options.addOption(option(DEPTH_OPTION, "depth", "The maximum depth of the tree of pages (default: 6)"));
+        options.addOption(option(BROKEN_LINKS_OPTION, "fraction", "The fraction of random links that are broken (default: 0)"));
+        options.addOption(option(REDIRECTS_OPTION, "fraction", "The fraction of random links that redirect (default: 0)"));
+        options.addOption(option(SLOW_PAGES_OPTION, "fraction", "The fraction of pages that are slow to answer (default: 0)"));
+        options.addOption(option(SLOW_MILLIS_OPTION, "millis", "How long slow pages take to answer (default: 200)"));
+        options.addOption(option(ERROR_PAGES_OPTION, "fraction", "The fraction of pages that answer 500 (default: 0)"));
+        options.addOption(option(SEED_OPTION, "seed", "The seed the site is generated from (default: 42)"));
+        options.addOption(option(EXECUTOR_OPTION, "executor", String.format("How crawlers are run, one of: %s (default: %s)", ExecutorMode.options(), ExecutorMode.POOL.getOption())));
+        options.addOption(option(WORKERS_OPTION, "numberOfWorkers", "The number of crawler workers (default: 16)"));
+        options.addOption(option(MAX_IN_FLIGHT_OPTION, "maxInFlight", "The maximum number of requests in flight with the async or virtual executor"));
+        options.addOption(option(CONNECTOR_OPTION, "connector", String.format("The HTTP client to connect with, one of: %s (default: %s)", ConnectorType.options(), ConnectorType.JDK.getOption())));
+        options.addOption(option(RUNS_OPTION, "runs", "The number of times to crawl the site (default: 3)"));
+        options.addOption(option(NODES_OPTION, "nodes", "The number of crawler processes to crawl the site as a cluster (default: 1)"));
+        options.addOption(Option.builder().longOpt(HELP_OPTION).desc("Print command line options").build());
+
+        CommandLine cmd = new DefaultParser().parse(options, args);
+        if (cmd.hasOption(HELP_OPTION)) {
+            new HelpFormatter().printHelp("Load test", options);
+            return;
+        }
+
+        ExecutorMode executorMode = ExecutorMode.fromOption(cmd.getOptionValue(EXECUTOR_OPTION, ExecutorMode.POOL.getOption()));
+        int numberOfWorkers = Integer.parseInt(cmd.getOptionValue(WORKERS_OPTION, "16"));
+        int maxInFlight = Integer.parseInt(cmd.getOptionValue(MAX_IN_FLIGHT_OPTION, String.valueOf(CrawlConfiguration.DEFAULT_MAX_IN_FLIGHT)));
+        CrawlConfiguration.CrawlConfigurationBuilder configuration = CrawlConfiguration.builder()
+                .numberOfCrawlers(numberOfWorkers)
+                .executorMode(executorMode)
+                .maxInFlight(maxInFlight);
+        int runs = Integer.parseInt(cmd.getOptionValue(RUNS_OPTION, "3"));
+        int nodes = Integer.parseInt(cmd.getOptionValue(NODES_OPTION, "1"));
+
+        Client client = HttpClients.create(ConnectionSettings.builder()
+                .connectorType(ConnectorType.fromOption(cmd.getOptionValue(CONNECTOR_OPTION, ConnectorType.JDK.getOption())))
+                .connectionPoolSize(executorMode == ExecutorMode.POOL ? numberOfWorkers
+                        : executorMode == ExecutorMode.PIPELINE ? PipelinedMonzoCrawler.DEFAULT_FETCH_THREADS : maxInFlight)
+                .build());
+
+        boolean isComplete = true;
+        try (SyntheticSite site = SyntheticSite.builder()
+                .numberOfPages(Integer.parseInt(cmd.getOptionValue(PAGES_OPTION, "1000")))
+                .outDegree(SyntheticSite.OutDegree.fromOption(cmd.getOptionValue(OUT_DEGREE_OPTION, SyntheticSite.OutDegree.FIXED.getOption())))
+                .meanOutDegree(Integer.parseInt(cmd.getOptionValue(MEAN_OUT_DEGREE_OPTION, "10")))
+                .maxDepth(Integer.parseInt(cmd.getOptionValue(DEPTH_OPTION, "6")))
+                .brokenLinks(Double.parseDouble(cmd.getOptionValue(BROKEN_LINKS_OPTION, "0")))
+                .redirects(Double.parseDouble(cmd.getOptionValue(REDIRECTS_OPTION, "0")))
+                .slowPages(Double.parseDouble(cmd.getOptionValue(SLOW_PAGES_OPTION, "0")))
+                .slowMillis(Integer.parseInt(cmd.getOptionValue(SLOW_MILLIS_OPTION, "200")))
+                .errorPages(Double.parseDouble(cmd.getOptionValue(ERROR_PAGES_OPTION, "0")))
+                .seed(Long.parseLong(cmd.getOptionValue(SEED_OPTION, "42")))
+                .build()) {
+
+            int expectedVertices = site.expectedVertices();
+            System.out.printf("Crawling %d pages (%d reachable) with the %s executor%n", site.getNumberOfPages(), expectedVertices, executorMode.getOption());
+
+            for (int run = 1; run <= runs && nodes > 1; run++) {
+                long start = System.nanoTime();
+                int vertices = crawlAsCluster(site.getURL(), nodes, Arrays.asList(
+                        "--" + EXECUTOR_OPTION, executorMode.getOption(),
+                        "--" + WORKERS_OPTION, String.valueOf(numberOfWorkers),
+                        "--" + MAX_IN_FLIGHT_OPTION, String.valueOf(maxInFlight),
+                        "--" + CONNECTOR_OPTION, cmd.getOptionValue(CONNECTOR_OPTION, ConnectorType.JDK.getOption())
+                ));
+                if (vertices < 0) {
+                    isComplete = false;
+                    continue;
+                }
+
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                System.out.printf(
+                        "Run %d: %d/%d pages on %d nodes in %d ms, %.1f pages/s%n",
+                        run,
+                        vertices,
+                        expectedVertices,
+                        nodes,
+                        elapsedMillis,
+                        vertices * 1000d / Math.max(1, elapsedMillis)
+                );
+                if (vertices != expectedVertices) isComplete = false;
+            }
+
+            for (int run = 1; run <= runs && nodes <= 1; run++) {
+                System.gc();
+                resetPeakHeap();
+
+                MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(client, site.getURL(), new ConcurrentFrontier(), configuration.build());
+                Graph graph;
+                try {
+                    graph = orchestrator.initCrawlOperation().get();
+                } finally {
+                    orchestrator.shutdown();
+                }
+
+                CrawlMetrics metrics = orchestrator.getMetrics();
+                int vertices = graph.getVertices().size();
+                System.out.printf(
+                        "Run %d: %d/%d pages in %d ms, %.1f pages/s, peak heap %.1f MB, fetch p99 %.1f ms, %d requests%n",
+                        run,
+                        vertices,
+                        expectedVertices,
+                        metrics.elapsedMillis(),
+                        vertices * 1000d / Math.max(1, metrics.elapsedMillis()),
+                        peakHeap() / (1024d * 1024d),
+                        metrics.getFetchLatencyP99Millis(),
+                        metrics.getPagesFetched()
+                );
+                if (vertices != expectedVertices) isComplete = false;
+            }
+        } finally {
+            client.close();
+        }
+
+        if (!isComplete) {
+            System.err.println("A crawl did not find every reachable page");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Crawls the site with a cluster of crawler processes, each run with the given crawler options.
+     *
+     * @return the number of pages in the graph the coordinator wrote, or -1 if a node failed
+     */
+    private static int crawlAsCluster(String siteURL, int nodes, List<String> crawlerOptions) throws IOException, InterruptedException {
+        List<String> addresses = new ArrayList<>();
+        for (int node = 0; node < nodes; node++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                addresses.add("localhost:" + socket.getLocalPort());
+            }
+        }
+
+        List<Path> directories = new ArrayList<>();
+        List<Process> processes = new ArrayList<>();
+        for (int node = 0; node < nodes; node++) {
+            Path directory = Files.createTempDirectory("crawler-node" + node);
+            directories.add(directory);
+
+            List<String> command = new ArrayList<>();
+            command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-D" + LOG_LEVEL_PROPERTY + "=" + System.getProperty(LOG_LEVEL_PROPERTY));
+            command.add("-cp");
+            command.add(absoluteClassPath());
+            command.add(MonzoCrawlerApplication.class.getName());
+            command.add(siteURL);
+            command.addAll(crawlerOptions);
+            command.add("--cluster");
+            command.add(String.join(",", addresses));
+            command.add("--cluster-node");
+            command.add(String.valueOf(node));
+            command.add("--format");
+            command.add("binary");
+            command.add("--progress-interval");
+            command.add("0");
+
+            processes.add(new ProcessBuilder(command)
+                    .directory(directory.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(directory.resolve("node.log").toFile())
+                    .start());
+        }
+
+        boolean isSuccessful = true;
+        for (int node = 0; node < nodes; node++) {
+            Process process = processes.get(node);
+            if (!process.waitFor(30, TimeUnit.MINUTES)) process.destroyForcibly();
+            if (process.exitValue() != 0) {
+                System.err.printf("Node %d failed, see %s%n", node, directories.get(node).resolve("node.log"));
+                isSuccessful = false;
+            }
+        }
+
+        File output = directories.get(0).resolve("output.bin").toFile();
+        if (!isSuccessful || !output.exists()) return -1;
+
+        BinaryGraph graph = BinaryGraph.load(output.toPath());
+        int vertices = 0;
+        for (int id = 0; id < graph.numberOfIds(); id++) {
+            if (graph.isVertex(id)) vertices++;
+        }
+        return vertices;
+    }
+
+    /**
+     * @return the class path of this process, which every node runs in a directory of its own
+     */
+    private static String absoluteClassPath() {
+        List<String> entries = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            entries.add(new File(entry).getAbsolutePath());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+        }
+    }
+
+    private static long peakHeap() {
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peakHeap += pool.getPeakUsage().getUsed();
+        }
+        return peakHeap;
+    }
+
+    private static Option option(String longOpt, String argName, String description) {
+        return Option.builder()
+                .argName(argName)
+                .hasArg(true)
+                .longOpt(longOpt)
+                .desc(description)
+                .build();
+    }
+}
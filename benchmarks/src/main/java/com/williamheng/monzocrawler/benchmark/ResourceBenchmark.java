@@ -0,0 +1,122 @@
+package com.williamheng.monzocrawler.benchmark;
+
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
+import com.williamheng.monzocrawler.crawler.CrawlTracker;
+import com.williamheng.monzocrawler.crawler.MonzoPageProcessor;
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-link work done on every page: resolving an href against the root URL into a {@link Resource}, with
+ * {@link URL} or {@link CanonicalUrl#resolveRelative(String)}, and hashing and comparing resources as the frontier does
+ * when it checks whether a link was seen before.
+ *
+ * The hrefs mix the kinds of links found on real pages: relative, absolute, with dot-segments, queries and fragments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceBenchmark {
+
+    private static final String[] HREFS = {
+            "/about",
+            "page/2",
+            "/blog/2017/03/some-post?utm_source=feed&page=2",
+            "../contact#form",
+            "http://localhost:8080/features/./cards/",
+            "https://twitter.com/monzo",
+    };
+
+    // A page linking to every href above twice, e.g. from its navigation and its body
+    private static final List<String> PAGE = Arrays.asList(concat(HREFS, HREFS));
+
+    private URL rootURL;
+    private CanonicalUrl base;
+    private MonzoPageProcessor pageProcessor;
+    private URL[] urls;
+    private Resource[] resources;
+    private Set<Resource> seen;
+    private int next;
+
+    @Setup
+    public void setUp() throws MalformedURLException {
+        rootURL = new URL("http://localhost:8080/");
+        base = CanonicalUrl.of(rootURL);
+        pageProcessor = MonzoPageProcessor.builder()
+                .frontier(new ConcurrentFrontier())
+                .graph(new Graph())
+                .rootURL(rootURL)
+                .tracker(new CrawlTracker())
+                .metrics(new CrawlMetrics())
+                .build();
+
+        urls = new URL[HREFS.length];
+        resources = new Resource[HREFS.length];
+        seen = new HashSet<>();
+        for (int i = 0; i < HREFS.length; i++) {
+            urls[i] = new URL(rootURL, HREFS[i]);
+            resources[i] = new Resource(urls[i], urls[i].getPath());
+            if (i % 2 == 0) seen.add(resources[i]);
+        }
+    }
+
+    @Benchmark
+    public CanonicalUrl resolveWithURL() throws MalformedURLException {
+        return CanonicalUrl.of(new URL(rootURL, HREFS[next()]));
+    }
+
+    // Links with a scheme or host of their own still go through URL, as the page processor does
+    @Benchmark
+    public CanonicalUrl resolveRelative() throws MalformedURLException {
+        String href = HREFS[next()];
+        CanonicalUrl url = base.resolveRelative(href);
+        return url != null ? url : CanonicalUrl.of(new URL(rootURL, href));
+    }
+
+    @Benchmark
+    public List<Resource> resolvePage() {
+        return pageProcessor.resolve(PAGE);
+    }
+
+    @Benchmark
+    public Resource canonicalise() {
+        URL url = urls[next()];
+        return new Resource(url, url.getPath());
+    }
+
+    @Benchmark
+    public boolean lookUpResource() {
+        return seen.contains(resources[next()]);
+    }
+
+    // What checking a link found on a page costs: its hash is computed when it is canonicalised
+    @Benchmark
+    public boolean lookUpNewResource() {
+        return seen.contains(canonicalise());
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        return both;
+    }
+
+    private int next() {
+        next = next + 1 == HREFS.length ? 0 : next + 1;
+        return next;
+    }
+}
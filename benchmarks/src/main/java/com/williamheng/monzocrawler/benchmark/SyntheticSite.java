@@ -0,0 +1,302 @@
+package com.williamheng.monzocrawler.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * A generated site served from an in-process HTTP server on a free port.
+ *
+ * How it works:
+ *
+ * 1. Page 0 is served at "/" and every other page i at "/page/i"
+ * 2. Pages form a tree no deeper than {@code maxDepth}: each page links to its children, so every page is reachable
+ *    unless an erroring page is in the way
+ * 3. Each page also links to a number of random pages drawn from the {@link OutDegree} distribution. Some of those
+ *    links are broken ("/missing/i" answers 404) and some go through a redirect ("/old/i" answers 301 to page i)
+ * 4. Some pages answer 500 instead, and some take {@code slowMillis} to answer
+ *
+ * Every page is generated from its own seeded random number generator when it is requested, so the same settings
+ * always give the same site, and the site takes no memory however many pages it has.
+ */
+public class SyntheticSite implements Closeable {
+
+    private static final String PAGE_PREFIX = "/page/";
+    private static final String REDIRECT_PREFIX = "/old/";
+    private static final String BROKEN_PREFIX = "/missing/";
+
+    @Getter
+    private final int numberOfPages;
+    private final OutDegree outDegree;
+    private final int meanOutDegree;
+    private final int branching;
+    private final double brokenLinks;
+    private final double redirects;
+    private final double slowPages;
+    private final int slowMillis;
+    private final double errorPages;
+    private final long seed;
+
+    private final HttpServer server;
+    private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Builder
+    private SyntheticSite(
+            int numberOfPages,
+            OutDegree outDegree,
+            int meanOutDegree,
+            int maxDepth,
+            double brokenLinks,
+            double redirects,
+            double slowPages,
+            int slowMillis,
+            double errorPages,
+            long seed
+    ) throws IOException {
+        if (numberOfPages <= 0) throw new IllegalArgumentException("Invalid number of pages");
+        if (maxDepth <= 0) throw new IllegalArgumentException("Invalid depth");
+        if (meanOutDegree < 0) throw new IllegalArgumentException("Invalid out-degree");
+
+        this.numberOfPages = numberOfPages;
+        this.outDegree = outDegree;
+        this.meanOutDegree = meanOutDegree;
+        this.branching = Math.max(1, (int) Math.ceil(Math.pow(numberOfPages, 1d / maxDepth)));
+        this.brokenLinks = brokenLinks;
+        this.redirects = redirects;
+        this.slowPages = slowPages;
+        this.slowMillis = slowMillis;
+        this.errorPages = errorPages;
+        this.seed = seed;
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.server.createContext("/", this::serve);
+        this.server.setExecutor(executorService);
+        this.server.start();
+    }
+
+    public String getURL() {
+        return String.format("http://localhost:%d", server.getAddress().getPort());
+    }
+
+    /**
+     * Works out which pages a crawl from "/" can reach without fetching any of them.
+     *
+     * @return the number of paths that answer with a page, which is the number of vertices a complete crawl finds
+     */
+    public int expectedVertices() {
+        BitSet reachedPages = new BitSet(numberOfPages);
+        BitSet reachedRedirects = new BitSet(numberOfPages);
+        BitSet followedPages = new BitSet(numberOfPages);
+        int[] queue = new int[numberOfPages];
+        int head = 0;
+        int tail = 0;
+        int vertices = 0;
+
+        reachedPages.set(0);
+        if (!page(0).isError()) {
+            vertices++;
+            followedPages.set(0);
+            queue[tail++] = 0;
+        }
+
+        while (head < tail) {
+            for (String link : page(queue[head++]).getLinks()) {
+                int target;
+                if (link.startsWith(REDIRECT_PREFIX)) {
+                    target = Integer.parseInt(link.substring(REDIRECT_PREFIX.length()));
+                    if (reachedRedirects.get(target)) continue;
+                    reachedRedirects.set(target);
+                } else if (!link.startsWith(BROKEN_PREFIX)) {
+                    target = link.equals("/") ? 0 : Integer.parseInt(link.substring(PAGE_PREFIX.length()));
+                    if (reachedPages.get(target)) continue;
+                    reachedPages.set(target);
+                } else {
+                    continue;
+                }
+
+                // A page reached both directly and through a redirect is a vertex under each path, but is followed once
+                if (page(target).isError()) continue;
+                vertices++;
+                if (followedPages.get(target)) continue;
+                followedPages.set(target);
+                queue[tail++] = target;
+            }
+        }
+        return vertices;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executorService.shutdownNow();
+    }
+
+    /**
+     * The page at the given number, generated the same way every time.
+     */
+    Page page(int number) {
+        Random random = new Random(seed ^ (number * 0x9E3779B97F4A7C15L));
+        boolean isError = number != 0 && random.nextDouble() < errorPages;
+        boolean isSlow = random.nextDouble() < slowPages;
+
+        List<String> links = new ArrayList<>();
+        for (long child = (long) number * branching + 1; child <= (long) number * branching + branching && child < numberOfPages; child++) {
+            links.add(path((int) child));
+        }
+
+        int degree = outDegree.sample(random, meanOutDegree);
+        for (int link = 0; link < degree; link++) {
+            int target = random.nextInt(numberOfPages);
+            double kind = random.nextDouble();
+            if (kind < brokenLinks) {
+                links.add(BROKEN_PREFIX + target);
+            } else if (kind < brokenLinks + redirects) {
+                links.add(REDIRECT_PREFIX + target);
+            } else {
+                links.add(path(target));
+            }
+        }
+        return new Page(number, isError, isSlow, links);
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+
+            if (path.startsWith(REDIRECT_PREFIX)) {
+                int target = number(path.substring(REDIRECT_PREFIX.length()));
+                if (target < 0) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Location", getURL() + path(target));
+                exchange.sendResponseHeaders(301, -1);
+                return;
+            }
+
+            int number = path.equals("/") ? 0 : path.startsWith(PAGE_PREFIX) ? number(path.substring(PAGE_PREFIX.length())) : -1;
+            if (number < 0) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            Page page = page(number);
+            if (page.isSlow()) Thread.sleep(slowMillis);
+            if (page.isError()) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            byte[] body = page.html().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int number(String number) {
+        try {
+            int page = Integer.parseInt(number);
+            return page >= 0 && page < numberOfPages ? page : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String path(int page) {
+        return page == 0 ? "/" : PAGE_PREFIX + page;
+    }
+
+    public enum OutDegree {
+
+        // Every page has the mean number of random links
+        FIXED("fixed"),
+
+        // Between none and twice the mean
+        UNIFORM("uniform"),
+
+        // Pareto distributed: most pages have a few links and a few pages have very many, like real sites
+        POWER_LAW("power-law");
+
+        private static final int MAX_MULTIPLE_OF_MEAN = 100;
+
+        @Getter
+        private final String option;
+
+        OutDegree(String option) {
+            this.option = option;
+        }
+
+        int sample(Random random, int mean) {
+            switch (this) {
+                case UNIFORM:
+                    return random.nextInt(2 * mean + 1);
+                case POWER_LAW:
+                    // With a shape of 2 the mean is twice the scale
+                    double degree = mean / 2d / Math.sqrt(1 - random.nextDouble());
+                    return (int) Math.min(degree, (double) mean * MAX_MULTIPLE_OF_MEAN);
+                default:
+                    return mean;
+            }
+        }
+
+        public static OutDegree fromOption(String option) {
+            return Arrays.stream(values())
+                    .filter(outDegree -> outDegree.option.equalsIgnoreCase(option))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format("Invalid out-degree distribution %s", option)));
+        }
+
+        public static String options() {
+            return Arrays.stream(values()).map(OutDegree::getOption).collect(Collectors.joining(", "));
+        }
+    }
+
+    public static class SyntheticSiteBuilder {
+        private int numberOfPages = 1000;
+        private OutDegree outDegree = OutDegree.FIXED;
+        private int meanOutDegree = 10;
+        private int maxDepth = 6;
+        private int slowMillis = 200;
+        private long seed = 42;
+    }
+
+    @Value
+    static class Page {
+        int number;
+        boolean isError;
+        boolean isSlow;
+        List<String> links;
+
+        String html() {
+            StringBuilder html = new StringBuilder("<html><head><title>Page ").append(number).append("</title></head><body>");
+            for (String link : links) {
+                html.append("<p>Some text around <a href=\"").append(link).append("\">a link</a></p>");
+            }
+            return html.append("</body></html>").toString();
+        }
+    }
+}
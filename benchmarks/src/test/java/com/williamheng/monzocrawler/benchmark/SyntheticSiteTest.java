@@ -0,0 +1,80 @@
+package com.williamheng.monzocrawler.benchmark;
+
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
+import com.williamheng.monzocrawler.crawler.CrawlConfiguration;
+import com.williamheng.monzocrawler.crawler.MonzoCrawlerOrchestrator;
+import com.williamheng.monzocrawler.model.Graph;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Test;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class SyntheticSiteTest {
+
+    @Test
+    public void generatesTheSameSiteEveryTime() throws Exception {
+        try (SyntheticSite site = SyntheticSite.builder().outDegree(SyntheticSite.OutDegree.POWER_LAW).build();
+             SyntheticSite sameSite = SyntheticSite.builder().outDegree(SyntheticSite.OutDegree.POWER_LAW).build()) {
+
+            for (int page = 0; page < site.getNumberOfPages(); page += 97) {
+                assertThat(site.page(page).html(), is(sameSite.page(page).html()));
+            }
+            assertThat(site.expectedVertices(), is(sameSite.expectedVertices()));
+        }
+    }
+
+    @Test
+    public void servesBrokenRedirectingAndErroringPages() throws Exception {
+        try (SyntheticSite site = SyntheticSite.builder().numberOfPages(10).errorPages(1).build()) {
+            assertThat(status(site, "/"), is(200));
+            assertThat(status(site, "/page/1"), is(500));
+            assertThat(status(site, "/old/1"), is(301));
+            assertThat(status(site, "/missing/1"), is(404));
+            assertThat(status(site, "/page/10"), is(404));
+        }
+    }
+
+    @Test
+    public void crawlsFindEveryReachablePage() throws Exception {
+        // Given a site with every kind of awkward page
+        try (SyntheticSite site = SyntheticSite.builder()
+                .numberOfPages(300)
+                .outDegree(SyntheticSite.OutDegree.UNIFORM)
+                .meanOutDegree(3)
+                .maxDepth(3)
+                .brokenLinks(0.1)
+                .redirects(0.1)
+                .slowPages(0.05)
+                .slowMillis(50)
+                .errorPages(0.05)
+                .build()) {
+
+            // When it is crawled
+            MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(
+                    JerseyClientBuilder.createClient(),
+                    site.getURL(),
+                    new ConcurrentFrontier(),
+                    CrawlConfiguration.builder().numberOfCrawlers(8).build()
+            );
+            Graph graph = orchestrator.initCrawlOperation().get();
+            orchestrator.shutdown();
+
+            // Then it finds every page the site says it should
+            assertThat(graph.getVertices().size(), is(site.expectedVertices()));
+        }
+    }
+
+    private static int status(SyntheticSite site, String path) throws Exception {
+        HttpURLConnection connection = (HttpURLConnection) new URL(site.getURL() + path).openConnection();
+        connection.setInstanceFollowRedirects(false);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.williamheng.monzocrawler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A crawled graph read straight from a file written by {@link BinaryGraphExporter}, without loading it into the heap.
+ *
+ * The file is laid out as:
+ *
+ * 1. A header: the magic number, the number of ids (int) and the number of edges (long)
+ * 2. A record for every id in order: the length of its path or URL and its UTF-8 bytes, its degree shifted left once
+ *    with the lowest bit set if the page was crawled, and its targets as differences from the previous target
+ * 3. An index: the position of every record (long)
+ * 4. The position of the index (long)
+ *
+ * Every variable-sized number is a varint. Loading maps the file into memory and reads nothing but the header and the
+ * trailer, so it takes the same time however large the graph is; records are decoded when they are asked for.
+ */
+public class BinaryGraph {
+
+    static final int MAGIC = 0x4D434731;
+    private static final int HEADER_BYTES = 16;
+
+    private final MappedByteBuffer buffer;
+    private final int numberOfIds;
+    private final long numberOfEdges;
+    private final int indexPosition;
+
+    private BinaryGraph(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_BYTES + Long.BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary graph file");
+        }
+        this.numberOfIds = buffer.getInt(4);
+        this.numberOfEdges = buffer.getLong(8);
+        this.indexPosition = (int) buffer.getLong(buffer.capacity() - Long.BYTES);
+    }
+
+    public static BinaryGraph load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // A single mapping is limited to 2GB, which is several hundred million links
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Binary graph is too large to map: " + path);
+            return new BinaryGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int numberOfIds() {
+        return numberOfIds;
+    }
+
+    public long numberOfEdges() {
+        return numberOfEdges;
+    }
+
+    /**
+     * @return the path of an internal page or the absolute URL of an external one
+     */
+    public String id(int id) {
+        ByteBuffer record = record(id);
+        byte[] url = new byte[readVarint(record)];
+        record.get(url);
+        return new String(url, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return true if the id is a page that has been crawled rather than only linked to
+     */
+    public boolean isVertex(int id) {
+        return (readVarint(afterId(id)) & 1) == 1;
+    }
+
+    public int degree(int id) {
+        return readVarint(afterId(id)) >>> 1;
+    }
+
+    /**
+     * @return the ids the page links to, in ascending order
+     */
+    public int[] targets(int id) {
+        ByteBuffer record = afterId(id);
+        int[] targets = new int[readVarint(record) >>> 1];
+
+        int previous = 0;
+        for (int i = 0; i < targets.length; i++) {
+            previous += readVarint(record);
+            targets[i] = previous;
+        }
+        return targets;
+    }
+
+    private ByteBuffer record(int id) {
+        if (id < 0 || id >= numberOfIds) throw new IndexOutOfBoundsException("No id " + id);
+
+        ByteBuffer record = buffer.duplicate();
+        record.position((int) buffer.getLong(indexPosition + id * Long.BYTES));
+        return record;
+    }
+
+    private ByteBuffer afterId(int id) {
+        ByteBuffer record = record(id);
+        int urlLength = readVarint(record);
+        record.position(record.position() + urlLength);
+        return record;
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.williamheng.monzocrawler;
+
+import com.williamheng.monzocrawler.model.Graph;
+import org.apache.commons.io.output.CountingOutputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the graph in the binary adjacency format read by {@link BinaryGraph}.
+ *
+ * Targets are sorted, so each one is written as the difference from the previous one, and every number of variable
+ * size is a varint: 7 bits per byte with the top bit set on every byte but the last. Most links of a site end up
+ * taking one or two bytes.
+ */
+public class BinaryGraphExporter implements GraphExporter {
+
+    @Override
+    public void export(Graph graph, OutputStream outputStream) throws IOException {
+        graph.compact();
+
+        int numberOfIds = graph.numberOfIds();
+        long[] recordPositions = new long[numberOfIds];
+        long numberOfEdges = 0;
+        for (int id = 0; id < numberOfIds; id++) numberOfEdges += graph.degree(id);
+
+        CountingOutputStream countingOutputStream = new CountingOutputStream(new BufferedOutputStream(outputStream));
+        try (DataOutputStream output = new DataOutputStream(countingOutputStream)) {
+            output.writeInt(BinaryGraph.MAGIC);
+            output.writeInt(numberOfIds);
+            output.writeLong(numberOfEdges);
+
+            for (int id = 0; id < numberOfIds; id++) {
+                recordPositions[id] = countingOutputStream.getByteCount();
+
+                byte[] url = graph.id(id).getBytes(StandardCharsets.UTF_8);
+                writeVarint(output, url.length);
+                output.write(url);
+
+                int degree = graph.degree(id);
+                writeVarint(output, degree << 1 | (graph.isVertex(id) ? 1 : 0));
+
+                int previous = 0;
+                for (int i = 0; i < degree; i++) {
+                    int target = graph.target(id, i);
+                    writeVarint(output, target - previous);
+                    previous = target;
+                }
+            }
+
+            long indexPosition = countingOutputStream.getByteCount();
+            for (long recordPosition : recordPositions) output.writeLong(recordPosition);
+            output.writeLong(indexPosition);
+        }
+    }
+
+    private static void writeVarint(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+}
@@ -0,0 +1,26 @@
+package com.williamheng.monzocrawler;
+
+import com.williamheng.monzocrawler.model.Graph;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the graph into the bundled graph.html page with {@link D3Printer}.
+ */
+public class D3HtmlExporter implements GraphExporter {
+
+    private static final String GRAPH_HTML = "graph.html";
+
+    @Override
+    public void export(Graph graph, OutputStream outputStream) throws IOException {
+        String graphHTML;
+        try (InputStream graphHTMLSource = D3HtmlExporter.class.getClassLoader().getResourceAsStream(GRAPH_HTML)) {
+            graphHTML = IOUtils.toString(graphHTMLSource, StandardCharsets.UTF_8);
+        }
+        D3Printer.printGraph(graph, graphHTML, outputStream);
+    }
+}
@@ -0,0 +1,98 @@
+package com.williamheng.monzocrawler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.williamheng.monzocrawler.model.Graph;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+public class D3Printer {
+
+    public static final String GRAPH_PLACEHOLDER = "{graph_json}";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    // Example graph JSON
+    /**
+     * var graph = {
+     "nodes": [
+     {"id": "/", "group": 1},
+     {"id": "/page2", "group": 2},
+     {"id": "/page3", "group": 3},
+     {"id": "/page4", "group": 4}
+     ],
+     "links": [
+     {"source": "/", "target": "/page2", "value": 1},
+     {"source": "/", "target": "/page3", "value": 1},
+     {"source": "/page2", "target": "/page3", "value": 1},
+     {"source": "/page2", "target": "/page4", "value": 1},
+     {"source": "/page3", "target": "/page4", "value": 1}
+     ]
+     };
+     */
+
+    /**
+     * Writes the graph into the HTML template in place of {@value #GRAPH_PLACEHOLDER}.
+     *
+     * Nodes and links are streamed straight to the output stream as they are read from the graph, so only the
+     * template and a write buffer are held in memory however large the graph is.
+     */
+    public static void printGraph(Graph graph, String graphHTML, OutputStream outputStream) {
+
+        int placeholder = graphHTML.indexOf(GRAPH_PLACEHOLDER);
+        if (placeholder < 0) throw new IllegalArgumentException("Graph HTML has no " + GRAPH_PLACEHOLDER + " placeholder");
+
+        graph.compact();
+
+        try {
+            outputStream.write(graphHTML.substring(0, placeholder).getBytes(StandardCharsets.UTF_8));
+            writeGraphJSON(graph, outputStream);
+            outputStream.write(graphHTML.substring(placeholder + GRAPH_PLACEHOLDER.length()).getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+            outputStream.close();
+        } catch (IOException e) {
+            log.error("Failed to write output graph in HTML");
+            log.debug("HTML output failure", e);
+        }
+    }
+
+    private static void writeGraphJSON(Graph graph, OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+            generator.writeStartObject();
+
+            // Every crawled page and every page linked to is a node, in its own group
+            generator.writeArrayFieldStart("nodes");
+            for (int id = 0; id < graph.numberOfIds(); id++) {
+                generator.writeStartObject();
+                generator.writeStringField("id", graph.id(id));
+                generator.writeNumberField("group", id + 1);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("links");
+            for (int source = 0; source < graph.numberOfIds(); source++) {
+                for (int i = 0; i < graph.degree(source); i++) {
+                    generator.writeStartObject();
+                    generator.writeStringField("source", graph.id(source));
+                    int target = graph.target(source, i);
+                    generator.writeStringField("target", graph.id(target));
+                    generator.writeNumberField("value", 1);
+
+                    // Checked links carry the status they answered with
+                    int status = graph.linkStatus(target);
+                    if (status != Graph.UNCHECKED) generator.writeNumberField("status", status);
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.williamheng.monzocrawler;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The formats a crawled graph can be written out in.
+ */
+public enum ExportFormat {
+
+    /**
+     * A page that draws the graph with d3.js, only practical for a few thousand pages
+     */
+    HTML("html", "output.html", D3HtmlExporter::new),
+
+    /**
+     * One JSON object per line for every link
+     */
+    NDJSON("ndjson", "output.ndjson", NdjsonGraphExporter::new),
+
+    /**
+     * GraphML, which most graph tools can import
+     */
+    GRAPHML("graphml", "output.graphml", GraphMLExporter::new),
+
+    /**
+     * A compact binary adjacency file that can be loaded again with {@link BinaryGraph#load(java.nio.file.Path)}
+     */
+    BINARY("binary", "output.bin", BinaryGraphExporter::new);
+
+    private final String option;
+    private final String fileName;
+    private final Supplier<GraphExporter> exporter;
+
+    ExportFormat(String option, String fileName, Supplier<GraphExporter> exporter) {
+        this.option = option;
+        this.fileName = fileName;
+        this.exporter = exporter;
+    }
+
+    public String getOption() {
+        return option;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public GraphExporter exporter() {
+        return exporter.get();
+    }
+
+    public static ExportFormat fromOption(String option) {
+        return Arrays.stream(values())
+                .filter(format -> format.option.equalsIgnoreCase(option))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Invalid format %s", option)));
+    }
+
+    public static String options() {
+        return Arrays.stream(values()).map(ExportFormat::getOption).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,17 @@
+package com.williamheng.monzocrawler;
+
+import com.williamheng.monzocrawler.model.Graph;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a crawled graph out in one particular format.
+ *
+ * Implementations stream the graph as they walk it rather than building their output in memory, and close the
+ * output stream once they are done.
+ */
+public interface GraphExporter {
+
+    void export(Graph graph, OutputStream outputStream) throws IOException;
+}
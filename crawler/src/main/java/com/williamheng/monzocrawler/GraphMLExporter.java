@@ -0,0 +1,90 @@
+package com.williamheng.monzocrawler;
+
+import com.williamheng.monzocrawler.model.Graph;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the graph as GraphML. Node ids are the graph's int ids, each node carries its path or URL, and pages that
+ * were only linked to are marked as not crawled. Edges to links that were checked carry the status they answered with.
+ */
+public class GraphMLExporter implements GraphExporter {
+
+    private static final String GRAPHML_NAMESPACE = "http://graphml.graphdrawing.org/xmlns";
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    @Override
+    public void export(Graph graph, OutputStream outputStream) throws IOException {
+        graph.compact();
+
+        try {
+            XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            writer.writeStartElement("graphml");
+            writer.writeDefaultNamespace(GRAPHML_NAMESPACE);
+
+            writeKey(writer, "url", "node", "string");
+            writeKey(writer, "crawled", "node", "boolean");
+            writeKey(writer, "status", "edge", "int");
+
+            writer.writeStartElement("graph");
+            writer.writeAttribute("id", "crawl");
+            writer.writeAttribute("edgedefault", "directed");
+
+            for (int id = 0; id < graph.numberOfIds(); id++) {
+                writer.writeStartElement("node");
+                writer.writeAttribute("id", "n" + id);
+                writeData(writer, "url", graph.id(id));
+                writeData(writer, "crawled", String.valueOf(graph.isVertex(id)));
+                writer.writeEndElement();
+            }
+
+            for (int source = 0; source < graph.numberOfIds(); source++) {
+                for (int i = 0; i < graph.degree(source); i++) {
+                    int target = graph.target(source, i);
+                    int status = graph.linkStatus(target);
+                    if (status == Graph.UNCHECKED) {
+                        writer.writeEmptyElement("edge");
+                    } else {
+                        writer.writeStartElement("edge");
+                    }
+                    writer.writeAttribute("source", "n" + source);
+                    writer.writeAttribute("target", "n" + target);
+                    if (status != Graph.UNCHECKED) {
+                        writeData(writer, "status", String.valueOf(status));
+                        writer.writeEndElement();
+                    }
+                }
+            }
+
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Unable to write GraphML", e);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static void writeKey(XMLStreamWriter writer, String name, String domain, String type) throws XMLStreamException {
+        writer.writeEmptyElement("key");
+        writer.writeAttribute("id", name);
+        writer.writeAttribute("for", domain);
+        writer.writeAttribute("attr.name", name);
+        writer.writeAttribute("attr.type", type);
+    }
+
+    private static void writeData(XMLStreamWriter writer, String key, String value) throws XMLStreamException {
+        writer.writeStartElement("data");
+        writer.writeAttribute("key", key);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+}
@@ -0,0 +1,813 @@
+package com.williamheng.monzocrawler;
+
+import com.williamheng.monzocrawler.cluster.ClusterSettings;
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
+import com.williamheng.monzocrawler.crawler.CrawlCheckpoint;
+import com.williamheng.monzocrawler.crawler.CrawlConfiguration;
+import com.williamheng.monzocrawler.crawler.DiskFrontier;
+import com.williamheng.monzocrawler.crawler.DiskPageCache;
+import com.williamheng.monzocrawler.crawler.ExecutorMode;
+import com.williamheng.monzocrawler.crawler.ExternalLinkChecker;
+import com.williamheng.monzocrawler.crawler.Frontier;
+import com.williamheng.monzocrawler.crawler.MonzoCrawlerOrchestrator;
+import com.williamheng.monzocrawler.crawler.PageCache;
+import com.williamheng.monzocrawler.crawler.PipelinedMonzoCrawler;
+import com.williamheng.monzocrawler.crawler.PoliteFrontier;
+import com.williamheng.monzocrawler.crawler.PriorityFrontier;
+import com.williamheng.monzocrawler.http.ConnectionSettings;
+import com.williamheng.monzocrawler.http.ConnectorType;
+import com.williamheng.monzocrawler.http.HttpClients;
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.metrics.ProgressReporter;
+import com.williamheng.monzocrawler.model.Graph;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.cli.*;
+
+import javax.ws.rs.client.Client;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class MonzoCrawlerApplication {
+
+    public static int DEFAULT_NUMBER_OF_CRAWLERS = 4;
+    public static int DEFAULT_MAX_IN_FLIGHT = CrawlConfiguration.DEFAULT_MAX_IN_FLIGHT;
+    public static int DEFAULT_PROGRESS_INTERVAL = 5;
+
+    private static final String METRICS_FILE_NAME = "metrics.json";
+    private static final String NODE_METRICS_FILE_NAME = "metrics-node%d.json";
+
+    private static final String WORKERS_OPTION = "workers";
+    private static final String IDLE_TIME_OPTION = "idle-time";
+    private static final String EXTERNAL_LINKS_OPTION = "external";
+    private static final String EXECUTOR_OPTION = "executor";
+    private static final String MAX_IN_FLIGHT_OPTION = "max-in-flight";
+    private static final String FETCHERS_OPTION = "fetchers";
+    private static final String PARSERS_OPTION = "parsers";
+    private static final String STAGE_QUEUE_OPTION = "stage-queue";
+    private static final String HOST_RATE_OPTION = "host-rate";
+    private static final String HOST_CONNECTIONS_OPTION = "host-connections";
+    private static final String FRONTIER_DIRECTORY_OPTION = "frontier-dir";
+    private static final String PRIORITY_OPTION = "priority";
+    private static final String MAX_QUEUED_OPTION = "max-queued";
+    private static final String PATH_WEIGHT_OPTION = "path-weight";
+    private static final String MAX_PAGES_OPTION = "max-pages";
+    private static final String MAX_DEPTH_OPTION = "max-depth";
+    private static final String MAX_PER_PATTERN_OPTION = "max-per-pattern";
+    private static final String SKIP_NEAR_DUPLICATES_OPTION = "skip-near-duplicates";
+    private static final String IGNORE_ROBOTS_OPTION = "ignore-robots";
+    private static final String SITEMAPS_OPTION = "sitemaps";
+    private static final String FORMAT_OPTION = "format";
+    private static final String PAGE_CACHE_OPTION = "page-cache";
+    private static final String MAX_PAGE_SIZE_OPTION = "max-page-size";
+    private static final String CHECK_LINKS_OPTION = "check-links";
+    private static final String LINK_CHECK_IN_FLIGHT_OPTION = "link-check-in-flight";
+    private static final String LINK_CHECK_HOST_CONNECTIONS_OPTION = "link-check-host-connections";
+    private static final String CHECKPOINT_DIRECTORY_OPTION = "checkpoint-dir";
+    private static final String CHECKPOINT_INTERVAL_OPTION = "checkpoint-interval";
+    private static final String RESUME_OPTION = "resume";
+    private static final String CLUSTER_OPTION = "cluster";
+    private static final String CLUSTER_NODE_OPTION = "cluster-node";
+    private static final String PROGRESS_INTERVAL_OPTION = "progress-interval";
+    private static final String CONNECTOR_OPTION = "connector";
+    private static final String CONNECT_TIMEOUT_OPTION = "connect-timeout";
+    private static final String READ_TIMEOUT_OPTION = "read-timeout";
+    private static final String CONNECTION_POOL_OPTION = "connection-pool";
+    private static final String KEEP_ALIVE_OPTION = "keep-alive";
+    private static final String HTTP1_OPTION = "http1";
+    private static final String NO_COMPRESSION_OPTION = "no-compression";
+    private static final String HELP_OPTION = "help";
+
+    public static void main(String[] args) {
+
+        Options options = new Options();
+        options.addOption(numberOfWorkersOption());
+        options.addOption(idleTimeOption());
+        options.addOption(addExternalLinksOption());
+        options.addOption(executorOption());
+        options.addOption(maxInFlightOption());
+        options.addOption(fetchersOption());
+        options.addOption(parsersOption());
+        options.addOption(stageQueueOption());
+        options.addOption(hostRateOption());
+        options.addOption(hostConnectionsOption());
+        options.addOption(frontierDirectoryOption());
+        options.addOption(priorityOption());
+        options.addOption(maxQueuedOption());
+        options.addOption(pathWeightOption());
+        options.addOption(maxPagesOption());
+        options.addOption(maxDepthOption());
+        options.addOption(maxPerPatternOption());
+        options.addOption(skipNearDuplicatesOption());
+        options.addOption(ignoreRobotsOption());
+        options.addOption(sitemapsOption());
+        options.addOption(formatOption());
+        options.addOption(pageCacheOption());
+        options.addOption(maxPageSizeOption());
+        options.addOption(checkLinksOption());
+        options.addOption(linkCheckInFlightOption());
+        options.addOption(linkCheckHostConnectionsOption());
+        options.addOption(checkpointDirectoryOption());
+        options.addOption(checkpointIntervalOption());
+        options.addOption(resumeOption());
+        options.addOption(clusterOption());
+        options.addOption(clusterNodeOption());
+        options.addOption(progressIntervalOption());
+        options.addOption(connectorOption());
+        options.addOption(connectTimeoutOption());
+        options.addOption(readTimeoutOption());
+        options.addOption(connectionPoolOption());
+        options.addOption(keepAliveOption());
+        options.addOption(http1Option());
+        options.addOption(noCompressionOption());
+        options.addOption(helpOption());
+
+        CommandLineParser parser = new DefaultParser();
+
+        try {
+
+            CommandLine cmd = parser.parse(options, args);
+
+            if (cmd.hasOption(HELP_OPTION)) printHelp(options);
+
+            // Getting the URL to crawl
+            String[] arguments = cmd.getArgs();
+            if (arguments.length <= 0) {
+                log.error("Need to provide URL for the crawler to work");
+                System.exit(0);
+            }
+
+            String url = arguments[0];
+            int numberOfWorkers = numberOfWorkers(cmd);
+            if (cmd.hasOption(IDLE_TIME_OPTION)) log.warn("--{} is no longer needed and is ignored", IDLE_TIME_OPTION);
+            // Checked links are recorded on the edges to them, so checking links adds them to the graph
+            boolean checkLinks = cmd.hasOption(CHECK_LINKS_OPTION);
+            boolean addExternalLinks = cmd.hasOption(EXTERNAL_LINKS_OPTION) || checkLinks;
+            ExecutorMode executorMode = executorMode(cmd);
+            int maxInFlight = maxInFlight(cmd);
+            int fetchThreads = fetchThreads(cmd);
+            ExportFormat format = format(cmd);
+            int progressInterval = progressInterval(cmd);
+            int maxPageSize = maxPageSize(cmd);
+            // Every request made at once gets a connection of its own, kept alive for the next one
+            int concurrency = concurrency(executorMode, numberOfWorkers, maxInFlight, fetchThreads);
+            Client client = HttpClients.create(connectionSettings(cmd, concurrency, maxPageSize));
+            int linkCheckMaxInFlight = linkCheckMaxInFlight(cmd);
+            int linkCheckConnectionsPerHost = linkCheckConnectionsPerHost(cmd);
+            Client linkCheckClient = checkLinks ? HttpClients.create(connectionSettings(cmd, linkCheckConnectionsPerHost, maxPageSize)) : null;
+            // Closed however the crawl ends, so that a frontier or page cache on disk is always forced
+            try (Frontier frontier = frontier(cmd); PageCache pageCache = pageCache(cmd)) {
+                ClusterSettings cluster = cluster(cmd);
+                CrawlConfiguration configuration = CrawlConfiguration.builder()
+                        .numberOfCrawlers(numberOfWorkers)
+                        .addExternalLinks(addExternalLinks)
+                        .executorMode(executorMode)
+                        .maxInFlight(maxInFlight)
+                        .fetchThreads(fetchThreads)
+                        .parseThreads(parseThreads(cmd))
+                        .stageQueueCapacity(stageQueueCapacity(cmd))
+                        .maxPageSize(maxPageSize)
+                        .pageCache(pageCache)
+                        .linkCheckClient(linkCheckClient)
+                        .linkCheckMaxInFlight(linkCheckMaxInFlight)
+                        .linkCheckConnectionsPerHost(linkCheckConnectionsPerHost)
+                        .maxPages(maxPages(cmd))
+                        .maxDepth(maxDepth(cmd))
+                        .maxPerPattern(maxPerPattern(cmd))
+                        .skipNearDuplicates(cmd.hasOption(SKIP_NEAR_DUPLICATES_OPTION))
+                        .respectRobots(!cmd.hasOption(IGNORE_ROBOTS_OPTION))
+                        .useSitemaps(cmd.hasOption(SITEMAPS_OPTION))
+                        .cluster(cluster)
+                        .checkpointDirectory(checkpointDirectory(cmd))
+                        .checkpointIntervalMillis(checkpointIntervalMillis(cmd))
+                        .build();
+                MonzoCrawlerOrchestrator monzoCrawlerOrchestrator = new MonzoCrawlerOrchestrator(client, url, frontier, configuration);
+
+                try {
+                    log.info("Crawling URL {} with {} workers using the {} executor", url, numberOfWorkers, executorMode.getOption());
+                    CrawlMetrics metrics = monzoCrawlerOrchestrator.getMetrics();
+                    metrics.registerMBean();
+                    Future<Graph> graphFuture = monzoCrawlerOrchestrator.initCrawlOperation();
+
+                    Graph graph;
+                    ProgressReporter progressReporter = ProgressReporter.start(metrics, progressInterval);
+                    try {
+                        graph = graphFuture.get();
+                    } finally {
+                        progressReporter.close();
+                    }
+                    log.info(metrics.progressLine());
+
+                    // Only the coordinator of a cluster ends up with the whole graph, every other node only keeps its metrics
+                    boolean isCoordinator = cluster == null || cluster.isCoordinator();
+                    if (isCoordinator) {
+                        BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(Files.newOutputStream(Paths.get(format.getFileName())));
+                        format.exporter().export(graph, bufferedOutputStream);
+                    }
+
+                    String metricsFileName = isCoordinator ? METRICS_FILE_NAME : String.format(NODE_METRICS_FILE_NAME, cluster.getNodeIndex());
+                    try (OutputStream metricsOutputStream = Files.newOutputStream(Paths.get(metricsFileName))) {
+                        metrics.writeSummary(metricsOutputStream);
+                    }
+
+                    log.info("Done.");
+                    if (isCoordinator) log.info("Output can be found in {}", format.getFileName());
+                    log.info("Crawl metrics can be found in {}", metricsFileName);
+                } finally {
+                    monzoCrawlerOrchestrator.shutdown();
+                }
+            } finally {
+                if (linkCheckClient != null) linkCheckClient.close();
+            }
+        } catch (ParseException e) {
+            log.debug("Error creating command line parser", e);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid option: {}", e.getMessage());
+        } catch (MalformedURLException e) {
+            log.error("URL given is malformed. Please do not include a trailing slash. Example:\nhttp://google.com");
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Crawling operation is interrupted");
+        } catch (IOException e) {
+            log.error("Application error: {}", e.getMessage());
+            log.debug("Application I/O failure", e);
+        }
+    }
+
+    private static int numberOfWorkers(CommandLine cmd) {
+        int numberOfWorkers = DEFAULT_NUMBER_OF_CRAWLERS;
+        if (cmd.hasOption(WORKERS_OPTION)) {
+            int workersInput = Integer.parseInt(cmd.getOptionValue(WORKERS_OPTION));
+            if (workersInput <= 0) throw new IllegalArgumentException("Invalid number of workers");
+            numberOfWorkers = workersInput;
+        }
+        return numberOfWorkers;
+    }
+
+    private static ExecutorMode executorMode(CommandLine cmd) {
+        if (!cmd.hasOption(EXECUTOR_OPTION)) return ExecutorMode.POOL;
+        return ExecutorMode.fromOption(cmd.getOptionValue(EXECUTOR_OPTION));
+    }
+
+    private static int maxInFlight(CommandLine cmd) {
+        int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        if (cmd.hasOption(MAX_IN_FLIGHT_OPTION)) {
+            int maxInFlightInput = Integer.parseInt(cmd.getOptionValue(MAX_IN_FLIGHT_OPTION));
+            if (maxInFlightInput <= 0) throw new IllegalArgumentException("Invalid number of requests in flight");
+            maxInFlight = maxInFlightInput;
+        }
+        return maxInFlight;
+    }
+
+    private static int progressInterval(CommandLine cmd) {
+        int progressInterval = DEFAULT_PROGRESS_INTERVAL;
+        if (cmd.hasOption(PROGRESS_INTERVAL_OPTION)) {
+            int progressIntervalInput = Integer.parseInt(cmd.getOptionValue(PROGRESS_INTERVAL_OPTION));
+            if (progressIntervalInput < 0) throw new IllegalArgumentException("Invalid progress interval");
+            progressInterval = progressIntervalInput;
+        }
+        return progressInterval;
+    }
+
+    private static ExportFormat format(CommandLine cmd) {
+        if (!cmd.hasOption(FORMAT_OPTION)) return ExportFormat.HTML;
+        return ExportFormat.fromOption(cmd.getOptionValue(FORMAT_OPTION));
+    }
+
+    private static Frontier frontier(CommandLine cmd) throws IOException {
+        boolean isPolite = cmd.hasOption(HOST_RATE_OPTION) || cmd.hasOption(HOST_CONNECTIONS_OPTION);
+        boolean isPrioritised = cmd.hasOption(PRIORITY_OPTION) || cmd.hasOption(MAX_QUEUED_OPTION) || cmd.hasOption(PATH_WEIGHT_OPTION);
+
+        if (cmd.hasOption(FRONTIER_DIRECTORY_OPTION)) {
+            if (isPolite) throw new IllegalArgumentException("A frontier directory cannot be used with per-host limits");
+            if (isPrioritised) throw new IllegalArgumentException("A frontier directory cannot be used with priorities");
+            return new DiskFrontier(Paths.get(cmd.getOptionValue(FRONTIER_DIRECTORY_OPTION)));
+        }
+
+        if (isPrioritised) {
+            if (isPolite) throw new IllegalArgumentException("Priorities cannot be used with per-host limits");
+            return priorityFrontier(cmd);
+        }
+
+        if (!isPolite) return new ConcurrentFrontier();
+
+        double requestsPerSecond = Double.POSITIVE_INFINITY;
+        if (cmd.hasOption(HOST_RATE_OPTION)) {
+            requestsPerSecond = Double.parseDouble(cmd.getOptionValue(HOST_RATE_OPTION));
+            if (!(requestsPerSecond > 0)) throw new IllegalArgumentException("Invalid number of requests per second");
+        }
+
+        int maxConnectionsPerHost = Integer.MAX_VALUE;
+        if (cmd.hasOption(HOST_CONNECTIONS_OPTION)) {
+            maxConnectionsPerHost = Integer.parseInt(cmd.getOptionValue(HOST_CONNECTIONS_OPTION));
+            if (maxConnectionsPerHost <= 0) throw new IllegalArgumentException("Invalid number of connections per host");
+        }
+
+        return new PoliteFrontier(requestsPerSecond, maxConnectionsPerHost);
+    }
+
+    private static Frontier priorityFrontier(CommandLine cmd) {
+        int maxQueued = cmd.hasOption(MAX_QUEUED_OPTION)
+                ? positive(cmd, MAX_QUEUED_OPTION, "Invalid maximum number of queued URLs")
+                : PriorityFrontier.DEFAULT_MAX_SIZE;
+
+        List<PriorityFrontier.PathWeight> pathWeights = new ArrayList<>();
+        if (cmd.hasOption(PATH_WEIGHT_OPTION)) {
+            for (String pathWeight : cmd.getOptionValues(PATH_WEIGHT_OPTION)) pathWeights.add(PriorityFrontier.PathWeight.parse(pathWeight));
+        }
+
+        return new PriorityFrontier(maxQueued, pathWeights);
+    }
+
+    private static int fetchThreads(CommandLine cmd) {
+        if (!cmd.hasOption(FETCHERS_OPTION)) return PipelinedMonzoCrawler.DEFAULT_FETCH_THREADS;
+        return positive(cmd, FETCHERS_OPTION, "Invalid number of fetch threads");
+    }
+
+    private static int parseThreads(CommandLine cmd) {
+        if (!cmd.hasOption(PARSERS_OPTION)) return Runtime.getRuntime().availableProcessors();
+        return positive(cmd, PARSERS_OPTION, "Invalid number of parse threads");
+    }
+
+    private static int stageQueueCapacity(CommandLine cmd) {
+        if (!cmd.hasOption(STAGE_QUEUE_OPTION)) return PipelinedMonzoCrawler.DEFAULT_QUEUE_CAPACITY;
+        return positive(cmd, STAGE_QUEUE_OPTION, "Invalid stage queue capacity");
+    }
+
+    private static int concurrency(ExecutorMode executorMode, int numberOfWorkers, int maxInFlight, int fetchThreads) {
+        switch (executorMode) {
+            case POOL:
+                return numberOfWorkers;
+            case PIPELINE:
+                return fetchThreads;
+            default:
+                return maxInFlight;
+        }
+    }
+
+    private static int maxPages(CommandLine cmd) {
+        if (!cmd.hasOption(MAX_PAGES_OPTION)) return Integer.MAX_VALUE;
+        return positive(cmd, MAX_PAGES_OPTION, "Invalid maximum number of pages");
+    }
+
+    private static int maxDepth(CommandLine cmd) {
+        if (!cmd.hasOption(MAX_DEPTH_OPTION)) return Integer.MAX_VALUE;
+
+        int maxDepth = Integer.parseInt(cmd.getOptionValue(MAX_DEPTH_OPTION));
+        if (maxDepth < 0) throw new IllegalArgumentException("Invalid maximum depth");
+        return maxDepth;
+    }
+
+    private static int maxPerPattern(CommandLine cmd) {
+        if (!cmd.hasOption(MAX_PER_PATTERN_OPTION)) return Integer.MAX_VALUE;
+        return positive(cmd, MAX_PER_PATTERN_OPTION, "Invalid maximum number of URLs per pattern");
+    }
+
+    private static PageCache pageCache(CommandLine cmd) throws IOException {
+        if (!cmd.hasOption(PAGE_CACHE_OPTION)) return PageCache.NONE;
+        return new DiskPageCache(Paths.get(cmd.getOptionValue(PAGE_CACHE_OPTION)));
+    }
+
+    private static int maxPageSize(CommandLine cmd) {
+        if (!cmd.hasOption(MAX_PAGE_SIZE_OPTION)) return CrawlConfiguration.DEFAULT_MAX_PAGE_SIZE;
+        return positive(cmd, MAX_PAGE_SIZE_OPTION, "Invalid maximum page size");
+    }
+
+    private static int linkCheckMaxInFlight(CommandLine cmd) {
+        if (!cmd.hasOption(LINK_CHECK_IN_FLIGHT_OPTION)) return ExternalLinkChecker.DEFAULT_MAX_IN_FLIGHT;
+        return positive(cmd, LINK_CHECK_IN_FLIGHT_OPTION, "Invalid number of link checks in flight");
+    }
+
+    private static int linkCheckConnectionsPerHost(CommandLine cmd) {
+        if (!cmd.hasOption(LINK_CHECK_HOST_CONNECTIONS_OPTION)) return ExternalLinkChecker.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        return positive(cmd, LINK_CHECK_HOST_CONNECTIONS_OPTION, "Invalid number of link checks per host");
+    }
+
+    private static Path checkpointDirectory(CommandLine cmd) throws IOException {
+        boolean isResuming = cmd.hasOption(RESUME_OPTION);
+        if (!isResuming && !cmd.hasOption(CHECKPOINT_DIRECTORY_OPTION)) {
+            if (cmd.hasOption(CHECKPOINT_INTERVAL_OPTION)) throw new IllegalArgumentException("--checkpoint-interval needs --checkpoint-dir or --resume");
+            return null;
+        }
+
+        // A resumed crawl carries on checkpointing to the directory it was resumed from
+        if (isResuming && cmd.hasOption(CHECKPOINT_DIRECTORY_OPTION)) throw new IllegalArgumentException("--resume cannot be used with --checkpoint-dir");
+        if (cmd.hasOption(CLUSTER_OPTION)) throw new IllegalArgumentException("A checkpoint cannot be used with a cluster");
+
+        Path directory = Paths.get(cmd.getOptionValue(isResuming ? RESUME_OPTION : CHECKPOINT_DIRECTORY_OPTION));
+        boolean exists = CrawlCheckpoint.exists(directory);
+        if (isResuming && !exists) throw new IllegalArgumentException(String.format("There is no checkpoint in %s to resume", directory));
+        if (!isResuming && exists) throw new IllegalArgumentException(String.format("%s already has a checkpoint in it, use --resume to carry on from it", directory));
+        return directory;
+    }
+
+    private static long checkpointIntervalMillis(CommandLine cmd) {
+        if (!cmd.hasOption(CHECKPOINT_INTERVAL_OPTION)) return CrawlCheckpoint.DEFAULT_INTERVAL_MILLIS;
+        return TimeUnit.SECONDS.toMillis(positive(cmd, CHECKPOINT_INTERVAL_OPTION, "Invalid checkpoint interval"));
+    }
+
+    private static ClusterSettings cluster(CommandLine cmd) {
+        if (!cmd.hasOption(CLUSTER_OPTION)) {
+            if (cmd.hasOption(CLUSTER_NODE_OPTION)) throw new IllegalArgumentException("--cluster-node needs --cluster");
+            return null;
+        }
+
+        List<InetSocketAddress> nodes = ClusterSettings.parseNodes(cmd.getOptionValue(CLUSTER_OPTION));
+        int nodeIndex = cmd.hasOption(CLUSTER_NODE_OPTION) ? Integer.parseInt(cmd.getOptionValue(CLUSTER_NODE_OPTION)) : 0;
+        if (nodeIndex < 0 || nodeIndex >= nodes.size()) throw new IllegalArgumentException("Invalid cluster node index");
+
+        return ClusterSettings.builder()
+                .nodes(nodes)
+                .nodeIndex(nodeIndex)
+                .build();
+    }
+
+    private static ConnectionSettings connectionSettings(CommandLine cmd, int concurrency, int maxPageSize) {
+        ConnectionSettings.ConnectionSettingsBuilder settings = ConnectionSettings.builder()
+                .connectionPoolSize(concurrency)
+                .maxBodySize(maxPageSize)
+                .http2(!cmd.hasOption(HTTP1_OPTION))
+                .compression(!cmd.hasOption(NO_COMPRESSION_OPTION));
+
+        if (cmd.hasOption(CONNECTOR_OPTION)) settings.connectorType(ConnectorType.fromOption(cmd.getOptionValue(CONNECTOR_OPTION)));
+        if (cmd.hasOption(CONNECT_TIMEOUT_OPTION)) settings.connectTimeoutMillis(positive(cmd, CONNECT_TIMEOUT_OPTION, "Invalid connect timeout"));
+        if (cmd.hasOption(READ_TIMEOUT_OPTION)) settings.readTimeoutMillis(positive(cmd, READ_TIMEOUT_OPTION, "Invalid read timeout"));
+        if (cmd.hasOption(CONNECTION_POOL_OPTION)) settings.connectionPoolSize(positive(cmd, CONNECTION_POOL_OPTION, "Invalid connection pool size"));
+        if (cmd.hasOption(KEEP_ALIVE_OPTION)) settings.keepAliveSeconds(positive(cmd, KEEP_ALIVE_OPTION, "Invalid keep-alive time"));
+
+        return settings.build();
+    }
+
+    private static int positive(CommandLine cmd, String option, String message) {
+        int value = Integer.parseInt(cmd.getOptionValue(option));
+        if (value <= 0) throw new IllegalArgumentException(message);
+        return value;
+    }
+
+    private static void printHelp(Options options) {
+        HelpFormatter helpFormatter = new HelpFormatter();
+        helpFormatter.printHelp("Monzo Webcrawler", options);
+        System.exit(0);
+    }
+
+    private static Option numberOfWorkersOption() {
+        return Option.builder()
+                .argName("numberOfWorkers")
+                .hasArg(true)
+                .longOpt(WORKERS_OPTION)
+                .desc("The number of crawler workers to instantiate")
+                .build();
+    }
+
+    private static Option helpOption() {
+        return Option.builder()
+                .longOpt(HELP_OPTION)
+                .desc("Print command line options")
+                .build();
+    }
+
+    private static Option idleTimeOption() {
+        return Option.builder()
+                .argName("idleTime")
+                .hasArg(true)
+                .longOpt(IDLE_TIME_OPTION)
+                .desc("No longer used: a crawl now ends as soon as the last page has been crawled")
+                .build();
+    }
+
+    private static Option executorOption() {
+        return Option.builder()
+                .argName("executor")
+                .hasArg(true)
+                .longOpt(EXECUTOR_OPTION)
+                .desc(String.format("How crawlers are run, one of: %s (default: %s)", ExecutorMode.options(), ExecutorMode.POOL.getOption()))
+                .build();
+    }
+
+    private static Option maxInFlightOption() {
+        return Option.builder()
+                .argName("maxInFlight")
+                .hasArg(true)
+                .longOpt(MAX_IN_FLIGHT_OPTION)
+                .desc("The maximum number of requests in flight at once with the async or virtual executor")
+                .build();
+    }
+
+    private static Option fetchersOption() {
+        return Option.builder()
+                .argName("threads")
+                .hasArg(true)
+                .longOpt(FETCHERS_OPTION)
+                .desc(String.format("The number of threads fetching pages with the pipeline executor (default: %d)", PipelinedMonzoCrawler.DEFAULT_FETCH_THREADS))
+                .build();
+    }
+
+    private static Option parsersOption() {
+        return Option.builder()
+                .argName("threads")
+                .hasArg(true)
+                .longOpt(PARSERS_OPTION)
+                .desc("The number of threads parsing pages with the pipeline executor (default: the number of cores)")
+                .build();
+    }
+
+    private static Option stageQueueOption() {
+        return Option.builder()
+                .argName("pages")
+                .hasArg(true)
+                .longOpt(STAGE_QUEUE_OPTION)
+                .desc(String.format("The most pages waiting between stages of the pipeline executor, beyond which fetching waits for parsing (default: %d)", PipelinedMonzoCrawler.DEFAULT_QUEUE_CAPACITY))
+                .build();
+    }
+
+    private static Option hostRateOption() {
+        return Option.builder()
+                .argName("requestsPerSecond")
+                .hasArg(true)
+                .longOpt(HOST_RATE_OPTION)
+                .desc("The maximum number of requests per second to send to each host")
+                .build();
+    }
+
+    private static Option hostConnectionsOption() {
+        return Option.builder()
+                .argName("connections")
+                .hasArg(true)
+                .longOpt(HOST_CONNECTIONS_OPTION)
+                .desc("The maximum number of requests in flight at once to each host")
+                .build();
+    }
+
+    private static Option frontierDirectoryOption() {
+        return Option.builder()
+                .argName("directory")
+                .hasArg(true)
+                .longOpt(FRONTIER_DIRECTORY_OPTION)
+                .desc("Keeps the frontier on disk in the given directory, which must not hold the frontier of an earlier crawl")
+                .build();
+    }
+
+    private static Option checkpointDirectoryOption() {
+        return Option.builder()
+                .argName("directory")
+                .hasArg(true)
+                .longOpt(CHECKPOINT_DIRECTORY_OPTION)
+                .desc("Checkpoints the crawl to the given directory while it runs, so that it can be resumed with --resume")
+                .build();
+    }
+
+    private static Option checkpointIntervalOption() {
+        return Option.builder()
+                .argName("seconds")
+                .hasArg(true)
+                .longOpt(CHECKPOINT_INTERVAL_OPTION)
+                .desc(String.format("How often to checkpoint the crawl (default: %d)", TimeUnit.MILLISECONDS.toSeconds(CrawlCheckpoint.DEFAULT_INTERVAL_MILLIS)))
+                .build();
+    }
+
+    private static Option resumeOption() {
+        return Option.builder()
+                .argName("directory")
+                .hasArg(true)
+                .longOpt(RESUME_OPTION)
+                .desc("Resumes the crawl checkpointed to the given directory from its last checkpoint, and carries on checkpointing to it")
+                .build();
+    }
+
+    private static Option priorityOption() {
+        return Option.builder()
+                .longOpt(PRIORITY_OPTION)
+                .hasArg(false)
+                .desc("Crawls the URLs closest to the root and most linked to first, rather than in the order they were found")
+                .build();
+    }
+
+    private static Option maxQueuedOption() {
+        return Option.builder()
+                .argName("urls")
+                .hasArg(true)
+                .longOpt(MAX_QUEUED_OPTION)
+                .desc(String.format("The most URLs queued at once, dropping the least important beyond that (implies --priority, default: %d)", PriorityFrontier.DEFAULT_MAX_SIZE))
+                .build();
+    }
+
+    private static Option pathWeightOption() {
+        return Option.builder()
+                .argName("pattern=weight")
+                .hasArg(true)
+                .longOpt(PATH_WEIGHT_OPTION)
+                .desc("Multiplies the priority of URLs whose path matches the pattern by the weight, e.g. '/page/\\d+=0.1' (implies --priority, can be repeated, the first match applies)")
+                .build();
+    }
+
+    private static Option maxPagesOption() {
+        return Option.builder()
+                .argName("pages")
+                .hasArg(true)
+                .longOpt(MAX_PAGES_OPTION)
+                .desc("The most pages to crawl, including the root (on each node of a cluster)")
+                .build();
+    }
+
+    private static Option maxDepthOption() {
+        return Option.builder()
+                .argName("links")
+                .hasArg(true)
+                .longOpt(MAX_DEPTH_OPTION)
+                .desc("The most links away from the root a page can be to be crawled")
+                .build();
+    }
+
+    private static Option maxPerPatternOption() {
+        return Option.builder()
+                .argName("urls")
+                .hasArg(true)
+                .longOpt(MAX_PER_PATTERN_OPTION)
+                .desc("The most URLs of the same shape to crawl, numbers and query values aside, e.g. /calendar/#/#?day (on each node of a cluster)")
+                .build();
+    }
+
+    private static Option skipNearDuplicatesOption() {
+        return Option.builder()
+                .longOpt(SKIP_NEAR_DUPLICATES_OPTION)
+                .hasArg(false)
+                .desc("Does not follow the links of pages whose text is almost the same as that of a page already crawled")
+                .build();
+    }
+
+    private static Option ignoreRobotsOption() {
+        return Option.builder()
+                .longOpt(IGNORE_ROBOTS_OPTION)
+                .hasArg(false)
+                .desc("Crawls the paths robots.txt disallows too")
+                .build();
+    }
+
+    private static Option sitemapsOption() {
+        return Option.builder()
+                .longOpt(SITEMAPS_OPTION)
+                .hasArg(false)
+                .desc("Queues every page listed in the sitemaps robots.txt names, or in /sitemap.xml, before crawling")
+                .build();
+    }
+
+    private static Option formatOption() {
+        return Option.builder()
+                .argName("format")
+                .hasArg(true)
+                .longOpt(FORMAT_OPTION)
+                .desc(String.format("The format of the output graph, one of: %s (default: %s)", ExportFormat.options(), ExportFormat.HTML.getOption()))
+                .build();
+    }
+
+    private static Option pageCacheOption() {
+        return Option.builder()
+                .argName("directory")
+                .hasArg(true)
+                .longOpt(PAGE_CACHE_OPTION)
+                .desc("Remembers pages in the given directory, so that a later crawl only downloads pages that changed")
+                .build();
+    }
+
+    private static Option maxPageSizeOption() {
+        return Option.builder()
+                .argName("bytes")
+                .hasArg(true)
+                .longOpt(MAX_PAGE_SIZE_OPTION)
+                .desc(String.format("Pages larger than this are not parsed (default: %d)", CrawlConfiguration.DEFAULT_MAX_PAGE_SIZE))
+                .build();
+    }
+
+    private static Option checkLinksOption() {
+        return Option.builder()
+                .longOpt(CHECK_LINKS_OPTION)
+                .hasArg(false)
+                .desc("Checks every external link once with a HEAD request and records its status on the edges to it (implies --external)")
+                .build();
+    }
+
+    private static Option linkCheckInFlightOption() {
+        return Option.builder()
+                .argName("checks")
+                .hasArg(true)
+                .longOpt(LINK_CHECK_IN_FLIGHT_OPTION)
+                .desc(String.format("The maximum number of external links checked at once (default: %d)", ExternalLinkChecker.DEFAULT_MAX_IN_FLIGHT))
+                .build();
+    }
+
+    private static Option linkCheckHostConnectionsOption() {
+        return Option.builder()
+                .argName("checks")
+                .hasArg(true)
+                .longOpt(LINK_CHECK_HOST_CONNECTIONS_OPTION)
+                .desc(String.format("The maximum number of external links checked at once on each host (default: %d)", ExternalLinkChecker.DEFAULT_MAX_CONNECTIONS_PER_HOST))
+                .build();
+    }
+
+    private static Option clusterOption() {
+        return Option.builder()
+                .argName("host:port,...")
+                .hasArg(true)
+                .longOpt(CLUSTER_OPTION)
+                .desc("Crawls as one node of a cluster, given the address of every node in the same order on every node")
+                .build();
+    }
+
+    private static Option clusterNodeOption() {
+        return Option.builder()
+                .argName("index")
+                .hasArg(true)
+                .longOpt(CLUSTER_NODE_OPTION)
+                .desc("The index of this node in --cluster, where node 0 coordinates the crawl and writes the output (default: 0)")
+                .build();
+    }
+
+    private static Option progressIntervalOption() {
+        return Option.builder()
+                .argName("seconds")
+                .hasArg(true)
+                .longOpt(PROGRESS_INTERVAL_OPTION)
+                .desc(String.format("How often to log the progress of the crawl, or 0 to never log it (default: %d)", DEFAULT_PROGRESS_INTERVAL))
+                .build();
+    }
+
+    private static Option connectorOption() {
+        return Option.builder()
+                .argName("connector")
+                .hasArg(true)
+                .longOpt(CONNECTOR_OPTION)
+                .desc(String.format("The HTTP client to connect with, one of: %s (default: %s)", ConnectorType.options(), ConnectorType.JDK.getOption()))
+                .build();
+    }
+
+    private static Option connectTimeoutOption() {
+        return Option.builder()
+                .argName("millis")
+                .hasArg(true)
+                .longOpt(CONNECT_TIMEOUT_OPTION)
+                .desc(String.format("How long to wait for a connection to open (default: %d)", ConnectionSettings.DEFAULT_CONNECT_TIMEOUT_MILLIS))
+                .build();
+    }
+
+    private static Option readTimeoutOption() {
+        return Option.builder()
+                .argName("millis")
+                .hasArg(true)
+                .longOpt(READ_TIMEOUT_OPTION)
+                .desc(String.format("How long to wait for a response (default: %d)", ConnectionSettings.DEFAULT_READ_TIMEOUT_MILLIS))
+                .build();
+    }
+
+    private static Option connectionPoolOption() {
+        return Option.builder()
+                .argName("connections")
+                .hasArg(true)
+                .longOpt(CONNECTION_POOL_OPTION)
+                .desc("The number of connections kept alive per host (default: the number of workers, or --max-in-flight with the async or virtual executor)")
+                .build();
+    }
+
+    private static Option keepAliveOption() {
+        return Option.builder()
+                .argName("seconds")
+                .hasArg(true)
+                .longOpt(KEEP_ALIVE_OPTION)
+                .desc(String.format("How long to keep idle connections alive (default: %d)", ConnectionSettings.DEFAULT_KEEP_ALIVE_SECONDS))
+                .build();
+    }
+
+    private static Option http1Option() {
+        return Option.builder()
+                .longOpt(HTTP1_OPTION)
+                .hasArg(false)
+                .desc("Only speaks HTTP/1.1, rather than HTTP/2 with servers that support it (jdk connector only)")
+                .build();
+    }
+
+    private static Option noCompressionOption() {
+        return Option.builder()
+                .longOpt(NO_COMPRESSION_OPTION)
+                .hasArg(false)
+                .desc("Does not ask for gzip or deflate compressed responses")
+                .build();
+    }
+
+    private static Option addExternalLinksOption() {
+        return Option.builder()
+                .longOpt(EXTERNAL_LINKS_OPTION)
+                .hasArg(false)
+                .desc("Adds external links to the output")
+                .build();
+    }
+
+}
@@ -0,0 +1,47 @@
+package com.williamheng.monzocrawler;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.williamheng.monzocrawler.model.Graph;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes every link as a JSON object on its own line, e.g.
+ *
+ * {"source":"/","target":"/page2"}
+ *
+ * Links that were checked also carry the status they answered with, e.g.
+ *
+ * {"source":"/","target":"http://example.com/","status":404}
+ */
+public class NdjsonGraphExporter implements GraphExporter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public void export(Graph graph, OutputStream outputStream) throws IOException {
+        graph.compact();
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+
+            boolean hasLinks = false;
+            for (int source = 0; source < graph.numberOfIds(); source++) {
+                for (int i = 0; i < graph.degree(source); i++) {
+                    hasLinks = true;
+                    generator.writeStartObject();
+                    generator.writeStringField("source", graph.id(source));
+                    int target = graph.target(source, i);
+                    generator.writeStringField("target", graph.id(target));
+                    int status = graph.linkStatus(target);
+                    if (status != Graph.UNCHECKED) generator.writeNumberField("status", status);
+                    generator.writeEndObject();
+                }
+            }
+            if (hasLinks) generator.writeRaw('\n');
+        }
+    }
+}
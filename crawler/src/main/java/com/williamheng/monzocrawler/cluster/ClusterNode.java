@@ -0,0 +1,327 @@
+package com.williamheng.monzocrawler.cluster;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.williamheng.monzocrawler.crawler.CrawlTracker;
+import com.williamheng.monzocrawler.crawler.Frontier;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One node of a crawl spread over several processes, each crawling the URLs in its own partition of the URL space.
+ *
+ * How it works:
+ *
+ * 1. Every node knows the address of every other node, and owns the URLs that the {@link Partitioner} assigns to it
+ * 2. Links owned by other nodes are batched and sent to their owner by a {@link LinkForwarder}, and the owner admits
+ *    them to its own frontier
+ * 3. A node holds its {@link CrawlTracker} open until it is told to stop, so that a node that runs out of work keeps
+ *    waiting for links from the others
+ * 4. The coordinator (the first node) polls every node for whether it is idle and how many links it has sent and
+ *    received. Once every node is idle and as many links have been received as were sent, twice in a row with no
+ *    change in between, no link can still be on its way and the coordinator tells every node to stop
+ * 5. Once its crawl is over, every other node serves its partial graph, and the coordinator merges them into its own
+ *
+ * Nodes talk plain HTTP: POST /links (the depth and URL of a link per line), GET /status, POST /stop and GET /graph.
+ */
+@Slf4j
+public class ClusterNode implements Closeable {
+
+    private static final long POLL_INTERVAL_MILLIS = 200;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(5);
+    private static final long GRAPH_COLLECTION_TIMEOUT_MINUTES = 30;
+
+    private final ClusterSettings settings;
+    private final Partitioner partitioner;
+    private final List<URI> nodeURIs = new ArrayList<>();
+    private final LinkForwarder forwarder;
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(REQUEST_TIMEOUT).build();
+    private final ExecutorService serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong receivedLinks = new AtomicLong();
+    private final AtomicBoolean isStopped = new AtomicBoolean();
+    private final CountDownLatch graphReady = new CountDownLatch(1);
+    private final CountDownLatch graphCollected = new CountDownLatch(1);
+
+    private volatile Frontier localFrontier;
+    private volatile CrawlTracker tracker;
+    private volatile Graph graph;
+    private HttpServer server;
+    private Thread coordinator;
+
+    public ClusterNode(ClusterSettings settings) {
+        int numberOfNodes = settings.getNodes().size();
+        if (settings.getNodeIndex() < 0 || settings.getNodeIndex() >= numberOfNodes) {
+            throw new IllegalArgumentException("Invalid cluster node index");
+        }
+
+        this.settings = settings;
+        this.partitioner = new Partitioner(numberOfNodes);
+        for (InetSocketAddress node : settings.getNodes()) {
+            nodeURIs.add(URI.create(String.format("http://%s:%d", node.getHostString(), node.getPort())));
+        }
+
+        List<URI> linkEndpoints = new ArrayList<>();
+        for (URI nodeURI : nodeURIs) linkEndpoints.add(nodeURI.resolve("/links"));
+        this.forwarder = new LinkForwarder(linkEndpoints, settings.getBatchSize(), settings.getFlushIntervalMillis());
+    }
+
+    public boolean isCoordinator() {
+        return settings.isCoordinator();
+    }
+
+    public int getNodeIndex() {
+        return settings.getNodeIndex();
+    }
+
+    /**
+     * @return a frontier that admits the resources this node owns to the local frontier and forwards the rest
+     */
+    public Frontier partition(Frontier local) {
+        this.localFrontier = local;
+        return new PartitionedFrontier(local, this);
+    }
+
+    public boolean owns(Resource resource) {
+        return partitioner.owner(resource.getUrl()) == settings.getNodeIndex();
+    }
+
+    void forward(Resource resource) {
+        forwarder.forward(partitioner.owner(resource.getUrl()), resource.getDepth() + " " + resource.getUrl());
+    }
+
+    /**
+     * Starts the tracker and takes part in the cluster, holding the tracker open until the coordinator says the crawl
+     * is over, so that a node with nothing to crawl yet does not finish at once.
+     *
+     * @param queuedResources the number of resources already in the local frontier
+     */
+    public void start(CrawlTracker tracker, long queuedResources) throws IOException {
+        if (localFrontier == null) throw new IllegalStateException("The frontier has not been partitioned");
+
+        this.tracker = tracker;
+        tracker.start(queuedResources + 1);
+
+        server = HttpServer.create(new InetSocketAddress(settings.getNodes().get(settings.getNodeIndex()).getPort()), 0);
+        server.createContext("/links", this::receiveLinks);
+        server.createContext("/status", this::serveStatus);
+        server.createContext("/stop", this::serveStop);
+        server.createContext("/graph", this::serveGraph);
+        server.setExecutor(serverExecutor);
+        server.start();
+        forwarder.start();
+
+        if (isCoordinator()) {
+            coordinator = new Thread(this::coordinate, "cluster-coordinator");
+            coordinator.setDaemon(true);
+            coordinator.start();
+        }
+        log.info("Node {} of {} listening on port {}", settings.getNodeIndex(), nodeURIs.size(), server.getAddress().getPort());
+    }
+
+    /**
+     * Called once this node's crawl is over. The coordinator merges the graphs of every other node into its own, and
+     * every other node waits for the coordinator to collect its graph.
+     */
+    public void finish(Graph graph) throws IOException, InterruptedException {
+        this.graph = graph;
+        graphReady.countDown();
+
+        if (!isCoordinator()) {
+            if (!graphCollected.await(GRAPH_COLLECTION_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                log.error("The coordinator never collected the graph of node {}", settings.getNodeIndex());
+            }
+            return;
+        }
+
+        for (int node = 0; node < nodeURIs.size(); node++) {
+            if (node == settings.getNodeIndex()) continue;
+
+            HttpRequest request = HttpRequest.newBuilder(nodeURIs.get(node).resolve("/graph")).GET().build();
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) throw new IOException(String.format("Node %d answered %d for its graph", node, response.statusCode()));
+
+            try (InputStream body = response.body()) {
+                GraphTransfer.read(graph, body);
+            }
+            log.info("Merged the graph of node {}", node);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (coordinator != null) coordinator.interrupt();
+        forwarder.close();
+        if (server != null) server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private void receiveLinks(HttpExchange exchange) throws IOException {
+        long links = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isEmpty()) continue;
+                links++;
+                try {
+                    int space = line.indexOf(' ');
+                    CanonicalUrl url = CanonicalUrl.parse(line.substring(space + 1));
+                    int depth = Integer.parseInt(line.substring(0, space));
+                    if (localFrontier.add(new Resource(url, url.toURL().getPath(), depth))) {
+                        tracker.admitted();
+                        tracker.withdrawn(localFrontier.drainEvicted());
+                    }
+                } catch (MalformedURLException | NumberFormatException | IndexOutOfBoundsException e) {
+                    log.warn("Ignoring a malformed link={} from another node", line);
+                }
+            }
+        }
+
+        // Only counted once admitted, so that the links are tracked before the coordinator can see them as received
+        receivedLinks.addAndGet(links);
+        respond(exchange, 204, null);
+    }
+
+    private void serveStatus(HttpExchange exchange) throws IOException {
+        respond(exchange, 200, status().toString());
+    }
+
+    private void serveStop(HttpExchange exchange) throws IOException {
+        stop();
+        respond(exchange, 204, null);
+    }
+
+    private void serveGraph(HttpExchange exchange) throws IOException {
+        try {
+            if (!graphReady.await(GRAPH_COLLECTION_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                respond(exchange, 503, "The crawl has not finished");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "Interrupted");
+            return;
+        }
+
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream body = exchange.getResponseBody()) {
+            GraphTransfer.write(graph, body);
+        }
+        graphCollected.countDown();
+    }
+
+    private void stop() {
+        if (isStopped.compareAndSet(false, true)) {
+            log.info("Node {} stopping", settings.getNodeIndex());
+            tracker.crawled();
+        }
+    }
+
+    private NodeStatus status() {
+        // The only resource left pending is the one that holds the tracker open
+        boolean isIdle = tracker.pendingResources() <= 1 && forwarder.isIdle();
+        return new NodeStatus(isIdle, forwarder.sentLinks(), receivedLinks.get());
+    }
+
+    private void coordinate() {
+        NodeStatus previous = null;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+
+                NodeStatus total = totalStatus();
+                if (total == null || !total.isIdle() || total.getSent() != total.getReceived()) {
+                    previous = null;
+                    continue;
+                }
+
+                if (total.equals(previous)) break;
+                previous = total;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        log.info("Every node is idle, stopping the cluster");
+        for (int node = 0; node < nodeURIs.size(); node++) {
+            if (node != settings.getNodeIndex()) send(node, HttpRequest.newBuilder(nodeURIs.get(node).resolve("/stop")).POST(HttpRequest.BodyPublishers.noBody()));
+        }
+        stop();
+    }
+
+    /**
+     * @return the status of the whole cluster, or null if a node could not be asked
+     */
+    private NodeStatus totalStatus() {
+        boolean isIdle = true;
+        long sent = 0;
+        long received = 0;
+        for (int node = 0; node < nodeURIs.size(); node++) {
+            NodeStatus status;
+            if (node == settings.getNodeIndex()) {
+                status = status();
+            } else {
+                String body = send(node, HttpRequest.newBuilder(nodeURIs.get(node).resolve("/status")).GET());
+                if (body == null) return null;
+                status = NodeStatus.parse(body);
+            }
+
+            isIdle &= status.isIdle();
+            sent += status.getSent();
+            received += status.getReceived();
+        }
+        return new NodeStatus(isIdle, sent, received);
+    }
+
+    private String send(int node, HttpRequest.Builder request) {
+        try {
+            HttpResponse<String> response = httpClient.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() / 100 == 2 ? response.body() : null;
+        } catch (IOException e) {
+            log.debug("Unable to reach node {}", node, e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
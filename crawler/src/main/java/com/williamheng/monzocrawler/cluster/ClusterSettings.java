@@ -0,0 +1,59 @@
+package com.williamheng.monzocrawler.cluster;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the nodes of a cluster are, and which of them this one is.
+ */
+@Value
+@Builder
+public class ClusterSettings {
+
+    public static final int DEFAULT_BATCH_SIZE = 512;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+
+    // Every node of the cluster, listed in the same order on every node
+    @NonNull
+    private final List<InetSocketAddress> nodes;
+
+    private final int nodeIndex;
+
+    // The most links sent to another node at once, and how often links waiting to be sent are sent
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    /**
+     * @return true if this is the node that decides when the crawl is over and merges the graph
+     */
+    public boolean isCoordinator() {
+        return nodeIndex == 0;
+    }
+
+    /**
+     * @param nodes a comma-separated list of host:port addresses, e.g. "localhost:9001,localhost:9002"
+     */
+    public static List<InetSocketAddress> parseNodes(String nodes) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String node : nodes.split(",")) {
+            int colon = node.lastIndexOf(':');
+            if (colon <= 0) throw new IllegalArgumentException(String.format("Invalid cluster node %s", node));
+            try {
+                addresses.add(InetSocketAddress.createUnresolved(node.substring(0, colon).trim(), Integer.parseInt(node.substring(colon + 1).trim())));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Invalid cluster node %s", node));
+            }
+        }
+        return addresses;
+    }
+
+    public static class ClusterSettingsBuilder {
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+    }
+}
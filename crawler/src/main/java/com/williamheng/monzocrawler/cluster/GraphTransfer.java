@@ -0,0 +1,82 @@
+package com.williamheng.monzocrawler.cluster;
+
+import com.williamheng.monzocrawler.model.Graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends a partial graph from one node of a cluster to another, which merges it into its own.
+ *
+ * The stream holds every crawled vertex (its degree, its id and the id of every target) and then the status of every
+ * checked link. Every record is preceded by true and each list ends with false. Strings are written as their length
+ * and UTF-8 bytes.
+ */
+class GraphTransfer {
+
+    static void write(Graph graph, OutputStream outputStream) throws IOException {
+        graph.compact();
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+        for (int id = 0; id < graph.numberOfIds(); id++) {
+            if (!graph.isVertex(id)) continue;
+
+            int degree = graph.degree(id);
+            output.writeBoolean(true);
+            output.writeInt(degree);
+            writeString(output, graph.id(id));
+            for (int i = 0; i < degree; i++) writeString(output, graph.id(graph.target(id, i)));
+        }
+        output.writeBoolean(false);
+
+        for (int id = 0; id < graph.numberOfIds(); id++) {
+            int status = graph.linkStatus(id);
+            if (status == Graph.UNCHECKED) continue;
+
+            output.writeBoolean(true);
+            output.writeInt(status);
+            writeString(output, graph.id(id));
+        }
+        output.writeBoolean(false);
+        output.flush();
+    }
+
+    /**
+     * Adds every vertex and link status in the stream to the graph.
+     */
+    static void read(Graph graph, InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+        while (input.readBoolean()) {
+            int degree = input.readInt();
+            String id = readString(input);
+            List<String> links = new ArrayList<>(degree);
+            for (int i = 0; i < degree; i++) links.add(readString(input));
+            graph.addVertex(id, links);
+        }
+
+        while (input.readBoolean()) {
+            int status = input.readInt();
+            graph.setLinkStatus(readString(input), status);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
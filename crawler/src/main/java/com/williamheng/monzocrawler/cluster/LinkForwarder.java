@@ -0,0 +1,134 @@
+package com.williamheng.monzocrawler.cluster;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends links found on this node to the nodes that own them, in batches.
+ *
+ * How it works:
+ *
+ * 1. Crawlers only ever add a link to the queue of the node that owns it
+ * 2. A single thread sends every queue in batches of up to the batch size, as one POST of one link per line, at a fixed
+ *    interval
+ * 3. A node that cannot be reached, e.g. because it has not started yet, is retried with an exponential back-off, and
+ *    its links are dropped once it has failed too many times
+ *
+ * Links are counted as sent before they leave the queue, so that a link is always either queued or counted, and are
+ * uncounted again if they are dropped.
+ */
+@Slf4j
+class LinkForwarder implements Closeable {
+
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long INITIAL_BACK_OFF_MILLIS = 100;
+    private static final long MAX_BACK_OFF_MILLIS = 5000;
+
+    private final List<URI> linkEndpoints;
+    private final List<Queue<String>> queues = new ArrayList<>();
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final AtomicLong queuedLinks = new AtomicLong();
+    private final AtomicLong sentLinks = new AtomicLong();
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "link-forwarder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    LinkForwarder(List<URI> linkEndpoints, int batchSize, long flushIntervalMillis) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Invalid batch size");
+
+        this.linkEndpoints = linkEndpoints;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        for (int node = 0; node < linkEndpoints.size(); node++) queues.add(new ConcurrentLinkedQueue<>());
+    }
+
+    void start() {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void forward(int node, String link) {
+        queuedLinks.incrementAndGet();
+        queues.get(node).add(link);
+    }
+
+    /**
+     * @return true if no link is waiting to be sent
+     */
+    boolean isIdle() {
+        return queuedLinks.get() == 0;
+    }
+
+    long sentLinks() {
+        return sentLinks.get();
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+    }
+
+    private void flush() {
+        for (int node = 0; node < queues.size(); node++) {
+            Queue<String> queue = queues.get(node);
+            while (!queue.isEmpty()) {
+                List<String> batch = new ArrayList<>(batchSize);
+                String url;
+                while (batch.size() < batchSize && (url = queue.poll()) != null) batch.add(url);
+
+                sentLinks.addAndGet(batch.size());
+                queuedLinks.addAndGet(-batch.size());
+                send(node, batch);
+            }
+        }
+    }
+
+    private void send(int node, List<String> batch) {
+        HttpRequest request = HttpRequest.newBuilder(linkEndpoints.get(node))
+                .POST(HttpRequest.BodyPublishers.ofString(String.join("\n", batch)))
+                .build();
+
+        long backOffMillis = INITIAL_BACK_OFF_MILLIS;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() / 100 == 2) return;
+                log.debug("Node {} answered {} to {} links", node, response.statusCode(), batch.size());
+            } catch (IOException e) {
+                log.debug("Unable to send {} links to node {}", batch.size(), node, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            try {
+                Thread.sleep(backOffMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backOffMillis = Math.min(MAX_BACK_OFF_MILLIS, backOffMillis * 2);
+        }
+
+        log.error("Dropping {} links that could not be sent to node {}", batch.size(), node);
+        sentLinks.addAndGet(-batch.size());
+    }
+}
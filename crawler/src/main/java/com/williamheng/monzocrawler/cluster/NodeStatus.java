@@ -0,0 +1,29 @@
+package com.williamheng.monzocrawler.cluster;
+
+import lombok.Value;
+
+/**
+ * What a node of a cluster reports to the coordinator: whether it has nothing left to do, and how many links it has
+ * sent to and received from other nodes.
+ */
+@Value
+class NodeStatus {
+
+    private final boolean idle;
+    private final long sent;
+    private final long received;
+
+    /**
+     * @param status a status as written by {@link #toString()}
+     */
+    static NodeStatus parse(String status) {
+        String[] fields = status.trim().split(" ");
+        if (fields.length != 3) throw new IllegalArgumentException(String.format("Invalid node status %s", status));
+        return new NodeStatus(Boolean.parseBoolean(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%b %d %d", idle, sent, received);
+    }
+}
@@ -0,0 +1,90 @@
+package com.williamheng.monzocrawler.cluster;
+
+import com.williamheng.monzocrawler.crawler.Frontier;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Resource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The frontier of one node of a cluster: resources this node owns are admitted to its own frontier, and every other
+ * resource is forwarded, once, to the node that owns it.
+ *
+ * A forwarded resource is not admitted here, so crawlers see it as already seen and do not track it; its owner tracks
+ * it once it arrives.
+ *
+ * The URLs already forwarded are kept as the canonical URLs the resources hold, rather than as strings built for each
+ * link found, so that remembering one costs no more than a set entry and comparing two never rebuilds either.
+ */
+class PartitionedFrontier implements Frontier {
+
+    private final Frontier local;
+    private final ClusterNode node;
+    private final Set<CanonicalUrl> forwardedURLs = ConcurrentHashMap.newKeySet();
+
+    PartitionedFrontier(Frontier local, ClusterNode node) {
+        this.local = local;
+        this.node = node;
+    }
+
+    @Override
+    public boolean add(Resource resource) {
+        if (node.owns(resource)) return local.add(resource);
+
+        if (forwardedURLs.add(resource.getUrl())) node.forward(resource);
+        return false;
+    }
+
+    @Override
+    public List<Resource> addAll(List<Resource> resources) {
+        List<Resource> owned = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            if (node.owns(resource)) {
+                owned.add(resource);
+            } else if (forwardedURLs.add(resource.getUrl())) {
+                node.forward(resource);
+            }
+        }
+        return local.addAll(owned);
+    }
+
+    @Override
+    public boolean markSeen(Resource resource) {
+        return local.markSeen(resource);
+    }
+
+    @Override
+    public int drainEvicted() {
+        return local.drainEvicted();
+    }
+
+    @Override
+    public Resource poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return local.poll(timeout, unit);
+    }
+
+    @Override
+    public int size() {
+        return local.size();
+    }
+
+    @Override
+    public void release(Resource resource) {
+        local.release(resource);
+    }
+
+    @Override
+    public boolean retry(Resource resource, long delayMillis) {
+        return local.retry(resource, delayMillis);
+    }
+
+    @Override
+    public void close() throws IOException {
+        local.close();
+    }
+}
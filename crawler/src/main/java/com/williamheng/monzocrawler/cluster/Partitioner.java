@@ -0,0 +1,25 @@
+package com.williamheng.monzocrawler.cluster;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+
+/**
+ * Decides which node of a cluster owns a URL.
+ *
+ * URLs are spread by a hash of their canonical form that every node computes the same way, so any node can tell where
+ * a link it found belongs without asking anyone.
+ */
+public class Partitioner {
+
+    private final int numberOfNodes;
+
+    public Partitioner(int numberOfNodes) {
+        if (numberOfNodes <= 0) throw new IllegalArgumentException("Invalid number of nodes");
+        this.numberOfNodes = numberOfNodes;
+    }
+
+    public int owner(CanonicalUrl url) {
+        // String.hashCode is the same on every JVM; mixing it spreads URLs that only differ in their last characters
+        int hash = url.toString().hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), numberOfNodes);
+    }
+}
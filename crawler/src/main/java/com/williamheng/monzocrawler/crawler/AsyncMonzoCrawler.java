@@ -0,0 +1,231 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.PageMetadata;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A crawler that keeps many requests in flight without dedicating a thread to each of them.
+ *
+ * How it works:
+ *
+ * 1. A single dispatcher thread takes resources from the frontier and fires non-blocking requests
+ * 2. The number of requests in flight is bounded by a semaphore
+ * 3. Responses are handed to the parse executor, which finds new resources and adds them to the frontier. Pages
+ *    that have not changed since they were put in the page cache reuse their cached links instead
+ * 4. The dispatcher stops as soon as the {@link CrawlTracker} says the crawl is over
+ */
+@Slf4j
+public class AsyncMonzoCrawler implements Runnable {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Client client;
+    private final Frontier frontier;
+    private final MonzoPageProcessor pageProcessor;
+    private final PageCache pageCache;
+    private final PageReader pageReader;
+    private final Executor parseExecutor;
+    private final Semaphore inFlightRequests;
+    private final CrawlTracker tracker;
+    private final CrawlMetrics metrics;
+
+    @Builder
+    private AsyncMonzoCrawler(
+            @NonNull Client client,
+            @NonNull MonzoPageProcessor pageProcessor,
+            @NonNull Executor parseExecutor,
+            PageCache pageCache,
+            int maxInFlight,
+            int maxPageSize
+    ) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("Invalid number of requests in flight");
+
+        this.client = client;
+        this.pageProcessor = pageProcessor;
+        this.frontier = pageProcessor.getFrontier();
+        this.tracker = pageProcessor.getTracker();
+        this.metrics = pageProcessor.getMetrics();
+        this.parseExecutor = parseExecutor;
+        this.pageCache = pageCache == null ? PageCache.NONE : pageCache;
+        this.pageReader = new PageReader(maxPageSize);
+        this.inFlightRequests = new Semaphore(maxInFlight);
+    }
+
+    @Override
+    public void run() {
+        tracker.startUnlessStarted(frontier.size());
+
+        while (!tracker.isDone()) {
+            try {
+                inFlightRequests.acquire();
+                Resource resource = frontier.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+                if (resource == null) {
+                    inFlightRequests.release();
+                    continue;
+                }
+
+                this.fetch(resource);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void fetch(Resource resource) {
+        CanonicalUrl url = resource.getUrl();
+        log.info("Crawling {}", url);
+
+        try {
+            PageMetadata cached = pageCache.get(url);
+            long fetchStart = System.nanoTime();
+            ConditionalRequests.request(client, url, cached)
+                    .async()
+                    .get(new InvocationCallback<Response>() {
+                        @Override
+                        public void completed(Response response) {
+                            metrics.fetched(response.getStatus(), System.nanoTime() - fetchStart);
+
+                            // Set as soon as the page is handed on, so that nothing thrown after that finishes it again
+                            boolean isFinished = false;
+                            PageBuffer body = null;
+                            try {
+                                if (ConditionalRequests.isNotModified(response, cached)) {
+                                    log.debug("URL={} has not changed", url);
+                                    isFinished = true;
+                                    finishFetch(resource);
+                                    parse(resource, () -> pageProcessor.process(resource, cached.getLinks()));
+                                    return;
+                                }
+
+                                if (Response.Status.Family.familyOf(response.getStatus()) != Response.Status.Family.SUCCESSFUL) {
+                                    isFinished = true;
+                                    failed(new WebApplicationException(response));
+                                    return;
+                                }
+
+                                body = pageReader.read(response);
+                                if (body == null) {
+                                    metrics.pageSkipped();
+                                    isFinished = true;
+                                    finishFetch(resource);
+                                    parse(resource, () -> pageProcessor.process(resource, Collections.emptyList()));
+                                    return;
+                                }
+
+                                PageMetadata.PageMetadataBuilder page = ConditionalRequests.validators(url, response);
+                                isFinished = true;
+                                finishFetch(resource);
+
+                                // From here on the parse returns the body to the pool, whether or not it runs
+                                PageBuffer pageBody = body;
+                                body = null;
+                                parse(resource, () -> {
+                                    try {
+                                        long parseStart = System.nanoTime();
+                                        List<String> hrefs = new ArrayList<>();
+                                        SimHash fingerprint = pageProcessor.fingerprint();
+                                        MonzoLinkExtractor.extract(pageBody.inputStream(), pageBody.getCharset(), hrefs::add, fingerprint);
+                                        metrics.parsed(System.nanoTime() - parseStart, pageBody.length(), hrefs.size());
+                                        pageProcessor.process(resource, hrefs, fingerprint);
+                                        ConditionalRequests.remember(pageCache, cached, page.contentHash(pageBody.contentHash()).links(hrefs).build());
+                                    } catch (IOException e) {
+                                        log.info("Unable to read URL={}", url);
+                                        log.debug("Unable to read URL={}", url, e);
+                                    } finally {
+                                        pageReader.release(pageBody);
+                                    }
+                                }, () -> pageReader.release(pageBody));
+                            } catch (IOException e) {
+                                failed(new ProcessingException(e));
+                            } catch (RuntimeException e) {
+                                if (isFinished) log.error("Unable to parse URL={}", url, e);
+                                else failed(e);
+                            } finally {
+                                if (body != null) pageReader.release(body);
+                                response.close();
+                            }
+                        }
+
+                        @Override
+                        public void failed(Throwable throwable) {
+                            boolean isRetried = false;
+                            try {
+                                Response throttledResponse = Throttling.throttledResponse(throwable);
+                                if (throttledResponse != null && frontier.retry(resource, Throttling.retryAfterMillis(throttledResponse))) {
+                                    isRetried = true;
+                                    metrics.retried();
+                                    return;
+                                }
+
+                                // Responses with an error status were already counted when they completed
+                                if (!(throwable instanceof WebApplicationException)) metrics.fetchFailed();
+
+                                log.info("Unable to reach URL={}", url);
+                                log.debug("Unable to reach URL={}", url, throwable);
+                            } finally {
+                                finishFetch(resource);
+                                if (!isRetried) tracker.crawled();
+                            }
+                        }
+                    });
+        } catch (RuntimeException e) {
+            finishFetch(resource);
+            tracker.crawled();
+            metrics.fetchFailed();
+            log.info("Unable to reach URL={}", url);
+            log.debug("Unable to reach URL={}", url, e);
+        }
+    }
+
+    private void finishFetch(Resource resource) {
+        frontier.release(resource);
+        inFlightRequests.release();
+    }
+
+    private void parse(Resource resource, Runnable parse) {
+        parse(resource, parse, () -> {
+        });
+    }
+
+    /**
+     * Parses the page on the parse executor, and marks it crawled once it has been parsed or could not be.
+     *
+     * @param discard run instead of the parse if the executor turns it down, e.g. to return the page's body to the pool
+     */
+    private void parse(Resource resource, Runnable parse, Runnable discard) {
+        try {
+            parseExecutor.execute(() -> {
+                try {
+                    parse.run();
+                } finally {
+                    tracker.crawled();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            discard.run();
+            tracker.crawled();
+            log.error("Unable to parse URL={}", resource.getUrl(), e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands out resources from another frontier until a {@link CrawlBudget} runs out of pages.
+ *
+ * A resource handed back to be retried has already spent its page, so it does not spend another when it is polled
+ * again, however many times it is retried.
+ *
+ * Once it has, every resource still queued is dropped as it is polled and counted as crawled, so the crawl drains the
+ * frontier without fetching anything and ends as it would have had the frontier run dry.
+ */
+@Slf4j
+class BudgetedFrontier implements Frontier {
+
+    private final Frontier frontier;
+    private final CrawlBudget budget;
+    private final CrawlTracker tracker;
+    private final CrawlMetrics metrics;
+    private final Set<CanonicalUrl> retriedURLs = ConcurrentHashMap.newKeySet();
+
+    BudgetedFrontier(Frontier frontier, CrawlBudget budget, CrawlTracker tracker, CrawlMetrics metrics) {
+        this.frontier = frontier;
+        this.budget = budget;
+        this.tracker = tracker;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean add(Resource resource) {
+        return frontier.add(resource);
+    }
+
+    @Override
+    public List<Resource> addAll(List<Resource> resources) {
+        return frontier.addAll(resources);
+    }
+
+    @Override
+    public boolean markSeen(Resource resource) {
+        return frontier.markSeen(resource);
+    }
+
+    @Override
+    public int drainEvicted() {
+        return frontier.drainEvicted();
+    }
+
+    @Override
+    public Resource poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Resource resource = frontier.poll(timeout, unit);
+        while (resource != null && !retriedURLs.remove(resource.getUrl()) && !budget.spendPage()) {
+            log.debug("Page budget spent, dropping URL={}", resource.getUrl());
+            frontier.release(resource);
+            metrics.linkOverBudget();
+            tracker.crawled();
+            resource = frontier.poll(0, TimeUnit.MILLISECONDS);
+        }
+        return resource;
+    }
+
+    @Override
+    public int size() {
+        return frontier.size();
+    }
+
+    @Override
+    public void release(Resource resource) {
+        frontier.release(resource);
+    }
+
+    @Override
+    public boolean retry(Resource resource, long delayMillis) {
+        // Remembered before it is handed back, since another worker may poll it again straight away
+        retriedURLs.add(resource.getUrl());
+        if (frontier.retry(resource, delayMillis)) return true;
+
+        retriedURLs.remove(resource.getUrl());
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        frontier.close();
+    }
+}
@@ -0,0 +1,84 @@
+package com.williamheng.monzocrawler.crawler;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+
+/**
+ * Works out the character encoding of a page from its bytes, much as browsers do.
+ *
+ * In order of precedence:
+ * 1. A byte order mark
+ * 2. The charset given in the Content-Type header
+ * 3. A charset declared by a meta tag within the first 1024 bytes
+ * 4. UTF-8
+ */
+class CharsetDetector {
+
+    private static final int PRESCAN_LENGTH = 1024;
+
+    static Charset detect(byte[] bytes, int length, Charset declared) {
+        if (length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) return StandardCharsets.UTF_8;
+        if (length >= 2 && (bytes[0] & 0xFF) == 0xFE && (bytes[1] & 0xFF) == 0xFF) return StandardCharsets.UTF_16BE;
+        if (length >= 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xFE) return StandardCharsets.UTF_16LE;
+
+        if (declared != null) return declared;
+
+        Charset meta = metaCharset(bytes, length);
+        return meta != null ? meta : StandardCharsets.UTF_8;
+    }
+
+    /**
+     * @return the charset named by the "charset" parameter of a Content-Type header, or null if there is none
+     */
+    static Charset contentTypeCharset(String contentType) {
+        if (contentType == null) return null;
+
+        String lowerCase = contentType.toLowerCase(Locale.ROOT);
+        int charset = lowerCase.indexOf("charset");
+        return charset < 0 ? null : charsetAfter(lowerCase, charset + "charset".length());
+    }
+
+    private static Charset metaCharset(byte[] bytes, int length) {
+        // Everything that matters here is ASCII, which ISO-8859-1 keeps as it is whatever the real encoding
+        String prefix = new String(bytes, 0, Math.min(length, PRESCAN_LENGTH), StandardCharsets.ISO_8859_1).toLowerCase(Locale.ROOT);
+
+        for (int meta = prefix.indexOf("<meta"); meta >= 0; meta = prefix.indexOf("<meta", meta + 1)) {
+            int end = prefix.indexOf('>', meta);
+            if (end < 0) end = prefix.length();
+
+            int charset = prefix.indexOf("charset", meta);
+            if (charset < 0 || charset > end) continue;
+
+            Charset found = charsetAfter(prefix.substring(0, end), charset + "charset".length());
+            if (found == null) continue;
+
+            // A page that could be read well enough to find its meta tag is not really UTF-16
+            return found.name().startsWith("UTF-16") ? StandardCharsets.UTF_8 : found;
+        }
+        return null;
+    }
+
+    private static Charset charsetAfter(String text, int position) {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) position++;
+        if (position >= text.length() || text.charAt(position) != '=') return null;
+        position++;
+        while (position < text.length() && (Character.isWhitespace(text.charAt(position)) || text.charAt(position) == '"' || text.charAt(position) == '\'')) position++;
+
+        int start = position;
+        while (position < text.length() && isCharsetNameCharacter(text.charAt(position))) position++;
+        if (position == start) return null;
+
+        try {
+            return Charset.forName(text.substring(start, position));
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+    private static boolean isCharsetNameCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '_' || c == '.' || c == ':';
+    }
+}
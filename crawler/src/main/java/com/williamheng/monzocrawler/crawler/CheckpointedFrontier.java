@@ -0,0 +1,75 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.Resource;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records every resource another frontier admits in a {@link CrawlCheckpoint}, whoever adds it, e.g. the root, the
+ * pages of a sitemap or the links found on a page.
+ *
+ * Resources are recorded after they have been admitted, so a worker may crawl one before it is recorded, which the
+ * checkpoint allows for when it is restored.
+ */
+class CheckpointedFrontier implements Frontier {
+
+    private final Frontier frontier;
+    private final CrawlCheckpoint checkpoint;
+
+    CheckpointedFrontier(Frontier frontier, CrawlCheckpoint checkpoint) {
+        this.frontier = frontier;
+        this.checkpoint = checkpoint;
+    }
+
+    @Override
+    public boolean add(Resource resource) {
+        if (!frontier.add(resource)) return false;
+
+        checkpoint.admitted(resource);
+        return true;
+    }
+
+    @Override
+    public List<Resource> addAll(List<Resource> resources) {
+        List<Resource> admitted = frontier.addAll(resources);
+        checkpoint.admitted(admitted);
+        return admitted;
+    }
+
+    @Override
+    public boolean markSeen(Resource resource) {
+        return frontier.markSeen(resource);
+    }
+
+    @Override
+    public int drainEvicted() {
+        return frontier.drainEvicted();
+    }
+
+    @Override
+    public Resource poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return frontier.poll(timeout, unit);
+    }
+
+    @Override
+    public int size() {
+        return frontier.size();
+    }
+
+    @Override
+    public void release(Resource resource) {
+        frontier.release(resource);
+    }
+
+    @Override
+    public boolean retry(Resource resource, long delayMillis) {
+        return frontier.retry(resource, delayMillis);
+    }
+
+    @Override
+    public void close() throws IOException {
+        frontier.close();
+    }
+}
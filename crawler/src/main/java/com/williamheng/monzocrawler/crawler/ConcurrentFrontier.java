@@ -0,0 +1,94 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Resource;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A FIFO frontier backed by a concurrent seen-set.
+ *
+ * Deduplication is a single {@link Set#add(Object)} on a {@link ConcurrentHashMap} key set, which is lock-free for
+ * reads and only contends on the bin being written to. The queue itself is never scanned, and
+ * {@link #addAll(List)} queues all the new links of a page under a single acquisition of its lock.
+ */
+public class ConcurrentFrontier implements Frontier {
+
+    private final Set<CanonicalUrl> seenURLs = ConcurrentHashMap.newKeySet();
+
+    // Everything below is guarded by the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Deque<Resource> queue = new ArrayDeque<>();
+
+    @Override
+    public boolean add(Resource resource) {
+        if (!seenURLs.add(resource.getUrl())) return false;
+
+        lock.lock();
+        try {
+            queue.addLast(resource);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Resource> addAll(List<Resource> resources) {
+        List<Resource> admitted = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            if (seenURLs.add(resource.getUrl())) admitted.add(resource);
+        }
+        if (admitted.isEmpty()) return admitted;
+
+        lock.lock();
+        try {
+            queue.addAll(admitted);
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return admitted;
+    }
+
+    @Override
+    public boolean markSeen(Resource resource) {
+        return seenURLs.add(resource.getUrl());
+    }
+
+    @Override
+    public Resource poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return queue.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.PageMetadata;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.Objects;
+
+/**
+ * Revalidates pages remembered in a {@link PageCache} instead of downloading them again.
+ *
+ * How it works:
+ *
+ * 1. A page that is in the cache is requested with If-None-Match and If-Modified-Since built from its validators
+ * 2. A server that has not changed the page answers 304 Not Modified with no body, and the links remembered for the
+ *    page are used as if it had just been parsed
+ * 3. Any other page is parsed as usual, and remembered again only if its validators, content or links changed
+ */
+public class ConditionalRequests {
+
+    /**
+     * @return a request for the page, made conditional if the page is in the cache
+     */
+    public static Invocation.Builder request(Client client, CanonicalUrl url, PageMetadata cached) {
+        Invocation.Builder request = client.target(url.toString()).request(MediaType.TEXT_HTML);
+        if (cached == null) return request;
+
+        if (cached.getEtag() != null) request = request.header(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+        if (cached.getLastModified() != null) request = request.header(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+        return request;
+    }
+
+    public static boolean isNotModified(Response response, PageMetadata cached) {
+        return cached != null && response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode();
+    }
+
+    /**
+     * @return the validators of a full response to the page, to which its content hash and links are still to be added
+     */
+    public static PageMetadata.PageMetadataBuilder validators(CanonicalUrl url, Response response) {
+        return PageMetadata.builder()
+                .url(url)
+                .etag(response.getHeaderString(HttpHeaders.ETAG))
+                .lastModified(response.getHeaderString(HttpHeaders.LAST_MODIFIED));
+    }
+
+    /**
+     * Remembers the page unless the cache already holds exactly what was learnt about it.
+     */
+    public static void remember(PageCache pageCache, PageMetadata cached, PageMetadata fetched) {
+        boolean isUnchanged = cached != null
+                && cached.getContentHash() == fetched.getContentHash()
+                && Objects.equals(cached.getEtag(), fetched.getEtag())
+                && Objects.equals(cached.getLastModified(), fetched.getLastModified())
+                && cached.getLinks().equals(fetched.getLinks());
+
+        if (!isUnchanged) pageCache.put(fetched);
+    }
+}
@@ -0,0 +1,140 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Resource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits how many pages a crawl fetches, how far from the root it goes, and how many URLs of the same shape it queues.
+ *
+ * Pages are counted as they are handed out to be crawled rather than when they are found, so that a frontier that
+ * hands out the most important pages first spends the budget on them.
+ *
+ * The shape of a URL is its path with every run of digits replaced by "#" and every very long segment by "*", followed
+ * by the names but not the values of its query parameters, e.g. /calendar/2024/05?day=1&sid=a1b2 has the shape
+ * /calendar/#/#?day&sid. Calendars, faceted search and session IDs make endless URLs of a few shapes, so a budget per
+ * shape stops a crawl from falling into them while leaving the rest of the site alone.
+ */
+public class CrawlBudget {
+
+    // Segments this long are IDs or tokens rather than names
+    private static final int MAX_SEGMENT_LENGTH = 32;
+
+    private final int maxPages;
+    private final int maxDepth;
+    private final int maxPerPattern;
+    private final AtomicInteger pagesSpent = new AtomicInteger();
+    private final Map<String, AtomicInteger> urlsPerPattern = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxPages the most pages crawled, including the root
+     * @param maxDepth the most links away from the root a page can be
+     */
+    public CrawlBudget(int maxPages, int maxDepth) {
+        this(maxPages, maxDepth, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxPages      the most pages crawled, including the root
+     * @param maxDepth      the most links away from the root a page can be
+     * @param maxPerPattern the most URLs of the same shape queued
+     */
+    public CrawlBudget(int maxPages, int maxDepth, int maxPerPattern) {
+        if (maxPages <= 0) throw new IllegalArgumentException("Invalid maximum number of pages");
+        if (maxDepth < 0) throw new IllegalArgumentException("Invalid maximum depth");
+        if (maxPerPattern <= 0) throw new IllegalArgumentException("Invalid maximum number of URLs per pattern");
+
+        this.maxPages = maxPages;
+        this.maxDepth = maxDepth;
+        this.maxPerPattern = maxPerPattern;
+    }
+
+    public boolean limitsPages() {
+        return maxPages < Integer.MAX_VALUE;
+    }
+
+    public boolean allowsDepth(int depth) {
+        return depth <= maxDepth;
+    }
+
+    /**
+     * @return true if there was a page left to crawl, which is now spent
+     */
+    public boolean spendPage() {
+        int spent;
+        do {
+            spent = pagesSpent.get();
+            if (spent >= maxPages) return false;
+        } while (!pagesSpent.compareAndSet(spent, spent + 1));
+        return true;
+    }
+
+    public int pagesSpent() {
+        return pagesSpent.get();
+    }
+
+    /**
+     * Takes one of the URLs allowed for the resource's shape, which is given back with {@link #refundPattern(Resource)}
+     * if the resource turns out not to be new.
+     *
+     * @return true if there was a URL of its shape left to queue
+     */
+    public boolean spendPattern(Resource resource) {
+        if (maxPerPattern == Integer.MAX_VALUE) return true;
+
+        AtomicInteger spent = urlsPerPattern.computeIfAbsent(pattern(resource.getUrl()), p -> new AtomicInteger());
+        int current;
+        do {
+            current = spent.get();
+            if (current >= maxPerPattern) return false;
+        } while (!spent.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void refundPattern(Resource resource) {
+        if (maxPerPattern == Integer.MAX_VALUE) return;
+
+        AtomicInteger spent = urlsPerPattern.get(pattern(resource.getUrl()));
+        if (spent != null) spent.decrementAndGet();
+    }
+
+    static String pattern(CanonicalUrl url) {
+        String file = url.getFile();
+        int queryStart = file.indexOf('?');
+        String path = queryStart < 0 ? file : file.substring(0, queryStart);
+
+        StringBuilder pattern = new StringBuilder(file.length());
+        int segmentStart = 0;
+        while (segmentStart < path.length()) {
+            int segmentEnd = path.indexOf('/', segmentStart + 1);
+            if (segmentEnd < 0) segmentEnd = path.length();
+
+            if (segmentEnd - segmentStart > MAX_SEGMENT_LENGTH) {
+                pattern.append("/*");
+            } else {
+                boolean isInDigits = false;
+                for (int i = segmentStart; i < segmentEnd; i++) {
+                    char c = path.charAt(i);
+                    boolean isDigit = c >= '0' && c <= '9';
+                    if (!isDigit) pattern.append(c);
+                    else if (!isInDigits) pattern.append('#');
+                    isInDigits = isDigit;
+                }
+            }
+            segmentStart = segmentEnd;
+        }
+
+        if (queryStart >= 0) {
+            pattern.append('?');
+            for (String parameter : file.substring(queryStart + 1).split("&")) {
+                int equals = parameter.indexOf('=');
+                if (pattern.charAt(pattern.length() - 1) != '?') pattern.append('&');
+                pattern.append(equals < 0 ? parameter : parameter.substring(0, equals));
+            }
+        }
+        return pattern.toString();
+    }
+}
@@ -0,0 +1,383 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import com.williamheng.monzocrawler.store.RecordLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A record of how far a crawl has got, written to disk while it runs, so that a crawl that dies can be resumed from
+ * its last checkpoint rather than started again.
+ *
+ * How it works:
+ *
+ * 1. Every URL admitted to the frontier, and every page crawled along with its links, becomes a record that the
+ *    thread which admitted or crawled it encodes and puts on a lock-free queue, so crawling never waits on the disk
+ * 2. At a fixed interval a checkpoint appends every record queued since the last one to a log file in a single write,
+ *    forces it to disk, and only then moves the end of the log recorded in a small memory-mapped state file
+ * 3. A page is only recorded as crawled once its links have been recorded as admitted, so whatever part of the log is
+ *    on disk never has a page whose links are missing
+ * 4. Resuming replays the snapshot, then the log up to the recorded end: crawled pages become vertices of the graph
+ *    again and are marked as seen, and URLs admitted but not crawled yet are queued again, so the frontier, seen-set
+ *    and graph are as they were at the last checkpoint
+ * 5. Once the crawl has been resumed, and again when it is closed, the snapshot and log are compacted into a new
+ *    snapshot of one record per crawled page and queued URL, which replaces the old one with an atomic move before the
+ *    log is emptied. Replaying a record twice changes nothing, so a crawl that dies in between loses nothing either
+ *
+ * The log of a single run is not compacted while it runs, so it grows with every URL admitted and page crawled until
+ * the crawl is closed or resumed.
+ *
+ * Pages that were being crawled, or had failed, at the last checkpoint are crawled again. What is not in the log, i.e.
+ * the fingerprints of near-duplicates and the status of external links, starts again from nothing.
+ */
+@Slf4j
+public class CrawlCheckpoint implements Closeable {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 30_000;
+
+    private static final String LOG_FILE = "checkpoint.log";
+    private static final String SNAPSHOT_FILE = "checkpoint.snapshot";
+    private static final String NEXT_SNAPSHOT_FILE = "checkpoint.snapshot.next";
+    private static final String STATE_FILE = "checkpoint.state";
+
+    private static final int END_OFFSET_POSITION = 0;
+    private static final int STATE_BYTES = 8;
+
+    private static final byte ADMITTED = 1;
+    private static final byte CRAWLED = 2;
+
+    // How many records a snapshot is written in at a time
+    private static final int SNAPSHOT_BATCH_RECORDS = 1024;
+
+    private final Path directory;
+    private final CrawlMetrics metrics;
+    private final RecordLog journal;
+    private final FileChannel stateChannel;
+    private final MappedByteBuffer state;
+
+    private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService scheduler;
+
+    // Everything below is guarded by the lock, which only checkpoints take
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<byte[]> unwritten = new ArrayList<>();
+    private long endOffset;
+
+    public CrawlCheckpoint(Path directory, CrawlMetrics metrics) throws IOException {
+        Files.createDirectories(directory);
+
+        this.directory = directory;
+        this.metrics = metrics;
+        this.journal = new RecordLog(directory.resolve(LOG_FILE));
+        this.stateChannel = FileChannel.open(directory.resolve(STATE_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.state = stateChannel.map(FileChannel.MapMode.READ_WRITE, 0, STATE_BYTES);
+        this.endOffset = state.getLong(END_OFFSET_POSITION);
+
+        // Anything after the recorded end was written by a checkpoint that did not finish
+        journal.truncate(endOffset);
+    }
+
+    /**
+     * @return true if a crawl has already checkpointed to the directory
+     */
+    public static boolean exists(Path directory) throws IOException {
+        return isNotEmpty(directory.resolve(SNAPSHOT_FILE)) || isNotEmpty(directory.resolve(LOG_FILE));
+    }
+
+    public void admitted(Resource resource) {
+        admitted(Collections.singletonList(resource));
+    }
+
+    /**
+     * Records resources that were new to the frontier.
+     */
+    public void admitted(List<Resource> resources) {
+        if (resources.isEmpty()) return;
+
+        long start = System.nanoTime();
+        pending.add(encode(output -> {
+            output.writeByte(ADMITTED);
+            output.writeInt(resources.size());
+            for (Resource resource : resources) writeResource(output, resource);
+        }));
+        metrics.checkpointRecorded(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a page that has been crawled, once the links it leads to have been admitted.
+     */
+    public void crawled(Resource resource, List<String> links) {
+        long start = System.nanoTime();
+        pending.add(encode(output -> {
+            output.writeByte(CRAWLED);
+            writeResource(output, resource);
+            output.writeInt(links.size());
+            for (String link : links) writeString(output, link);
+        }));
+        metrics.checkpointRecorded(System.nanoTime() - start);
+    }
+
+    /**
+     * Rebuilds the state of the crawl as it was at the last checkpoint, which must be done before it starts.
+     *
+     * @param frontier the frontier to mark crawled pages as seen in and queue the rest of the URLs admitted to
+     * @return the number of pages that had been crawled
+     */
+    public int restore(Frontier frontier, Graph graph, CrawlBudget budget) throws IOException {
+        Map<CanonicalUrl, Resource> queued = new LinkedHashMap<>();
+        Map<CanonicalUrl, byte[]> crawled = new LinkedHashMap<>();
+        boolean isResumed = replay(queued, crawled);
+
+        // The budget is spent again as it was, on the pages crawled and on every URL queued but the root
+        for (byte[] record : crawled.values()) {
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+            input.readByte(); // CRAWLED
+            Resource resource = readResource(input);
+            int degree = input.readInt();
+            List<String> links = new ArrayList<>(degree);
+            for (int i = 0; i < degree; i++) links.add(readString(input));
+
+            graph.addVertex(resource, links);
+            frontier.markSeen(resource);
+            budget.spendPage();
+            if (resource.getDepth() > 0) budget.spendPattern(resource);
+        }
+        for (Resource resource : queued.values()) {
+            if (resource.getDepth() > 0) budget.spendPattern(resource);
+        }
+        frontier.addAll(new ArrayList<>(queued.values()));
+
+        metrics.pagesRestored(crawled.size());
+        if (isResumed) log.info("Resuming crawl from {} with {} pages crawled and {} queued URLs", directory, crawled.size(), queued.size());
+
+        // Whatever a crawl that died had logged is compacted now, before this crawl logs any more
+        lock.lock();
+        try {
+            if (endOffset > 0) writeSnapshot(queued, crawled);
+        } finally {
+            lock.unlock();
+        }
+        return crawled.size();
+    }
+
+    /**
+     * Starts checkpointing at a fixed interval until closed.
+     */
+    public void start(long intervalMillis) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (IOException e) {
+                log.warn("Unable to checkpoint to {}, trying again in {}ms", directory, intervalMillis, e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes everything recorded since the last checkpoint to disk.
+     */
+    public void checkpoint() throws IOException {
+        lock.lock();
+        try {
+            // Records a failed checkpoint could not write are kept, so that they are written in order by the next one
+            for (byte[] record = pending.poll(); record != null; record = pending.poll()) unwritten.add(record);
+            if (unwritten.isEmpty()) return;
+
+            long start = System.nanoTime();
+            long newEndOffset = journal.append(endOffset, unwritten);
+            journal.force();
+            state.putLong(END_OFFSET_POSITION, newEndOffset);
+            state.force();
+
+            metrics.checkpointWritten(System.nanoTime() - start, newEndOffset - endOffset);
+            endOffset = newEndOffset;
+            unwritten.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops checkpointing at an interval, writes a last checkpoint and compacts everything checkpointed into a
+     * snapshot.
+     */
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        lock.lock();
+        try {
+            checkpoint();
+            compact();
+            journal.close();
+            stateChannel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void compact() throws IOException {
+        Map<CanonicalUrl, Resource> queued = new LinkedHashMap<>();
+        Map<CanonicalUrl, byte[]> crawled = new LinkedHashMap<>();
+        if (endOffset > 0 && replay(queued, crawled)) writeSnapshot(queued, crawled);
+    }
+
+    /**
+     * Reads the snapshot and then the log up to the recorded end into the URLs queued and the records of the pages
+     * crawled.
+     *
+     * @return true if anything had been checkpointed
+     */
+    private boolean replay(Map<CanonicalUrl, Resource> queued, Map<CanonicalUrl, byte[]> crawled) throws IOException {
+        long snapshotEnd;
+        try (RecordLog snapshot = new RecordLog(directory.resolve(SNAPSHOT_FILE))) {
+            snapshotEnd = snapshot.size();
+            replay(snapshot, snapshotEnd, queued, crawled);
+        }
+        replay(journal, endOffset, queued, crawled);
+        return snapshotEnd > 0 || endOffset > 0;
+    }
+
+    private static void replay(RecordLog records, long end, Map<CanonicalUrl, Resource> queued, Map<CanonicalUrl, byte[]> crawled) throws IOException {
+        for (long offset = 0; offset < end; ) {
+            byte[] record = records.read(offset);
+            offset = RecordLog.next(offset, record);
+
+            DataInputStream input = new DataInputStream(new ByteArrayInputStream(record));
+            if (input.readByte() == ADMITTED) {
+                // A page can be crawled before the record of its admission is queued, so its admission comes after
+                int numberOfResources = input.readInt();
+                for (int i = 0; i < numberOfResources; i++) {
+                    Resource resource = readResource(input);
+                    if (!crawled.containsKey(resource.getUrl())) queued.putIfAbsent(resource.getUrl(), resource);
+                }
+            } else {
+                CanonicalUrl url = readResource(input).getUrl();
+                crawled.putIfAbsent(url, record);
+                queued.remove(url);
+            }
+        }
+    }
+
+    /**
+     * Replaces the snapshot with one of the pages crawled and URLs queued, and empties the log, which they include.
+     */
+    private void writeSnapshot(Map<CanonicalUrl, Resource> queued, Map<CanonicalUrl, byte[]> crawled) throws IOException {
+        Path next = directory.resolve(NEXT_SNAPSHOT_FILE);
+        Files.deleteIfExists(next);
+        try (RecordLog snapshot = new RecordLog(next)) {
+            List<byte[]> records = new ArrayList<>(SNAPSHOT_BATCH_RECORDS);
+            long offset = 0;
+            for (byte[] record : crawled.values()) {
+                records.add(record);
+                if (records.size() == SNAPSHOT_BATCH_RECORDS) offset = appendAll(snapshot, offset, records);
+            }
+            for (Resource resource : queued.values()) {
+                records.add(encode(output -> {
+                    output.writeByte(ADMITTED);
+                    output.writeInt(1);
+                    writeResource(output, resource);
+                }));
+                if (records.size() == SNAPSHOT_BATCH_RECORDS) offset = appendAll(snapshot, offset, records);
+            }
+            appendAll(snapshot, offset, records);
+            snapshot.force();
+        }
+        Files.move(next, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // The end of the log is moved first, so that a crawl that dies before the log is emptied ignores what is left
+        state.putLong(END_OFFSET_POSITION, 0);
+        state.force();
+        endOffset = 0;
+        journal.truncate(0);
+        log.debug("Compacted checkpoint in {} to {} pages crawled and {} queued URLs", directory, crawled.size(), queued.size());
+    }
+
+    private static long appendAll(RecordLog records, long offset, List<byte[]> batch) throws IOException {
+        if (batch.isEmpty()) return offset;
+
+        long end = records.append(offset, batch);
+        batch.clear();
+        return end;
+    }
+
+    private static boolean isNotEmpty(Path path) throws IOException {
+        return Files.exists(path) && Files.size(path) > 0;
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream output) throws IOException;
+    }
+
+    private static byte[] encode(RecordWriter writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            writer.write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeResource(DataOutputStream output, Resource resource) throws IOException {
+        writeString(output, resource.getUrl().toString());
+        output.writeInt(resource.getDepth());
+    }
+
+    private static Resource readResource(DataInputStream input) throws IOException {
+        CanonicalUrl url = CanonicalUrl.parse(readString(input));
+        return new Resource(url, url.getPath(), input.readInt());
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
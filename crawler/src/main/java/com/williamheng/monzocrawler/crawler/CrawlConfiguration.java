@@ -0,0 +1,81 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.cluster.ClusterSettings;
+import lombok.Builder;
+import lombok.Value;
+
+import javax.ws.rs.client.Client;
+import java.nio.file.Path;
+
+/**
+ * Settings for a single crawl operation.
+ */
+@Value
+@Builder
+public class CrawlConfiguration {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    public static final int DEFAULT_MAX_PAGE_SIZE = 10 * 1024 * 1024;
+
+    private final int numberOfCrawlers;
+    private final boolean addExternalLinks;
+    private final ExecutorMode executorMode;
+
+    // The maximum number of requests in flight at once when running asynchronously or on virtual threads
+    private final int maxInFlight;
+
+    // The size of each stage of a pipelined crawl, and how many pages can wait between one stage and the next
+    private final int fetchThreads;
+    private final int parseThreads;
+    private final int stageQueueCapacity;
+
+    // Pages larger than this many bytes are skipped rather than parsed
+    private final int maxPageSize;
+
+    // Pages remembered from previous crawls, which are revalidated instead of downloaded again
+    private final PageCache pageCache;
+
+    // The client external links are checked with, or null not to check them
+    private final Client linkCheckClient;
+
+    // The maximum number of external links checked at once, and at once on any one host
+    private final int linkCheckMaxInFlight;
+    private final int linkCheckConnectionsPerHost;
+
+    // The most pages a crawl queues, including the root, and the most links away from the root they can be
+    private final int maxPages;
+    private final int maxDepth;
+
+    // The most URLs of the same shape queued, see CrawlBudget, which stops a crawl from falling into traps
+    private final int maxPerPattern;
+
+    // Whether the links of pages whose text is a near-duplicate of another page's are left out
+    private final boolean skipNearDuplicates;
+
+    // Whether links robots.txt disallows are left out, and whether the frontier is seeded from the site's sitemaps
+    private final boolean respectRobots;
+    private final boolean useSitemaps;
+
+    // The cluster this crawl is one node of, or null to crawl alone
+    private final ClusterSettings cluster;
+
+    // Where the crawl is checkpointed to and resumed from if it has been checkpointed before, or null not to be
+    private final Path checkpointDirectory;
+    private final long checkpointIntervalMillis;
+
+    public static class CrawlConfigurationBuilder {
+        private ExecutorMode executorMode = ExecutorMode.POOL;
+        private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+        private int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+        private int fetchThreads = PipelinedMonzoCrawler.DEFAULT_FETCH_THREADS;
+        private int parseThreads = Runtime.getRuntime().availableProcessors();
+        private int stageQueueCapacity = PipelinedMonzoCrawler.DEFAULT_QUEUE_CAPACITY;
+        private PageCache pageCache = PageCache.NONE;
+        private int maxPages = Integer.MAX_VALUE;
+        private int maxDepth = Integer.MAX_VALUE;
+        private int maxPerPattern = Integer.MAX_VALUE;
+        private int linkCheckMaxInFlight = ExternalLinkChecker.DEFAULT_MAX_IN_FLIGHT;
+        private int linkCheckConnectionsPerHost = ExternalLinkChecker.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+        private long checkpointIntervalMillis = CrawlCheckpoint.DEFAULT_INTERVAL_MILLIS;
+    }
+}
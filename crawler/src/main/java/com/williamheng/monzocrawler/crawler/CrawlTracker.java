@@ -0,0 +1,88 @@
+package com.williamheng.monzocrawler.crawler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Knows when a crawl is over, so that nobody has to guess from how long they have been waiting for work.
+ *
+ * How it works:
+ *
+ * 1. A resource is pending from the moment it is admitted to the frontier until it has been crawled, whether or not
+ *    the crawl succeeded
+ * 2. A resource handed back to the frontier to be retried stays pending
+ * 3. The links found on a page are admitted before the page stops being pending, so the number of pending resources
+ *    can only reach zero once nothing is queued and nothing that could find more resources is still running
+ *
+ * Once the count reaches zero the crawl is over for good.
+ */
+public class CrawlTracker {
+
+    private final AtomicLong pendingResources = new AtomicLong();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * Starts tracking a crawl whose frontier already holds the given number of resources, e.g. the root resource or
+     * what was left of an interrupted crawl.
+     */
+    public void start(long queuedResources) {
+        started.set(true);
+        if (pendingResources.addAndGet(queuedResources) == 0) done.countDown();
+    }
+
+    /**
+     * Starts tracking the crawl unless whoever runs it has already, e.g. for a crawler that is run on its own.
+     */
+    public void startUnlessStarted(long queuedResources) {
+        if (started.compareAndSet(false, true) && pendingResources.addAndGet(queuedResources) == 0) done.countDown();
+    }
+
+    /**
+     * Records that a resource was admitted to the frontier.
+     */
+    public void admitted() {
+        pendingResources.incrementAndGet();
+    }
+
+    /**
+     * Records that a number of resources, e.g. the new links found on a page, were admitted to the frontier.
+     */
+    public void admitted(int numberOfResources) {
+        pendingResources.addAndGet(numberOfResources);
+    }
+
+    /**
+     * Takes back resources recorded as admitted that the frontier turned away after all. Links are counted before they
+     * are added, since a worker may take one and be done with it before the add returns, and are only ever withdrawn
+     * while the page they were found on is still pending, so withdrawing them never ends the crawl.
+     */
+    public void withdrawn(int numberOfResources) {
+        pendingResources.addAndGet(-numberOfResources);
+    }
+
+    /**
+     * Records that a resource taken from the frontier has been crawled and that the links found on it, if any, have
+     * been admitted.
+     */
+    public void crawled() {
+        if (pendingResources.decrementAndGet() == 0) done.countDown();
+    }
+
+    public long pendingResources() {
+        return pendingResources.get();
+    }
+
+    public boolean isDone() {
+        return done.getCount() == 0;
+    }
+
+    /**
+     * @return true if the crawl finished within the given time
+     */
+    public boolean awaitDone(long timeout, TimeUnit unit) throws InterruptedException {
+        return done.await(timeout, unit);
+    }
+}
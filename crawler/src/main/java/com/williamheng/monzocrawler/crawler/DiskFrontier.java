@@ -0,0 +1,206 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Resource;
+import com.williamheng.monzocrawler.store.MappedHashIndex;
+import com.williamheng.monzocrawler.store.RecordLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A frontier kept on disk, so that its memory footprint stays flat however many URLs a crawl finds.
+ *
+ * How it works:
+ *
+ * 1. Every admitted URL is appended once to a log file along with its depth, which is both the queue (read in order
+ *    from a moving offset) and the exact record of every URL seen
+ * 2. A memory-mapped hash index maps a fingerprint of each URL to its offset in the log, and a match is confirmed by
+ *    comparing against the URL in the log
+ * 3. A URL marked as seen without being queued is appended with no depth, and is skipped when the queue reaches it
+ *
+ * The directory must not hold the frontier of an earlier crawl: the pages that crawl fetched are not on disk, so it
+ * could not be carried on from its frontier alone. An interrupted crawl is carried on from a {@link CrawlCheckpoint}.
+ */
+@Slf4j
+public class DiskFrontier implements Frontier {
+
+    private static final String LOG_FILE = "frontier.log";
+    private static final String INDEX_FILE = "frontier.idx";
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 16;
+
+    // Every record is the depth of a URL followed by the URL itself
+    private static final int DEPTH_BYTES = Integer.BYTES;
+    private static final int SEEN_ONLY = -1;
+
+    private final RecordLog urlLog;
+    private final MappedHashIndex index;
+
+    // Everything below is guarded by the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private long readOffset;
+    private long endOffset;
+    private int queued;
+
+    public DiskFrontier(Path directory) throws IOException {
+        if (Files.exists(directory.resolve(LOG_FILE)) || Files.exists(directory.resolve(INDEX_FILE))) {
+            throw new IllegalArgumentException(String.format("%s already holds the frontier of an earlier crawl", directory));
+        }
+        Files.createDirectories(directory);
+
+        this.urlLog = new RecordLog(directory.resolve(LOG_FILE));
+        this.index = new MappedHashIndex(directory.resolve(INDEX_FILE), INITIAL_INDEX_CAPACITY);
+        log.debug("Keeping the frontier in {}", directory);
+    }
+
+    @Override
+    public boolean add(Resource resource) {
+        byte[] url = resource.getUrl().toString().getBytes(StandardCharsets.UTF_8);
+        long fingerprint = MappedHashIndex.fingerprint(url);
+
+        lock.lock();
+        try {
+            if (!index.putIfAbsent(fingerprint, endOffset, offset -> isAt(offset, url))) return false;
+
+            endOffset = urlLog.append(endOffset, record(url, resource.getDepth()));
+            queued++;
+            notEmpty.signal();
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Resource> addAll(List<Resource> resources) {
+        List<Resource> admitted = new ArrayList<>(resources.size());
+
+        lock.lock();
+        try {
+            for (Resource resource : resources) {
+                byte[] url = resource.getUrl().toString().getBytes(StandardCharsets.UTF_8);
+                if (!index.putIfAbsent(MappedHashIndex.fingerprint(url), endOffset, offset -> isAt(offset, url))) continue;
+
+                endOffset = urlLog.append(endOffset, record(url, resource.getDepth()));
+                admitted.add(resource);
+            }
+            if (admitted.isEmpty()) return admitted;
+
+            queued += admitted.size();
+            notEmpty.signalAll();
+            return admitted;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean markSeen(Resource resource) {
+        byte[] url = resource.getUrl().toString().getBytes(StandardCharsets.UTF_8);
+        long fingerprint = MappedHashIndex.fingerprint(url);
+
+        lock.lock();
+        try {
+            if (!index.putIfAbsent(fingerprint, endOffset, offset -> isAt(offset, url))) return false;
+
+            endOffset = urlLog.append(endOffset, record(url, SEEN_ONLY));
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Resource poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            while (queued == 0) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+
+            ByteBuffer record;
+            int depth;
+            do {
+                record = ByteBuffer.wrap(urlLog.read(readOffset));
+                readOffset = RecordLog.next(readOffset, record.array());
+                depth = record.getInt();
+            } while (depth == SEEN_ONLY);
+            queued--;
+
+            CanonicalUrl canonicalUrl = CanonicalUrl.parse(new String(record.array(), DEPTH_BYTES, record.remaining(), StandardCharsets.UTF_8));
+            return new Resource(canonicalUrl, canonicalUrl.getPath(), depth);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of URLs this frontier has ever admitted
+     */
+    public int seen() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            index.close();
+            urlLog.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static byte[] record(byte[] url, int depth) {
+        return ByteBuffer.allocate(DEPTH_BYTES + url.length).putInt(depth).put(url).array();
+    }
+
+    private boolean isAt(long offset, byte[] url) {
+        if (offset >= endOffset) return false;
+        try {
+            byte[] record = urlLog.read(offset);
+            return Arrays.equals(record, DEPTH_BYTES, record.length, url, 0, url.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.PageMetadata;
+import com.williamheng.monzocrawler.store.MappedHashIndex;
+import com.williamheng.monzocrawler.store.RecordLog;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A page cache kept on disk between crawls.
+ *
+ * How it works:
+ *
+ * 1. Every time a page is stored, a record of its URL, validators, content hash and links is appended to a log file
+ * 2. A memory-mapped hash index maps a fingerprint of each URL to the offset of its latest record, and a match is
+ *    confirmed by comparing against the URL in the record
+ * 3. A small memory-mapped state file records where the log ends, so a record that was only partly written is dropped
+ *
+ * Only pages that changed are stored again, so the log grows with the amount of change between crawls.
+ */
+@Slf4j
+public class DiskPageCache implements PageCache {
+
+    private static final String LOG_FILE = "pages.log";
+    private static final String INDEX_FILE = "pages.idx";
+    private static final String STATE_FILE = "pages.state";
+    private static final int INITIAL_INDEX_CAPACITY = 1 << 16;
+    private static final int STATE_BYTES = 8;
+
+    // Well within what a modified UTF-8 string in a record can hold, and applied to every string a record holds
+    private static final int MAX_STRING_LENGTH = 8192;
+
+    private final RecordLog pageLog;
+    private final MappedHashIndex index;
+    private final FileChannel stateChannel;
+    private final MappedByteBuffer state;
+
+    // Everything below is guarded by the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private long endOffset;
+
+    public DiskPageCache(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        this.pageLog = new RecordLog(directory.resolve(LOG_FILE));
+        this.index = new MappedHashIndex(directory.resolve(INDEX_FILE), INITIAL_INDEX_CAPACITY);
+        this.stateChannel = FileChannel.open(directory.resolve(STATE_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.state = stateChannel.map(FileChannel.MapMode.READ_WRITE, 0, STATE_BYTES);
+        this.endOffset = state.getLong(0);
+
+        // Anything after the recorded end was only partly written
+        pageLog.truncate(endOffset);
+
+        if (endOffset > 0) log.info("Using page cache in {} with {} pages", directory, index.size());
+    }
+
+    @Override
+    public PageMetadata get(CanonicalUrl url) {
+        String key = url.toString();
+        PageMetadata[] found = new PageMetadata[1];
+
+        lock.lock();
+        try {
+            index.get(fingerprint(key), offset -> {
+                PageMetadata page = read(offset);
+                if (!page.getUrl().toString().equals(key)) return false;
+                found[0] = page;
+                return true;
+            });
+            return found[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void put(PageMetadata page) {
+        String key = page.getUrl().toString();
+        if (key.length() > MAX_STRING_LENGTH) {
+            log.debug("Not caching URL={}... as it is too long", key.substring(0, 100));
+            return;
+        }
+        byte[] record = encode(page);
+
+        lock.lock();
+        try {
+            long offset = endOffset;
+            endOffset = pageLog.append(offset, record);
+            state.putLong(0, endOffset);
+
+            // The record is written before it is indexed, so a crash in between leaves the previous record in use
+            index.put(fingerprint(key), offset, o -> read(o).getUrl().toString().equals(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of pages in the cache
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return index.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            index.close();
+            pageLog.force();
+            pageLog.close();
+            state.force();
+            stateChannel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long fingerprint(String url) {
+        return MappedHashIndex.fingerprint(url.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PageMetadata read(long offset) {
+        try {
+            return decode(pageLog.read(offset));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(PageMetadata page) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeUTF(page.getUrl().toString());
+            // A validator too long to keep is dropped, so the page is simply fetched in full next time
+            output.writeUTF(fitting(page.getEtag()));
+            output.writeUTF(fitting(page.getLastModified()));
+            output.writeLong(page.getContentHash());
+            List<String> links = new ArrayList<>(page.getLinks());
+            links.removeIf(link -> link.length() > MAX_STRING_LENGTH);
+            output.writeInt(links.size());
+            for (String link : links) output.writeUTF(link);
+        } catch (IOException e) {
+            // Writing to memory never fails
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static PageMetadata decode(byte[] record) throws IOException {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(record))) {
+            PageMetadata.PageMetadataBuilder page = PageMetadata.builder()
+                    .url(CanonicalUrl.parse(input.readUTF()))
+                    .etag(emptyToNull(input.readUTF()))
+                    .lastModified(emptyToNull(input.readUTF()))
+                    .contentHash(input.readLong());
+
+            int numberOfLinks = input.readInt();
+            List<String> links = new ArrayList<>(numberOfLinks);
+            for (int i = 0; i < numberOfLinks; i++) links.add(input.readUTF());
+
+            return page.links(links).build();
+        } catch (MalformedURLException e) {
+            throw new IOException("Page cache record has an invalid URL", e);
+        }
+    }
+
+    private static String fitting(String value) {
+        return value == null || value.length() > MAX_STRING_LENGTH ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,51 @@
+package com.williamheng.monzocrawler.crawler;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * How the orchestrator runs its crawlers.
+ */
+public enum ExecutorMode {
+
+    /**
+     * A fixed pool of workers, each making one blocking request at a time
+     */
+    POOL("pool"),
+
+    /**
+     * A single dispatcher keeping many non-blocking requests in flight, with parsing done on a worker pool
+     */
+    ASYNC("async"),
+
+    /**
+     * A virtual thread per resource being crawled, each making one blocking request
+     */
+    VIRTUAL("virtual"),
+
+    /**
+     * Separate pools for fetching, parsing and adding links to the frontier, joined by bounded queues
+     */
+    PIPELINE("pipeline");
+
+    private final String option;
+
+    ExecutorMode(String option) {
+        this.option = option;
+    }
+
+    public String getOption() {
+        return option;
+    }
+
+    public static ExecutorMode fromOption(String option) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.option.equalsIgnoreCase(option))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Invalid executor %s", option)));
+    }
+
+    public static String options() {
+        return Arrays.stream(values()).map(ExecutorMode::getOption).collect(Collectors.joining(", "));
+    }
+}
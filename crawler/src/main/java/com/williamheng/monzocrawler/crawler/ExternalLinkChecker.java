@@ -0,0 +1,201 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.client.AsyncInvoker;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.Response;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that the external links found by a crawl still work, without slowing the crawl itself down.
+ *
+ * How it works:
+ *
+ * 1. Crawlers hand over every external link they find, which only ever queues it. A {@link PoliteFrontier} of its own
+ *    dedups the links, so each URL is checked once however many pages link to it, and hands them out so that only a
+ *    few checks are in flight to any one host
+ * 2. A dispatcher thread of its own fires non-blocking HEAD requests, with a fixed number in flight at once, over a
+ *    client that is not the one crawling
+ * 3. A server that does not allow HEAD (405 or 501) is asked again with a GET for a single byte
+ *    ("Range: bytes=0-0"), and a 416 answer to that means the link works but points at nothing
+ * 4. Servers that throttle us are retried as in a crawl, and the status the link ends up with is recorded in the
+ *    {@link Graph}, which makes it the status of every edge to the link. Links that could not be reached at all are
+ *    recorded as {@link Graph#UNREACHABLE}
+ * 5. {@link #awaitChecked(long, TimeUnit)} waits for every link queued so far to be checked, once the crawl is over
+ */
+@Slf4j
+public class ExternalLinkChecker implements Closeable {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 64;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 2;
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final int METHOD_NOT_ALLOWED = 405;
+    private static final int RANGE_NOT_SATISFIABLE = 416;
+    private static final int NOT_IMPLEMENTED = 501;
+
+    private final Client client;
+    private final Graph graph;
+    private final CrawlMetrics metrics;
+    private final Frontier frontier;
+    private final Semaphore inFlightChecks;
+    private final Thread dispatcher;
+
+    // Links that are queued, being checked or waiting to be retried
+    private final AtomicLong pendingLinks = new AtomicLong();
+
+    @Builder
+    private ExternalLinkChecker(
+            @NonNull Client client,
+            @NonNull Graph graph,
+            CrawlMetrics metrics,
+            int maxInFlight,
+            int maxConnectionsPerHost
+    ) {
+        this.client = client;
+        this.graph = graph;
+        this.metrics = metrics == null ? new CrawlMetrics() : metrics;
+        this.frontier = new PoliteFrontier(
+                Double.POSITIVE_INFINITY,
+                maxConnectionsPerHost > 0 ? maxConnectionsPerHost : DEFAULT_MAX_CONNECTIONS_PER_HOST
+        );
+        this.inFlightChecks = new Semaphore(maxInFlight > 0 ? maxInFlight : DEFAULT_MAX_IN_FLIGHT);
+        this.dispatcher = new Thread(this::dispatch, "external-link-checker");
+        this.dispatcher.setDaemon(true);
+    }
+
+    public void start() {
+        dispatcher.start();
+    }
+
+    /**
+     * Queues the link to be checked, unless it has been queued before.
+     */
+    public void check(Resource link) {
+        pendingLinks.incrementAndGet();
+        if (!frontier.add(link)) checked();
+    }
+
+    /**
+     * @return true if every link queued so far was checked within the given time
+     */
+    public boolean awaitChecked(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (pendingLinks) {
+            while (pendingLinks.get() > 0) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) return false;
+                pendingLinks.wait(remainingMillis);
+            }
+        }
+        return true;
+    }
+
+    public long pendingLinks() {
+        return pendingLinks.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        dispatcher.interrupt();
+        frontier.close();
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                inFlightChecks.acquire();
+                Resource link = frontier.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+                if (link == null) {
+                    inFlightChecks.release();
+                    continue;
+                }
+
+                request(link, true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void request(Resource link, boolean isHead) {
+        String url = link.getUrl().toString();
+        log.debug("Checking {} with {}", url, isHead ? "HEAD" : "GET");
+
+        InvocationCallback<Response> callback = new InvocationCallback<Response>() {
+            @Override
+            public void completed(Response response) {
+                try {
+                    int status = response.getStatus();
+                    if (isHead && (status == METHOD_NOT_ALLOWED || status == NOT_IMPLEMENTED)) {
+                        request(link, false);
+                        return;
+                    }
+
+                    if (Throttling.isThrottled(status) && frontier.retry(link, Throttling.retryAfterMillis(response))) {
+                        release(link);
+                        return;
+                    }
+
+                    record(link, !isHead && status == RANGE_NOT_SATISFIABLE ? Response.Status.OK.getStatusCode() : status);
+                } finally {
+                    response.close();
+                }
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                log.debug("Unable to reach URL={}", url, throwable);
+                record(link, Graph.UNREACHABLE);
+            }
+        };
+
+        try {
+            AsyncInvoker invoker = isHead
+                    ? client.target(url).request().async()
+                    : client.target(url).request().header("Range", "bytes=0-0").async();
+            if (isHead) {
+                invoker.head(callback);
+            } else {
+                invoker.get(callback);
+            }
+        } catch (RuntimeException e) {
+            callback.failed(e);
+        }
+    }
+
+    private void record(Resource link, int status) {
+        String url = link.getUrl().toString();
+        if (status == Graph.UNREACHABLE || status >= 400) log.info("Broken link URL={} status={}", url, status);
+
+        graph.setLinkStatus(url, status);
+        metrics.linkChecked(status);
+        release(link);
+        checked();
+    }
+
+    private void release(Resource link) {
+        frontier.release(link);
+        inFlightChecks.release();
+    }
+
+    private void checked() {
+        if (pendingLinks.decrementAndGet() == 0) {
+            synchronized (pendingLinks) {
+                pendingLinks.notifyAll();
+            }
+        }
+    }
+}
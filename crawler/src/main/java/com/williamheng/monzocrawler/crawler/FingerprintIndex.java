@@ -0,0 +1,69 @@
+package com.williamheng.monzocrawler.crawler;
+
+import java.util.Arrays;
+
+/**
+ * The {@link SimHash} fingerprints of the pages crawled so far, which tells whether a page is a near-duplicate of one
+ * seen before.
+ *
+ * How it works:
+ *
+ * 1. Two fingerprints are near-duplicates if they differ in at most {@link #MAX_DISTANCE} of their 64 bits
+ * 2. The bits are split into {@link #MAX_DISTANCE} + 1 blocks of 16, so two near-duplicates must agree on every bit of
+ *    at least one block, since there are not enough differing bits to go round
+ * 3. Every fingerprint is stored once per block, in a bucket keyed by that block's bits, and a lookup only compares the
+ *    fingerprints in the bucket of each of its own blocks rather than every fingerprint seen
+ *
+ * Buckets are plain arrays of longs, so a page costs 32 bytes however long it is.
+ */
+public class FingerprintIndex {
+
+    public static final int MAX_DISTANCE = 3;
+
+    private static final int BLOCKS = MAX_DISTANCE + 1;
+    private static final int BLOCK_BITS = Long.SIZE / BLOCKS;
+    private static final int BUCKETS = 1 << BLOCK_BITS;
+    private static final int INITIAL_BUCKET_SIZE = 2;
+
+    private final long[][][] buckets = new long[BLOCKS][BUCKETS][];
+    private final int[][] bucketSizes = new int[BLOCKS][BUCKETS];
+    private int size;
+
+    /**
+     * Adds the fingerprint unless a near-duplicate of it has been added before.
+     *
+     * @return true if the fingerprint was added, or false if it is a near-duplicate
+     */
+    public synchronized boolean add(long fingerprint) {
+        for (int block = 0; block < BLOCKS; block++) {
+            int key = key(fingerprint, block);
+            long[] bucket = buckets[block][key];
+            for (int i = 0; i < bucketSizes[block][key]; i++) {
+                if (SimHash.distance(bucket[i], fingerprint) <= MAX_DISTANCE) return false;
+            }
+        }
+
+        for (int block = 0; block < BLOCKS; block++) {
+            int key = key(fingerprint, block);
+            long[] bucket = buckets[block][key];
+            int bucketSize = bucketSizes[block][key];
+            if (bucket == null) {
+                bucket = buckets[block][key] = new long[INITIAL_BUCKET_SIZE];
+            } else if (bucketSize == bucket.length) {
+                bucket = buckets[block][key] = Arrays.copyOf(bucket, bucket.length * 2);
+            }
+            bucket[bucketSize] = fingerprint;
+            bucketSizes[block][key] = bucketSize + 1;
+        }
+        size++;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static int key(long fingerprint, int block) {
+        return (int) (fingerprint >>> (block * BLOCK_BITS)) & (BUCKETS - 1);
+    }
+}
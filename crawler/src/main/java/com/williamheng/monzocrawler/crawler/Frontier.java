@@ -0,0 +1,99 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.Resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The set of resources that are waiting to be crawled.
+ *
+ * A frontier admits every resource at most once for the lifetime of a crawl: {@link #add(Resource)} is a single
+ * atomic "seen-or-add" step, so workers never need to check a visited set before enqueueing.
+ */
+public interface Frontier extends Closeable {
+
+    /**
+     * Admits the resource if it has never been seen by this frontier before.
+     *
+     * @return true if the resource was admitted, even if another was evicted to make room for it, false if it had
+     * already been seen or there was no room for it
+     */
+    boolean add(Resource resource);
+
+    /**
+     * Admits every resource that has never been seen by this frontier before, e.g. the new links found on a page, as
+     * one operation rather than one {@link #add(Resource)} each.
+     *
+     * @return the resources that were admitted, in the order they were given
+     */
+    default List<Resource> addAll(List<Resource> resources) {
+        List<Resource> admitted = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            if (add(resource)) admitted.add(resource);
+        }
+        return admitted;
+    }
+
+    /**
+     * Marks a resource as seen without queueing it, e.g. a page crawled before an interrupted crawl was resumed, so
+     * that it is never admitted.
+     *
+     * @return true if the resource had not been seen before
+     */
+    boolean markSeen(Resource resource);
+
+    /**
+     * Takes the number of resources that were admitted but have since been evicted to make room for others, so that
+     * whoever counted them in can count them out again: they will never be handed out.
+     *
+     * @return the number of resources evicted since the last call
+     */
+    default int drainEvicted() {
+        return 0;
+    }
+
+    /**
+     * Retrieves the next resource to crawl, waiting up to the given time for one to become available.
+     *
+     * @return the next resource, or null if none became available in time
+     */
+    Resource poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * @return the number of resources waiting to be crawled
+     */
+    int size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Tells the frontier that a resource handed out by {@link #poll(long, TimeUnit)} has been fetched, whether or
+     * not the fetch succeeded.
+     */
+    default void release(Resource resource) {
+    }
+
+    /**
+     * Asks for a resource handed out by {@link #poll(long, TimeUnit)} to be crawled again later, e.g. because the
+     * server asked us to slow down.
+     *
+     * @param delayMillis how long the server asked us to wait, or a negative number if it did not say
+     * @return true if the resource will be retried, false if the frontier has given up on it
+     */
+    default boolean retry(Resource resource, long delayMillis) {
+        return false;
+    }
+
+    /**
+     * Releases anything the frontier holds outside of the heap, such as open files.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
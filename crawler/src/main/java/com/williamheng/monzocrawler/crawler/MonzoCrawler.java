@@ -0,0 +1,158 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.PageMetadata;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class MonzoCrawler implements Runnable {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Client client;
+    private final Frontier frontier;
+    private final MonzoPageProcessor pageProcessor;
+    private final PageCache pageCache;
+    private final PageReader pageReader;
+    private final CrawlTracker tracker;
+    private final CrawlMetrics metrics;
+
+    @Builder
+    private MonzoCrawler(
+            @NonNull Client client,
+            @NonNull MonzoPageProcessor pageProcessor,
+            PageCache pageCache,
+            int maxPageSize
+    ) {
+        this.client = client;
+        this.pageProcessor = pageProcessor;
+        this.frontier = pageProcessor.getFrontier();
+        this.tracker = pageProcessor.getTracker();
+        this.metrics = pageProcessor.getMetrics();
+        this.pageCache = pageCache == null ? PageCache.NONE : pageCache;
+        this.pageReader = new PageReader(maxPageSize);
+    }
+
+    /**
+     * Operations:
+     * 1. Get content from URL
+     * 2. Add same-domain URL to known resources
+     *
+     * Returns as soon as the tracker says the crawl is over.
+     */
+    @Override
+    public void run() {
+        // A crawler run on its own tracks whatever is in the frontier when it starts
+        tracker.startUnlessStarted(frontier.size());
+
+        while (!tracker.isDone()) {
+            try {
+                long pollStart = System.nanoTime();
+                Resource resource = frontier.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                long crawlStart = System.nanoTime();
+                metrics.workerIdle(crawlStart - pollStart);
+
+                // Nothing is ready yet, but a page still being crawled elsewhere may add more
+                if (resource == null) continue;
+
+                // The frontier only ever hands out a resource once, so there is no need to check for visits here
+                this.crawl(resource);
+                metrics.workerBusy(System.nanoTime() - crawlStart);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    void crawl(Resource resource) {
+        CanonicalUrl url = resource.getUrl();
+        log.info("Crawling {}", url);
+
+        PageMetadata cached = pageCache.get(url);
+        Response response = null;
+        boolean isRetried = false;
+        try {
+            long fetchStart = System.nanoTime();
+            response = ConditionalRequests.request(client, url, cached).get();
+            metrics.fetched(response.getStatus(), System.nanoTime() - fetchStart);
+
+            // The page has not changed since it was cached, so neither is there a body nor a need to parse one
+            if (ConditionalRequests.isNotModified(response, cached)) {
+                log.debug("URL={} has not changed", url);
+                pageProcessor.process(resource, cached.getLinks());
+                return;
+            }
+
+            if (Response.Status.Family.familyOf(response.getStatus()) != Response.Status.Family.SUCCESSFUL) {
+                throw new WebApplicationException(response);
+            }
+
+            PageBuffer body = pageReader.read(response);
+
+            // The page is still part of the site, but it is not HTML or is too large to look inside
+            if (body == null) {
+                metrics.pageSkipped();
+                pageProcessor.process(resource, Collections.emptyList());
+                return;
+            }
+
+            try {
+                // Only the parsing is timed, not reading the body off the network
+                long parseStart = System.nanoTime();
+                List<String> hrefs = new ArrayList<>();
+                SimHash fingerprint = pageProcessor.fingerprint();
+                MonzoLinkExtractor.extract(body.inputStream(), body.getCharset(), hrefs::add, fingerprint);
+                metrics.parsed(System.nanoTime() - parseStart, body.length(), hrefs.size());
+
+                pageProcessor.process(resource, hrefs, fingerprint);
+                PageMetadata page = ConditionalRequests.validators(url, response)
+                        .contentHash(body.contentHash())
+                        .links(hrefs)
+                        .build();
+                ConditionalRequests.remember(pageCache, cached, page);
+            } finally {
+                pageReader.release(body);
+            }
+
+        } catch (WebApplicationException e) {
+            Response throttledResponse = Throttling.throttledResponse(e);
+            if (throttledResponse != null && frontier.retry(resource, Throttling.retryAfterMillis(throttledResponse))) {
+                isRetried = true;
+                metrics.retried();
+                return;
+            }
+
+            log.info("Unable to reach URL={}", url);
+            log.debug("Unable to reach URL={}", url, e);
+        } catch (ProcessingException e) {
+            // The connection failed or timed out, or the body could not be read
+            log.info("Unable to reach URL={}", url);
+            log.debug("Unable to reach URL={}", url, e);
+        } catch (IOException e) {
+            log.info("Unable to read URL={}", url);
+            log.debug("Unable to read URL={}", url, e);
+        } finally {
+            // Without a response the request never made it to the server and back
+            if (response != null) response.close();
+            else metrics.fetchFailed();
+            frontier.release(resource);
+            if (!isRetried) tracker.crawled();
+        }
+    }
+
+}
@@ -0,0 +1,373 @@
+package com.williamheng.monzocrawler.crawler;
+
+
+import com.williamheng.monzocrawler.cluster.ClusterNode;
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.client.Client;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * How it works:
+ *
+ * 1. A number of workers (crawlers) is created
+ * 2. A frontier is maintained for the crawlers to visit, admitting each URL exactly once
+ * 3. Workers act as both producers and consumers (taking and submitting to the queue)
+ * 4. A {@link CrawlTracker} counts the URLs that are queued or being crawled
+ * 5. The workers terminate as soon as that count reaches zero, i.e. once the last page has been crawled
+ *
+ * When running with {@link ExecutorMode#ASYNC}, a single {@link AsyncMonzoCrawler} fetches pages instead and the
+ * workers only parse the pages it hands over. With {@link ExecutorMode#VIRTUAL}, a {@link VirtualThreadMonzoCrawler}
+ * crawls every resource on its own virtual thread and the workers are not used. With {@link ExecutorMode#PIPELINE}, a
+ * {@link PipelinedMonzoCrawler} fetches, parses and queues links on pools of its own, each sized separately.
+ *
+ * Given a {@link PageCache}, pages fetched by a previous crawl are revalidated with conditional requests, and those
+ * that have not changed reuse the links found on them last time.
+ *
+ * Given a client to check links with, every external link found is checked by an {@link ExternalLinkChecker} while the
+ * crawl runs, and the crawl waits for the last of those checks before it completes.
+ *
+ * Given cluster settings, the crawl is one node of a {@link ClusterNode cluster}: it only crawls the URLs in its own
+ * partition, forwarding the rest to the nodes that own them, and only ends once every node has run out of work. The
+ * coordinator then merges the graph of every other node into its own.
+ *
+ * Given {@link CrawlConfiguration#isRespectRobots()}, links that robots.txt disallows are never queued, see
+ * {@link RobotsCache}. Given {@link CrawlConfiguration#isUseSitemaps()}, the frontier is seeded with every page of the
+ * site's {@link Sitemaps} before the first page is crawled.
+ *
+ * A {@link CrawlBudget} stops the crawl from fetching more pages than allowed, pages too far from the root, or too many
+ * URLs of the same shape. Given {@link CrawlConfiguration#isSkipNearDuplicates()}, the links of pages whose text is a
+ * near-duplicate of a page crawled before are not followed.
+ *
+ * Given a checkpoint directory, the crawl is checkpointed to a {@link CrawlCheckpoint} while it runs, and a crawl
+ * checkpointed to it before is resumed where its last checkpoint left off.
+ *
+ * Every crawler records what it does in the same {@link CrawlMetrics}, which can be read while the crawl runs.
+ */
+@Slf4j
+public class MonzoCrawlerOrchestrator {
+
+    private final Client client;
+    private final URL rootURL;
+    private final Resource rootResource;
+    private final Frontier frontier;
+    private final CrawlConfiguration configuration;
+    private final ExecutorService executorService;
+    private final ExternalLinkChecker linkChecker;
+    private final ClusterNode cluster;
+    private final CrawlBudget budget;
+    private final RobotsCache robots;
+    private final FingerprintIndex nearDuplicates;
+    private final CrawlCheckpoint checkpoint;
+    private final MonzoPageProcessor pageProcessor;
+
+    private final Graph graph = new Graph();
+    private final CrawlTracker tracker = new CrawlTracker();
+    private final CrawlMetrics metrics = new CrawlMetrics();
+
+    /**
+     * @param idleTime no longer used, since crawls now end as soon as the last page has been crawled
+     */
+    public MonzoCrawlerOrchestrator(
+            Client client,
+            String rootURL,
+            Frontier frontier,
+            int numberOfCrawlers,
+            int idleTime,
+            boolean addExternalLinks
+    ) throws MalformedURLException {
+
+        this(
+                client,
+                rootURL,
+                frontier,
+                CrawlConfiguration.builder()
+                        .numberOfCrawlers(numberOfCrawlers)
+                        .addExternalLinks(addExternalLinks)
+                        .build()
+        );
+    }
+
+    public MonzoCrawlerOrchestrator(
+            Client client,
+            String rootURL,
+            Frontier frontier,
+            CrawlConfiguration configuration
+    ) throws MalformedURLException {
+
+        if (configuration.getCheckpointDirectory() != null && configuration.getCluster() != null) {
+            throw new IllegalArgumentException("A crawl that is one node of a cluster cannot be checkpointed");
+        }
+        if (configuration.getCheckpointDirectory() != null && !frontier.isEmpty()) {
+            throw new IllegalArgumentException("A checkpointed crawl restores its frontier from the checkpoint, so the frontier must start empty");
+        }
+
+        this.client = client;
+        this.cluster = configuration.getCluster() == null ? null : new ClusterNode(configuration.getCluster());
+        this.budget = new CrawlBudget(configuration.getMaxPages(), configuration.getMaxDepth(), configuration.getMaxPerPattern());
+        this.robots = configuration.isRespectRobots() ? robots(client, frontier) : null;
+        this.nearDuplicates = configuration.isSkipNearDuplicates() ? new FingerprintIndex() : null;
+        Frontier partitioned = cluster == null ? frontier : cluster.partition(frontier);
+        Frontier budgeted = budget.limitsPages() ? new BudgetedFrontier(partitioned, budget, tracker, metrics) : partitioned;
+        this.checkpoint = configuration.getCheckpointDirectory() == null ? null : restoreCheckpoint(configuration.getCheckpointDirectory(), budgeted);
+        this.frontier = checkpoint == null ? budgeted : new CheckpointedFrontier(budgeted, checkpoint);
+        this.configuration = configuration;
+        // Only pool workers and the parsing of asynchronous fetches run on the workers, every other mode has threads of its own
+        boolean usesWorkers = configuration.getExecutorMode() == ExecutorMode.POOL || configuration.getExecutorMode() == ExecutorMode.ASYNC;
+        this.executorService = usesWorkers ? Executors.newFixedThreadPool(configuration.getNumberOfCrawlers()) : null;
+
+        if (!rootURL.endsWith("/")) {
+            rootURL = String.format("%s/", rootURL);
+        }
+        this.rootURL = CanonicalUrl.parseURL(rootURL);
+        this.rootResource = new Resource(this.rootURL, this.rootURL.getPath());
+        this.metrics.frontierSize(this.frontier::size);
+        this.linkChecker = configuration.getLinkCheckClient() == null ? null : ExternalLinkChecker.builder()
+                .client(configuration.getLinkCheckClient())
+                .graph(graph)
+                .metrics(metrics)
+                .maxInFlight(configuration.getLinkCheckMaxInFlight())
+                .maxConnectionsPerHost(configuration.getLinkCheckConnectionsPerHost())
+                .build();
+
+        // Every crawler shares the one processor, and everything it needs to process pages is given to it here
+        this.pageProcessor = MonzoPageProcessor.builder()
+                .frontier(this.frontier)
+                .graph(graph)
+                .rootURL(this.rootURL)
+                .tracker(tracker)
+                .metrics(metrics)
+                .addExternalLinks(configuration.isAddExternalLinks())
+                .linkChecker(linkChecker)
+                .budget(budget)
+                .robots(robots)
+                .nearDuplicates(nearDuplicates)
+                .checkpoint(checkpoint)
+                .build();
+    }
+
+    /**
+     * @return what the crawl has done so far, which is safe to read while it is still running
+     */
+    public CrawlMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Future<Graph> initCrawlOperation() {
+
+        return CompletableFuture.supplyAsync(() -> {
+
+            // A frontier restored from a checkpoint has already seen the root
+            boolean isRootOwner = cluster == null || cluster.owns(rootResource);
+            if (robots != null && !robots.isAllowed(rootResource)) {
+                log.warn("robots.txt disallows {}, so there is nothing to crawl", rootURL);
+            } else if (!frontier.add(rootResource) && isRootOwner) {
+                log.info("Resuming crawl with {} queued URLs", frontier.size());
+            }
+            if (configuration.isUseSitemaps() && isRootOwner) seedFromSitemaps();
+            startTracking();
+            if (checkpoint != null) checkpoint.start(configuration.getCheckpointIntervalMillis());
+            if (linkChecker != null) linkChecker.start();
+
+            switch (configuration.getExecutorMode()) {
+                case ASYNC:
+                    crawlAsynchronously();
+                    break;
+                case VIRTUAL:
+                    crawlOnVirtualThreads();
+                    break;
+                case PIPELINE:
+                    crawlInPipeline();
+                    break;
+                default:
+                    crawlWithWorkerPool();
+            }
+
+            metrics.finish();
+            closeCheckpoint();
+            awaitLinkChecks();
+            graph.compact();
+            mergeCluster();
+            return MonzoCrawlerOrchestrator.this.graph;
+        });
+    }
+
+    /**
+     * Queues every page of the site listed in its sitemaps, which robots.txt names or which is at /sitemap.xml.
+     */
+    private void seedFromSitemaps() {
+        RobotsRules rules = (robots == null ? new RobotsCache(client) : robots).rules(rootURL);
+        List<String> sitemapURLs = new ArrayList<>(rules.getSitemaps());
+        if (sitemapURLs.isEmpty()) sitemapURLs.add(String.format("%s://%s/sitemap.xml", rootURL.getProtocol(), rootURL.getAuthority()));
+
+        // Sitemap pages are one link away from the root, as if the root linked to each of them
+        int sitemaps = new Sitemaps(client).read(sitemapURLs, url -> {
+            Resource resource = new Resource(url, url.getPath()).atDepth(1);
+            if (!url.getHost().equalsIgnoreCase(rootURL.getHost()) || !budget.allowsDepth(resource.getDepth())) return;
+            if (robots != null && !robots.isAllowed(resource)) {
+                metrics.linkDisallowed();
+                return;
+            }
+
+            if (frontier.add(resource)) metrics.sitemapURLAdmitted();
+        });
+        log.info("Queued {} URLs from {} sitemaps", metrics.getSitemapURLs(), sitemaps);
+    }
+
+    /**
+     * Opens the checkpoint and restores whatever was crawled before, straight into the frontier so that none of it is
+     * recorded again.
+     */
+    private static RobotsCache robots(Client client, Frontier frontier) {
+        // Only a frontier that schedules requests per host can slow a host down to its crawl delay
+        if (frontier instanceof PoliteFrontier) return new RobotsCache(client, ((PoliteFrontier) frontier)::setCrawlDelay);
+        return new RobotsCache(client);
+    }
+
+    private CrawlCheckpoint restoreCheckpoint(Path directory, Frontier frontier) {
+        try {
+            CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, metrics);
+            checkpoint.restore(frontier, graph, budget);
+            return checkpoint;
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Unable to restore the checkpoint in %s", directory), e);
+        }
+    }
+
+    private void closeCheckpoint() {
+        if (checkpoint == null) return;
+
+        try {
+            checkpoint.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the last checkpoint", e);
+        }
+    }
+
+    private void startTracking() {
+        // Whatever was evicted while the frontier was seeded or restored is already left out of its size
+        frontier.drainEvicted();
+
+        if (cluster == null) {
+            tracker.start(frontier.size());
+            return;
+        }
+
+        try {
+            cluster.start(tracker, frontier.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to join the cluster", e);
+        }
+    }
+
+    private void mergeCluster() {
+        if (cluster == null) return;
+
+        try {
+            cluster.finish(graph);
+            graph.compact();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to merge the graphs of the cluster", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            cluster.close();
+        }
+    }
+
+    private void awaitLinkChecks() {
+        if (linkChecker == null) return;
+
+        log.info("Crawl finished, waiting for {} external links to be checked", linkChecker.pendingLinks());
+        try {
+            linkChecker.awaitChecked(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                linkChecker.close();
+            } catch (IOException e) {
+                log.debug("Unable to close the link checker", e);
+            }
+        }
+    }
+
+    private void crawlWithWorkerPool() {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < configuration.getNumberOfCrawlers(); i++) {
+            futures.add(
+                    executorService.submit(
+                            MonzoCrawler.builder()
+                                    .client(client)
+                                    .pageProcessor(pageProcessor)
+                                    .pageCache(configuration.getPageCache())
+                                    .maxPageSize(configuration.getMaxPageSize())
+                                    .build()
+                    )
+            );
+        }
+
+        futures.stream().forEach(f -> {
+            try {
+                f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                log.error("Executor tasks interrupted", e);
+            }
+        });
+    }
+
+    private void crawlAsynchronously() {
+        // The dispatcher only returns once every page it fetched has been parsed
+        AsyncMonzoCrawler.builder()
+                .client(client)
+                .pageProcessor(pageProcessor)
+                .parseExecutor(executorService)
+                .pageCache(configuration.getPageCache())
+                .maxInFlight(configuration.getMaxInFlight())
+                .maxPageSize(configuration.getMaxPageSize())
+                .build()
+                .run();
+    }
+
+    private void crawlOnVirtualThreads() {
+        // The dispatcher only returns once every virtual thread it started has finished
+        VirtualThreadMonzoCrawler.builder()
+                .client(client)
+                .pageProcessor(pageProcessor)
+                .pageCache(configuration.getPageCache())
+                .maxInFlight(configuration.getMaxInFlight())
+                .maxPageSize(configuration.getMaxPageSize())
+                .build()
+                .run();
+    }
+
+    private void crawlInPipeline() {
+        // The pipeline only returns once every page has been through each of its stages
+        PipelinedMonzoCrawler.builder()
+                .client(client)
+                .pageProcessor(pageProcessor)
+                .pageCache(configuration.getPageCache())
+                .fetchThreads(configuration.getFetchThreads())
+                .parseThreads(configuration.getParseThreads())
+                .queueCapacity(configuration.getStageQueueCapacity())
+                .maxPageSize(configuration.getMaxPageSize())
+                .build()
+                .run();
+    }
+
+    public void shutdown() {
+        if (executorService != null) executorService.shutdown();
+    }
+
+}
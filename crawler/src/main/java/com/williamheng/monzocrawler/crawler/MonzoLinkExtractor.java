@@ -0,0 +1,255 @@
+package com.williamheng.monzocrawler.crawler;
+
+import org.jsoup.parser.Parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Finds the href of every anchor in a page without building a DOM.
+ *
+ * This is a single forward pass over the characters of the page that only understands as much HTML as it needs to:
+ * tags and their attributes, comments, and the text of elements such as script and style, whose contents are
+ * never treated as markup. It gives the same links as {@link MonzoHTMLScraper} selecting "a[href]", but only
+ * allocates the href strings themselves.
+ *
+ * Given a {@link SimHash}, the same pass also feeds it the text between tags, so fingerprinting a page costs no
+ * second read.
+ */
+public class MonzoLinkExtractor {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EOF = -1;
+    private static final String[] RAW_TEXT_ELEMENTS = {"script", "style", "title", "textarea"};
+
+    private final Reader reader;
+    private final char[] buffer;
+    private final SimHash fingerprint;
+    private int position;
+    private int limit;
+
+    // Reused between tags to avoid allocating a string for every tag or attribute name
+    private final StringBuilder name = new StringBuilder();
+    private final StringBuilder value = new StringBuilder();
+
+    private MonzoLinkExtractor(Reader reader, int bufferSize, SimHash fingerprint) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+        this.fingerprint = fingerprint;
+    }
+
+    public static void extract(InputStream inputStream, Charset charset, Consumer<String> hrefConsumer) throws IOException {
+        extract(inputStream, charset, hrefConsumer, null);
+    }
+
+    /**
+     * @param fingerprint fed the text of the page, or null not to fingerprint it
+     */
+    public static void extract(InputStream inputStream, Charset charset, Consumer<String> hrefConsumer, SimHash fingerprint) throws IOException {
+        new MonzoLinkExtractor(new InputStreamReader(inputStream, charset), BUFFER_SIZE, fingerprint).run(hrefConsumer);
+    }
+
+    public static void extract(Reader reader, Consumer<String> hrefConsumer) throws IOException {
+        new MonzoLinkExtractor(reader, BUFFER_SIZE, null).run(hrefConsumer);
+    }
+
+    public static List<String> extract(String HTML) {
+        List<String> hrefs = new ArrayList<>();
+        try {
+            new MonzoLinkExtractor(new StringReader(HTML), Math.max(1, Math.min(HTML.length(), BUFFER_SIZE)), null).run(hrefs::add);
+        } catch (IOException e) {
+            // A StringReader never fails
+            throw new UncheckedIOException(e);
+        }
+        return hrefs;
+    }
+
+    private void run(Consumer<String> hrefConsumer) throws IOException {
+        int c;
+        while ((c = next()) != EOF) {
+            if (c != '<') {
+                if (fingerprint != null) fingerprint.accept((char) c);
+                continue;
+            }
+
+            // Every tag ends a word
+            if (fingerprint != null) fingerprint.accept(' ');
+            int p = peek();
+            if (p == '!') {
+                next();
+                skipCommentOrDeclaration();
+            } else if (p == '/' || p == '?') {
+                skipUntil('>');
+            } else if (isLetter(p)) {
+                readTag(hrefConsumer);
+            }
+        }
+    }
+
+    private void readTag(Consumer<String> hrefConsumer) throws IOException {
+        readName();
+        boolean isAnchor = isName("a");
+        String rawTextElement = rawTextElement();
+        String href = null;
+
+        while (true) {
+            skipWhitespace();
+            int c = peek();
+            if (c == EOF) return;
+            if (c == '>') {
+                next();
+                break;
+            }
+            if (c == '/') {
+                next();
+                continue;
+            }
+
+            readName();
+            boolean isHref = isAnchor && href == null && isName("href");
+
+            skipWhitespace();
+            if (peek() == '=') {
+                next();
+                skipWhitespace();
+                readValue();
+                if (isHref) href = decode(value);
+            } else if (isHref) {
+                href = "";
+            }
+        }
+
+        if (href != null) {
+            hrefConsumer.accept(href);
+        } else if (rawTextElement != null) {
+            skipRawText(rawTextElement);
+        }
+    }
+
+    private void readName() throws IOException {
+        name.setLength(0);
+        int c;
+        while ((c = peek()) != EOF && !isWhitespace(c) && c != '>' && c != '/' && c != '=') {
+            name.append((char) next());
+        }
+        if (name.length() == 0 && c != EOF && c != '>' && c != '/') {
+            // A stray "=" with no name before it, which browsers treat as part of the name
+            name.append((char) next());
+        }
+    }
+
+    private void readValue() throws IOException {
+        value.setLength(0);
+        int quote = peek();
+        if (quote == '"' || quote == '\'') {
+            next();
+            int c;
+            while ((c = next()) != EOF && c != quote) value.append((char) c);
+        } else {
+            int c;
+            while ((c = peek()) != EOF && !isWhitespace(c) && c != '>') value.append((char) next());
+        }
+    }
+
+    private void skipCommentOrDeclaration() throws IOException {
+        if (peek() != '-') {
+            skipUntil('>');
+            return;
+        }
+        next();
+        if (peek() != '-') {
+            skipUntil('>');
+            return;
+        }
+        next();
+
+        // Skip until "-->"
+        int dashes = 0;
+        int c;
+        while ((c = next()) != EOF) {
+            if (c == '>' && dashes >= 2) return;
+            dashes = c == '-' ? dashes + 1 : 0;
+        }
+    }
+
+    /**
+     * Skips the contents of an element whose text is never parsed as markup, up to and including its end tag.
+     */
+    private void skipRawText(String tagName) throws IOException {
+        int c;
+        while ((c = next()) != EOF) {
+            if (c != '<' || peek() != '/') continue;
+            next();
+
+            readName();
+            if (isName(tagName)) {
+                skipUntil('>');
+                return;
+            }
+        }
+    }
+
+    private void skipUntil(char end) throws IOException {
+        int c;
+        while ((c = next()) != EOF && c != end) ;
+    }
+
+    private void skipWhitespace() throws IOException {
+        while (isWhitespace(peek())) next();
+    }
+
+    private String rawTextElement() {
+        for (String element : RAW_TEXT_ELEMENTS) {
+            if (isName(element)) return element;
+        }
+        return null;
+    }
+
+    private boolean isName(String expected) {
+        if (name.length() != expected.length()) return false;
+        for (int i = 0; i < expected.length(); i++) {
+            if (Character.toLowerCase(name.charAt(i)) != expected.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String decode(StringBuilder value) {
+        String raw = value.toString();
+        return raw.indexOf('&') < 0 ? raw : Parser.unescapeEntities(raw, true);
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return EOF;
+        return buffer[position];
+    }
+
+    private int next() throws IOException {
+        if (position == limit && !fill()) return EOF;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+}
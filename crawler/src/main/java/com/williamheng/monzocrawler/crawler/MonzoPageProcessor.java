@@ -0,0 +1,299 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the links found on a fetched page into a vertex in the graph and new resources in the frontier.
+ *
+ * This is the parse stage of a crawl and is shared by every way of fetching pages.
+ *
+ * Given a {@link FingerprintIndex}, a page whose text is a near-duplicate of a page processed before still becomes a
+ * vertex, but its links are not followed: it is another copy of a page whose links have been, e.g. under another
+ * session ID or with the filters of a faceted search in another order.
+ *
+ * Given a {@link CrawlCheckpoint}, every page processed is recorded in it along with its links.
+ *
+ * One processor is built for a crawl and shared by all of its crawlers, which take the frontier, tracker and metrics
+ * they need from it, so that whatever changes how pages are processed only has to be given to the processor.
+ */
+@Slf4j
+public class MonzoPageProcessor {
+
+    @Getter(AccessLevel.PACKAGE)
+    private final Frontier frontier;
+    private final Graph graph;
+    private final URL rootURL;
+
+    // The root URL, parsed once for every link resolved against it
+    private final CanonicalUrl base;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final CrawlTracker tracker;
+
+    @Getter(AccessLevel.PACKAGE)
+    private final CrawlMetrics metrics;
+
+    private final boolean addExternalLinks;
+
+    // Checks the external links found, if set
+    private final ExternalLinkChecker linkChecker;
+
+    // Limits how deep the pages queued are and how many of the same shape, if set
+    private final CrawlBudget budget;
+
+    // Keeps out the links robots.txt disallows, if set
+    private final RobotsCache robots;
+
+    // The fingerprints of the pages processed so far, if near-duplicates are to be skipped
+    private final FingerprintIndex nearDuplicates;
+
+    // Records every page processed so that an interrupted crawl can be resumed, if set
+    private final CrawlCheckpoint checkpoint;
+
+    @Builder
+    private MonzoPageProcessor(
+            @NonNull Frontier frontier,
+            @NonNull Graph graph,
+            @NonNull URL rootURL,
+            @NonNull CrawlTracker tracker,
+            @NonNull CrawlMetrics metrics,
+            boolean addExternalLinks,
+            ExternalLinkChecker linkChecker,
+            CrawlBudget budget,
+            RobotsCache robots,
+            FingerprintIndex nearDuplicates,
+            CrawlCheckpoint checkpoint
+    ) {
+        this.frontier = frontier;
+        this.graph = graph;
+        this.rootURL = rootURL;
+        this.base = CanonicalUrl.of(rootURL);
+        this.tracker = tracker;
+        this.metrics = metrics;
+        this.addExternalLinks = addExternalLinks;
+        this.linkChecker = linkChecker;
+        this.budget = budget;
+        this.robots = robots;
+        this.nearDuplicates = nearDuplicates;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * @return a fingerprint for a crawler to feed the text of a page, or null if pages are not fingerprinted
+     */
+    public SimHash fingerprint() {
+        return nearDuplicates == null ? null : new SimHash();
+    }
+
+    public void process(Resource resource, List<String> hrefs) {
+        process(resource, hrefs, null);
+    }
+
+    /**
+     * @param fingerprint the fingerprint of the page's text, or null if it has none
+     */
+    public void process(Resource resource, List<String> hrefs, SimHash fingerprint) {
+        insert(resource, resolve(hrefs), fingerprint);
+    }
+
+    /**
+     * Resolves every distinct link on a page against the root URL once.
+     *
+     * @return the resources the links on a page point to, leaving out those that are not valid URLs
+     */
+    public List<Resource> resolve(List<String> hrefs) {
+        // Pages link to the same places many times over, e.g. from their header, footer and body
+        Set<String> distinctHrefs = new LinkedHashSet<>(hrefs);
+        List<Resource> resources = new ArrayList<>(distinctHrefs.size());
+        for (String href : distinctHrefs) {
+            CanonicalUrl url = resolve(href);
+            if (url != null) resources.add(new Resource(url, url.getPath()));
+        }
+        return resources;
+    }
+
+    /**
+     * Adds the page to the graph and its new internal links to the frontier, given the links already resolved, so that
+     * resolving them can be done elsewhere.
+     *
+     * @param fingerprint the fingerprint of the page's text, or null if it has none
+     */
+    public void insert(Resource resource, List<Resource> validStructuredLinks, SimHash fingerprint) {
+        insertAll(Collections.singletonList(new ParsedPage(resource, validStructuredLinks, fingerprint)));
+    }
+
+    /**
+     * Adds several pages to the graph, and the new internal links of all of them to the frontier as a single batch,
+     * e.g. whatever pages the insert stage of a pipelined crawl has waiting.
+     */
+    public void insertAll(List<ParsedPage> pages) {
+        List<List<String>> adjacentLinks = new ArrayList<>(pages.size());
+        boolean[] isFollowed = new boolean[pages.size()];
+        List<Resource> internalLinks = new ArrayList<>();
+        for (int i = 0; i < pages.size(); i++) {
+            ParsedPage page = pages.get(i);
+            adjacentLinks.add(addVertex(page));
+
+            if (isNearDuplicate(page.getFingerprint())) {
+                log.debug("URL={} is a near-duplicate of a page already crawled, not following its links", page.getResource().getUrl());
+                metrics.nearDuplicatePage();
+                continue;
+            }
+            isFollowed[i] = true;
+            internalLinks.addAll(linksToFollow(page));
+        }
+        offer(internalLinks);
+
+        for (int i = 0; i < pages.size(); i++) {
+            ParsedPage page = pages.get(i);
+
+            // Only once its links have been recorded as admitted, so a checkpoint never has a page without its links
+            if (checkpoint != null) checkpoint.crawled(page.getResource(), adjacentLinks.get(i));
+
+            if (linkChecker != null && isFollowed[i]) {
+                page.getLinks().stream()
+                        .filter(r -> !isInternal(r))
+                        .forEach(linkChecker::check);
+            }
+        }
+    }
+
+    /**
+     * Adds the page to the graph.
+     *
+     * @return the links of its vertex
+     */
+    private List<String> addVertex(ParsedPage page) {
+        // Internal links are saved by path name e.g. /some/path?a=1
+        List<String> internalAdjacentLinks = page.getLinks().stream()
+                .filter(this::isInternal)
+                .map(r -> r.getUrl().getFile())
+                .collect(Collectors.toList());
+
+        // External links are saved in the form of absolute URL e.g. http://google.com/
+        List<String> externalAdjacentLinks = page.getLinks().stream()
+                .filter(r -> !isInternal(r))
+                .map(r -> r.getUrl().toString())
+                .collect(Collectors.toList());
+
+        List<String> adjacentLinks = new ArrayList<>();
+        adjacentLinks.addAll(internalAdjacentLinks);
+        if (addExternalLinks) adjacentLinks.addAll(externalAdjacentLinks);
+        graph.addVertex(page.getResource(), adjacentLinks);
+        return adjacentLinks;
+    }
+
+    /**
+     * @return the internal links of the page that are within the budget and that robots.txt allows
+     */
+    private List<Resource> linksToFollow(ParsedPage page) {
+        // Every link is one more in-link for a frontier that ranks resources by them, so each is only offered once
+        int depth = page.getResource().getDepth() + 1;
+        List<Resource> internalLinks = new ArrayList<>();
+        page.getLinks().stream()
+                .filter(this::isInternal)
+                .distinct()
+                .map(r -> r.atDepth(depth))
+                .forEach(r -> {
+                    if (budget != null && !budget.allowsDepth(r.getDepth())) {
+                        metrics.linkOverBudget();
+                        return;
+                    }
+                    if (robots != null && !robots.isAllowed(r)) {
+                        metrics.linkDisallowed();
+                        return;
+                    }
+                    if (budget != null && !budget.spendPattern(r)) {
+                        metrics.linkTrapped();
+                        return;
+                    }
+
+                    internalLinks.add(r);
+                });
+        return internalLinks;
+    }
+
+    /**
+     * Adds the links to the frontier as one batch. They are counted as admitted first, since a worker may take one
+     * and be done with it before the batch has been added.
+     */
+    private void offer(List<Resource> links) {
+        if (links.isEmpty()) return;
+
+        // Resources evicted to make room for these, by this page or another, were counted in but will never be crawled
+        tracker.admitted(links.size());
+        List<Resource> admitted = frontier.addAll(links);
+        tracker.withdrawn(links.size() - admitted.size() + frontier.drainEvicted());
+
+        // The links admitted are in the order they were offered, so any link that is not the next of them was not
+        int next = 0;
+        for (Resource link : links) {
+            boolean isAdmitted = next < admitted.size() && admitted.get(next) == link;
+            if (isAdmitted) next++;
+            else if (budget != null) budget.refundPattern(link);
+            metrics.linkOffered(isAdmitted);
+        }
+    }
+
+    private boolean isInternal(Resource resource) {
+        return resource.getUrl().getHost().equalsIgnoreCase(rootURL.getHost());
+    }
+
+    private boolean isNearDuplicate(SimHash fingerprint) {
+        return nearDuplicates != null && fingerprint != null && fingerprint.hasEnoughText() && !nearDuplicates.add(fingerprint.value());
+    }
+
+    /**
+     * A page whose links have been resolved, waiting to be added to the graph.
+     */
+    @Value
+    public static class ParsedPage {
+
+        Resource resource;
+        List<Resource> links;
+
+        // The fingerprint of the page's text, or null if it has none
+        SimHash fingerprint;
+    }
+
+    /**
+     * @return the URL a link on a page points to, resolved against the root URL, or null if it is not a valid URL
+     */
+    private CanonicalUrl resolve(String href) {
+        // Most links are to the same site and are resolved without parsing a URL, the rest are parsed in full
+        CanonicalUrl url = base.resolveRelative(href);
+        if (url != null) return url;
+
+        try {
+            // Only links with a scheme or host of their own are left, the latter taking the scheme of the root
+            String spec = href.trim();
+            return CanonicalUrl.parse(spec.startsWith("//") ? rootURL.getProtocol() + ':' + spec : spec);
+        } catch (MalformedURLException e) {
+            log.warn("Unable to form URL with rootURL={}, path={}", rootURL, href, e);
+            return null;
+        }
+    }
+
+    public static class MonzoPageProcessorBuilder {
+        private CrawlTracker tracker = new CrawlTracker();
+        private CrawlMetrics metrics = new CrawlMetrics();
+    }
+}
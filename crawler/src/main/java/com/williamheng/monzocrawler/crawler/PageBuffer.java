@@ -0,0 +1,67 @@
+package com.williamheng.monzocrawler.crawler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+/**
+ * A growable byte buffer that holds the body of one page at a time and is reused for the next one.
+ */
+class PageBuffer {
+
+    private byte[] bytes;
+    private int length;
+    private Charset charset;
+
+    PageBuffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    /**
+     * Reads the whole of the stream into the buffer.
+     *
+     * @return false, having stopped reading, if the stream holds more than the given number of bytes
+     */
+    boolean readFrom(InputStream inputStream, int maxLength) throws IOException {
+        length = 0;
+        charset = null;
+        while (true) {
+            // A stream that still has more to give once the maximum has been read is too large
+            if (length >= maxLength) return inputStream.read() < 0;
+            if (length == bytes.length) bytes = Arrays.copyOf(bytes, (int) Math.min((long) maxLength, 2L * bytes.length));
+
+            int read = inputStream.read(bytes, length, Math.min(bytes.length, maxLength) - length);
+            if (read < 0) return true;
+            length += read;
+        }
+    }
+
+    void detectCharset(Charset declared) {
+        charset = CharsetDetector.detect(bytes, length, declared);
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    int length() {
+        return length;
+    }
+
+    int capacity() {
+        return bytes.length;
+    }
+
+    long contentHash() {
+        CRC32C contentHash = new CRC32C();
+        contentHash.update(bytes, 0, length);
+        return contentHash.getValue();
+    }
+
+    InputStream inputStream() {
+        return new ByteArrayInputStream(bytes, 0, length);
+    }
+}
@@ -0,0 +1,41 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.PageMetadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Remembers pages from previous crawls, so that a page that has not changed is neither downloaded nor parsed again.
+ */
+public interface PageCache extends Closeable {
+
+    /**
+     * A cache that remembers nothing, so every page is fetched in full
+     */
+    PageCache NONE = new PageCache() {
+        @Override
+        public PageMetadata get(CanonicalUrl url) {
+            return null;
+        }
+
+        @Override
+        public void put(PageMetadata page) {
+        }
+    };
+
+    /**
+     * @return what was learnt about the page when it was last fetched, or null if it never was
+     */
+    PageMetadata get(CanonicalUrl url);
+
+    /**
+     * Remembers the page, replacing anything remembered about it before.
+     */
+    void put(PageMetadata page);
+
+    @Override
+    default void close() throws IOException {
+    }
+}
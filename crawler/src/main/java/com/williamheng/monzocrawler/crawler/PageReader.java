@@ -0,0 +1,102 @@
+package com.williamheng.monzocrawler.crawler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reads the bodies of fetched pages into pooled buffers, so that reading a page allocates nothing once the crawl is
+ * warmed up.
+ *
+ * How it works:
+ *
+ * 1. The Content-Type and Content-Length headers are checked first. A body that is not HTML, or that says it is larger
+ *    than the maximum page size, is never read
+ * 2. Other bodies are read into a {@link PageBuffer} taken from the pool, and abandoned as soon as they turn out to be
+ *    larger than the maximum page size
+ * 3. The charset of the page is worked out from its bytes once it has been read
+ * 4. Buffers go back to the pool once the page has been parsed. Buffers that grew very large are dropped instead, so
+ *    that one large page does not hold on to memory for the rest of the crawl
+ */
+@Slf4j
+class PageReader {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+
+    private final int maxPageSize;
+    private final Queue<PageBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    PageReader(int maxPageSize) {
+        this.maxPageSize = maxPageSize > 0 ? maxPageSize : CrawlConfiguration.DEFAULT_MAX_PAGE_SIZE;
+    }
+
+    /**
+     * @return the body of the page, to be given back with {@link #release(PageBuffer)}, or null if it was skipped
+     */
+    PageBuffer read(Response response) throws IOException {
+        String contentType = response.getHeaderString(HttpHeaders.CONTENT_TYPE);
+        if (!isHtml(contentType)) {
+            log.debug("Skipping a body of type {}", contentType);
+            return null;
+        }
+
+        if (response.getLength() > maxPageSize) {
+            log.info("Skipping a body of {} bytes", response.getLength());
+            return null;
+        }
+
+        PageBuffer buffer = acquire();
+        boolean isRead = false;
+        try (InputStream body = response.readEntity(InputStream.class)) {
+            isRead = buffer.readFrom(body, maxPageSize);
+        } finally {
+            if (!isRead) release(buffer);
+        }
+
+        if (!isRead) {
+            log.info("Skipping a body larger than {} bytes", maxPageSize);
+            return null;
+        }
+
+        buffer.detectCharset(CharsetDetector.contentTypeCharset(contentType));
+        return buffer;
+    }
+
+    void release(PageBuffer buffer) {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) return;
+
+        if (pooledBuffers.incrementAndGet() > MAX_POOLED_BUFFERS) {
+            pooledBuffers.decrementAndGet();
+            return;
+        }
+        buffers.offer(buffer);
+    }
+
+    private PageBuffer acquire() {
+        PageBuffer buffer = buffers.poll();
+        if (buffer == null) return new PageBuffer(INITIAL_CAPACITY);
+
+        pooledBuffers.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Servers that do not say what they are sending are assumed to be sending HTML.
+     */
+    static boolean isHtml(String contentType) {
+        if (contentType == null || contentType.trim().isEmpty()) return true;
+
+        String mediaType = contentType.toLowerCase(Locale.ROOT).trim();
+        return mediaType.startsWith("text/html") || mediaType.startsWith("application/xhtml+xml");
+    }
+}
@@ -0,0 +1,325 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.metrics.StageMetrics;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.PageMetadata;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A crawler that fetches, parses and queues links on separate pools of threads, so that slow servers and heavy pages
+ * do not hold each other up.
+ *
+ * How it works:
+ *
+ * 1. Fetch threads take resources from the frontier, make blocking requests and read each body into a buffer. There
+ *    are as many as there should be requests in flight, since they spend most of their time waiting on the network
+ * 2. Fetched pages are handed to the parse threads through a bounded queue. Parse threads find the links on a page,
+ *    fingerprint its text and resolve its links into resources. There are as many as there are cores, since parsing
+ *    only needs the CPU
+ * 3. Parsed pages are handed through a second bounded queue to a single insert thread, which adds them to the graph
+ *    and their links to the frontier in batches of whatever has arrived since the last batch
+ * 4. A stage that falls behind fills its queue, and the stage before it blocks until there is room again. Fetching
+ *    slows down to the speed parsing can keep up with rather than buffering pages without limit
+ * 5. Every stage stops as soon as the {@link CrawlTracker} says the crawl is over, which it only does once the last
+ *    page has been through every stage
+ *
+ * Each stage records its own {@link StageMetrics}. Pages that have not changed since they were put in the page cache
+ * skip the body and go through the parse stage with their cached links.
+ */
+@Slf4j
+public class PipelinedMonzoCrawler implements Runnable {
+
+    public static final int DEFAULT_FETCH_THREADS = 64;
+    public static final int DEFAULT_QUEUE_CAPACITY = 128;
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final int INSERT_BATCH_SIZE = 64;
+
+    private final Client client;
+    private final Frontier frontier;
+    private final MonzoPageProcessor pageProcessor;
+    private final PageCache pageCache;
+    private final PageReader pageReader;
+    private final CrawlTracker tracker;
+    private final CrawlMetrics metrics;
+
+    private final int fetchThreads;
+    private final int parseThreads;
+    private final BlockingQueue<Page> parseQueue;
+    private final BlockingQueue<Page> insertQueue;
+
+    @Builder
+    private PipelinedMonzoCrawler(
+            @NonNull Client client,
+            @NonNull MonzoPageProcessor pageProcessor,
+            PageCache pageCache,
+            int fetchThreads,
+            int parseThreads,
+            int queueCapacity,
+            int maxPageSize
+    ) {
+        if (fetchThreads <= 0) throw new IllegalArgumentException("Invalid number of fetch threads");
+        if (parseThreads <= 0) throw new IllegalArgumentException("Invalid number of parse threads");
+        if (queueCapacity <= 0) throw new IllegalArgumentException("Invalid stage queue capacity");
+
+        this.client = client;
+        this.pageProcessor = pageProcessor;
+        this.frontier = pageProcessor.getFrontier();
+        this.tracker = pageProcessor.getTracker();
+        this.metrics = pageProcessor.getMetrics();
+        this.pageCache = pageCache == null ? PageCache.NONE : pageCache;
+        this.pageReader = new PageReader(maxPageSize);
+        this.fetchThreads = fetchThreads;
+        this.parseThreads = parseThreads;
+        this.parseQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.insertQueue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Runs every stage, and returns once the last page has been through all of them.
+     */
+    @Override
+    public void run() {
+        tracker.startUnlessStarted(frontier.size());
+
+        StageMetrics fetchStage = metrics.stage("fetch", fetchThreads, frontier::size);
+        StageMetrics parseStage = metrics.stage("parse", parseThreads, parseQueue::size);
+        StageMetrics insertStage = metrics.stage("insert", 1, insertQueue::size);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < fetchThreads; i++) threads.add(start("fetch-" + i, () -> fetchLoop(fetchStage)));
+        for (int i = 0; i < parseThreads; i++) threads.add(start("parse-" + i, () -> parseLoop(parseStage)));
+        threads.add(start("insert", () -> insertLoop(insertStage)));
+
+        try {
+            for (Thread thread : threads) thread.join();
+        } catch (InterruptedException e) {
+            threads.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fetchLoop(StageMetrics stage) {
+        while (!tracker.isDone()) {
+            try {
+                Resource resource = frontier.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (resource == null) continue;
+
+                long start = System.nanoTime();
+                Page page = fetch(resource);
+                stage.processed(1, System.nanoTime() - start);
+                if (page != null) handOff(parseQueue, page, stage);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void parseLoop(StageMetrics stage) {
+        while (!tracker.isDone()) {
+            try {
+                Page page = parseQueue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (page == null) continue;
+
+                long start = System.nanoTime();
+                boolean isParsed = parse(page);
+                stage.processed(1, System.nanoTime() - start);
+                if (isParsed) handOff(insertQueue, page, stage);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void insertLoop(StageMetrics stage) {
+        List<Page> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        while (!tracker.isDone()) {
+            try {
+                Page first = insertQueue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                insertQueue.drainTo(batch, INSERT_BATCH_SIZE - 1);
+
+                long start = System.nanoTime();
+                insert(batch);
+                stage.processed(batch.size(), System.nanoTime() - start);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds the pages to the graph and the new links of all of them to the frontier in one go. Each page is only done
+     * with once its links are in the frontier, so the crawl cannot end while a batch is being added.
+     */
+    private void insert(List<Page> batch) {
+        List<MonzoPageProcessor.ParsedPage> pages = new ArrayList<>(batch.size());
+        for (Page page : batch) pages.add(new MonzoPageProcessor.ParsedPage(page.resource, page.links, page.fingerprint));
+
+        try {
+            pageProcessor.insertAll(pages);
+        } catch (RuntimeException e) {
+            log.error("Unable to add {} pages to the graph", pages.size(), e);
+        } finally {
+            for (int i = 0; i < batch.size(); i++) tracker.crawled();
+        }
+    }
+
+    /**
+     * @return the fetched page, or null if there is nothing to parse, in which case the resource is done with
+     */
+    private Page fetch(Resource resource) {
+        CanonicalUrl url = resource.getUrl();
+        log.info("Crawling {}", url);
+
+        PageMetadata cached = pageCache.get(url);
+        Response response = null;
+        boolean isHandedOn = false;
+        boolean isRetried = false;
+        try {
+            long fetchStart = System.nanoTime();
+            response = ConditionalRequests.request(client, url, cached).get();
+            metrics.fetched(response.getStatus(), System.nanoTime() - fetchStart);
+
+            // The page has not changed since it was cached, so there is no body, but its links still need resolving
+            if (ConditionalRequests.isNotModified(response, cached)) {
+                log.debug("URL={} has not changed", url);
+                isHandedOn = true;
+                return new Page(resource, cached, null, null, cached.getLinks());
+            }
+
+            if (Response.Status.Family.familyOf(response.getStatus()) != Response.Status.Family.SUCCESSFUL) {
+                throw new WebApplicationException(response);
+            }
+
+            PageBuffer body = pageReader.read(response);
+            isHandedOn = true;
+
+            // The page is still part of the site, but it is not HTML or is too large to look inside
+            if (body == null) {
+                metrics.pageSkipped();
+                return new Page(resource, cached, null, null, Collections.emptyList());
+            }
+            return new Page(resource, cached, ConditionalRequests.validators(url, response), body, null);
+
+        } catch (WebApplicationException e) {
+            Response throttledResponse = Throttling.throttledResponse(e);
+            if (throttledResponse != null && frontier.retry(resource, Throttling.retryAfterMillis(throttledResponse))) {
+                isRetried = true;
+                metrics.retried();
+                return null;
+            }
+
+            log.info("Unable to reach URL={}", url);
+            log.debug("Unable to reach URL={}", url, e);
+        } catch (ProcessingException e) {
+            // The connection failed or timed out, or the body could not be read
+            log.info("Unable to reach URL={}", url);
+            log.debug("Unable to reach URL={}", url, e);
+        } catch (IOException e) {
+            log.info("Unable to read URL={}", url);
+            log.debug("Unable to read URL={}", url, e);
+        } finally {
+            // Without a response the request never made it to the server and back
+            if (response != null) response.close();
+            else metrics.fetchFailed();
+            frontier.release(resource);
+            if (!isHandedOn && !isRetried) tracker.crawled();
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the page was parsed, or false if it could not be, in which case the resource is done with
+     */
+    private boolean parse(Page page) {
+        try {
+            if (page.body == null) {
+                page.links = pageProcessor.resolve(page.hrefs);
+                return true;
+            }
+
+            long parseStart = System.nanoTime();
+            List<String> hrefs = new ArrayList<>();
+            SimHash fingerprint = pageProcessor.fingerprint();
+            MonzoLinkExtractor.extract(page.body.inputStream(), page.body.getCharset(), hrefs::add, fingerprint);
+            metrics.parsed(System.nanoTime() - parseStart, page.body.length(), hrefs.size());
+
+            ConditionalRequests.remember(pageCache, page.cached, page.validators.contentHash(page.body.contentHash()).links(hrefs).build());
+            page.links = pageProcessor.resolve(hrefs);
+            page.fingerprint = fingerprint;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.info("Unable to read URL={}", page.resource.getUrl());
+            log.debug("Unable to read URL={}", page.resource.getUrl(), e);
+            tracker.crawled();
+            return false;
+        } finally {
+            if (page.body != null) pageReader.release(page.body);
+            page.body = null;
+        }
+    }
+
+    /**
+     * Waits for room in the next stage's queue, counting the time spent waiting as time the stage was held back.
+     */
+    private static void handOff(BlockingQueue<Page> queue, Page page, StageMetrics stage) throws InterruptedException {
+        if (queue.offer(page)) return;
+
+        long start = System.nanoTime();
+        queue.put(page);
+        stage.blocked(System.nanoTime() - start);
+    }
+
+    private static Thread start(String name, Runnable stage) {
+        Thread thread = new Thread(stage, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * A page on its way through the stages, which only ever belongs to one stage at a time.
+     */
+    private static class Page {
+
+        private final Resource resource;
+        private final PageMetadata cached;
+        private final PageMetadata.PageMetadataBuilder validators;
+        private final List<String> hrefs;
+
+        private PageBuffer body;
+        private List<Resource> links;
+        private SimHash fingerprint;
+
+        private Page(Resource resource, PageMetadata cached, PageMetadata.PageMetadataBuilder validators, PageBuffer body, List<String> hrefs) {
+            this.resource = resource;
+            this.cached = cached;
+            this.validators = validators;
+            this.body = body;
+            this.hrefs = hrefs;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A frontier that schedules resources so that no host is hit harder than it allows.
+ *
+ * How it works:
+ *
+ * 1. Every host has its own queue, a token bucket refilled at a fixed number of requests per second and a limit on
+ *    the number of resources from it that can be fetched at once
+ * 2. Hosts with queued resources are visited round-robin, and poll hands out a resource from the first host that
+ *    is ready, so workers never wait on one host while another could be crawled
+ * 3. When a host throttles us (e.g. with a 429), the resource goes back to the front of its host's queue and the host
+ *    is paused for as long as it asked, or with an exponential back-off if it did not say
+ *
+ * Deduplication works exactly as in {@link ConcurrentFrontier} and does not take the scheduling lock.
+ */
+@Slf4j
+public class PoliteFrontier implements Frontier {
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    private static final long DEFAULT_BACK_OFF_MILLIS = 1000;
+
+    private final double requestsPerSecond;
+    private final int maxConnectionsPerHost;
+    private final int maxRetries;
+
+    private final Set<CanonicalUrl> seenURLs = ConcurrentHashMap.newKeySet();
+    private final Map<CanonicalUrl, Integer> retries = new ConcurrentHashMap<>();
+
+    // Everything below is guarded by the lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hostsChanged = lock.newCondition();
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+    private final Deque<HostQueue> hostsWithWork = new ArrayDeque<>();
+    private int size;
+
+    /**
+     * @param requestsPerSecond     the rate at which each host can be fetched from, or infinity for no limit
+     * @param maxConnectionsPerHost the maximum number of resources from each host that can be fetched at once
+     */
+    public PoliteFrontier(double requestsPerSecond, int maxConnectionsPerHost) {
+        this(requestsPerSecond, maxConnectionsPerHost, DEFAULT_MAX_RETRIES);
+    }
+
+    public PoliteFrontier(double requestsPerSecond, int maxConnectionsPerHost, int maxRetries) {
+        if (requestsPerSecond <= 0) throw new IllegalArgumentException("Invalid number of requests per second");
+        if (maxConnectionsPerHost <= 0) throw new IllegalArgumentException("Invalid number of connections per host");
+
+        this.requestsPerSecond = requestsPerSecond;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxRetries = maxRetries;
+    }
+
+    @Override
+    public boolean add(Resource resource) {
+        if (!seenURLs.add(resource.getUrl())) return false;
+
+        lock.lock();
+        try {
+            enqueue(host(resource), resource, false);
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Resource> addAll(List<Resource> resources) {
+        List<Resource> admitted = new ArrayList<>(resources.size());
+        for (Resource resource : resources) {
+            if (seenURLs.add(resource.getUrl())) admitted.add(resource);
+        }
+        if (admitted.isEmpty()) return admitted;
+
+        lock.lock();
+        try {
+            for (Resource resource : admitted) enqueue(host(resource), resource, false);
+        } finally {
+            lock.unlock();
+        }
+        return admitted;
+    }
+
+    @Override
+    public boolean markSeen(Resource resource) {
+        return seenURLs.add(resource.getUrl());
+    }
+
+    @Override
+    public Resource poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                long nanosUntilReady = Long.MAX_VALUE;
+
+                for (int i = hostsWithWork.size(); i > 0; i--) {
+                    HostQueue host = hostsWithWork.pollFirst();
+                    long hostNanosUntilReady = host.nanosUntilReady(now);
+
+                    if (hostNanosUntilReady == 0 && host.bucket.tryAcquire(now)) {
+                        Resource resource = host.queue.pollFirst();
+                        host.activeConnections++;
+                        size--;
+                        if (host.queue.isEmpty()) {
+                            host.hasWork = false;
+                        } else {
+                            hostsWithWork.addLast(host);
+                        }
+                        return resource;
+                    }
+
+                    hostsWithWork.addLast(host);
+                    nanosUntilReady = Math.min(nanosUntilReady, hostNanosUntilReady);
+                }
+
+                long nanosUntilDeadline = deadline - now;
+                if (nanosUntilDeadline <= 0) return null;
+
+                hostsChanged.awaitNanos(Math.min(nanosUntilReady, nanosUntilDeadline));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void release(Resource resource) {
+        lock.lock();
+        try {
+            HostQueue host = hosts.get(resource.getUrl().getHost());
+            if (host != null && host.activeConnections > 0) {
+                host.activeConnections--;
+                hostsChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean retry(Resource resource, long delayMillis) {
+        int attempt = retries.merge(resource.getUrl(), 1, Integer::sum);
+        if (attempt > maxRetries) {
+            log.info("Giving up on URL={} after {} retries", resource.getUrl(), maxRetries);
+            return false;
+        }
+
+        // Without a delay from the server, back off exponentially: 1s, 2s, 4s, ...
+        long pauseMillis = delayMillis >= 0 ? delayMillis : DEFAULT_BACK_OFF_MILLIS << (attempt - 1);
+
+        lock.lock();
+        try {
+            HostQueue host = host(resource);
+            host.pausedUntilNanos = Math.max(host.pausedUntilNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pauseMillis));
+            enqueue(host, resource, true);
+        } finally {
+            lock.unlock();
+        }
+
+        log.info("Host {} is throttling us, pausing it for {}ms", resource.getUrl().getHost(), pauseMillis);
+        return true;
+    }
+
+    /**
+     * Slows a host down to at most one request per crawl delay, e.g. as asked for in its robots.txt.
+     */
+    public void setCrawlDelay(String host, long crawlDelayMillis) {
+        if (crawlDelayMillis <= 0) return;
+
+        lock.lock();
+        try {
+            HostQueue hostQueue = hosts.computeIfAbsent(host, h -> new HostQueue(System.nanoTime()));
+            double crawlDelayRate = 1000d / crawlDelayMillis;
+            if (crawlDelayRate < hostQueue.bucket.getPermitsPerSecond()) {
+                hostQueue.bucket.setPermitsPerSecond(crawlDelayRate, System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private HostQueue host(Resource resource) {
+        return hosts.computeIfAbsent(resource.getUrl().getHost(), h -> new HostQueue(System.nanoTime()));
+    }
+
+    private void enqueue(HostQueue host, Resource resource, boolean atFront) {
+        if (atFront) {
+            host.queue.addFirst(resource);
+        } else {
+            host.queue.addLast(resource);
+        }
+        size++;
+
+        if (!host.hasWork) {
+            host.hasWork = true;
+            hostsWithWork.addLast(host);
+        }
+        hostsChanged.signalAll();
+    }
+
+    private class HostQueue {
+
+        private final Deque<Resource> queue = new ArrayDeque<>();
+        private final TokenBucket bucket;
+        private int activeConnections;
+        private long pausedUntilNanos;
+        private boolean hasWork;
+
+        private HostQueue(long nowNanos) {
+            this.bucket = new TokenBucket(requestsPerSecond, 1, nowNanos);
+            this.pausedUntilNanos = nowNanos;
+        }
+
+        /**
+         * @return 0 if a resource can be fetched from this host now, how long until one can if that is known, or
+         * {@link Long#MAX_VALUE} if it depends on a fetch in progress finishing
+         */
+        private long nanosUntilReady(long nowNanos) {
+            if (activeConnections >= maxConnectionsPerHost) return Long.MAX_VALUE;
+            if (pausedUntilNanos - nowNanos > 0) return pausedUntilNanos - nowNanos;
+            return bucket.nanosUntilAvailable(nowNanos);
+        }
+    }
+}
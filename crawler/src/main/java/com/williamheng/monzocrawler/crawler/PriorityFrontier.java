@@ -0,0 +1,302 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * A frontier that hands out the most important resources first, rather than in the order they were found, and holds
+ * at most a fixed number of them.
+ *
+ * How it works:
+ *
+ * 1. Every queued resource has a priority of weight × (1 + log2(1 + in-links)) / (1 + depth): pages close to the root
+ *    and pages many others link to come first. The weight is that of the first {@link PathWeight} whose pattern is
+ *    found in the URL's path and query, or 1
+ * 2. Every time a queued resource is offered again, another page links to it, so it is moved up to its new priority.
+ *    Resources of the same priority are handed out in the order they were found, i.e. breadth first
+ * 3. Resources are spread over shards by URL, each an ordered set behind a lock of its own, so adding never contends
+ *    on a single lock. poll takes from the shard whose best resource is best, which is read without locking
+ * 4. Once the frontier is full, a new resource takes the place of the lowest priority resource if it outranks it,
+ *    and is dropped otherwise. A resource that takes another's place is admitted, and the one evicted is counted
+ *    for {@link #drainEvicted()}. Either way a dropped resource may be admitted again if it is found later
+ *
+ * Deduplication is a single atomic step on a concurrent map, as in {@link ConcurrentFrontier}.
+ */
+public class PriorityFrontier implements Frontier {
+
+    public static final int DEFAULT_MAX_SIZE = 1_000_000;
+    private static final int NUMBER_OF_SHARDS = 16;
+
+    // Stands in for every resource that has been handed out, so that only queued resources are held in memory
+    private static final Entry POLLED = new Entry(null, 0, 0);
+
+    private final int maxSize;
+    private final List<PathWeight> pathWeights;
+    private final Shard[] shards = new Shard[NUMBER_OF_SHARDS];
+    private final Map<CanonicalUrl, Entry> seenURLs = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger evicted = new AtomicInteger();
+
+    // One permit for every queued resource
+    private final Semaphore queued = new Semaphore(0);
+
+    public PriorityFrontier() {
+        this(DEFAULT_MAX_SIZE, Collections.emptyList());
+    }
+
+    /**
+     * @param maxSize     the most resources queued at once
+     * @param pathWeights how much more or less important URLs are, by the first pattern found in them
+     */
+    public PriorityFrontier(int maxSize, List<PathWeight> pathWeights) {
+        if (maxSize <= 0) throw new IllegalArgumentException("Invalid maximum frontier size");
+
+        this.maxSize = maxSize;
+        this.pathWeights = new ArrayList<>(pathWeights);
+        for (int i = 0; i < NUMBER_OF_SHARDS; i++) shards[i] = new Shard();
+    }
+
+    @Override
+    public boolean add(Resource resource) {
+        Entry entry = new Entry(resource, sequence.getAndIncrement(), weight(resource.getUrl()));
+        Entry seen = seenURLs.putIfAbsent(resource.getUrl(), entry);
+        if (seen != null) {
+            if (seen != POLLED) shard(resource.getUrl()).linkedAgain(seen);
+            return false;
+        }
+
+        Shard shard = shard(resource.getUrl());
+        if (size.incrementAndGet() <= maxSize) {
+            shard.add(entry);
+            queued.release();
+            return true;
+        }
+
+        size.decrementAndGet();
+        if (!evictFor(entry, shard)) return false;
+
+        evicted.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public boolean markSeen(Resource resource) {
+        return seenURLs.putIfAbsent(resource.getUrl(), POLLED) == null;
+    }
+
+    @Override
+    public int drainEvicted() {
+        return evicted.getAndSet(0);
+    }
+
+    @Override
+    public Resource poll(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!queued.tryAcquire(timeout, unit)) return null;
+
+        // The permit guarantees a resource for this caller, though another caller may take the one seen first
+        while (true) {
+            Shard best = null;
+            for (Shard shard : shards) {
+                if (shard.bestPriority > Double.NEGATIVE_INFINITY && (best == null || shard.bestPriority > best.bestPriority)) {
+                    best = shard;
+                }
+            }
+
+            Entry entry = best == null ? null : best.poll();
+            if (entry == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+
+            size.decrementAndGet();
+            seenURLs.replace(entry.resource.getUrl(), entry, POLLED);
+            return entry.resource;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Makes room for the entry by evicting the lowest priority entry of any shard, or drops it if it is the lowest.
+     *
+     * @return true if the entry took the place of another
+     */
+    private boolean evictFor(Entry entry, Shard shard) {
+        Shard worst = null;
+        for (Shard candidate : shards) {
+            if (candidate.worstPriority < Double.POSITIVE_INFINITY && (worst == null || candidate.worstPriority < worst.worstPriority)) {
+                worst = candidate;
+            }
+        }
+
+        Entry lowest = worst == null ? null : worst.evictBelow(entry);
+        if (lowest == null) {
+            seenURLs.remove(entry.resource.getUrl(), entry);
+            return false;
+        }
+
+        seenURLs.remove(lowest.resource.getUrl(), lowest);
+        shard.add(entry);
+        return true;
+    }
+
+    private Shard shard(CanonicalUrl url) {
+        return shards[Math.floorMod(url.hashCode(), NUMBER_OF_SHARDS)];
+    }
+
+    private double weight(CanonicalUrl url) {
+        for (PathWeight pathWeight : pathWeights) {
+            if (pathWeight.getPattern().matcher(url.getFile()).find()) return pathWeight.getWeight();
+        }
+        return 1;
+    }
+
+    /**
+     * A pattern and how much more (above 1) or less (below 1) important the URLs it is found in are.
+     */
+    @Value
+    public static class PathWeight {
+
+        private final Pattern pattern;
+        private final double weight;
+
+        /**
+         * @param pathWeight a pattern and its weight, e.g. "/page/\d+=0.1"
+         */
+        public static PathWeight parse(String pathWeight) {
+            int equals = pathWeight.lastIndexOf('=');
+            if (equals <= 0) throw new IllegalArgumentException(String.format("Invalid path weight %s", pathWeight));
+
+            try {
+                double weight = Double.parseDouble(pathWeight.substring(equals + 1));
+                if (!(weight > 0) || Double.isInfinite(weight)) throw new IllegalArgumentException(String.format("Invalid path weight %s", pathWeight));
+                return new PathWeight(Pattern.compile(pathWeight.substring(0, equals)), weight);
+            } catch (NumberFormatException | PatternSyntaxException e) {
+                throw new IllegalArgumentException(String.format("Invalid path weight %s", pathWeight));
+            }
+        }
+    }
+
+    private static class Entry {
+
+        private static final Comparator<Entry> BEST_FIRST = Comparator
+                .comparingDouble((Entry entry) -> -entry.priority)
+                .thenComparingLong(entry -> entry.sequence);
+
+        private final Resource resource;
+        private final long sequence;
+        private final double weight;
+
+        // Guarded by the lock of the entry's shard, and only changed while the entry is out of the shard's set
+        private int inLinks = 1;
+        private double priority;
+        private boolean isQueued;
+
+        private Entry(Resource resource, long sequence, double weight) {
+            this.resource = resource;
+            this.sequence = sequence;
+            this.weight = weight;
+            this.priority = resource == null ? 0 : prioritise();
+        }
+
+        private double prioritise() {
+            double popularity = 1 + Math.log(1 + inLinks) / Math.log(2);
+            return weight * popularity / (1 + resource.getDepth());
+        }
+    }
+
+    private class Shard {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeSet<Entry> entries = new TreeSet<>(Entry.BEST_FIRST);
+
+        // The priorities of the best and worst entries, read without locking, or infinities if there are none
+        private volatile double bestPriority = Double.NEGATIVE_INFINITY;
+        private volatile double worstPriority = Double.POSITIVE_INFINITY;
+
+        private void add(Entry entry) {
+            lock.lock();
+            try {
+                insert(entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Entry poll() {
+            lock.lock();
+            try {
+                Entry entry = entries.pollFirst();
+                if (entry != null) entry.isQueued = false;
+                updatePriorities();
+                return entry;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void linkedAgain(Entry entry) {
+            lock.lock();
+            try {
+                // The entry may have been handed out or evicted since it was looked up
+                if (!entry.isQueued) return;
+
+                entries.remove(entry);
+                entry.inLinks++;
+                entry.priority = entry.prioritise();
+                insert(entry);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @return the lowest priority entry, removed, if the given entry outranks it, or null otherwise
+         */
+        private Entry evictBelow(Entry entry) {
+            lock.lock();
+            try {
+                Entry lowest = entries.isEmpty() ? null : entries.last();
+                if (lowest == null || Entry.BEST_FIRST.compare(entry, lowest) >= 0) return null;
+
+                entries.remove(lowest);
+                lowest.isQueued = false;
+                updatePriorities();
+                return lowest;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void insert(Entry entry) {
+            entry.isQueued = true;
+            entries.add(entry);
+            updatePriorities();
+        }
+
+        private void updatePriorities() {
+            bestPriority = entries.isEmpty() ? Double.NEGATIVE_INFINITY : entries.first().priority;
+            worstPriority = entries.isEmpty() ? Double.POSITIVE_INFINITY : entries.last().priority;
+        }
+    }
+}
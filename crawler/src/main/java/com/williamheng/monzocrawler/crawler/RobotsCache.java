@@ -0,0 +1,121 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The robots.txt rules of every host a crawl visits, each fetched and compiled once.
+ *
+ * How it works:
+ *
+ * 1. The first link to a host fetches its robots.txt, and every other link to it found in the meantime waits for the
+ *    same fetch rather than starting its own
+ * 2. A robots.txt that is found is compiled into {@link RobotsRules}. One that does not exist (a 4xx) allows every
+ *    path, and one that cannot be read because the server is failing (a 5xx) disallows every path, as RFC 9309 asks
+ * 3. A host that cannot be reached at all allows every path, since its pages cannot be fetched either
+ * 4. A Crawl-delay in the rules is handed to whoever schedules requests to the host, e.g. a {@link PoliteFrontier},
+ *    as soon as the rules are fetched, which is before any link to the host is admitted
+ *
+ * The rules are kept for the rest of the crawl, and robots.txt fetches are not counted in the crawl's metrics.
+ */
+@Slf4j
+public class RobotsCache {
+
+    // As in RFC 9309, at least the first 500 KiB must be parsed, and anything after can be ignored
+    static final int MAX_ROBOTS_SIZE = 512 * 1024;
+
+    private final Client client;
+    private final BiConsumer<String, Long> crawlDelays;
+    private final Map<String, CompletableFuture<RobotsRules>> rulesByHost = new ConcurrentHashMap<>();
+
+    public RobotsCache(Client client) {
+        this(client, (host, crawlDelayMillis) -> { });
+    }
+
+    /**
+     * @param crawlDelays told the host and crawl delay of every robots.txt that asks for one
+     */
+    public RobotsCache(Client client, BiConsumer<String, Long> crawlDelays) {
+        this.client = client;
+        this.crawlDelays = crawlDelays;
+    }
+
+    public boolean isAllowed(Resource resource) {
+        return rules(resource.getUrl().toURL()).isAllowed(resource.getUrl().getFile());
+    }
+
+    /**
+     * @return the rules for the host of the URL, fetching them if no one has yet
+     */
+    public RobotsRules rules(URL url) {
+        String host = String.format("%s://%s:%d", url.getProtocol(), url.getHost().toLowerCase(), port(url));
+
+        CompletableFuture<RobotsRules> rules = rulesByHost.get(host);
+        if (rules == null) {
+            CompletableFuture<RobotsRules> fetching = new CompletableFuture<>();
+            rules = rulesByHost.putIfAbsent(host, fetching);
+            if (rules == null) {
+                RobotsRules fetched = fetch(host + "/robots.txt");
+                if (fetched.getCrawlDelayMillis() > 0) crawlDelays.accept(url.getHost().toLowerCase(), fetched.getCrawlDelayMillis());
+                fetching.complete(fetched);
+                rules = fetching;
+            }
+        }
+        return rules.join();
+    }
+
+    private RobotsRules fetch(String robotsURL) {
+        Response response = null;
+        try {
+            response = client.target(robotsURL).request().get();
+            Response.Status.Family family = Response.Status.Family.familyOf(response.getStatus());
+            if (family == Response.Status.Family.SERVER_ERROR) {
+                log.warn("Unable to read {} ({}), not crawling the host", robotsURL, response.getStatus());
+                return RobotsRules.DISALLOW_ALL;
+            }
+            if (family != Response.Status.Family.SUCCESSFUL) {
+                log.debug("No {} ({})", robotsURL, response.getStatus());
+                return RobotsRules.ALLOW_ALL;
+            }
+
+            RobotsRules rules = RobotsRules.parse(read(response.readEntity(InputStream.class)));
+            log.info("Following {}", robotsURL);
+            return rules;
+        } catch (ProcessingException | IOException e) {
+            log.info("Unable to reach {}", robotsURL);
+            log.debug("Unable to reach {}", robotsURL, e);
+            return RobotsRules.ALLOW_ALL;
+        } finally {
+            if (response != null) response.close();
+        }
+    }
+
+    private static String read(InputStream input) throws IOException {
+        try (InputStream body = input) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while (output.size() < MAX_ROBOTS_SIZE && (read = body.read(buffer, 0, Math.min(buffer.length, MAX_ROBOTS_SIZE - output.size()))) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int port(URL url) {
+        return url.getPort() == -1 ? url.getDefaultPort() : url.getPort();
+    }
+}
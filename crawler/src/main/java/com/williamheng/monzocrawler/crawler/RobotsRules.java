@@ -0,0 +1,258 @@
+package com.williamheng.monzocrawler.crawler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The rules of a robots.txt file that apply to this crawler, compiled into a trie of path patterns.
+ *
+ * How it works:
+ *
+ * 1. Only the groups whose user-agent is {@link #USER_AGENT} apply, or the groups for "*" if there are none, and a
+ *    Crawl-delay in them is kept for the crawl to slow down to
+ * 2. Every Allow and Disallow pattern of those groups is added to a trie, one character per edge. A "*" becomes an
+ *    edge of its own that matches any run of characters, and a trailing "$" marks a rule that must match the whole
+ *    path
+ * 3. Matching walks the path down the trie once, only branching at "*" edges, and collects every rule it passes.
+ *    As in RFC 9309, the longest matching pattern decides, an Allow wins a tie, and a path no rule matches is allowed
+ * 4. A "*" edge is followed from each position of the path at most once, however many ways the walk reaches it
+ *
+ * Without wildcards, matching takes time proportional to the length of the path rather than to the number of rules.
+ * Each "*" edge adds at most one walk from every position of the path, so even patterns full of wildcards cost no more
+ * than the number of "*" edges times the square of the path length, rather than growing exponentially with them. The
+ * trie is built once per host, so checking every link found costs little more than a lookup.
+ */
+public class RobotsRules {
+
+    /**
+     * The product token groups in robots.txt are matched against, in lower case.
+     */
+    public static final String USER_AGENT = "monzocrawler";
+
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(new Node(), Collections.emptyList(), 0);
+    public static final RobotsRules DISALLOW_ALL = new RobotsRules(disallowEverything(), Collections.emptyList(), 0);
+
+    private static final char WILDCARD = '*';
+    private static final char END = '$';
+
+    private final Node root;
+    private final List<String> sitemaps;
+    private final long crawlDelayMillis;
+
+    private RobotsRules(Node root, List<String> sitemaps, long crawlDelayMillis) {
+        this.root = root;
+        this.sitemaps = sitemaps;
+        this.crawlDelayMillis = crawlDelayMillis;
+    }
+
+    /**
+     * @return the sitemaps robots.txt lists, which apply to every user-agent
+     */
+    public List<String> getSitemaps() {
+        return sitemaps;
+    }
+
+    /**
+     * @return how long robots.txt asks this crawler to wait between requests, or 0 if it does not say
+     */
+    public long getCrawlDelayMillis() {
+        return crawlDelayMillis;
+    }
+
+    /**
+     * @param path the path and query of a URL, e.g. "/search?q=monzo"
+     */
+    public boolean isAllowed(String path) {
+        Match match = new Match();
+        match(root, path, 0, match);
+        return match.length < 0 || match.isAllowed;
+    }
+
+    public static RobotsRules parse(String robotsTxt) {
+        List<String[]> ownRules = new ArrayList<>();
+        List<String[]> wildcardRules = new ArrayList<>();
+        List<String> sitemaps = new ArrayList<>();
+        long ownCrawlDelayMillis = -1;
+        long wildcardCrawlDelayMillis = -1;
+
+        // A group is a run of user-agent lines followed by its rules
+        List<String> groupAgents = new ArrayList<>();
+        boolean isReadingAgents = false;
+        for (String line : robotsTxt.split("\r\n|\r|\n")) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+
+            int colon = line.indexOf(':');
+            if (colon < 0) continue;
+
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            switch (field) {
+                case "user-agent":
+                    if (!isReadingAgents) groupAgents.clear();
+                    groupAgents.add(value.toLowerCase(Locale.ROOT));
+                    isReadingAgents = true;
+                    break;
+                case "allow":
+                case "disallow":
+                    isReadingAgents = false;
+                    // An empty Disallow allows everything, which is what no rule does anyway
+                    if (value.isEmpty()) break;
+
+                    String[] rule = {field, value};
+                    if (groupAgents.contains(USER_AGENT)) ownRules.add(rule);
+                    if (groupAgents.contains("*")) wildcardRules.add(rule);
+                    break;
+                case "crawl-delay":
+                    isReadingAgents = false;
+                    long crawlDelayMillis = crawlDelayMillis(value);
+                    if (crawlDelayMillis < 0) break;
+
+                    if (groupAgents.contains(USER_AGENT)) ownCrawlDelayMillis = crawlDelayMillis;
+                    if (groupAgents.contains("*")) wildcardCrawlDelayMillis = crawlDelayMillis;
+                    break;
+                case "sitemap":
+                    if (!value.isEmpty()) sitemaps.add(value);
+                    break;
+                default:
+                    isReadingAgents = false;
+            }
+        }
+
+        // A group of our own that only sets a crawl delay still replaces the groups for "*"
+        boolean isOwn = !ownRules.isEmpty() || ownCrawlDelayMillis >= 0;
+        Node root = new Node();
+        for (String[] rule : isOwn ? ownRules : wildcardRules) {
+            add(root, rule[1], rule[0].equals("allow"));
+        }
+        long crawlDelayMillis = isOwn ? ownCrawlDelayMillis : wildcardCrawlDelayMillis;
+        return new RobotsRules(root, Collections.unmodifiableList(sitemaps), Math.max(crawlDelayMillis, 0));
+    }
+
+    /**
+     * @return the crawl delay in milliseconds, given in (possibly fractional) seconds, or -1 if it is not a number
+     */
+    private static long crawlDelayMillis(String value) {
+        try {
+            double seconds = Double.parseDouble(value);
+            return seconds >= 0 && seconds < Long.MAX_VALUE / 1000d ? Math.round(seconds * 1000) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void add(Node root, String pattern, boolean isAllow) {
+        boolean isAnchored = pattern.charAt(pattern.length() - 1) == END;
+        String path = isAnchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            // Consecutive wildcards match the same as one
+            if (c == WILDCARD && i > 0 && path.charAt(i - 1) == WILDCARD) continue;
+            node = node.child(c);
+        }
+
+        // Allow wins when the same pattern is given both ways
+        int length = pattern.length();
+        if (isAnchored) {
+            node.anchoredLength = length;
+            node.isAnchoredAllow |= isAllow;
+        } else {
+            node.ruleLength = length;
+            node.isAllow |= isAllow;
+        }
+    }
+
+    private static void match(Node node, String path, int position, Match match) {
+        while (node != null) {
+            match.offer(node.ruleLength, node.isAllow);
+            if (position == path.length()) match.offer(node.anchoredLength, node.isAnchoredAllow);
+
+            Node wildcard = node.find(WILDCARD);
+            if (wildcard != null) {
+                // Walking on from the same edge and position again would only offer the same rules again
+                BitSet walked = match.walked(wildcard);
+                for (int next = walked.nextClearBit(position); next <= path.length(); next = walked.nextClearBit(next + 1)) {
+                    walked.set(next);
+                    match(wildcard, path, next, match);
+                }
+            }
+
+            if (position == path.length()) return;
+            node = node.find(path.charAt(position++));
+        }
+    }
+
+    private static Node disallowEverything() {
+        Node root = new Node();
+        add(root, "/", false);
+        return root;
+    }
+
+    private static class Node {
+
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        // Few nodes have more than a handful of children, so they are scanned rather than hashed
+        private char[] keys = NO_KEYS;
+        private Node[] children = NO_CHILDREN;
+
+        // The length of the pattern of the rule ending here, or -1 if none does
+        private int ruleLength = -1;
+        private boolean isAllow;
+
+        // The same for a rule ending here that must match the whole path
+        private int anchoredLength = -1;
+        private boolean isAnchoredAllow;
+
+        private Node find(char key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) return children[i];
+            }
+            return null;
+        }
+
+        private Node child(char key) {
+            Node child = find(key);
+            if (child != null) return child;
+
+            child = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = key;
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+
+    private static class Match {
+
+        private int length = -1;
+        private boolean isAllowed;
+
+        // The positions each "*" edge has been walked on from, only kept once a path reaches one
+        private Map<Node, BitSet> walkedWildcards;
+
+        private BitSet walked(Node wildcard) {
+            if (walkedWildcards == null) walkedWildcards = new IdentityHashMap<>();
+            return walkedWildcards.computeIfAbsent(wildcard, w -> new BitSet());
+        }
+
+        private void offer(int ruleLength, boolean isAllow) {
+            if (ruleLength < 0) return;
+
+            if (ruleLength > length || (ruleLength == length && isAllow)) {
+                length = ruleLength;
+                isAllowed = isAllow;
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.williamheng.monzocrawler.crawler;
+
+/**
+ * Builds a 64-bit SimHash of the text of a page, one character at a time, so that pages with almost the same text get
+ * fingerprints that differ in only a few bits.
+ *
+ * How it works:
+ *
+ * 1. The text is split into words of letters and digits, ignoring case, and every pair of consecutive words is a
+ *    feature, so that the order of the words counts as well as the words themselves. Words with digits in them, such as
+ *    dates, counters and session IDs, are left out, since they are what tells copies of the same page apart
+ * 2. Every feature is hashed to 64 bits, and each of 64 counters goes up if its bit of the hash is set or down if not
+ * 3. A bit of the fingerprint is set if its counter ended up above zero
+ *
+ * Changing a few words only changes a few features, which only moves a few counters across zero, whereas different
+ * pages give unrelated fingerprints. Words are hashed as they are read, so no string is ever allocated.
+ */
+public class SimHash {
+
+    /**
+     * Pages with fewer features than this, e.g. redirects or error pages, all look alike and are not fingerprinted.
+     */
+    public static final int MIN_FEATURES = 8;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int[] counters = new int[Long.SIZE];
+    private int features;
+
+    private long wordHash = FNV_OFFSET_BASIS;
+    private boolean isInWord;
+    private boolean hasDigit;
+    private long previousWordHash;
+    private boolean hasPreviousWord;
+
+    public void accept(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            wordHash = (wordHash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            isInWord = true;
+            hasDigit |= Character.isDigit(c);
+        } else {
+            endWord();
+        }
+    }
+
+    public void accept(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) accept(text.charAt(i));
+    }
+
+    /**
+     * @return true if there was enough text to tell this page apart from others
+     */
+    public boolean hasEnoughText() {
+        endWord();
+        return features >= MIN_FEATURES;
+    }
+
+    public long value() {
+        endWord();
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (counters[bit] > 0) fingerprint |= 1L << bit;
+        }
+        return fingerprint;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    private void endWord() {
+        if (!isInWord) return;
+
+        if (!hasDigit) {
+            if (hasPreviousWord) addFeature(mix(previousWordHash * 31 + wordHash));
+            previousWordHash = wordHash;
+            hasPreviousWord = true;
+        }
+        wordHash = FNV_OFFSET_BASIS;
+        isInWord = false;
+        hasDigit = false;
+    }
+
+    private void addFeature(long hash) {
+        features++;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            counters[bit] += ((hash >>> bit) & 1) == 1 ? 1 : -1;
+        }
+    }
+
+    /**
+     * Spreads every bit of the input over every bit of the output (the finaliser of MurmurHash3), since FNV alone leaves
+     * the high bits of short words poorly mixed.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
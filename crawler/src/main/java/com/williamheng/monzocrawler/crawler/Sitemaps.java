@@ -0,0 +1,158 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Response;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the URLs a site lists in its sitemaps, following sitemap indexes to the sitemaps they list.
+ *
+ * How it works:
+ *
+ * 1. Each sitemap is parsed as a stream of XML events, so every URL is handed over as soon as its &lt;loc&gt; is read
+ *    and a sitemap of tens of thousands of URLs is never held in memory
+ * 2. A sitemap that starts with the gzip magic number is decompressed on the fly, whatever its name or content type
+ * 3. The &lt;loc&gt; of a &lt;url&gt; is a page, and the &lt;loc&gt; of a &lt;sitemap&gt; in a sitemap index is
+ *    another sitemap, which is read once the current one has been
+ * 4. Every sitemap is read at most once, and at most a fixed number of them are read, so indexes that list each other
+ *    or themselves cannot keep the reader busy forever
+ *
+ * Sitemaps that cannot be fetched or parsed are skipped, keeping whatever URLs were read from them.
+ */
+@Slf4j
+public class Sitemaps {
+
+    public static final int DEFAULT_MAX_SITEMAPS = 1000;
+
+    // The most URLs the sitemap protocol allows in a single sitemap
+    private static final int MAX_URLS_PER_SITEMAP = 50_000;
+
+    private static final int GZIP_MAGIC = 0x1f8b;
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        // Sitemaps have no use for DTDs, and resolving entities would let a sitemap make the crawler read other files
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final Client client;
+    private final int maxSitemaps;
+
+    public Sitemaps(Client client) {
+        this(client, DEFAULT_MAX_SITEMAPS);
+    }
+
+    public Sitemaps(Client client, int maxSitemaps) {
+        this.client = client;
+        this.maxSitemaps = maxSitemaps;
+    }
+
+    /**
+     * @param sitemapURLs the sitemaps to start from
+     * @param pages       called with every page URL listed, in the order it is read
+     * @return the number of sitemaps read
+     */
+    public int read(Collection<String> sitemapURLs, Consumer<URL> pages) {
+        Deque<String> toRead = new ArrayDeque<>(sitemapURLs);
+        Set<String> seen = new HashSet<>(sitemapURLs);
+        int read = 0;
+
+        while (!toRead.isEmpty() && read < maxSitemaps) {
+            String sitemapURL = toRead.poll();
+            read++;
+            readSitemap(sitemapURL, pages, sitemap -> {
+                if (seen.add(sitemap)) toRead.add(sitemap);
+            });
+        }
+
+        if (!toRead.isEmpty()) log.warn("Not reading {} more sitemaps after reading {}", toRead.size(), read);
+        return read;
+    }
+
+    private void readSitemap(String sitemapURL, Consumer<URL> pages, Consumer<String> sitemaps) {
+        Response response = null;
+        try {
+            response = client.target(sitemapURL).request().get();
+            if (Response.Status.Family.familyOf(response.getStatus()) != Response.Status.Family.SUCCESSFUL) {
+                log.info("Unable to read sitemap {} ({})", sitemapURL, response.getStatus());
+                return;
+            }
+
+            try (InputStream body = decompress(response.readEntity(InputStream.class))) {
+                int urls = parse(body, sitemapURL, pages, sitemaps);
+                log.info("Read {} URLs from sitemap {}", urls, sitemapURL);
+            }
+        } catch (ProcessingException | IOException e) {
+            log.info("Unable to reach sitemap {}", sitemapURL);
+            log.debug("Unable to reach sitemap {}", sitemapURL, e);
+        } catch (XMLStreamException e) {
+            log.info("Unable to parse sitemap {}", sitemapURL);
+            log.debug("Unable to parse sitemap {}", sitemapURL, e);
+        } finally {
+            if (response != null) response.close();
+        }
+    }
+
+    /**
+     * @return the number of page URLs read
+     */
+    static int parse(InputStream body, String sitemapURL, Consumer<URL> pages, Consumer<String> sitemaps) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(body);
+        try {
+            int urls = 0;
+            boolean isInSitemap = false;
+            while (reader.hasNext() && urls < MAX_URLS_PER_SITEMAP) {
+                if (reader.next() != XMLStreamReader.START_ELEMENT) continue;
+
+                String element = reader.getLocalName();
+                if (element.equals("sitemap")) isInSitemap = true;
+                else if (element.equals("url")) isInSitemap = false;
+                else if (element.equals("loc")) {
+                    String loc = reader.getElementText().trim();
+                    if (isInSitemap) {
+                        sitemaps.accept(loc);
+                        continue;
+                    }
+
+                    try {
+                        pages.accept(CanonicalUrl.parseURL(loc));
+                        urls++;
+                    } catch (MalformedURLException e) {
+                        log.debug("Ignoring malformed URL={} in sitemap {}", loc, sitemapURL);
+                    }
+                }
+            }
+            return urls;
+        } finally {
+            reader.close();
+        }
+    }
+
+    static InputStream decompress(InputStream body) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(body);
+        buffered.mark(2);
+        int magic = (buffered.read() << 8) | buffered.read();
+        buffered.reset();
+        return magic == GZIP_MAGIC ? new GZIPInputStream(buffered) : buffered;
+    }
+}
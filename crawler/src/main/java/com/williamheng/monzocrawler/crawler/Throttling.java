@@ -0,0 +1,56 @@
+package com.williamheng.monzocrawler.crawler;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Recognises responses in which a server asks us to slow down.
+ */
+public class Throttling {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * @return the response of a throttling error found in the throwable or its causes, or null if there is none
+     */
+    public static Response throttledResponse(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof WebApplicationException) {
+                Response response = ((WebApplicationException) cause).getResponse();
+                if (response != null && isThrottled(response.getStatus())) return response;
+            }
+        }
+        return null;
+    }
+
+    public static boolean isThrottled(int status) {
+        return status == TOO_MANY_REQUESTS || status == Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+    }
+
+    /**
+     * @return the delay asked for in the Retry-After header in milliseconds, or -1 if there is none
+     */
+    public static long retryAfterMillis(Response response) {
+        String retryAfter = response.getHeaderString(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null || retryAfter.trim().isEmpty()) return -1;
+
+        retryAfter = retryAfter.trim();
+        try {
+            return Math.max(0, Long.parseLong(retryAfter) * 1000);
+        } catch (NumberFormatException e) {
+            // Not a number of seconds, so it should be an HTTP date
+        }
+
+        try {
+            Instant retryAt = ZonedDateTime.parse(retryAfter, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+            return Math.max(0, retryAt.toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.williamheng.monzocrawler.crawler;
+
+/**
+ * A token bucket refilled continuously at a fixed rate. Not thread safe.
+ */
+class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final double capacity;
+    private double permitsPerSecond;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double permitsPerSecond, double capacity, long nowNanos) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens < 1) return false;
+
+        tokens -= 1;
+        return true;
+    }
+
+    long nanosUntilAvailable(long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) return 0;
+
+        return (long) Math.ceil((1 - tokens) / permitsPerSecond * NANOS_PER_SECOND);
+    }
+
+    double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    void setPermitsPerSecond(double permitsPerSecond, long nowNanos) {
+        refill(nowNanos);
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    private void refill(long nowNanos) {
+        if (Double.isInfinite(permitsPerSecond)) {
+            tokens = capacity;
+        } else {
+            tokens = Math.min(capacity, tokens + (nowNanos - lastRefillNanos) / NANOS_PER_SECOND * permitsPerSecond);
+        }
+        lastRefillNanos = nowNanos;
+    }
+}
@@ -0,0 +1,86 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.Resource;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.client.Client;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A crawler that runs every fetch on its own virtual thread.
+ *
+ * How it works:
+ *
+ * 1. A single dispatcher takes resources from the frontier and starts a virtual thread for each of them
+ * 2. Each virtual thread makes an ordinary blocking request and parses the page, just like {@link MonzoCrawler}
+ * 3. The number of resources being crawled at once is bounded by a semaphore rather than a worker count
+ * 4. The dispatcher stops as soon as the {@link CrawlTracker} says the crawl is over
+ */
+@Slf4j
+public class VirtualThreadMonzoCrawler implements Runnable {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final Frontier frontier;
+    private final MonzoCrawler crawler;
+    private final Semaphore inFlightResources;
+    private final CrawlTracker tracker;
+
+    @Builder
+    private VirtualThreadMonzoCrawler(
+            @NonNull Client client,
+            @NonNull MonzoPageProcessor pageProcessor,
+            PageCache pageCache,
+            int maxInFlight,
+            int maxPageSize
+    ) {
+        if (maxInFlight <= 0) throw new IllegalArgumentException("Invalid number of requests in flight");
+
+        this.frontier = pageProcessor.getFrontier();
+        this.tracker = pageProcessor.getTracker();
+        this.inFlightResources = new Semaphore(maxInFlight);
+        this.crawler = MonzoCrawler.builder()
+                .client(client)
+                .pageProcessor(pageProcessor)
+                .pageCache(pageCache)
+                .maxPageSize(maxPageSize)
+                .build();
+    }
+
+    @Override
+    public void run() {
+        tracker.startUnlessStarted(frontier.size());
+
+        try (ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (!tracker.isDone()) {
+                try {
+                    inFlightResources.acquire();
+                    Resource resource = frontier.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+                    if (resource == null) {
+                        inFlightResources.release();
+                        continue;
+                    }
+
+                    executorService.execute(() -> {
+                        try {
+                            crawler.crawl(resource);
+                        } catch (RuntimeException e) {
+                            log.error("Unable to crawl URL={}", resource.getUrl(), e);
+                        } finally {
+                            inFlightResources.release();
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.williamheng.monzocrawler.http;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * How the HTTP client connects to the sites being crawled.
+ */
+@Value
+@Builder
+public class ConnectionSettings {
+
+    public static final int DEFAULT_CONNECT_TIMEOUT_MILLIS = 10_000;
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 30_000;
+    public static final int DEFAULT_CONNECTION_POOL_SIZE = 16;
+    public static final int DEFAULT_KEEP_ALIVE_SECONDS = 30;
+
+    private final ConnectorType connectorType;
+    private final int connectTimeoutMillis;
+
+    // How long to wait for a response to start arriving, so that a server that never answers cannot hang a worker
+    private final int readTimeoutMillis;
+
+    // The number of connections kept alive per host, which should be the number of requests made at once
+    private final int connectionPoolSize;
+
+    // How long an idle connection is kept alive for
+    private final int keepAliveSeconds;
+
+    // Whether to speak HTTP/2 with servers that support it, so that requests share one connection
+    private final boolean http2;
+
+    // The largest body, in bytes, that an asynchronous request holds in memory, or 0 for no limit
+    private final int maxBodySize;
+
+    // Whether to ask for gzip or deflate compressed responses
+    private final boolean compression;
+
+    public static class ConnectionSettingsBuilder {
+        private ConnectorType connectorType = ConnectorType.JDK;
+        private int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
+        private int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
+        private int connectionPoolSize = DEFAULT_CONNECTION_POOL_SIZE;
+        private int keepAliveSeconds = DEFAULT_KEEP_ALIVE_SECONDS;
+        private boolean http2 = true;
+        private boolean compression = true;
+    }
+}
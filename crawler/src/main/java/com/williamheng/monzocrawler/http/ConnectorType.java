@@ -0,0 +1,47 @@
+package com.williamheng.monzocrawler.http;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * The library the HTTP client makes its connections with.
+ */
+public enum ConnectorType {
+
+    /**
+     * The JDK's {@link java.net.http.HttpClient}, which pools connections, speaks HTTP/2 and never blocks a thread
+     * on an asynchronous request
+     */
+    JDK("jdk"),
+
+    /**
+     * The Grizzly asynchronous HTTP client
+     */
+    GRIZZLY("grizzly"),
+
+    /**
+     * {@link java.net.HttpURLConnection}, which blocks a thread per request and keeps few connections alive
+     */
+    URL_CONNECTION("urlconnection");
+
+    private final String option;
+
+    ConnectorType(String option) {
+        this.option = option;
+    }
+
+    public String getOption() {
+        return option;
+    }
+
+    public static ConnectorType fromOption(String option) {
+        return Arrays.stream(values())
+                .filter(type -> type.option.equalsIgnoreCase(option))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format("Invalid connector %s", option)));
+    }
+
+    public static String options() {
+        return Arrays.stream(values()).map(ConnectorType::getOption).collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,57 @@
+package com.williamheng.monzocrawler.http;
+
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.glassfish.jersey.client.filter.EncodingFeature;
+import org.glassfish.jersey.grizzly.connector.GrizzlyConnectorProvider;
+import org.glassfish.jersey.message.DeflateEncoder;
+import org.glassfish.jersey.message.GZipEncoder;
+
+import javax.ws.rs.client.Client;
+import java.net.http.HttpClient;
+
+/**
+ * Creates HTTP clients from {@link ConnectionSettings}.
+ *
+ * Compressed responses are decoded by Jersey as they are read, except with Grizzly, which decodes them itself.
+ *
+ * The JDK and {@link java.net.HttpURLConnection} connection pools are configured with system properties that are read
+ * once, so their pool size and keep-alive only take effect for the first client created in a JVM.
+ */
+public class HttpClients {
+
+    public static Client create(ConnectionSettings settings) {
+        ClientConfig clientConfig = new ClientConfig()
+                .property(ClientProperties.FOLLOW_REDIRECTS, true)
+                .property(ClientProperties.CONNECT_TIMEOUT, settings.getConnectTimeoutMillis())
+                .property(ClientProperties.READ_TIMEOUT, settings.getReadTimeoutMillis());
+        if (settings.getMaxBodySize() > 0) clientConfig.property(JdkHttpConnectorProvider.MAX_BODY_SIZE, settings.getMaxBodySize());
+
+        switch (settings.getConnectorType()) {
+            case GRIZZLY:
+                clientConfig.connectorProvider(new GrizzlyConnectorProvider((client, configuration, builder) -> builder
+                        .setAllowPoolingConnections(true)
+                        .setMaxConnectionsPerHost(settings.getConnectionPoolSize())
+                        .setPooledConnectionIdleTimeout(settings.getKeepAliveSeconds() * 1000)
+                        .setCompressionEnforced(settings.isCompression())));
+                break;
+            case URL_CONNECTION:
+                System.setProperty("http.keepAlive", "true");
+                System.setProperty("http.maxConnections", String.valueOf(settings.getConnectionPoolSize()));
+                System.setProperty("http.keepAlive.time.server", String.valueOf(settings.getKeepAliveSeconds()));
+                break;
+            default:
+                System.setProperty("jdk.httpclient.connectionPoolSize", String.valueOf(settings.getConnectionPoolSize()));
+                System.setProperty("jdk.httpclient.keepalive.timeout", String.valueOf(settings.getKeepAliveSeconds()));
+                clientConfig.connectorProvider(new JdkHttpConnectorProvider(settings.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1));
+        }
+
+        // Grizzly decodes compressed responses itself, and decoding them twice would fail
+        if (settings.isCompression() && settings.getConnectorType() != ConnectorType.GRIZZLY) {
+            clientConfig.register(new EncodingFeature(GZipEncoder.class, DeflateEncoder.class));
+        }
+
+        return JerseyClientBuilder.createClient(clientConfig);
+    }
+}
@@ -0,0 +1,213 @@
+package com.williamheng.monzocrawler.http;
+
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.ClientRequest;
+import org.glassfish.jersey.client.ClientResponse;
+import org.glassfish.jersey.client.spi.AsyncConnectorCallback;
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.message.internal.Statuses;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Configuration;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+
+/**
+ * A Jersey connector on top of the JDK's {@link HttpClient}.
+ *
+ * How it works:
+ *
+ * 1. One {@link HttpClient} is shared by every request, so connections are pooled and kept alive between requests,
+ *    and requests to an HTTP/2 server are multiplexed over a single connection
+ * 2. Blocking requests stream the response body, so that pages can be parsed as they arrive
+ * 3. Asynchronous requests receive the whole body before calling back, so no thread ever waits on the network. Bodies
+ *    larger than {@link JdkHttpConnectorProvider#MAX_BODY_SIZE} are not kept
+ * 4. The connect timeout applies to opening connections and the read timeout to waiting for a response to start
+ */
+class JdkHttpConnector implements Connector {
+
+    // Headers the JDK client sets itself and refuses to be given
+    private static final Set<String> RESTRICTED_HEADERS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        RESTRICTED_HEADERS.add("Connection");
+        RESTRICTED_HEADERS.add("Content-Length");
+        RESTRICTED_HEADERS.add("Expect");
+        RESTRICTED_HEADERS.add("Host");
+        RESTRICTED_HEADERS.add("Upgrade");
+    }
+
+    private final HttpClient httpClient;
+    private final long maxBodySize;
+
+    JdkHttpConnector(Configuration configuration, HttpClient.Version version) {
+        Map<String, Object> properties = configuration.getProperties();
+        int connectTimeout = ClientProperties.getValue(properties, ClientProperties.CONNECT_TIMEOUT, 0);
+        boolean followRedirects = ClientProperties.getValue(properties, ClientProperties.FOLLOW_REDIRECTS, true);
+        int maxBodySize = ClientProperties.getValue(properties, JdkHttpConnectorProvider.MAX_BODY_SIZE, 0);
+        this.maxBodySize = maxBodySize > 0 ? maxBodySize : Long.MAX_VALUE;
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(version)
+                .followRedirects(followRedirects ? HttpClient.Redirect.NORMAL : HttpClient.Redirect.NEVER);
+        if (connectTimeout > 0) builder.connectTimeout(Duration.ofMillis(connectTimeout));
+        this.httpClient = builder.build();
+    }
+
+    @Override
+    public ClientResponse apply(ClientRequest request) {
+        try {
+            HttpResponse<InputStream> response = httpClient.send(httpRequest(request), HttpResponse.BodyHandlers.ofInputStream());
+            return clientResponse(request, response, response.body());
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessingException(e);
+        }
+    }
+
+    @Override
+    public Future<?> apply(ClientRequest request, AsyncConnectorCallback callback) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = httpRequest(request);
+        } catch (IOException e) {
+            callback.failure(new ProcessingException(e));
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return httpClient.sendAsync(httpRequest, this::boundedBody)
+                .whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                        callback.failure(new ProcessingException(cause));
+                        return;
+                    }
+                    callback.response(clientResponse(request, response, new ByteArrayInputStream(response.body())));
+                });
+    }
+
+    @Override
+    public String getName() {
+        return "JDK HttpClient " + httpClient.version();
+    }
+
+    @Override
+    public void close() {
+        httpClient.shutdownNow();
+    }
+
+    private HttpResponse.BodySubscriber<byte[]> boundedBody(HttpResponse.ResponseInfo responseInfo) {
+        // Leaving the body unread, the caller still sees the Content-Length that says why it is missing
+        long contentLength = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1);
+        if (contentLength > maxBodySize) return HttpResponse.BodySubscribers.replacing(new byte[0]);
+
+        return new BoundedBodySubscriber(HttpResponse.BodySubscribers.ofByteArray(), maxBodySize);
+    }
+
+    private static HttpRequest httpRequest(ClientRequest request) throws IOException {
+        // The entity is written first, since writing it can add headers such as its content type
+        byte[] entity = entity(request);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request.getUri())
+                .method(request.getMethod(), entity == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(entity));
+
+        int readTimeout = request.resolveProperty(ClientProperties.READ_TIMEOUT, 0);
+        if (readTimeout > 0) builder.timeout(Duration.ofMillis(readTimeout));
+
+        request.getStringHeaders().forEach((name, values) -> {
+            if (RESTRICTED_HEADERS.contains(name)) return;
+            for (String value : values) builder.header(name, value);
+        });
+        return builder.build();
+    }
+
+    private static byte[] entity(ClientRequest request) throws IOException {
+        if (!request.hasEntity()) return null;
+
+        ByteArrayOutputStream entity = new ByteArrayOutputStream();
+        request.setStreamProvider(contentLength -> entity);
+        request.writeEntity();
+        return entity.toByteArray();
+    }
+
+    private static ClientResponse clientResponse(ClientRequest request, HttpResponse<?> response, InputStream body) {
+        ClientResponse clientResponse = new ClientResponse(Statuses.from(response.statusCode()), request, response.uri());
+        response.headers().map().forEach((name, values) -> {
+            // HTTP/2 pseudo-headers such as ":status" are not headers of the response
+            if (!name.startsWith(":")) clientResponse.getHeaders().addAll(name, values);
+        });
+        clientResponse.setEntityStream(body);
+        return clientResponse;
+    }
+
+    /**
+     * Collects a body, giving up as soon as it grows larger than the maximum size.
+     */
+    private static class BoundedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+
+        private final HttpResponse.BodySubscriber<byte[]> body;
+        private final long maxBodySize;
+
+        private Flow.Subscription subscription;
+        private long received;
+        private boolean isCancelled;
+
+        BoundedBodySubscriber(HttpResponse.BodySubscriber<byte[]> body, long maxBodySize) {
+            this.body = body;
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return body.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            body.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            if (isCancelled) return;
+
+            for (ByteBuffer item : items) received += item.remaining();
+            if (received > maxBodySize) {
+                isCancelled = true;
+                subscription.cancel();
+                body.onError(new IOException("Response body larger than " + maxBodySize + " bytes"));
+                return;
+            }
+            body.onNext(items);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!isCancelled) body.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (!isCancelled) body.onComplete();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.williamheng.monzocrawler.http;
+
+import org.glassfish.jersey.client.spi.Connector;
+import org.glassfish.jersey.client.spi.ConnectorProvider;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Configuration;
+import java.net.http.HttpClient;
+
+/**
+ * Makes Jersey send its requests with the JDK's {@link HttpClient}.
+ */
+public class JdkHttpConnectorProvider implements ConnectorProvider {
+
+    /**
+     * The largest response body, in bytes, that asynchronous requests will hold in memory. Larger bodies are dropped
+     * unread when the Content-Length says they are too large, and fail the request otherwise.
+     */
+    public static final String MAX_BODY_SIZE = "com.williamheng.monzocrawler.http.maxBodySize";
+
+    private final HttpClient.Version version;
+
+    public JdkHttpConnectorProvider() {
+        this(HttpClient.Version.HTTP_2);
+    }
+
+    /**
+     * @param version the highest version of HTTP to speak, falling back to HTTP/1.1 with servers that do not support it
+     */
+    public JdkHttpConnectorProvider(HttpClient.Version version) {
+        this.version = version;
+    }
+
+    @Override
+    public Connector getConnector(Client client, Configuration runtimeConfig) {
+        return new JdkHttpConnector(runtimeConfig, version);
+    }
+}
@@ -0,0 +1,529 @@
+package com.williamheng.monzocrawler.metrics;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Where the time and bytes of a crawl go.
+ *
+ * Everything is recorded with striped adders or single atomic increments, so recording never takes a lock and
+ * threads recording at the same time rarely touch the same memory. Reading sums the stripes, which is only done for
+ * the progress line, JMX and the summary at the end of a crawl.
+ *
+ * Parse time covers reading the body as well as finding its links, since pages are parsed as they stream in.
+ */
+@Slf4j
+public class CrawlMetrics implements CrawlMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.williamheng.monzocrawler:type=CrawlMetrics";
+
+    private static final int MAX_STATUS_CODE = 600;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final long startNanos = System.nanoTime();
+    private volatile long finishNanos;
+
+    private final LatencyHistogram fetchLatency = new LatencyHistogram();
+    private final LatencyHistogram parseTime = new LatencyHistogram();
+    private final LatencyHistogram checkpointTime = new LatencyHistogram();
+    private final AtomicReferenceArray<LongAdder> statusCodes = new AtomicReferenceArray<>(MAX_STATUS_CODE);
+
+    private final LongAdder fetchErrors = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder pagesSkipped = new LongAdder();
+    private final LongAdder linksChecked = new LongAdder();
+    private final LongAdder brokenLinks = new LongAdder();
+    private final LongAdder bytesDownloaded = new LongAdder();
+    private final LongAdder linksFound = new LongAdder();
+    private final LongAdder linksAdmitted = new LongAdder();
+    private final LongAdder duplicateLinks = new LongAdder();
+    private final LongAdder linksOverBudget = new LongAdder();
+    private final LongAdder linksDisallowed = new LongAdder();
+    private final LongAdder sitemapURLs = new LongAdder();
+    private final LongAdder linksTrapped = new LongAdder();
+    private final LongAdder nearDuplicatePages = new LongAdder();
+    private final LongAdder workerBusyNanos = new LongAdder();
+    private final LongAdder workerIdleNanos = new LongAdder();
+    private final LongAdder checkpointBytes = new LongAdder();
+    private final LongAdder checkpointRecordingNanos = new LongAdder();
+    private final LongAdder pagesRestored = new LongAdder();
+
+    private volatile IntSupplier frontierSize = () -> 0;
+
+    // The stages of a pipelined crawl, in order, if it is one
+    private final List<StageMetrics> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * Records a response, from sending the request until its status and headers arrived.
+     */
+    public void fetched(int statusCode, long latencyNanos) {
+        fetchLatency.record(latencyNanos);
+        statusCount(statusCode).increment();
+    }
+
+    /**
+     * Records a request that got no response at all.
+     */
+    public void fetchFailed() {
+        fetchErrors.increment();
+    }
+
+    public void retried() {
+        retries.increment();
+    }
+
+    /**
+     * Records a page whose body was not parsed, because it was not HTML or was too large.
+     */
+    public void pageSkipped() {
+        pagesSkipped.increment();
+    }
+
+    /**
+     * Records the status an external link answered a check with, or a negative status if it could not be reached.
+     */
+    public void linkChecked(int status) {
+        linksChecked.increment();
+        if (status < 0 || status >= 400) brokenLinks.increment();
+    }
+
+    public void parsed(long durationNanos, long bytes, int numberOfLinks) {
+        parseTime.record(durationNanos);
+        bytesDownloaded.add(bytes);
+        linksFound.add(numberOfLinks);
+    }
+
+    /**
+     * Records an internal link that was either new to the frontier or had been seen before.
+     */
+    public void linkOffered(boolean isAdmitted) {
+        if (isAdmitted) {
+            linksAdmitted.increment();
+        } else {
+            duplicateLinks.increment();
+        }
+    }
+
+    /**
+     * Records an internal link that was not crawled because it was too deep or the page budget had run out.
+     */
+    public void linkOverBudget() {
+        linksOverBudget.increment();
+    }
+
+    /**
+     * Records an internal link that was not crawled because robots.txt disallows it.
+     */
+    public void linkDisallowed() {
+        linksDisallowed.increment();
+    }
+
+    /**
+     * Records an internal link that was not crawled because too many URLs of its shape had been queued already.
+     */
+    public void linkTrapped() {
+        linksTrapped.increment();
+    }
+
+    /**
+     * Records a page whose text is almost the same as that of a page crawled before, whose links were not followed.
+     */
+    public void nearDuplicatePage() {
+        nearDuplicatePages.increment();
+    }
+
+    /**
+     * Records a URL listed in a sitemap that was new to the frontier.
+     */
+    public void sitemapURLAdmitted() {
+        sitemapURLs.increment();
+    }
+
+    /**
+     * Records a checkpoint of a crawl, from its first write until it was on disk.
+     */
+    public void checkpointWritten(long durationNanos, long bytes) {
+        checkpointTime.record(durationNanos);
+        checkpointBytes.add(bytes);
+    }
+
+    /**
+     * Records the time a crawling thread spent recording what it did for the next checkpoint.
+     */
+    public void checkpointRecorded(long durationNanos) {
+        checkpointRecordingNanos.add(durationNanos);
+    }
+
+    /**
+     * Records the pages a resumed crawl did not need to crawl again, since its checkpoint had them.
+     */
+    public void pagesRestored(int numberOfPages) {
+        pagesRestored.add(numberOfPages);
+    }
+
+    public void workerBusy(long durationNanos) {
+        workerBusyNanos.add(durationNanos);
+    }
+
+    public void workerIdle(long durationNanos) {
+        workerIdleNanos.add(durationNanos);
+    }
+
+    public void frontierSize(IntSupplier frontierSize) {
+        this.frontierSize = frontierSize;
+    }
+
+    /**
+     * @param queueSize the number of items waiting for the stage
+     * @return the metrics of a new stage of a pipelined crawl, reported after the stages created before it
+     */
+    public StageMetrics stage(String name, int threads, IntSupplier queueSize) {
+        StageMetrics stage = new StageMetrics(name, threads, queueSize);
+        stages.add(stage);
+        return stage;
+    }
+
+    /**
+     * Stops the clock that pages per second are measured against.
+     */
+    public void finish() {
+        finishNanos = System.nanoTime();
+    }
+
+    @Override
+    public long getPagesFetched() {
+        long pagesFetched = 0;
+        for (int statusCode = 0; statusCode < MAX_STATUS_CODE; statusCode++) {
+            LongAdder count = statusCodes.get(statusCode);
+            if (count != null) pagesFetched += count.sum();
+        }
+        return pagesFetched;
+    }
+
+    @Override
+    public long getPagesNotModified() {
+        LongAdder count = statusCodes.get(304);
+        return count == null ? 0 : count.sum();
+    }
+
+    @Override
+    public long getFetchErrors() {
+        return fetchErrors.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getPagesSkipped() {
+        return pagesSkipped.sum();
+    }
+
+    @Override
+    public long getLinksChecked() {
+        return linksChecked.sum();
+    }
+
+    @Override
+    public long getBrokenLinks() {
+        return brokenLinks.sum();
+    }
+
+    @Override
+    public long getBytesDownloaded() {
+        return bytesDownloaded.sum();
+    }
+
+    @Override
+    public long getLinksFound() {
+        return linksFound.sum();
+    }
+
+    @Override
+    public long getLinksAdmitted() {
+        return linksAdmitted.sum();
+    }
+
+    @Override
+    public long getLinksOverBudget() {
+        return linksOverBudget.sum();
+    }
+
+    @Override
+    public long getLinksDisallowed() {
+        return linksDisallowed.sum();
+    }
+
+    @Override
+    public long getSitemapURLs() {
+        return sitemapURLs.sum();
+    }
+
+    @Override
+    public long getLinksTrapped() {
+        return linksTrapped.sum();
+    }
+
+    @Override
+    public long getNearDuplicatePages() {
+        return nearDuplicatePages.sum();
+    }
+
+    @Override
+    public long getCheckpoints() {
+        return checkpointTime.count();
+    }
+
+    @Override
+    public long getCheckpointBytes() {
+        return checkpointBytes.sum();
+    }
+
+    @Override
+    public double getCheckpointTimeP99Millis() {
+        return checkpointTime.percentileMillis(99);
+    }
+
+    @Override
+    public double getCheckpointRecordingMillis() {
+        return checkpointRecordingNanos.sum() / 1_000_000d;
+    }
+
+    @Override
+    public long getPagesRestored() {
+        return pagesRestored.sum();
+    }
+
+    @Override
+    public double getDuplicateLinkRate() {
+        long admitted = linksAdmitted.sum();
+        long duplicates = duplicateLinks.sum();
+        return admitted + duplicates == 0 ? 0 : (double) duplicates / (admitted + duplicates);
+    }
+
+    @Override
+    public int getFrontierSize() {
+        return frontierSize.getAsInt();
+    }
+
+    @Override
+    public double getFetchLatencyMeanMillis() {
+        return fetchLatency.meanMillis();
+    }
+
+    @Override
+    public double getFetchLatencyP50Millis() {
+        return fetchLatency.percentileMillis(50);
+    }
+
+    @Override
+    public double getFetchLatencyP99Millis() {
+        return fetchLatency.percentileMillis(99);
+    }
+
+    @Override
+    public double getParseTimeP50Millis() {
+        return parseTime.percentileMillis(50);
+    }
+
+    @Override
+    public double getParseTimeP99Millis() {
+        return parseTime.percentileMillis(99);
+    }
+
+    @Override
+    public double getWorkerBusyRatio() {
+        long busy = workerBusyNanos.sum();
+        long idle = workerIdleNanos.sum();
+        return busy + idle == 0 ? 0 : (double) busy / (busy + idle);
+    }
+
+    @Override
+    public double getPagesPerSecond() {
+        double seconds = elapsedMillis() / 1000d;
+        return seconds == 0 ? 0 : getPagesFetched() / seconds;
+    }
+
+    @Override
+    public Map<String, Long> getStatusCodes() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (int statusCode = 0; statusCode < MAX_STATUS_CODE; statusCode++) {
+            LongAdder count = statusCodes.get(statusCode);
+            if (count != null) counts.put(String.valueOf(statusCode), count.sum());
+        }
+        return counts;
+    }
+
+    /**
+     * @return the stages of a pipelined crawl in order, or none if it is not one
+     */
+    public List<StageMetrics> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    @Override
+    public Map<String, Double> getStageBusyRatios() {
+        long end = endNanos();
+        Map<String, Double> ratios = new LinkedHashMap<>();
+        for (StageMetrics stage : stages) ratios.put(stage.getName(), stage.busyRatio(end));
+        return ratios;
+    }
+
+    @Override
+    public Map<String, Integer> getStageQueueSizes() {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        for (StageMetrics stage : stages) sizes.put(stage.getName(), stage.getQueueSize());
+        return sizes;
+    }
+
+    public long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(endNanos() - startNanos);
+    }
+
+    /**
+     * @return a one line summary of how the crawl is going
+     */
+    public String progressLine() {
+        String progress = String.format(
+                "Crawled %d pages (%.1f/s), %.1f MB, %d queued, fetch p50 %.0fms p99 %.0fms, %d errors",
+                getPagesFetched(),
+                getPagesPerSecond(),
+                getBytesDownloaded() / (1024d * 1024d),
+                getFrontierSize(),
+                getFetchLatencyP50Millis(),
+                getFetchLatencyP99Millis(),
+                getFetchErrors()
+        );
+        if (stages.isEmpty()) return String.format("%s, workers %.0f%% busy", progress, getWorkerBusyRatio() * 100);
+
+        // A pipelined crawl has no workers, but stages that each have a queue of their own
+        StringBuilder line = new StringBuilder(progress);
+        long end = endNanos();
+        for (StageMetrics stage : stages) {
+            line.append(String.format(", %s %.0f%% busy (%d waiting)", stage.getName(), stage.busyRatio(end) * 100, stage.getQueueSize()));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Writes everything recorded so far as a JSON object.
+     */
+    public void writeSummary(OutputStream outputStream) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream)) {
+            generator.useDefaultPrettyPrinter();
+            generator.writeStartObject();
+            generator.writeNumberField("elapsedMillis", elapsedMillis());
+            generator.writeNumberField("pagesFetched", getPagesFetched());
+            generator.writeNumberField("pagesPerSecond", getPagesPerSecond());
+            generator.writeNumberField("pagesNotModified", getPagesNotModified());
+            generator.writeNumberField("fetchErrors", getFetchErrors());
+            generator.writeNumberField("retries", getRetries());
+            generator.writeNumberField("pagesSkipped", getPagesSkipped());
+            generator.writeNumberField("linksChecked", getLinksChecked());
+            generator.writeNumberField("brokenLinks", getBrokenLinks());
+            generator.writeNumberField("bytesDownloaded", getBytesDownloaded());
+            generator.writeNumberField("linksFound", getLinksFound());
+            generator.writeNumberField("linksAdmitted", getLinksAdmitted());
+            generator.writeNumberField("linksOverBudget", getLinksOverBudget());
+            generator.writeNumberField("linksDisallowed", getLinksDisallowed());
+            generator.writeNumberField("sitemapURLs", getSitemapURLs());
+            generator.writeNumberField("linksTrapped", getLinksTrapped());
+            generator.writeNumberField("nearDuplicatePages", getNearDuplicatePages());
+            generator.writeNumberField("duplicateLinkRate", getDuplicateLinkRate());
+            generator.writeNumberField("frontierSize", getFrontierSize());
+            generator.writeNumberField("workerBusyRatio", getWorkerBusyRatio());
+            generator.writeNumberField("pagesRestored", getPagesRestored());
+            generator.writeNumberField("checkpoints", getCheckpoints());
+            generator.writeNumberField("checkpointBytes", getCheckpointBytes());
+            generator.writeNumberField("checkpointRecordingMillis", getCheckpointRecordingMillis());
+
+            generator.writeObjectFieldStart("statusCodes");
+            for (Map.Entry<String, Long> statusCode : getStatusCodes().entrySet()) {
+                generator.writeNumberField(statusCode.getKey(), statusCode.getValue());
+            }
+            generator.writeEndObject();
+
+            writeHistogram(generator, "fetchLatencyMillis", fetchLatency);
+            writeHistogram(generator, "parseTimeMillis", parseTime);
+            if (checkpointTime.count() > 0) writeHistogram(generator, "checkpointTimeMillis", checkpointTime);
+
+            if (!stages.isEmpty()) {
+                long end = endNanos();
+                generator.writeObjectFieldStart("stages");
+                for (StageMetrics stage : stages) {
+                    generator.writeObjectFieldStart(stage.getName());
+                    generator.writeNumberField("threads", stage.getThreads());
+                    generator.writeNumberField("items", stage.getItems());
+                    generator.writeNumberField("waiting", stage.getQueueSize());
+                    generator.writeNumberField("busyRatio", stage.busyRatio(end));
+                    generator.writeNumberField("blockedRatio", stage.blockedRatio(end));
+                    generator.writeEndObject();
+                }
+                generator.writeEndObject();
+            }
+
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Exposes these metrics over JMX, replacing any crawl registered before.
+     */
+    public void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            log.warn("Unable to register crawl metrics over JMX", e);
+        }
+    }
+
+    private long endNanos() {
+        return finishNanos == 0 ? System.nanoTime() : finishNanos;
+    }
+
+    private LongAdder statusCount(int statusCode) {
+        int index = statusCode >= 0 && statusCode < MAX_STATUS_CODE ? statusCode : 0;
+        LongAdder count = statusCodes.get(index);
+        if (count == null) {
+            statusCodes.compareAndSet(index, null, new LongAdder());
+            count = statusCodes.get(index);
+        }
+        return count;
+    }
+
+    private static void writeHistogram(JsonGenerator generator, String name, LatencyHistogram histogram) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("count", histogram.count());
+        generator.writeNumberField("mean", histogram.meanMillis());
+        generator.writeNumberField("p50", histogram.percentileMillis(50));
+        generator.writeNumberField("p90", histogram.percentileMillis(90));
+        generator.writeNumberField("p99", histogram.percentileMillis(99));
+        generator.writeNumberField("p999", histogram.percentileMillis(99.9));
+        generator.writeNumberField("max", histogram.maxMillis());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,115 @@
+package com.williamheng.monzocrawler.metrics;
+
+import java.util.Map;
+
+/**
+ * What a running crawl exposes over JMX.
+ */
+public interface CrawlMetricsMXBean {
+
+    /**
+     * @return the number of responses received, whatever their status
+     */
+    long getPagesFetched();
+
+    long getPagesNotModified();
+
+    long getFetchErrors();
+
+    long getRetries();
+
+    /**
+     * @return the number of pages whose bodies were not parsed, because they were not HTML or were too large
+     */
+    long getPagesSkipped();
+
+    long getLinksChecked();
+
+    /**
+     * @return the number of checked external links that answered with an error or could not be reached
+     */
+    long getBrokenLinks();
+
+    long getBytesDownloaded();
+
+    long getLinksFound();
+
+    long getLinksAdmitted();
+
+    /**
+     * @return the number of internal links that were not crawled because of --max-pages or --max-depth
+     */
+    long getLinksOverBudget();
+
+    /**
+     * @return the number of internal links that were not crawled because robots.txt disallows them
+     */
+    long getLinksDisallowed();
+
+    /**
+     * @return the number of URLs found in sitemaps that were queued
+     */
+    long getSitemapURLs();
+
+    /**
+     * @return the number of internal links that were not crawled because of --max-per-pattern
+     */
+    long getLinksTrapped();
+
+    /**
+     * @return the number of pages whose links were not followed because they were near-duplicates of others
+     */
+    long getNearDuplicatePages();
+
+    /**
+     * @return the number of checkpoints written, see --checkpoint-dir
+     */
+    long getCheckpoints();
+
+    long getCheckpointBytes();
+
+    double getCheckpointTimeP99Millis();
+
+    /**
+     * @return the time crawling threads spent in total recording what they did for the next checkpoint
+     */
+    double getCheckpointRecordingMillis();
+
+    /**
+     * @return the number of pages a resumed crawl took from its checkpoint rather than crawling them again
+     */
+    long getPagesRestored();
+
+    double getDuplicateLinkRate();
+
+    int getFrontierSize();
+
+    double getFetchLatencyMeanMillis();
+
+    double getFetchLatencyP50Millis();
+
+    double getFetchLatencyP99Millis();
+
+    double getParseTimeP50Millis();
+
+    double getParseTimeP99Millis();
+
+    /**
+     * @return the share of time pool workers spent crawling rather than waiting on the frontier
+     */
+    double getWorkerBusyRatio();
+
+    double getPagesPerSecond();
+
+    Map<String, Long> getStatusCodes();
+
+    /**
+     * @return the share of the time of each stage's threads spent working, for a pipelined crawl
+     */
+    Map<String, Double> getStageBusyRatios();
+
+    /**
+     * @return the number of items waiting for each stage, for a pipelined crawl
+     */
+    Map<String, Integer> getStageQueueSizes();
+}
@@ -0,0 +1,90 @@
+package com.williamheng.monzocrawler.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations that can be recorded into from many threads without locking, in the spirit of
+ * HdrHistogram.
+ *
+ * How it works:
+ *
+ * 1. Durations are recorded in microseconds into buckets whose width grows with their value: every power of two is
+ *    split into 16 equal buckets, so any value is known to within about 6%
+ * 2. Recording a value is one atomic increment of its bucket plus two striped adders, however many values there are
+ * 3. Percentiles are found by walking the buckets, which is only done when the histogram is read
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+    private static final int NUMBER_OF_BUCKETS = LINEAR_BUCKETS + (Long.SIZE - 2 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUMBER_OF_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    public void record(long durationNanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        buckets.incrementAndGet(bucket(micros));
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public double meanMillis() {
+        long count = count();
+        return count == 0 ? 0 : totalMicros.sum() / 1000d / count;
+    }
+
+    public double maxMillis() {
+        return maxMicros.get() / 1000d;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the duration that the given percentage of recorded durations did not exceed, to within the precision of
+     * the buckets
+     */
+    public double percentileMillis(double percentile) {
+        long count = count();
+        if (count == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        if (target >= count) return maxMillis();
+
+        long seen = 0;
+        for (int bucket = 0; bucket < NUMBER_OF_BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= target) return Math.min(value(bucket), maxMicros.get()) / 1000d;
+        }
+        return maxMillis();
+    }
+
+    static int bucket(long micros) {
+        if (micros < LINEAR_BUCKETS) return (int) micros;
+
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(micros) - 1 - SUB_BUCKET_BITS;
+        int subBucket = (int) (micros >>> shift) - SUB_BUCKETS;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the middle of the range of values in the bucket
+     */
+    static long value(int bucket) {
+        if (bucket < LINEAR_BUCKETS) return bucket;
+
+        int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((subBucket + SUB_BUCKETS) << shift) + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,41 @@
+package com.williamheng.monzocrawler.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs a progress line for a crawl at a fixed interval until closed.
+ */
+@Slf4j
+public class ProgressReporter implements Closeable {
+
+    private final ScheduledExecutorService scheduler;
+
+    private ProgressReporter(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * @param intervalSeconds how often to log progress, or 0 to never log it
+     */
+    public static ProgressReporter start(CrawlMetrics metrics, int intervalSeconds) {
+        if (intervalSeconds <= 0) return new ProgressReporter(null);
+
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> log.info(metrics.progressLine()), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        return new ProgressReporter(scheduler);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+}
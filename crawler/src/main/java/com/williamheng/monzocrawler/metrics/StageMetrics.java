@@ -0,0 +1,81 @@
+package com.williamheng.monzocrawler.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * What one stage of a pipelined crawl is doing: how many items wait for it, and how its threads spend their time.
+ *
+ * The time of a stage's threads goes on working, on waiting for work, or on waiting for room in the queue of the next
+ * stage. A stage that is always busy is the bottleneck, and one that is often blocked is being held back by the stage
+ * after it.
+ */
+public class StageMetrics {
+
+    private final String name;
+    private final int threads;
+    private final IntSupplier queueSize;
+    private final long startNanos = System.nanoTime();
+
+    private final LongAdder items = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+
+    StageMetrics(String name, int threads, IntSupplier queueSize) {
+        this.name = name;
+        this.threads = threads;
+        this.queueSize = queueSize;
+    }
+
+    public void processed(int numberOfItems, long durationNanos) {
+        items.add(numberOfItems);
+        busyNanos.add(durationNanos);
+    }
+
+    /**
+     * Records time spent waiting for room in the next stage's queue.
+     */
+    public void blocked(long durationNanos) {
+        blockedNanos.add(durationNanos);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * @return the number of items waiting for this stage
+     */
+    public int getQueueSize() {
+        return queueSize.getAsInt();
+    }
+
+    public long getItems() {
+        return items.sum();
+    }
+
+    /**
+     * @param endNanos when to measure up to, i.e. now or the end of the crawl
+     * @return the share of the time of this stage's threads spent working
+     */
+    public double busyRatio(long endNanos) {
+        return ratio(busyNanos.sum(), endNanos);
+    }
+
+    /**
+     * @param endNanos when to measure up to, i.e. now or the end of the crawl
+     * @return the share of the time of this stage's threads spent waiting for the next stage
+     */
+    public double blockedRatio(long endNanos) {
+        return ratio(blockedNanos.sum(), endNanos);
+    }
+
+    private double ratio(long nanos, long endNanos) {
+        long available = (endNanos - startNanos) * threads;
+        return available <= 0 ? 0 : Math.min(1, (double) nanos / available);
+    }
+}
@@ -0,0 +1,275 @@
+package com.williamheng.monzocrawler.model;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Locale;
+
+/**
+ * An immutable, normalised URL that is safe to use as a hash key.
+ *
+ * Unlike {@link URL#equals(Object)} and {@link URL#hashCode()}, which resolve host names over the network, equality
+ * here is a plain string comparison on the normalised form and the hash is computed once up front.
+ *
+ * Normalisation:
+ * 1. Scheme and host are lower-cased
+ * 2. Default ports (e.g. 80 for http) are dropped
+ * 3. Dot-segments in the path are resolved and an empty hierarchical path becomes "/"
+ * 4. Percent-encodings are upper-cased, unreserved characters are decoded, and characters a URI cannot hold, e.g.
+ *    spaces, are percent-encoded as UTF-8, so that every canonical URL is also a valid {@link URI}
+ * 5. Query parameters are sorted and the fragment is dropped
+ */
+@Getter
+public final class CanonicalUrl {
+
+    private final String scheme;
+    private final String host;
+    private final int port;
+    private final String path;
+    private final String query;
+
+    @Getter(AccessLevel.NONE)
+    private final String value;
+
+    @Getter(AccessLevel.NONE)
+    private final int hash;
+
+    private CanonicalUrl(String scheme, String host, int port, String path, String query, boolean hasAuthority) {
+        this.scheme = scheme;
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.query = query;
+
+        StringBuilder builder = new StringBuilder(scheme).append(':');
+        if (hasAuthority) {
+            builder.append("//").append(host);
+            if (port != -1) builder.append(':').append(port);
+        }
+        builder.append(path);
+        if (query != null) builder.append('?').append(query);
+
+        this.value = builder.toString();
+        this.hash = value.hashCode();
+    }
+
+    public static CanonicalUrl of(URL url) {
+        String scheme = url.getProtocol().toLowerCase(Locale.ROOT);
+        String host = url.getHost().toLowerCase(Locale.ROOT);
+        boolean hasAuthority = url.getAuthority() != null;
+
+        int port = url.getPort();
+        if (port == url.getDefaultPort()) port = -1;
+
+        String path = normalisePercentEncoding(url.getPath());
+        if (path.startsWith("/")) path = removeDotSegments(path);
+        if (path.isEmpty() && hasAuthority) path = "/";
+
+        return new CanonicalUrl(scheme, host, port, path, normaliseQuery(url.getQuery()), hasAuthority);
+    }
+
+    public static CanonicalUrl parse(String url) throws MalformedURLException {
+        return of(parseURL(url));
+    }
+
+    /**
+     * Parses an absolute URL as a {@link URI}, which is stricter than the deprecated {@link URL} constructors.
+     *
+     * @throws MalformedURLException if it is not a valid absolute URL
+     */
+    public static URL parseURL(String url) throws MalformedURLException {
+        try {
+            return new URI(url).toURL();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            MalformedURLException malformed = new MalformedURLException(String.format("Invalid URL %s", url));
+            malformed.initCause(e);
+            throw malformed;
+        }
+    }
+
+    /**
+     * Resolves a link to another page of the same site against this URL, e.g. /about, ../about or ?page=2, giving the
+     * same result as {@code CanonicalUrl.of(new URL(toURL(), reference))} without parsing this URL again.
+     *
+     * @return the resolved URL, or null if the reference has a scheme or host of its own, or this URL has no host to
+     * resolve against, in which case it is left to {@link URL}
+     */
+    public CanonicalUrl resolveRelative(String reference) {
+        // As with URL, surrounding whitespace and control characters are not part of the reference
+        String spec = reference.trim();
+        boolean hasAuthority = value.startsWith("//", scheme.length() + 1);
+        if (!hasAuthority || spec.startsWith("//") || hasScheme(spec)) return null;
+
+        int fragmentStart = spec.indexOf('#');
+        if (fragmentStart >= 0) spec = spec.substring(0, fragmentStart);
+        if (spec.isEmpty()) return this;
+
+        int queryStart = spec.indexOf('?');
+        String referencePath = queryStart < 0 ? spec : spec.substring(0, queryStart);
+        String referenceQuery = queryStart < 0 ? null : spec.substring(queryStart + 1);
+
+        // An absolute path replaces this path, and anything else replaces its last segment, including a reference of
+        // only a query, since URL follows RFC 2396 rather than RFC 3986 there
+        String resolvedPath = referencePath.startsWith("/")
+                ? normalisePercentEncoding(referencePath)
+                : path.substring(0, path.lastIndexOf('/') + 1) + normalisePercentEncoding(referencePath);
+
+        return new CanonicalUrl(scheme, host, port, removeDotSegments(resolvedPath), normaliseQuery(referenceQuery), true);
+    }
+
+    /**
+     * @return the path and query of this URL, e.g. /some/path?a=1
+     */
+    public String getFile() {
+        return query == null ? path : path + '?' + query;
+    }
+
+    public URL toURL() {
+        try {
+            return URI.create(value).toURL();
+        } catch (MalformedURLException e) {
+            // The value was built from a valid URL so this cannot happen
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        CanonicalUrl that = (CanonicalUrl) o;
+
+        return hash == that.hash && value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+
+    /**
+     * @return true if the reference starts with a scheme, i.e. letters, digits, "+", "-" or "." followed by a colon
+     */
+    private static boolean hasScheme(String reference) {
+        for (int i = 0; i < reference.length(); i++) {
+            char c = reference.charAt(i);
+            if (c == ':') return i > 0;
+            boolean isSchemeChar = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+                    || (i > 0 && ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'));
+            if (!isSchemeChar) return false;
+        }
+        return false;
+    }
+
+    private static String normaliseQuery(String query) {
+        if (query == null || query.isEmpty()) return null;
+
+        String[] parameters = normalisePercentEncoding(query).split("&");
+        Arrays.sort(parameters);
+
+        StringBuilder builder = new StringBuilder(query.length());
+        for (String parameter : parameters) {
+            if (parameter.isEmpty()) continue;
+            if (builder.length() > 0) builder.append('&');
+            builder.append(parameter);
+        }
+        return builder.length() == 0 ? null : builder.toString();
+    }
+
+    /**
+     * Resolves "." and ".." segments as described in RFC 3986 section 5.2.4.
+     */
+    private static String removeDotSegments(String path) {
+        if (!path.contains("/.")) return path;
+
+        Deque<String> segments = new ArrayDeque<>();
+        String[] parts = path.substring(1).split("/", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            boolean isLast = i == parts.length - 1;
+
+            if (part.equals(".")) {
+                if (isLast) segments.addLast("");
+            } else if (part.equals("..")) {
+                segments.pollLast();
+                if (isLast) segments.addLast("");
+            } else {
+                segments.addLast(part);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder(path.length());
+        for (String segment : segments) builder.append('/').append(segment);
+        return builder.length() == 0 ? "/" : builder.toString();
+    }
+
+    private static String normalisePercentEncoding(String component) {
+        if (!needsNormalising(component)) return component;
+
+        StringBuilder builder = new StringBuilder(component.length());
+        int i = 0;
+        while (i < component.length()) {
+            char c = component.charAt(i);
+            if (c == '%' && i + 2 < component.length() && isHex(component.charAt(i + 1)) && isHex(component.charAt(i + 2))) {
+                char decoded = (char) Integer.parseInt(component.substring(i + 1, i + 3), 16);
+                if (isUnreserved(decoded)) {
+                    builder.append(decoded);
+                } else {
+                    builder.append('%')
+                            .append(Character.toUpperCase(component.charAt(i + 1)))
+                            .append(Character.toUpperCase(component.charAt(i + 2)));
+                }
+                i += 3;
+            } else if (c != '%' && isAllowed(c)) {
+                builder.append(c);
+                i++;
+            } else {
+                int codePoint = component.codePointAt(i);
+                for (byte b : new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8)) {
+                    builder.append('%').append(Character.toUpperCase(Character.forDigit((b >> 4) & 0xF, 16)))
+                            .append(Character.toUpperCase(Character.forDigit(b & 0xF, 16)));
+                }
+                i += Character.charCount(codePoint);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static boolean needsNormalising(String component) {
+        for (int i = 0; i < component.length(); i++) {
+            char c = component.charAt(i);
+            if (c == '%' || !isAllowed(c)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the character may appear as it is in the path or query of a URI
+     */
+    private static boolean isAllowed(char c) {
+        return isUnreserved(c) || "!$&'()*+,;=:@/?".indexOf(c) >= 0;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+}
@@ -0,0 +1,95 @@
+package com.williamheng.monzocrawler.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An immutable adjacency structure in compressed sparse row form: the targets of every vertex sit next to each other,
+ * sorted, in one int array, and the targets of vertex i are those between offsets[i] and offsets[i + 1].
+ *
+ * Only ids marked as vertices are pages that have been crawled; every other id is only ever the target of an edge.
+ */
+class CompactAdjacency {
+
+    static final CompactAdjacency EMPTY = new CompactAdjacency(new int[1], new int[0], new BitSet());
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final BitSet vertices;
+    private final int numberOfVertices;
+
+    private CompactAdjacency(int[] offsets, int[] targets, BitSet vertices) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.vertices = vertices;
+        this.numberOfVertices = vertices.cardinality();
+    }
+
+    boolean isVertex(int id) {
+        return id >= 0 && vertices.get(id);
+    }
+
+    /**
+     * @return the next vertex id from the given one onwards, or -1 if there is none
+     */
+    int nextVertex(int fromId) {
+        return vertices.nextSetBit(fromId);
+    }
+
+    int numberOfVertices() {
+        return numberOfVertices;
+    }
+
+    int numberOfEdges() {
+        return targets.length;
+    }
+
+    int degree(int id) {
+        return id + 1 < offsets.length ? offsets[id + 1] - offsets[id] : 0;
+    }
+
+    int target(int id, int index) {
+        return targets[offsets[id] + index];
+    }
+
+    boolean hasEdge(int source, int target) {
+        if (source + 1 >= offsets.length) return false;
+        return Arrays.binarySearch(targets, offsets[source], offsets[source + 1], target) >= 0;
+    }
+
+    /**
+     * Builds a new structure holding everything in this one plus every record in the log. A vertex that appears again
+     * in the log has its targets replaced by the last record for it.
+     *
+     * @param numberOfIds the number of ids that have been handed out, which bounds every id in the log
+     */
+    CompactAdjacency merge(EdgeLog log, int numberOfIds) {
+        long[] latestRecords = new long[numberOfIds];
+        Arrays.fill(latestRecords, -1);
+        BitSet mergedVertices = (BitSet) vertices.clone();
+
+        log.forEachRecord((source, targetsPosition, numberOfTargets) -> {
+            latestRecords[source] = targetsPosition;
+            mergedVertices.set(source);
+        });
+
+        int[] mergedOffsets = new int[numberOfIds + 1];
+        for (int id = 0; id < numberOfIds; id++) {
+            int degree = latestRecords[id] >= 0 ? log.get(latestRecords[id] - 1) : degree(id);
+            mergedOffsets[id + 1] = Math.addExact(mergedOffsets[id], degree);
+        }
+
+        int[] mergedTargets = new int[mergedOffsets[numberOfIds]];
+        for (int id = 0; id < numberOfIds; id++) {
+            int offset = mergedOffsets[id];
+            int degree = mergedOffsets[id + 1] - offset;
+            if (latestRecords[id] >= 0) {
+                for (int i = 0; i < degree; i++) mergedTargets[offset + i] = log.get(latestRecords[id] + i);
+            } else if (degree > 0) {
+                System.arraycopy(targets, offsets[id], mergedTargets, offset, degree);
+            }
+        }
+
+        return new CompactAdjacency(mergedOffsets, mergedTargets, mergedVertices);
+    }
+}
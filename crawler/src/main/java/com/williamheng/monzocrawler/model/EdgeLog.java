@@ -0,0 +1,62 @@
+package com.williamheng.monzocrawler.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An append-only stream of adjacency records kept in fixed-size int chunks.
+ *
+ * Each record is [source id, number of targets, target ids...]. Writers reserve space with a single atomic add and then
+ * fill it in without any further coordination, so appends from many threads never block each other. Records may only
+ * be read once every append has finished.
+ */
+class EdgeLog {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << 15;
+
+    interface RecordVisitor {
+        void visit(int source, long targetsPosition, int numberOfTargets);
+    }
+
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicReferenceArray<int[]> chunks = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    void append(int source, int[] targets) {
+        long position = cursor.getAndAdd(2 + targets.length);
+        put(position, source);
+        put(position + 1, targets.length);
+        for (int i = 0; i < targets.length; i++) put(position + 2 + i, targets[i]);
+    }
+
+    boolean isEmpty() {
+        return cursor.get() == 0;
+    }
+
+    void forEachRecord(RecordVisitor visitor) {
+        long end = cursor.get();
+        long position = 0;
+        while (position < end) {
+            int numberOfTargets = get(position + 1);
+            visitor.visit(get(position), position + 2, numberOfTargets);
+            position += 2 + numberOfTargets;
+        }
+    }
+
+    int get(long position) {
+        return chunks.get((int) (position >>> CHUNK_BITS))[(int) position & (CHUNK_SIZE - 1)];
+    }
+
+    private void put(long position, int value) {
+        int index = (int) (position >>> CHUNK_BITS);
+        if (index >= MAX_CHUNKS) throw new IllegalStateException("Too many edges to compact at once");
+
+        int[] chunk = chunks.get(index);
+        if (chunk == null) {
+            chunks.compareAndSet(index, null, new int[CHUNK_SIZE]);
+            chunk = chunks.get(index);
+        }
+        chunk[(int) position & (CHUNK_SIZE - 1)] = value;
+    }
+}
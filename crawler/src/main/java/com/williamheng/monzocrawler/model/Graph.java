@@ -0,0 +1,251 @@
+package com.williamheng.monzocrawler.model;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The link graph of a crawl.
+ *
+ * How it works:
+ *
+ * 1. Every vertex and link id (a path for an internal page, an absolute URL for an external one) is interned once in
+ *    a {@link UrlDictionary}, and edges only ever refer to the int ids
+ * 2. While the crawl runs, each crawled page appends its sorted, distinct targets to an {@link EdgeLog} of int chunks,
+ *    which many threads can do at once
+ * 3. {@link #compact()} folds the log into a {@link CompactAdjacency}, which costs 4 bytes per edge, and starts a new log
+ *
+ * Links that have been checked, e.g. external links with {@code --check-links}, carry the HTTP status they answered
+ * with. The status belongs to the target, so every edge pointing at the same URL shares it.
+ *
+ * {@link #getVertices()} is a read-only view over the compacted graph, so reading it is the usual way to finish with
+ * a graph. Exporters that stream a large graph instead walk the ids directly with {@link #numberOfIds()},
+ * {@link #degree(int)} and {@link #target(int, int)}, which read the graph as of the last compaction.
+ */
+public class Graph {
+
+    // The status of a link that has not been checked
+    public static final int UNCHECKED = 0;
+
+    // The status of a link whose server could not be reached at all
+    public static final int UNREACHABLE = -1;
+
+    private final UrlDictionary dictionary = new UrlDictionary();
+    private final LinkStatuses linkStatuses = new LinkStatuses();
+
+    // Appends share the read lock with each other; compaction takes the write lock to see a log nobody is writing to
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private EdgeLog edgeLog = new EdgeLog();
+    private volatile CompactAdjacency adjacency = CompactAdjacency.EMPTY;
+
+    public void addVertex(Resource resource, List<String> links) {
+        addVertex(resource.getUrl().getFile(), links);
+    }
+
+    /**
+     * Adds a vertex by its id, e.g. one crawled by another node of a cluster.
+     */
+    public void addVertex(String id, List<String> links) {
+        int source = dictionary.intern(id);
+        int[] targets = links.stream()
+                .mapToInt(dictionary::intern)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        lock.readLock().lock();
+        try {
+            edgeLog.append(source, targets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records the HTTP status, or {@link #UNREACHABLE}, that a link answered with when it was checked.
+     */
+    public void setLinkStatus(String url, int status) {
+        linkStatuses.set(dictionary.intern(url), status);
+    }
+
+    /**
+     * @return the status the link answered with, or {@link #UNCHECKED} if it has not been checked
+     */
+    public int linkStatus(int id) {
+        return linkStatuses.get(id);
+    }
+
+    /**
+     * @return the status the link answered with, or {@link #UNCHECKED} if it has not been checked
+     */
+    public int linkStatus(String url) {
+        return linkStatuses.get(dictionary.lookup(url));
+    }
+
+    /**
+     * Folds every vertex added since the last compaction into the compact adjacency structure.
+     */
+    public void compact() {
+        compacted();
+    }
+
+    /**
+     * @return a read-only view of the crawled vertices, keyed by their id
+     */
+    public Map<String, Vertex> getVertices() {
+        return new VertexMap(compacted());
+    }
+
+    /**
+     * @return the number of ids in the graph, i.e. every crawled page and every page or external URL linked to
+     */
+    public int numberOfIds() {
+        return dictionary.size();
+    }
+
+    /**
+     * @return the path of an internal page or the absolute URL of an external one
+     */
+    public String id(int id) {
+        return dictionary.url(id);
+    }
+
+    /**
+     * @return true if the id is a page that has been crawled rather than only linked to
+     */
+    public boolean isVertex(int id) {
+        return adjacency.isVertex(id);
+    }
+
+    /**
+     * @return the number of distinct ids the page links to
+     */
+    public int degree(int id) {
+        return adjacency.degree(id);
+    }
+
+    /**
+     * @return the id of the index-th link of the page, in ascending order of id
+     */
+    public int target(int id, int index) {
+        return adjacency.target(id, index);
+    }
+
+    private CompactAdjacency compacted() {
+        lock.writeLock().lock();
+        try {
+            if (!edgeLog.isEmpty()) {
+                adjacency = adjacency.merge(edgeLog, dictionary.size());
+                edgeLog = new EdgeLog();
+            }
+            return adjacency;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private class VertexMap extends AbstractMap<String, Vertex> {
+
+        private final CompactAdjacency adjacency;
+
+        private VertexMap(CompactAdjacency adjacency) {
+            this.adjacency = adjacency;
+        }
+
+        @Override
+        public Vertex get(Object key) {
+            if (!(key instanceof String)) return null;
+            int id = dictionary.lookup((String) key);
+            return adjacency.isVertex(id) ? vertex(id) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return adjacency.numberOfVertices();
+        }
+
+        @Override
+        public Set<Entry<String, Vertex>> entrySet() {
+            return new AbstractSet<Entry<String, Vertex>>() {
+                @Override
+                public Iterator<Entry<String, Vertex>> iterator() {
+                    return new Iterator<Entry<String, Vertex>>() {
+                        private int next = adjacency.nextVertex(0);
+
+                        @Override
+                        public boolean hasNext() {
+                            return next >= 0;
+                        }
+
+                        @Override
+                        public Entry<String, Vertex> next() {
+                            if (next < 0) throw new NoSuchElementException();
+                            Vertex vertex = vertex(next);
+                            next = adjacency.nextVertex(next + 1);
+                            return new SimpleImmutableEntry<>(vertex.getId(), vertex);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return adjacency.numberOfVertices();
+                }
+            };
+        }
+
+        private Vertex vertex(int id) {
+            return new Vertex(dictionary.url(id), new AdjacentSet(adjacency, id));
+        }
+    }
+
+    private class AdjacentSet extends AbstractSet<String> {
+
+        private final CompactAdjacency adjacency;
+        private final int source;
+
+        private AdjacentSet(CompactAdjacency adjacency, int source) {
+            this.adjacency = adjacency;
+            this.source = source;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && adjacency.hasEdge(source, dictionary.lookup((String) o));
+        }
+
+        @Override
+        public int size() {
+            return adjacency.degree(source);
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < size();
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return dictionary.url(adjacency.target(source, index++));
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.williamheng.monzocrawler.model;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The HTTP status of each checked link, kept in int arrays indexed by the link's id in a {@link UrlDictionary}.
+ *
+ * Chunks are only allocated for ranges of ids that have a status, so a graph with no checked links costs nothing.
+ */
+class LinkStatuses {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << (Integer.SIZE - 1 - CHUNK_BITS);
+
+    private final AtomicReferenceArray<AtomicIntegerArray> statuses = new AtomicReferenceArray<>(MAX_CHUNKS);
+
+    void set(int id, int status) {
+        chunk(id >>> CHUNK_BITS).set(id & (CHUNK_SIZE - 1), status);
+    }
+
+    /**
+     * @return the status of the link, or {@link Graph#UNCHECKED} if it has none
+     */
+    int get(int id) {
+        if (id < 0) return Graph.UNCHECKED;
+
+        AtomicIntegerArray chunk = statuses.get(id >>> CHUNK_BITS);
+        return chunk == null ? Graph.UNCHECKED : chunk.get(id & (CHUNK_SIZE - 1));
+    }
+
+    private AtomicIntegerArray chunk(int index) {
+        AtomicIntegerArray chunk = statuses.get(index);
+        if (chunk == null) {
+            statuses.compareAndSet(index, null, new AtomicIntegerArray(CHUNK_SIZE));
+            chunk = statuses.get(index);
+        }
+        return chunk;
+    }
+}
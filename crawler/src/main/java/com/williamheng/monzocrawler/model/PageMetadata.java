@@ -0,0 +1,29 @@
+package com.williamheng.monzocrawler.model;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * What was learnt about a page the last time it was fetched: the validators to revalidate it with and the links
+ * found on it.
+ */
+@Value
+@Builder
+public class PageMetadata {
+
+    @NonNull
+    private final CanonicalUrl url;
+
+    // Either can be null if the server did not send it
+    private final String etag;
+    private final String lastModified;
+
+    // A checksum of the body, to tell whether the page changed when the server sends no validators
+    private final long contentHash;
+
+    @NonNull
+    private final List<String> links;
+}
@@ -0,0 +1,55 @@
+package com.williamheng.monzocrawler.model;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.net.URL;
+
+@Getter
+public class Resource {
+
+    @NonNull
+    private final CanonicalUrl url;
+
+    @NonNull
+    private final String title;
+
+    // How many links away from the root the resource was found, which is not part of its identity
+    private final int depth;
+
+    public Resource(@NonNull CanonicalUrl url, @NonNull String title, int depth) {
+        this.url = url;
+        this.title = title;
+        this.depth = depth;
+    }
+
+    public Resource(@NonNull CanonicalUrl url, @NonNull String title) {
+        this(url, title, 0);
+    }
+
+    public Resource(@NonNull URL url, @NonNull String title) {
+        this(CanonicalUrl.of(url), title);
+    }
+
+    /**
+     * @return the same resource, found the given number of links away from the root
+     */
+    public Resource atDepth(int depth) {
+        return depth == this.depth ? this : new Resource(url, title, depth);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Resource resource = (Resource) o;
+
+        return url.equals(resource.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return url.hashCode();
+    }
+}
@@ -0,0 +1,61 @@
+package com.williamheng.monzocrawler.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Assigns every distinct URL a small, dense int id, so that the rest of a graph can be stored as primitive arrays.
+ *
+ * Ids are handed out in order from 0 and never reused. Looking up the URL for an id is an array access.
+ */
+public class UrlDictionary {
+
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int MAX_CHUNKS = 1 << (Integer.SIZE - 1 - CHUNK_BITS);
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String[]> urls = new AtomicReferenceArray<>(MAX_CHUNKS);
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    /**
+     * @return the id of the URL, assigning it a new one if it has not been seen before
+     */
+    public int intern(String url) {
+        Integer id = ids.get(url);
+        if (id != null) return id;
+
+        return ids.computeIfAbsent(url, u -> {
+            int newId = nextId.getAndIncrement();
+            chunk(newId >>> CHUNK_BITS)[newId & (CHUNK_SIZE - 1)] = u;
+            return newId;
+        });
+    }
+
+    /**
+     * @return the id of the URL, or -1 if it has never been interned
+     */
+    public int lookup(String url) {
+        Integer id = ids.get(url);
+        return id == null ? -1 : id;
+    }
+
+    public String url(int id) {
+        return urls.get(id >>> CHUNK_BITS)[id & (CHUNK_SIZE - 1)];
+    }
+
+    public int size() {
+        return nextId.get();
+    }
+
+    private String[] chunk(int index) {
+        String[] chunk = urls.get(index);
+        if (chunk == null) {
+            urls.compareAndSet(index, null, new String[CHUNK_SIZE]);
+            chunk = urls.get(index);
+        }
+        return chunk;
+    }
+}
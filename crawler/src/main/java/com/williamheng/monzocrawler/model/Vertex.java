@@ -0,0 +1,16 @@
+package com.williamheng.monzocrawler.model;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * A crawled page and the ids of the pages it links to, as seen through {@link Graph#getVertices()}.
+ */
+@Value
+public class Vertex {
+
+    private final String id;
+
+    private final Set<String> adjacentVertices;
+}
@@ -0,0 +1,182 @@
+package com.williamheng.monzocrawler.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * A memory-mapped, open-addressing hash table from 64-bit fingerprints to 64-bit values. Not thread safe.
+ *
+ * Only the fingerprint of a key is stored, so different keys can collide. Callers store where the full key can be
+ * found (e.g. an offset into a {@link RecordLog}) as the value, and confirm matches with a predicate over it.
+ *
+ * Layout: a 16 byte header holding the number of entries, followed by slots of a fingerprint and a value. Slots are
+ * empty when their value is 0, so values are stored plus one. The table doubles in size once it is half full, which
+ * rewrites it into a new file that then replaces the old one.
+ */
+public class MappedHashIndex implements Closeable {
+
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 16;
+    private static final int MAX_CAPACITY = Integer.highestOneBit((Integer.MAX_VALUE - HEADER_BYTES) / SLOT_BYTES);
+
+    private final Path path;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int size;
+
+    /**
+     * Opens the index at the given path, creating it with the given capacity if it does not exist yet.
+     */
+    public MappedHashIndex(Path path, int initialCapacity) throws IOException {
+        this.path = path;
+
+        boolean exists = Files.exists(path) && Files.size(path) > HEADER_BYTES;
+        int capacity = 16;
+        if (exists) {
+            capacity = (int) ((Files.size(path) - HEADER_BYTES) / SLOT_BYTES);
+        } else {
+            while (capacity < initialCapacity && capacity < MAX_CAPACITY) capacity <<= 1;
+        }
+        map(path, capacity);
+
+        this.size = (int) buffer.getLong(0);
+    }
+
+    /**
+     * @return a 64-bit FNV-1a hash of the bytes, suitable as a fingerprint for this index
+     */
+    public static long fingerprint(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the value stored under the fingerprint that the predicate accepts, or -1 if there is none
+     */
+    public long get(long fingerprint, LongPredicate matches) {
+        long key = key(fingerprint);
+        for (int slot = slot(key, capacity); ; slot = (slot + 1) & (capacity - 1)) {
+            long stored = buffer.getLong(valuePosition(slot));
+            if (stored == 0) return -1;
+
+            long value = stored - 1;
+            if (buffer.getLong(keyPosition(slot)) == key && matches.test(value)) return value;
+        }
+    }
+
+    /**
+     * Stores the value under the fingerprint unless the predicate accepts a value already stored under it.
+     *
+     * @return true if the value was stored
+     */
+    public boolean putIfAbsent(long fingerprint, long value, LongPredicate matches) throws IOException {
+        if (get(fingerprint, matches) >= 0) return false;
+
+        if ((size + 1) * 2L > capacity) grow();
+        insert(buffer, capacity, key(fingerprint), value + 1);
+        size++;
+        buffer.putLong(0, size);
+        return true;
+    }
+
+    /**
+     * Stores the value under the fingerprint, replacing the value the predicate accepts if there is one.
+     */
+    public void put(long fingerprint, long value, LongPredicate matches) throws IOException {
+        long key = key(fingerprint);
+        for (int slot = slot(key, capacity); ; slot = (slot + 1) & (capacity - 1)) {
+            long stored = buffer.getLong(valuePosition(slot));
+            if (stored == 0) break;
+
+            if (buffer.getLong(keyPosition(slot)) == key && matches.test(stored - 1)) {
+                buffer.putLong(valuePosition(slot), value + 1);
+                return;
+            }
+        }
+
+        if ((size + 1) * 2L > capacity) grow();
+        insert(buffer, capacity, key, value + 1);
+        size++;
+        buffer.putLong(0, size);
+    }
+
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    private void grow() throws IOException {
+        if (capacity >= MAX_CAPACITY) throw new IllegalStateException(String.format("Index %s is full", path));
+
+        int newCapacity = capacity * 2;
+        Path newPath = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.deleteIfExists(newPath);
+
+        try (FileChannel newChannel = FileChannel.open(newPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer newBuffer = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) newCapacity * SLOT_BYTES);
+            for (int slot = 0; slot < capacity; slot++) {
+                long stored = buffer.getLong(valuePosition(slot));
+                if (stored != 0) insert(newBuffer, newCapacity, buffer.getLong(keyPosition(slot)), stored);
+            }
+            newBuffer.putLong(0, size);
+            newBuffer.force();
+        }
+
+        channel.close();
+        Files.move(newPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map(path, newCapacity);
+    }
+
+    private void map(Path path, int capacity) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) capacity * SLOT_BYTES);
+        this.capacity = capacity;
+    }
+
+    private static void insert(MappedByteBuffer buffer, int capacity, long key, long stored) {
+        int slot = slot(key, capacity);
+        while (buffer.getLong(valuePosition(slot)) != 0) slot = (slot + 1) & (capacity - 1);
+
+        buffer.putLong(keyPosition(slot), key);
+        buffer.putLong(valuePosition(slot), stored);
+    }
+
+    private static long key(long fingerprint) {
+        // Spread the bits so that fingerprints that only differ in their high bits do not share slots
+        long key = fingerprint * 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 32);
+    }
+
+    private static int slot(long key, int capacity) {
+        return (int) key & (capacity - 1);
+    }
+
+    private static int keyPosition(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static int valuePosition(int slot) {
+        return keyPosition(slot) + Long.BYTES;
+    }
+}
@@ -0,0 +1,105 @@
+package com.williamheng.monzocrawler.store;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * An append-only file of length-prefixed records, addressed by the offset at which each record starts.
+ *
+ * Reads are positional, so they can safely happen at the same time as each other. Appends must be serialised by the
+ * caller, who also keeps track of where the log ends.
+ */
+public class RecordLog implements Closeable {
+
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final FileChannel channel;
+
+    public RecordLog(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Writes a record at the given offset, which should be the end of the log.
+     *
+     * @return the offset just after the record, where the next one should be written
+     */
+    public long append(long offset, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_BYTES + record.length);
+        buffer.putInt(record.length).put(record).flip();
+
+        return write(buffer, offset);
+    }
+
+    /**
+     * Writes several records at the given offset, which should be the end of the log, with a single write.
+     *
+     * @return the offset just after the last record, where the next one should be written
+     */
+    public long append(long offset, List<byte[]> records) throws IOException {
+        int length = 0;
+        for (byte[] record : records) length += LENGTH_BYTES + record.length;
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] record : records) buffer.putInt(record.length).put(record);
+        buffer.flip();
+        return write(buffer, offset);
+    }
+
+    public byte[] read(long offset) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(LENGTH_BYTES);
+        readFully(length, offset);
+
+        ByteBuffer record = ByteBuffer.allocate(length.getInt(0));
+        readFully(record, offset + LENGTH_BYTES);
+        return record.array();
+    }
+
+    /**
+     * @return the offset of the record after the one starting at the given offset
+     */
+    public static long next(long offset, byte[] record) {
+        return offset + LENGTH_BYTES + record.length;
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Discards everything after the given offset, e.g. a record that was only partly written before a crash.
+     */
+    public void truncate(long offset) throws IOException {
+        if (channel.size() > offset) channel.truncate(offset);
+    }
+
+    public void force() throws IOException {
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long write(ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) position += channel.write(buffer, position);
+        return position;
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) throw new EOFException(String.format("Record at offset %d is incomplete", offset));
+            position += read;
+        }
+    }
+}
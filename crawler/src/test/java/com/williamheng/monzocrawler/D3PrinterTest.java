@@ -0,0 +1,49 @@
+package com.williamheng.monzocrawler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class D3PrinterTest {
+
+    @Test
+    public void writesGraphIntoTemplate() throws Exception {
+        // Given a crawled graph
+        Graph graph = new Graph();
+        graph.addVertex(new Resource(new URL("http://localhost:8080/"), "/"), Arrays.asList("/page2", "http://google.com/"));
+        graph.addVertex(new Resource(new URL("http://localhost:8080/page2"), "/page2"), Collections.singletonList("/"));
+
+        // When it is printed
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        D3Printer.printGraph(graph, "<script>var graph = {graph_json};</script>", outputStream);
+
+        // Then the template surrounds the graph JSON
+        String output = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        assertThat(output.startsWith("<script>var graph = {\"nodes\":"), is(true));
+        assertThat(output.endsWith("};</script>"), is(true));
+
+        // And every node and link is in the JSON
+        JsonNode graphJSON = new ObjectMapper().readTree(output.substring("<script>var graph = ".length(), output.length() - ";</script>".length()));
+
+        Set<String> nodes = new HashSet<>();
+        graphJSON.get("nodes").forEach(node -> nodes.add(node.get("id").asText()));
+        assertThat(nodes, is(new HashSet<>(Arrays.asList("/", "/page2", "http://google.com/"))));
+
+        Set<String> links = new HashSet<>();
+        graphJSON.get("links").forEach(link -> links.add(link.get("source").asText() + " -> " + link.get("target").asText()));
+        assertThat(links, is(new HashSet<>(Arrays.asList("/ -> /page2", "/ -> http://google.com/", "/page2 -> /"))));
+    }
+}
@@ -0,0 +1,128 @@
+package com.williamheng.monzocrawler;
+
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class GraphExporterTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Graph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        graph = new Graph();
+        graph.addVertex(resource("/"), Arrays.asList("/page2", "/page3", "http://google.com/"));
+        graph.addVertex(resource("/page2"), Collections.singletonList("/"));
+    }
+
+    @Test
+    public void exportsOneLinkPerLineAsNdjson() throws Exception {
+        // When the graph is exported as NDJSON
+        String output = export(new NdjsonGraphExporter());
+
+        // Then every link is on its own line
+        Set<String> lines = new HashSet<>(Arrays.asList(output.split("\n")));
+        assertThat(lines, is(new HashSet<>(Arrays.asList(
+                "{\"source\":\"/\",\"target\":\"/page2\"}",
+                "{\"source\":\"/\",\"target\":\"/page3\"}",
+                "{\"source\":\"/\",\"target\":\"http://google.com/\"}",
+                "{\"source\":\"/page2\",\"target\":\"/\"}"
+        ))));
+    }
+
+    @Test
+    public void exportsTheStatusOfCheckedLinks() throws Exception {
+        // Given an external link that was checked and found to be gone
+        graph.setLinkStatus("http://google.com/", 404);
+
+        // When the graph is exported as NDJSON and GraphML
+        String ndjson = export(new NdjsonGraphExporter());
+        String graphML = export(new GraphMLExporter());
+
+        // Then only the edge to the checked link carries a status
+        assertThat(Arrays.asList(ndjson.split("\n")).contains("{\"source\":\"/\",\"target\":\"http://google.com/\",\"status\":404}"), is(true));
+        assertThat(ndjson.split("status").length, is(2));
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(graphML.getBytes(StandardCharsets.UTF_8)));
+        assertThat(document.getElementsByTagName("edge").getLength(), is(4));
+        assertThat(document.getElementsByTagName("data").getLength(), is(9));
+    }
+
+    @Test
+    public void exportsGraphML() throws Exception {
+        // When the graph is exported as GraphML
+        String output = export(new GraphMLExporter());
+
+        // Then it is a GraphML document with every node and link
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(output.getBytes(StandardCharsets.UTF_8)));
+        assertThat(document.getDocumentElement().getTagName(), is("graphml"));
+        assertThat(document.getElementsByTagName("node").getLength(), is(4));
+        assertThat(document.getElementsByTagName("edge").getLength(), is(4));
+    }
+
+    @Test
+    public void loadsBinaryExportBack() throws Exception {
+        // Given the graph exported in the binary format
+        Path file = temporaryFolder.getRoot().toPath().resolve("output.bin");
+        new BinaryGraphExporter().export(graph, Files.newOutputStream(file));
+
+        // When it is loaded back
+        BinaryGraph binaryGraph = BinaryGraph.load(file);
+
+        // Then it holds the same ids and links
+        assertThat(binaryGraph.numberOfIds(), is(graph.numberOfIds()));
+        assertThat(binaryGraph.numberOfEdges(), is(4L));
+        for (int id = 0; id < graph.numberOfIds(); id++) {
+            assertThat(binaryGraph.id(id), is(graph.id(id)));
+            assertThat(binaryGraph.isVertex(id), is(graph.isVertex(id)));
+            assertThat(binaryGraph.degree(id), is(graph.degree(id)));
+            for (int i = 0; i < graph.degree(id); i++) {
+                assertThat(binaryGraph.targets(id)[i], is(graph.target(id, i)));
+            }
+        }
+    }
+
+    @Test
+    public void selectsExporterByOption() {
+        assertThat(ExportFormat.fromOption("binary").exporter() instanceof BinaryGraphExporter, is(true));
+        assertThat(ExportFormat.fromOption("HTML").getFileName(), is("output.html"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownFormat() {
+        ExportFormat.fromOption("csv");
+    }
+
+    private String export(GraphExporter exporter) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exporter.export(graph, outputStream);
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Resource resource(String path) throws Exception {
+        return new Resource(new URL("http://localhost:8080" + path), path);
+    }
+}
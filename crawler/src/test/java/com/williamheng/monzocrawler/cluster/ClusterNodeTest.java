@@ -0,0 +1,135 @@
+package com.williamheng.monzocrawler.cluster;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
+import com.williamheng.monzocrawler.crawler.CrawlConfiguration;
+import com.williamheng.monzocrawler.crawler.MonzoCrawlerOrchestrator;
+import com.williamheng.monzocrawler.http.ConnectionSettings;
+import com.williamheng.monzocrawler.http.HttpClients;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Graph;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ClusterNodeTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static final String CLUSTER = "localhost:9101,localhost:9102,localhost:9103";
+
+    private final List<Client> clients = new ArrayList<>();
+    private final List<MonzoCrawlerOrchestrator> orchestrators = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        orchestrators.forEach(MonzoCrawlerOrchestrator::shutdown);
+        clients.forEach(Client::close);
+    }
+
+    @Test
+    public void crawlsEveryPageOnceAcrossTheCluster() throws Exception {
+        // Given a site of 41 pages that all link back to the root
+        Set<String> pages = stubSite();
+
+        // When three nodes crawl it together
+        List<Future<Graph>> crawls = new ArrayList<>();
+        for (int node = 0; node < 3; node++) {
+            crawls.add(node(node).initCrawlOperation());
+        }
+        List<Graph> graphs = new ArrayList<>();
+        for (Future<Graph> crawl : crawls) {
+            graphs.add(crawl.get(30, TimeUnit.SECONDS));
+        }
+
+        // Then the coordinator ends up with every page, and each page was fetched by one node only
+        Graph merged = graphs.get(0);
+        assertThat(merged.getVertices().keySet(), is(pages));
+        assertThat(merged.getVertices().get("/page3").getAdjacentVertices().contains("/page3-1"), is(true));
+        for (String page : pages) {
+            verify(1, getRequestedFor(urlEqualTo(page)));
+        }
+
+        // And every page was crawled by the node that owns it
+        long crawled = 0;
+        for (MonzoCrawlerOrchestrator orchestrator : orchestrators) {
+            crawled += orchestrator.getMetrics().getPagesFetched();
+        }
+        assertThat(crawled, is((long) pages.size()));
+    }
+
+    @Test
+    public void spreadsURLsOverEveryNode() throws Exception {
+        // Given a partitioner for three nodes
+        Partitioner partitioner = new Partitioner(3);
+
+        // When it is asked for the owner of many URLs
+        int[] owned = new int[3];
+        for (int page = 0; page < 3000; page++) {
+            owned[partitioner.owner(CanonicalUrl.parse("http://localhost:8080/page" + page))]++;
+        }
+
+        // Then every node owns about a third of them
+        for (int node = 0; node < 3; node++) {
+            assertThat(owned[node] > 800 && owned[node] < 1200, is(true));
+        }
+    }
+
+    private MonzoCrawlerOrchestrator node(int nodeIndex) throws Exception {
+        Client client = HttpClients.create(ConnectionSettings.builder().build());
+        clients.add(client);
+
+        ClusterSettings cluster = ClusterSettings.builder()
+                .nodes(ClusterSettings.parseNodes(CLUSTER))
+                .nodeIndex(nodeIndex)
+                .build();
+        MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(
+                client,
+                "http://localhost:8080",
+                new ConcurrentFrontier(),
+                CrawlConfiguration.builder()
+                        .numberOfCrawlers(2)
+                        .cluster(cluster)
+                        .build()
+        );
+        orchestrators.add(orchestrator);
+        return orchestrator;
+    }
+
+    private static Set<String> stubSite() {
+        Set<String> pages = new HashSet<>();
+        StringBuilder root = new StringBuilder();
+        for (int section = 0; section < 10; section++) {
+            StringBuilder sectionPage = new StringBuilder("<a href=\"/\">Home</a>");
+            for (int page = 0; page < 3; page++) {
+                String path = String.format("/page%d-%d", section, page);
+                stubURIWithContent(path, "<a href=\"/\">Home</a>");
+                sectionPage.append(String.format("<a href=\"%s\">Page</a>", path));
+                pages.add(path);
+            }
+
+            String path = "/page" + section;
+            stubURIWithContent(path, sectionPage.toString());
+            root.append(String.format("<a href=\"%s\">Section</a>", path));
+            pages.add(path);
+        }
+        stubURIWithContent("/", root.toString());
+        pages.add("/");
+        return pages;
+    }
+}
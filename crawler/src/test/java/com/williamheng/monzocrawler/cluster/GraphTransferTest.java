@@ -0,0 +1,42 @@
+package com.williamheng.monzocrawler.cluster;
+
+import com.williamheng.monzocrawler.model.Graph;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class GraphTransferTest {
+
+    @Test
+    public void mergesTheGraphOfAnotherNode() throws Exception {
+        // Given the partial graph of another node, with a checked link
+        Graph partial = new Graph();
+        partial.addVertex("/page2", Arrays.asList("/", "/page3", "http://google.com/"));
+        partial.addVertex("/page3", Collections.emptyList());
+        partial.setLinkStatus("http://google.com/", 404);
+
+        // And the graph of this node
+        Graph graph = new Graph();
+        graph.addVertex("/", Collections.singletonList("/page2"));
+        graph.setLinkStatus("http://monzo.com/", Graph.UNREACHABLE);
+
+        // When it is sent and merged in
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GraphTransfer.write(partial, output);
+        GraphTransfer.read(graph, new ByteArrayInputStream(output.toByteArray()));
+
+        // Then this graph has the vertices and link statuses of both
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/page2", "/page3"))));
+        assertThat(graph.getVertices().get("/page2").getAdjacentVertices(), is(new HashSet<>(Arrays.asList("/", "/page3", "http://google.com/"))));
+        assertThat(graph.getVertices().get("/page3").getAdjacentVertices().isEmpty(), is(true));
+        assertThat(graph.linkStatus("http://google.com/"), is(404));
+        assertThat(graph.linkStatus("http://monzo.com/"), is(Graph.UNREACHABLE));
+    }
+}
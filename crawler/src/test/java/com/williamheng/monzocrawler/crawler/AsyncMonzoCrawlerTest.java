@@ -0,0 +1,179 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.glassfish.jersey.grizzly.connector.GrizzlyConnectorProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithFilename;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class AsyncMonzoCrawlerTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    private Frontier frontier;
+    private Graph graph;
+    private ExecutorService parseExecutor;
+
+    @Before
+    public void setUp() throws Exception {
+        frontier = new ConcurrentFrontier();
+        graph = new Graph();
+        parseExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        parseExecutor.shutdown();
+    }
+
+    @Test
+    public void crawlsEveryLinkedPageOnce() throws Exception {
+        // Given a small site
+        stubSite();
+        frontier.add(buildResourceForRelativePath("/"));
+
+        // When the async crawler crawls it
+        crawler(JerseyClientBuilder.createClient(), 16).run();
+
+        // Then every page is fetched exactly once and parsed into the graph
+        verify(1, getRequestedFor(urlEqualTo("/")));
+        verify(1, getRequestedFor(urlEqualTo("/page2")));
+        verify(1, getRequestedFor(urlEqualTo("/page3")));
+        verify(1, getRequestedFor(urlEqualTo("/page4")));
+        assertThat(graph.getVertices().size(), is(4));
+        assertThat(frontier.isEmpty(), is(true));
+    }
+
+    @Test
+    public void crawlsWithNonBlockingConnector() throws Exception {
+        // Given a small site and a client using a non-blocking connector
+        stubSite();
+        frontier.add(buildResourceForRelativePath("/"));
+        Client client = JerseyClientBuilder.createClient(new ClientConfig().connectorProvider(new GrizzlyConnectorProvider()));
+
+        // When the async crawler crawls it
+        crawler(client, 16).run();
+        client.close();
+
+        // Then every page is parsed into the graph
+        assertThat(graph.getVertices().size(), is(4));
+        assertThat(
+                graph.getVertices().get("/page2").getAdjacentVertices().contains("/page4"),
+                is(true)
+        );
+    }
+
+    @Test
+    public void ignoresNonReachableURLs() throws Exception {
+        // Given a page with a non-reachable URL
+        stubURIWithContent("/", "<a href=\"/page\">Not found</a>");
+        stubFor(get(urlEqualTo("/page")).willReturn(aResponse().withStatus(404)));
+        frontier.add(buildResourceForRelativePath("/"));
+
+        // When the async crawler crawls
+        crawler(JerseyClientBuilder.createClient(), 16).run();
+
+        // Then the error is ignored and the crawl still finishes
+        verify(1, getRequestedFor(urlPathEqualTo("/page")));
+        assertThat(graph.getVertices().size(), is(1));
+    }
+
+    @Test
+    public void boundsRequestsInFlight() throws Exception {
+        // Given a root page linking to four slow pages
+        int delay = 300;
+        stubURIWithContent("/", "<a href=\"/1\"></a><a href=\"/2\"></a><a href=\"/3\"></a><a href=\"/4\"></a>");
+        for (int i = 1; i <= 4; i++) {
+            stubFor(get(urlEqualTo("/" + i)).willReturn(aResponse().withBody("").withFixedDelay(delay)));
+        }
+        frontier.add(buildResourceForRelativePath("/"));
+
+        // When the crawler may only have two requests in flight
+        long start = System.currentTimeMillis();
+        crawler(JerseyClientBuilder.createClient(), 2).run();
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then the slow pages are fetched in at least two rounds
+        assertThat(graph.getVertices().size(), is(5));
+        assertThat(elapsed >= 2L * delay, is(true));
+    }
+
+    @Test
+    public void finishesAPageOnceWhenParsingItFails() throws Exception {
+        // Given a page, and a graph that cannot take it
+        stubURIWithContent("/", "<p>The end</p>");
+        frontier.add(buildResourceForRelativePath("/"));
+        graph = new Graph() {
+            @Override
+            public void addVertex(Resource resource, List<String> links) {
+                throw new IllegalStateException("Graph is full");
+            }
+        };
+        CrawlMetrics metrics = new CrawlMetrics();
+
+        // When the crawler parses it on the thread the response completes on
+        AsyncMonzoCrawler.builder()
+                .client(JerseyClientBuilder.createClient())
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .metrics(metrics)
+                        .build())
+                .parseExecutor(Runnable::run)
+                .maxInFlight(1)
+                .build()
+                .run();
+
+        // Then the crawl finishes, without the page that could not be parsed also counting as a failed fetch
+        assertThat(metrics.getFetchErrors(), is(0L));
+        assertThat(graph.getVertices().isEmpty(), is(true));
+    }
+
+    private AsyncMonzoCrawler crawler(Client client, int maxInFlight) throws MalformedURLException {
+        return AsyncMonzoCrawler.builder()
+                .client(client)
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .build())
+                .parseExecutor(parseExecutor)
+                .maxInFlight(maxInFlight)
+                .build();
+    }
+
+    private static void stubSite() {
+        stubURIWithFilename("/", "index.html");
+        stubURIWithFilename("/page2", "page2.html");
+        stubURIWithFilename("/page3", "page3.html");
+        stubURIWithFilename("/page4", "page4.html");
+    }
+
+    private static Resource buildResourceForRelativePath(String path) throws MalformedURLException {
+        return new Resource(new URL(String.format("%s%s", HOST_URL, path)), path);
+    }
+}
@@ -0,0 +1,99 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Resource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ConcurrentFrontierTest {
+
+    private Frontier frontier;
+
+    @Before
+    public void setUp() throws Exception {
+        frontier = new ConcurrentFrontier();
+    }
+
+    @Test
+    public void admitsResourceOnlyOnce() throws Exception {
+        assertThat(frontier.add(resource("/page")), is(true));
+        assertThat(frontier.add(resource("/page")), is(false));
+        assertThat(frontier.size(), is(1));
+    }
+
+    @Test
+    public void doesNotReadmitPolledResource() throws Exception {
+        frontier.add(resource("/page"));
+
+        assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl(), is(CanonicalUrl.parse("http://localhost:8080/page")));
+        assertThat(frontier.add(resource("/page")), is(false));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+    }
+
+    @Test
+    public void admitsOnlyNewResourcesOfABatch() throws Exception {
+        frontier.add(resource("/seen"));
+        Resource first = resource("/first");
+        Resource second = resource("/second");
+
+        List<Resource> admitted = frontier.addAll(Arrays.asList(first, resource("/seen"), second, resource("/first")));
+
+        assertThat(admitted, is(Arrays.asList(first, second)));
+        assertThat(frontier.size(), is(3));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/seen"));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS), is(first));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS), is(second));
+    }
+
+    @Test
+    public void treatsEquivalentURLsAsTheSameResource() throws Exception {
+        assertThat(frontier.add(resource("/a/../page?b=2&a=1#top")), is(true));
+        assertThat(frontier.add(new Resource(new URL("HTTP://LOCALHOST:8080/page?a=1&b=2"), "")), is(false));
+    }
+
+    @Test
+    public void admitsEachResourceExactlyOnceUnderContention() throws Exception {
+        // Given many workers discovering the same set of links at the same time
+        int numberOfWorkers = 8;
+        int numberOfLinks = 1000;
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfWorkers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger admitted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < numberOfWorkers; i++) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                for (int link = 0; link < numberOfLinks; link++) {
+                    if (frontier.add(resource("/page" + link))) admitted.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        // When they all add to the frontier
+        start.countDown();
+        for (Future<?> future : futures) future.get();
+        executorService.shutdown();
+
+        // Then every link is admitted exactly once
+        assertThat(admitted.get(), is(numberOfLinks));
+        assertThat(frontier.size(), is(numberOfLinks));
+    }
+
+    private static Resource resource(String path) throws MalformedURLException {
+        return new Resource(new URL("http://localhost:8080" + path), path);
+    }
+}
@@ -0,0 +1,214 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Graph;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class CrawlBudgetTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    @Test
+    public void doesNotCrawlPagesDeeperThanTheMaximumDepth() throws Exception {
+        // Given a chain of pages, each linking to the next
+        stubURIWithContent("/", "<a href=\"/a\">A</a>");
+        stubURIWithContent("/a", "<a href=\"/b\">B</a>");
+        stubURIWithContent("/b", "<a href=\"/c\">C</a>");
+        stubURIWithContent("/c", "<a href=\"/\">Home</a>");
+
+        // When it is crawled no more than two links deep
+        MonzoCrawlerOrchestrator orchestrator = orchestrator(new ConcurrentFrontier(), CrawlConfiguration.builder()
+                .numberOfCrawlers(2)
+                .maxDepth(2)
+                .build());
+        Graph graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then the page three links deep is linked to but never fetched
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/a", "/b"))));
+        assertThat(graph.getVertices().get("/b").getAdjacentVertices().contains("/c"), is(true));
+        verify(0, getRequestedFor(urlEqualTo("/c")));
+        assertThat(orchestrator.getMetrics().getLinksOverBudget(), is(1L));
+    }
+
+    @Test
+    public void doesNotCrawlPagesDeeperThanTheMaximumDepthFromAFrontierOnDisk() throws Exception {
+        // Given a chain of pages, each linking to the next
+        stubURIWithContent("/", "<a href=\"/a\">A</a>");
+        stubURIWithContent("/a", "<a href=\"/b\">B</a>");
+        stubURIWithContent("/b", "<a href=\"/c\">C</a>");
+        stubURIWithContent("/c", "<a href=\"/\">Home</a>");
+
+        // When it is crawled no more than two links deep with the frontier on disk
+        Graph graph;
+        MonzoCrawlerOrchestrator orchestrator;
+        try (DiskFrontier frontier = new DiskFrontier(temporaryFolder.getRoot().toPath())) {
+            orchestrator = orchestrator(frontier, CrawlConfiguration.builder()
+                    .numberOfCrawlers(2)
+                    .maxDepth(2)
+                    .build());
+            graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+            orchestrator.shutdown();
+        }
+
+        // Then the depth of every page survives the trip through the disk, and the page three links deep is never fetched
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/a", "/b"))));
+        verify(0, getRequestedFor(urlEqualTo("/c")));
+        assertThat(orchestrator.getMetrics().getLinksOverBudget(), is(1L));
+    }
+
+    @Test
+    public void crawlsNoMoreThanTheMaximumNumberOfPages() throws Exception {
+        // Given a page with more links than the budget allows
+        stubURIWithContent("/", "<a href=\"/\">Home</a><a href=\"/about\">About</a><a href=\"/page/2\">2</a><a href=\"/page/3\">3</a>");
+        stubURIWithContent("/about", "<a href=\"/\">Home</a>");
+        stubURIWithContent("/page/2", "<a href=\"/\">Home</a>");
+        stubURIWithContent("/page/3", "<a href=\"/\">Home</a>");
+
+        // When it is crawled with a budget of three pages, the root included
+        MonzoCrawlerOrchestrator orchestrator = orchestrator(new ConcurrentFrontier(), CrawlConfiguration.builder()
+                .numberOfCrawlers(2)
+                .maxPages(3)
+                .build());
+        Graph graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then only the first two links are crawled, and the crawl still ends
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/about", "/page/2"))));
+        verify(0, getRequestedFor(urlEqualTo("/page/3")));
+        assertThat(orchestrator.getMetrics().getPagesFetched(), is(3L));
+        assertThat(orchestrator.getMetrics().getLinksOverBudget(), is(1L));
+    }
+
+    @Test
+    public void spendsOnePageOnAPageThatIsRetried() throws Exception {
+        // Given a site of three pages, one of which is throttled the first time it is requested
+        stubURIWithContent("/", "<a href=\"/a\">A</a><a href=\"/throttled\">Throttled</a>");
+        stubURIWithContent("/a", "<a href=\"/\">Home</a>");
+        stubFor(get(urlEqualTo("/throttled")).inScenario("throttled").whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0"))
+                .willSetStateTo("recovered"));
+        stubFor(get(urlEqualTo("/throttled")).inScenario("throttled").whenScenarioStateIs("recovered")
+                .willReturn(aResponse().withBody("<a href=\"/\">Home</a>")));
+
+        // When it is crawled with a budget of three pages
+        MonzoCrawlerOrchestrator orchestrator = orchestrator(new PoliteFrontier(Double.POSITIVE_INFINITY, Integer.MAX_VALUE), CrawlConfiguration.builder()
+                .numberOfCrawlers(2)
+                .maxPages(3)
+                .build());
+        Graph graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then the throttled page is fetched again within the budget rather than dropped
+        verify(2, getRequestedFor(urlEqualTo("/throttled")));
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/a", "/throttled"))));
+        assertThat(orchestrator.getMetrics().getLinksOverBudget(), is(0L));
+    }
+
+    @Test
+    public void spendsTheBudgetOnTheMostImportantPagesWithPriorities() throws Exception {
+        // Given pagination that is found before a page linked to from everywhere
+        stubURIWithContent("/", "<a href=\"/page/2\">2</a><a href=\"/page/3\">3</a><a href=\"/section\">Section</a>");
+        stubURIWithContent("/page/2", "<a href=\"/page/3\">3</a>");
+        stubURIWithContent("/page/3", "<a href=\"/page/4\">4</a>");
+        stubURIWithContent("/section", "<a href=\"/popular\">Popular</a><a href=\"/page/4\">4</a>");
+        stubURIWithContent("/popular", "<a href=\"/\">Home</a>");
+
+        // When it is crawled by a single worker with pagination weighed down and a budget of four pages
+        PriorityFrontier frontier = new PriorityFrontier(100, Arrays.asList(PriorityFrontier.PathWeight.parse("^/page/=0.1")));
+        MonzoCrawlerOrchestrator orchestrator = orchestrator(frontier, CrawlConfiguration.builder()
+                .numberOfCrawlers(1)
+                .maxPages(4)
+                .build());
+        orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then the budget goes on the section and the page it links to, and only then on the pagination
+        verify(1, getRequestedFor(urlEqualTo("/section")));
+        verify(1, getRequestedFor(urlEqualTo("/popular")));
+        verify(1, getRequestedFor(urlEqualTo("/page/2")));
+        verify(0, getRequestedFor(urlEqualTo("/page/3")));
+        verify(0, getRequestedFor(urlEqualTo("/page/4")));
+        assertThat(orchestrator.getMetrics().getLinksOverBudget(), is(2L));
+    }
+
+    @Test
+    public void finishesACrawlThatEvictsURLsFromAFullPriorityFrontier() throws Exception {
+        // Given a page that links to an unimportant page before an important one
+        stubURIWithContent("/", "<a href=\"/low\">Low</a><a href=\"/high\">High</a>");
+        stubURIWithContent("/low", "<p>Low</p>");
+        stubURIWithContent("/high", "<p>High</p>");
+
+        // When it is crawled with room for only one queued URL, so the important page evicts the other
+        PriorityFrontier frontier = new PriorityFrontier(1, Arrays.asList(PriorityFrontier.PathWeight.parse("^/high=10")));
+        MonzoCrawlerOrchestrator orchestrator = orchestrator(frontier, CrawlConfiguration.builder()
+                .numberOfCrawlers(1)
+                .build());
+        orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then the crawl finishes without waiting for the evicted page, and counts the important page as admitted
+        verify(1, getRequestedFor(urlEqualTo("/high")));
+        verify(0, getRequestedFor(urlEqualTo("/low")));
+        assertThat(orchestrator.getMetrics().getLinksAdmitted(), is(2L));
+    }
+
+    @Test
+    public void stopsQueueingURLsOfAShapeOnceItsBudgetIsSpent() throws Exception {
+        // Given a calendar that links on to the next day forever, next to an ordinary page
+        stubURIWithContent("/", "<a href=\"/calendar/2024/05?day=1&sid=a1\">Calendar</a><a href=\"/about\">About</a>");
+        for (int day = 1; day <= 5; day++) {
+            stubURIWithContent(String.format("/calendar/2024/05?day=%d&sid=a%d", day, day),
+                    String.format("<a href=\"/calendar/2024/05?day=%d&sid=a%d\">Next</a>", day + 1, day + 1));
+        }
+        stubURIWithContent("/about", "<a href=\"/\">Home</a>");
+
+        // When it is crawled with at most three URLs of the same shape
+        MonzoCrawlerOrchestrator orchestrator = orchestrator(new ConcurrentFrontier(), CrawlConfiguration.builder()
+                .numberOfCrawlers(2)
+                .maxPerPattern(3)
+                .build());
+        Graph graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then only three days are crawled, and the rest of the site is unaffected
+        verify(1, getRequestedFor(urlEqualTo("/calendar/2024/05?day=3&sid=a3")));
+        verify(0, getRequestedFor(urlEqualTo("/calendar/2024/05?day=4&sid=a4")));
+        verify(1, getRequestedFor(urlEqualTo("/about")));
+        assertThat(graph.getVertices().size(), is(5));
+        assertThat(orchestrator.getMetrics().getLinksTrapped(), is(1L));
+    }
+
+    @Test
+    public void givesURLsThatOnlyDifferInNumbersAndQueryValuesTheSameShape() throws Exception {
+        assertThat(CrawlBudget.pattern(CanonicalUrl.parse(HOST_URL + "/calendar/2024/05?day=1&sid=a1b2")), is("/calendar/#/#?day&sid"));
+        assertThat(CrawlBudget.pattern(CanonicalUrl.parse(HOST_URL + "/page-12/v2")), is("/page-#/v#"));
+        assertThat(CrawlBudget.pattern(CanonicalUrl.parse(HOST_URL + "/session/0123456789abcdef0123456789abcdef01/home")), is("/session/*/home"));
+        assertThat(CrawlBudget.pattern(CanonicalUrl.parse(HOST_URL + "/")), is("/"));
+    }
+
+    private static MonzoCrawlerOrchestrator orchestrator(Frontier frontier, CrawlConfiguration configuration) throws Exception {
+        return new MonzoCrawlerOrchestrator(JerseyClientBuilder.createClient(), HOST_URL, frontier, configuration);
+    }
+}
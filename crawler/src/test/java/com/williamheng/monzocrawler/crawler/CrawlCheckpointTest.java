@@ -0,0 +1,250 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class CrawlCheckpointTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    @Test
+    public void requeuesURLsThatWereAdmittedButNotCrawled() throws Exception {
+        // Given a checkpoint of a crawl that had crawled the root but none of the pages it links to
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, new CrawlMetrics())) {
+            checkpoint.admitted(resource("/", 0));
+            checkpoint.admitted(Arrays.asList(resource("/a", 1), resource("/b", 1)));
+            checkpoint.crawled(resource("/", 0), Arrays.asList("/a", "/b"));
+        }
+
+        // When it is restored
+        ConcurrentFrontier frontier = new ConcurrentFrontier();
+        Graph graph = new Graph();
+        CrawlMetrics metrics = new CrawlMetrics();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, metrics)) {
+            assertThat(checkpoint.restore(frontier, graph, new CrawlBudget(Integer.MAX_VALUE, Integer.MAX_VALUE)), is(1));
+        }
+
+        // Then the root is a vertex again and has been seen, and the pages it links to are queued at the same depth
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/"))));
+        assertThat(frontier.add(resource("/", 0)), is(false));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/a"));
+        Resource b = frontier.poll(0, TimeUnit.SECONDS);
+        assertThat(b.getUrl().getPath(), is("/b"));
+        assertThat(b.getDepth(), is(1));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+        assertThat(metrics.getPagesRestored(), is(1L));
+    }
+
+    @Test
+    public void ignoresWhatWasWrittenAfterTheLastCheckpoint() throws Exception {
+        // Given a checkpoint, followed by part of a record from a checkpoint that did not finish
+        Path directory = temporaryFolder.getRoot().toPath();
+        CrawlMetrics metrics = new CrawlMetrics();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, metrics)) {
+            checkpoint.admitted(resource("/", 0));
+        }
+        Files.write(directory.resolve("checkpoint.log"), new byte[]{0, 0, 1, 0, 2}, StandardOpenOption.APPEND);
+
+        // When it is restored
+        ConcurrentFrontier frontier = new ConcurrentFrontier();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, new CrawlMetrics())) {
+            checkpoint.restore(frontier, new Graph(), new CrawlBudget(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        }
+
+        // Then only what the checkpoint wrote is there
+        assertThat(frontier.size(), is(1));
+        assertThat(metrics.getCheckpoints(), is(1L));
+    }
+
+    @Test
+    public void compactsTheLogIntoASnapshotWhenClosed() throws Exception {
+        // Given a checkpoint of a crawl that had crawled the root, and a copy of its log from before it was closed
+        Path directory = temporaryFolder.getRoot().toPath();
+        Path copy = temporaryFolder.newFolder().toPath();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, new CrawlMetrics())) {
+            checkpoint.admitted(resource("/", 0));
+            checkpoint.admitted(Arrays.asList(resource("/a", 1), resource("/b", 1)));
+            checkpoint.crawled(resource("/", 0), Arrays.asList("/a", "/b"));
+            checkpoint.checkpoint();
+            Files.copy(directory.resolve("checkpoint.log"), copy.resolve("checkpoint.log"));
+            Files.copy(directory.resolve("checkpoint.state"), copy.resolve("checkpoint.state"));
+        }
+
+        // Then closing it compacted the log into the snapshot
+        assertThat(Files.size(directory.resolve("checkpoint.log")), is(0L));
+        assertThat(CrawlCheckpoint.exists(directory), is(true));
+
+        // And a crawl that died before emptying the log restores as if it had not, from the snapshot and the old log
+        Files.copy(copy.resolve("checkpoint.log"), directory.resolve("checkpoint.log"), StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(copy.resolve("checkpoint.state"), directory.resolve("checkpoint.state"), StandardCopyOption.REPLACE_EXISTING);
+        ConcurrentFrontier frontier = new ConcurrentFrontier();
+        Graph graph = new Graph();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, new CrawlMetrics())) {
+            assertThat(checkpoint.restore(frontier, graph, new CrawlBudget(Integer.MAX_VALUE, Integer.MAX_VALUE)), is(1));
+        }
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/"))));
+        assertThat(graph.getVertices().get("/").getAdjacentVertices().size(), is(2));
+        assertThat(frontier.size(), is(2));
+    }
+
+    @Test
+    public void requeuesAURLThatTookThePlaceOfAnotherInAFullFrontier() throws Exception {
+        // Given a checkpointed frontier that only has room for one URL, which a more important URL takes the place of
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, new CrawlMetrics())) {
+            Frontier frontier = new CheckpointedFrontier(new PriorityFrontier(1, Collections.emptyList()), checkpoint);
+            frontier.add(resource("/deep", 2));
+            assertThat(frontier.addAll(Collections.singletonList(resource("/shallow", 1))).size(), is(1));
+        }
+
+        // When it is restored
+        ConcurrentFrontier frontier = new ConcurrentFrontier();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, new CrawlMetrics())) {
+            checkpoint.restore(frontier, new Graph(), new CrawlBudget(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        }
+
+        // Then the more important URL is queued again too
+        assertThat(frontier.add(resource("/shallow", 1)), is(false));
+    }
+
+    @Test
+    public void resumesACrawlWithoutFetchingThePagesItHadCrawled() throws Exception {
+        // Given a site, and a checkpoint of a crawl of it that had only crawled the root
+        stubURIWithContent("/", "<a href=\"/a\">A</a><a href=\"/b\">B</a>");
+        stubURIWithContent("/a", "<a href=\"/c\">C</a>");
+        stubURIWithContent("/b", "<a href=\"/\">Home</a>");
+        stubURIWithContent("/c", "<p>The end</p>");
+
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, new CrawlMetrics())) {
+            checkpoint.admitted(resource("/", 0));
+            checkpoint.admitted(Arrays.asList(resource("/a", 1), resource("/b", 1)));
+            checkpoint.crawled(resource("/", 0), Arrays.asList("/a", "/b"));
+        }
+
+        // When the crawl is resumed from it
+        MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(
+                JerseyClientBuilder.createClient(),
+                HOST_URL,
+                new ConcurrentFrontier(),
+                CrawlConfiguration.builder()
+                        .numberOfCrawlers(2)
+                        .checkpointDirectory(directory)
+                        .build()
+        );
+        Graph graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then the root is not fetched again, but the graph has every page of the site
+        verify(0, getRequestedFor(urlEqualTo("/")));
+        verify(1, getRequestedFor(urlEqualTo("/c")));
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/a", "/b", "/c"))));
+        assertThat(orchestrator.getMetrics().getPagesRestored(), is(1L));
+        assertThat(orchestrator.getMetrics().getCheckpoints(), is(1L));
+
+        // And resuming the finished crawl has nothing left to fetch
+        resetAllRequests();
+        orchestrator = new MonzoCrawlerOrchestrator(
+                JerseyClientBuilder.createClient(),
+                HOST_URL,
+                new ConcurrentFrontier(),
+                CrawlConfiguration.builder()
+                        .numberOfCrawlers(2)
+                        .checkpointDirectory(directory)
+                        .build()
+        );
+        graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        verify(0, getRequestedFor(anyUrl()));
+        assertThat(graph.getVertices().size(), is(4));
+        assertThat(orchestrator.getMetrics().getPagesRestored(), is(4L));
+    }
+
+    @Test
+    public void resumesACrawlIntoAFrontierOnDisk() throws Exception {
+        // Given a site, and a checkpoint of a crawl of it that had only crawled the root
+        stubURIWithContent("/", "<a href=\"/a\">A</a>");
+        stubURIWithContent("/a", "<a href=\"/b\">B</a>");
+        stubURIWithContent("/b", "<p>The end</p>");
+
+        Path directory = temporaryFolder.newFolder("checkpoint").toPath();
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(directory, new CrawlMetrics())) {
+            checkpoint.admitted(resource("/", 0));
+            checkpoint.admitted(Collections.singletonList(resource("/a", 1)));
+            checkpoint.crawled(resource("/", 0), Collections.singletonList("/a"));
+        }
+
+        // When the crawl is resumed from it with the frontier on disk
+        Graph graph;
+        try (DiskFrontier frontier = new DiskFrontier(temporaryFolder.getRoot().toPath().resolve("frontier"))) {
+            MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(
+                    JerseyClientBuilder.createClient(),
+                    HOST_URL,
+                    frontier,
+                    CrawlConfiguration.builder()
+                            .numberOfCrawlers(2)
+                            .checkpointDirectory(directory)
+                            .build()
+            );
+            graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+            orchestrator.shutdown();
+        }
+
+        // Then the root is not fetched again, but the graph has every page of the site
+        verify(0, getRequestedFor(urlEqualTo("/")));
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/a", "/b"))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesAFrontierThatIsNotEmpty() throws Exception {
+        // Given a frontier that already has a URL queued
+        ConcurrentFrontier frontier = new ConcurrentFrontier();
+        frontier.add(resource("/", 0));
+
+        // When a checkpointed crawl is given it, then it is refused, since the checkpoint is what fills the frontier
+        new MonzoCrawlerOrchestrator(
+                JerseyClientBuilder.createClient(),
+                HOST_URL,
+                frontier,
+                CrawlConfiguration.builder()
+                        .checkpointDirectory(temporaryFolder.getRoot().toPath())
+                        .build()
+        );
+    }
+
+    private static Resource resource(String path, int depth) throws MalformedURLException {
+        return new Resource(new URL(HOST_URL + path), path).atDepth(depth);
+    }
+}
@@ -0,0 +1,119 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class CrawlTrackerTest {
+
+    private static final String HOST_URL = "http://localhost:8080";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    @Test
+    public void isDoneOnceEveryAdmittedResourceIsCrawled() {
+        CrawlTracker tracker = new CrawlTracker();
+        tracker.start(1);
+
+        // A page that finds another page
+        tracker.admitted();
+        tracker.crawled();
+        assertThat(tracker.isDone(), is(false));
+
+        tracker.crawled();
+        assertThat(tracker.isDone(), is(true));
+    }
+
+    @Test
+    public void isNotDoneWhenALinkIsCrawledBeforeItsPageIsDone() {
+        CrawlTracker tracker = new CrawlTracker();
+        tracker.start(1);
+
+        // A page whose link is taken and crawled by another worker as soon as it is added, and a link turned away
+        tracker.admitted();
+        tracker.crawled();
+        tracker.admitted();
+        tracker.withdrawn(1);
+        assertThat(tracker.isDone(), is(false));
+
+        tracker.crawled();
+        assertThat(tracker.isDone(), is(true));
+    }
+
+    @Test
+    public void isOnlyStartedOnceWhenTheCrawlerStartsItAgain() {
+        // Given a tracker started by the orchestrator, which has admitted a link since
+        CrawlTracker tracker = new CrawlTracker();
+        tracker.start(1);
+        tracker.admitted();
+
+        // When a crawler sharing it starts it with whatever is in the frontier by then
+        tracker.startUnlessStarted(2);
+
+        // Then it still tracks what the orchestrator started it with
+        tracker.crawled();
+        assertThat(tracker.isDone(), is(false));
+        tracker.crawled();
+        assertThat(tracker.isDone(), is(true));
+    }
+
+    @Test
+    public void isDoneStraightAwayWithNothingToCrawl() {
+        CrawlTracker tracker = new CrawlTracker();
+        tracker.start(0);
+
+        assertThat(tracker.isDone(), is(true));
+    }
+
+    @Test
+    public void idleWorkersWaitForSlowPages() throws Exception {
+        // Given a root page that takes a while to respond and links to another page
+        stubFor(get(urlEqualTo("/")).willReturn(aResponse().withFixedDelay(1500).withBody("<a href=\"/page\">Page</a>")));
+        stubURIWithContent("/page", "");
+
+        Frontier frontier = new ConcurrentFrontier();
+        Graph graph = new Graph();
+        CrawlTracker tracker = new CrawlTracker();
+        frontier.add(new Resource(new URL(HOST_URL + "/"), "/"));
+        tracker.start(frontier.size());
+
+        // When two workers crawl it, one of which has nothing to do while the root page loads
+        long start = System.nanoTime();
+        CompletableFuture<Void> first = CompletableFuture.runAsync(worker(frontier, graph, tracker));
+        CompletableFuture<Void> second = CompletableFuture.runAsync(worker(frontier, graph, tracker));
+        CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then no worker gives up early, every page is crawled and the crawl ends right after the last page
+        verify(1, getRequestedFor(urlEqualTo("/page")));
+        assertThat(graph.getVertices().size(), is(2));
+        assertThat(tracker.isDone(), is(true));
+        assertThat(elapsedMillis < 3000, is(true));
+    }
+
+    private static MonzoCrawler worker(Frontier frontier, Graph graph, CrawlTracker tracker) throws Exception {
+        return MonzoCrawler.builder()
+                .client(JerseyClientBuilder.createClient())
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .tracker(tracker)
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.Resource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class DiskFrontierTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void admitsResourceOnlyOnce() throws Exception {
+        try (DiskFrontier frontier = new DiskFrontier(temporaryFolder.getRoot().toPath())) {
+            assertThat(frontier.add(resource("/page")), is(true));
+            assertThat(frontier.add(resource("/page")), is(false));
+            assertThat(frontier.size(), is(1));
+        }
+    }
+
+    @Test
+    public void handsOutResourcesInOrder() throws Exception {
+        try (DiskFrontier frontier = new DiskFrontier(temporaryFolder.getRoot().toPath())) {
+            frontier.add(resource("/1"));
+            frontier.add(resource("/2"));
+
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/1"));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/2"));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+            assertThat(frontier.add(resource("/1")), is(false));
+        }
+    }
+
+    @Test
+    public void admitsOnlyNewResourcesOfABatch() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (DiskFrontier frontier = new DiskFrontier(directory)) {
+            frontier.add(resource("/seen"));
+
+            List<Resource> admitted = frontier.addAll(Arrays.asList(resource("/1"), resource("/seen"), resource("/2"), resource("/1")));
+
+            assertThat(admitted.size(), is(2));
+            assertThat(frontier.size(), is(3));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/seen"));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/1"));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/2"));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+        }
+    }
+
+    @Test
+    public void handsOutResourcesAtTheDepthTheyWereFoundAt() throws Exception {
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (DiskFrontier frontier = new DiskFrontier(directory)) {
+            frontier.add(resource("/1").atDepth(3));
+            frontier.addAll(Arrays.asList(resource("/2").atDepth(4)));
+
+            assertThat(frontier.add(resource("/2")), is(false));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getDepth(), is(3));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getDepth(), is(4));
+        }
+    }
+
+    @Test
+    public void remembersEveryResourceItHasHandedOut() throws Exception {
+        try (DiskFrontier frontier = new DiskFrontier(temporaryFolder.getRoot().toPath())) {
+            frontier.add(resource("/1"));
+            frontier.add(resource("/2"));
+            frontier.release(frontier.poll(0, TimeUnit.SECONDS));
+            frontier.poll(0, TimeUnit.SECONDS);
+
+            assertThat(frontier.seen(), is(2));
+            assertThat(frontier.size(), is(0));
+            assertThat(frontier.add(resource("/1")), is(false));
+            assertThat(frontier.add(resource("/3")), is(true));
+        }
+    }
+
+    @Test
+    public void neverHandsOutResourcesMarkedAsSeen() throws Exception {
+        try (DiskFrontier frontier = new DiskFrontier(temporaryFolder.getRoot().toPath())) {
+            frontier.add(resource("/1"));
+            assertThat(frontier.markSeen(resource("/crawled")), is(true));
+            assertThat(frontier.markSeen(resource("/1")), is(false));
+            frontier.add(resource("/2"));
+
+            assertThat(frontier.add(resource("/crawled")), is(false));
+            assertThat(frontier.size(), is(2));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/1"));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getPath(), is("/2"));
+            assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesTheFrontierOfAnEarlierCrawl() throws Exception {
+        // Given a directory holding the frontier of a crawl that stopped
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (DiskFrontier frontier = new DiskFrontier(directory)) {
+            frontier.add(resource("/1"));
+        }
+
+        // When it is opened again, then it is refused, because the pages that crawl fetched are not in it
+        new DiskFrontier(directory).close();
+    }
+
+    @Test
+    public void growsBeyondInitialIndexCapacity() throws Exception {
+        int numberOfResources = 100_000;
+        Path directory = temporaryFolder.getRoot().toPath();
+
+        try (DiskFrontier frontier = new DiskFrontier(directory)) {
+            for (int i = 0; i < numberOfResources; i++) {
+                assertThat(frontier.add(resource("/page" + i)), is(true));
+            }
+
+            assertThat(frontier.size(), is(numberOfResources));
+            for (int i = 0; i < numberOfResources; i += 997) {
+                assertThat(frontier.add(resource("/page" + i)), is(false));
+            }
+        }
+    }
+
+    private static Resource resource(String path) throws MalformedURLException {
+        return new Resource(new URL("http://localhost:8080" + path), path);
+    }
+}
@@ -0,0 +1,133 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.model.CanonicalUrl;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.PageMetadata;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class DiskPageCacheTest {
+
+    private static final String HOST_URL = "http://localhost:8080";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void remembersPages() throws Exception {
+        try (DiskPageCache pageCache = new DiskPageCache(temporaryFolder.getRoot().toPath())) {
+            pageCache.put(page("/", "\"v1\"", Arrays.asList("/page1", "/page2")));
+
+            PageMetadata page = pageCache.get(CanonicalUrl.parse(HOST_URL + "/"));
+            assertThat(page.getEtag(), is("\"v1\""));
+            assertThat(page.getLastModified(), nullValue());
+            assertThat(page.getLinks(), is(Arrays.asList("/page1", "/page2")));
+            assertThat(pageCache.get(CanonicalUrl.parse(HOST_URL + "/page1")), nullValue());
+        }
+    }
+
+    @Test
+    public void replacesPagesAndReopens() throws Exception {
+        // Given a page that was stored twice
+        Path directory = temporaryFolder.getRoot().toPath();
+        try (DiskPageCache pageCache = new DiskPageCache(directory)) {
+            pageCache.put(page("/", "\"v1\"", Collections.singletonList("/page1")));
+            pageCache.put(page("/", "\"v2\"", Collections.singletonList("/page2")));
+        }
+
+        // When the cache is reopened
+        try (DiskPageCache pageCache = new DiskPageCache(directory)) {
+
+            // Then it holds the latest version of the page
+            assertThat(pageCache.size(), is(1));
+            assertThat(pageCache.get(CanonicalUrl.parse(HOST_URL + "/")).getEtag(), is("\"v2\""));
+            assertThat(pageCache.get(CanonicalUrl.parse(HOST_URL + "/")).getLinks(), is(Collections.singletonList("/page2")));
+        }
+    }
+
+    @Test
+    public void leavesOutWhatIsTooLongToStore() throws Exception {
+        try (DiskPageCache pageCache = new DiskPageCache(temporaryFolder.getRoot().toPath())) {
+            // Given a page whose URL is longer than a record can hold, and one whose ETag is
+            String longPath = "/" + "a".repeat(70_000);
+            pageCache.put(page(longPath, "\"v1\"", Collections.emptyList()));
+            pageCache.put(page("/", "\"" + "v".repeat(70_000) + "\"", Collections.singletonList("/page1")));
+
+            // Then the first is not cached at all, and the second is cached without its ETag
+            assertThat(pageCache.get(CanonicalUrl.parse(HOST_URL + longPath)), nullValue());
+            assertThat(pageCache.get(CanonicalUrl.parse(HOST_URL + "/")).getEtag(), nullValue());
+            assertThat(pageCache.get(CanonicalUrl.parse(HOST_URL + "/")).getLinks(), is(Collections.singletonList("/page1")));
+        }
+    }
+
+    @Test
+    public void reusesLinksOfUnchangedPages() throws Exception {
+        // Given a page with an ETag that was crawled before
+        Path directory = temporaryFolder.getRoot().toPath();
+        stubFor(get(urlEqualTo("/")).willReturn(aResponse().withHeader("ETag", "\"v1\"").withBody("<a href=\"/page1\">Page1</a>")));
+        stubFor(get(urlEqualTo("/page1")).willReturn(aResponse().withBody("")));
+        try (DiskPageCache pageCache = new DiskPageCache(directory)) {
+            crawl(pageCache);
+        }
+
+        // And that has not changed since
+        stubFor(get(urlEqualTo("/")).withHeader("If-None-Match", equalTo("\"v1\"")).willReturn(aResponse().withStatus(304)));
+
+        // When it is crawled again
+        Graph graph;
+        try (DiskPageCache pageCache = new DiskPageCache(directory)) {
+            graph = crawl(pageCache);
+        }
+
+        // Then it is revalidated rather than downloaded, and its links come from the cache
+        verify(1, getRequestedFor(urlEqualTo("/")).withHeader("If-None-Match", equalTo("\"v1\"")));
+        assertThat(graph.getVertices().size(), is(2));
+        assertThat(graph.getVertices().get("/").getAdjacentVertices().contains("/page1"), is(true));
+    }
+
+    private static Graph crawl(PageCache pageCache) throws Exception {
+        Graph graph = new Graph();
+        Frontier frontier = new ConcurrentFrontier();
+        frontier.add(new Resource(new URL(HOST_URL + "/"), "/"));
+
+        MonzoCrawler.builder()
+                .client(JerseyClientBuilder.createClient())
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .build())
+                .pageCache(pageCache)
+                .build()
+                .run();
+        return graph;
+    }
+
+    private static PageMetadata page(String path, String etag, List<String> links) throws Exception {
+        return PageMetadata.builder()
+                .url(CanonicalUrl.parse(HOST_URL + path))
+                .etag(etag)
+                .contentHash(42)
+                .links(links)
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.http.ConnectionSettings;
+import com.williamheng.monzocrawler.http.HttpClients;
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class ExternalLinkCheckerTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    // Another name for the same server, which the crawler sees as another host
+    private static String EXTERNAL_URL = "http://127.0.0.1:8080";
+
+    private Client client;
+    private Graph graph;
+    private CrawlMetrics metrics;
+    private ExternalLinkChecker linkChecker;
+
+    @Before
+    public void setUp() {
+        client = HttpClients.create(ConnectionSettings.builder().build());
+        graph = new Graph();
+        metrics = new CrawlMetrics();
+        linkChecker = ExternalLinkChecker.builder()
+                .client(client)
+                .graph(graph)
+                .metrics(metrics)
+                .maxInFlight(4)
+                .maxConnectionsPerHost(2)
+                .build();
+        linkChecker.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        linkChecker.close();
+        client.close();
+    }
+
+    @Test
+    public void checksEveryLinkOnceWithHead() throws Exception {
+        // Given a link that works and one that does not, both linked to twice
+        stubFor(head(urlEqualTo("/ok")).willReturn(aResponse().withStatus(200)));
+        stubFor(head(urlEqualTo("/gone")).willReturn(aResponse().withStatus(404)));
+
+        // When they are checked
+        linkChecker.check(externalResource("/ok"));
+        linkChecker.check(externalResource("/gone"));
+        linkChecker.check(externalResource("/ok"));
+        linkChecker.check(externalResource("/gone"));
+        assertThat(linkChecker.awaitChecked(5, TimeUnit.SECONDS), is(true));
+
+        // Then each is asked for once, and its status is recorded
+        verify(1, headRequestedFor(urlEqualTo("/ok")));
+        verify(1, headRequestedFor(urlEqualTo("/gone")));
+        verify(0, getRequestedFor(anyUrl()));
+        assertThat(graph.linkStatus(EXTERNAL_URL + "/ok"), is(200));
+        assertThat(graph.linkStatus(EXTERNAL_URL + "/gone"), is(404));
+        assertThat(metrics.getLinksChecked(), is(2L));
+        assertThat(metrics.getBrokenLinks(), is(1L));
+    }
+
+    @Test
+    public void fallsBackToARangeRequestWhenHeadIsNotAllowed() throws Exception {
+        // Given a server that does not allow HEAD
+        stubFor(head(urlEqualTo("/no-head")).willReturn(aResponse().withStatus(405)));
+        stubFor(get(urlEqualTo("/no-head"))
+                .withHeader("Range", equalTo("bytes=0-0"))
+                .willReturn(aResponse().withStatus(206).withBody("<")));
+
+        // When the link is checked
+        linkChecker.check(externalResource("/no-head"));
+        assertThat(linkChecker.awaitChecked(5, TimeUnit.SECONDS), is(true));
+
+        // Then it is asked for a single byte instead
+        verify(1, getRequestedFor(urlEqualTo("/no-head")).withHeader("Range", equalTo("bytes=0-0")));
+        assertThat(graph.linkStatus(EXTERNAL_URL + "/no-head"), is(206));
+    }
+
+    @Test
+    public void recordsLinksThatCannotBeReached() throws Exception {
+        // Given a link to a port nobody listens on
+        Resource link = new Resource(new URL("http://127.0.0.1:1/"), "/");
+
+        // When it is checked
+        linkChecker.check(link);
+        assertThat(linkChecker.awaitChecked(15, TimeUnit.SECONDS), is(true));
+
+        // Then it is recorded as unreachable
+        assertThat(graph.linkStatus(link.getUrl().toString()), is(Graph.UNREACHABLE));
+        assertThat(metrics.getBrokenLinks(), is(1L));
+    }
+
+    @Test
+    public void recordsTheStatusOfExternalLinksFoundByACrawl() throws Exception {
+        // Given a page that links to a dead external page
+        stubURIWithContent("/", "<a href=\"" + EXTERNAL_URL + "/dead\">Dead</a>");
+        stubFor(head(urlEqualTo("/dead")).willReturn(aResponse().withStatus(404)));
+
+        // When the site is crawled with link checking
+        MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(
+                client,
+                "http://localhost:8080",
+                new ConcurrentFrontier(),
+                CrawlConfiguration.builder()
+                        .numberOfCrawlers(2)
+                        .addExternalLinks(true)
+                        .linkCheckClient(client)
+                        .build()
+        );
+        Graph crawled = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then the dead page is not crawled, but the edge to it carries its status
+        verify(0, getRequestedFor(urlEqualTo("/dead")));
+        assertThat(crawled.getVertices().get("/").getAdjacentVertices().contains(EXTERNAL_URL + "/dead"), is(true));
+        assertThat(crawled.linkStatus(EXTERNAL_URL + "/dead"), is(404));
+        assertThat(orchestrator.getMetrics().getBrokenLinks(), is(1L));
+    }
+
+    private static Resource externalResource(String path) throws MalformedURLException {
+        return new Resource(new URL(EXTERNAL_URL + path), path);
+    }
+}
@@ -0,0 +1,70 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.model.Graph;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class FingerprintIndexTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    private static final String ARTICLE = "<p>Monzo is a bank that lives on your phone. You can see where your money "
+            + "goes, split bills with friends, save into pots and get paid a day early.</p>";
+
+    @Test
+    public void findsFingerprintsWithinTheMaximumDistance() {
+        // Given a fingerprint
+        FingerprintIndex index = new FingerprintIndex();
+        long fingerprint = 0x5a5a_1234_9876_f0f0L;
+        assertThat(index.add(fingerprint), is(true));
+
+        // Then one that differs in a bit of every block is a near-duplicate, and one that differs in one more is not
+        assertThat(index.add(fingerprint ^ 0x0001_0001_0001_0000L), is(false));
+        assertThat(index.add(fingerprint ^ 0x0001_0001_0001_0001L), is(true));
+        assertThat(index.add(fingerprint), is(false));
+        assertThat(index.size(), is(2));
+    }
+
+    @Test
+    public void doesNotFollowTheLinksOfNearDuplicatePages() throws Exception {
+        // Given the same article under two session IDs, each linking on to more copies of itself
+        stubURIWithContent("/", "<a href=\"/article?sid=1\">Article</a><a href=\"/article?sid=2\">Article</a>");
+        stubURIWithContent("/article?sid=1", ARTICLE + "<p>Session 1</p><a href=\"/article?sid=3\">Again</a>");
+        stubURIWithContent("/article?sid=2", ARTICLE + "<p>Session 2</p><a href=\"/article?sid=4\">Again</a>");
+        stubURIWithContent("/article?sid=3", ARTICLE + "<p>Session 3</p><a href=\"/article?sid=5\">Again</a>");
+
+        // When it is crawled one page at a time, skipping near-duplicates
+        MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(
+                JerseyClientBuilder.createClient(),
+                HOST_URL,
+                new ConcurrentFrontier(),
+                CrawlConfiguration.builder()
+                        .numberOfCrawlers(1)
+                        .skipNearDuplicates(true)
+                        .build()
+        );
+        Graph graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then every copy found is crawled, but only the links of the first are followed
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/article?sid=1", "/article?sid=2", "/article?sid=3"))));
+        verify(0, getRequestedFor(urlEqualTo("/article?sid=4")));
+        verify(0, getRequestedFor(urlEqualTo("/article?sid=5")));
+        assertThat(orchestrator.getMetrics().getNearDuplicatePages(), is(2L));
+    }
+}
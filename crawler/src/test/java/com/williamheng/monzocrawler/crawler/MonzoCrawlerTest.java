@@ -14,11 +14,12 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.HashSet;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.nio.charset.StandardCharsets;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
@@ -37,20 +38,21 @@ public class MonzoCrawlerTest {
     private static String HOST_URL = "http://localhost:8080";
 
     private MonzoCrawler monzoCrawler;
-    private BlockingQueue<Resource> queue;
+    private Frontier frontier;
     private Graph graph;
 
     @Before
     public void setUp() throws Exception {
-        queue = new LinkedBlockingQueue<>();
+        frontier = new ConcurrentFrontier();
         graph = new Graph();
         monzoCrawler = MonzoCrawler.builder()
                 .client(JerseyClientBuilder.createClient())
-                .visitQueue(queue)
-                .synchronizedVisitedURLs(new HashSet<>())
-                .graph(graph)
-                .rootURL(new URL(HOST_URL))
-                .addExternalLinks(true)
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .addExternalLinks(true)
+                        .build())
                 .build();
     }
 
@@ -58,7 +60,7 @@ public class MonzoCrawlerTest {
     public void visitsRootURL() throws Exception {
         // Given a root URL to crawl
         stubURIWithContent("/", "Something");
-        queue.add(buildResourceForRelativePath("/", ""));
+        frontier.add(buildResourceForRelativePath("/", ""));
 
         // When crawlerOrchestrator is initiated
         monzoCrawler.run();
@@ -74,7 +76,7 @@ public class MonzoCrawlerTest {
         // Given that I have two pages linked to each other (thus creating a loop)
         stubURIWithContent("/", "<a href=\"/page\">Page</a>");
         stubURIWithContent("/page", "<a href=\"/\">Index</a>");
-        queue.add(buildResourceForRelativePath("/", ""));
+        frontier.add(buildResourceForRelativePath("/", ""));
 
         // When I crawl from the root URL
         monzoCrawler.run();
@@ -82,7 +84,7 @@ public class MonzoCrawlerTest {
         // Then I expect to not see the same URL crawled again
         verify(1, getRequestedFor(urlPathEqualTo("/")));
         verify(1, getRequestedFor(urlPathEqualTo("/page")));
-        assertThat(queue.size(), is(0));
+        assertThat(frontier.size(), is(0));
         assertThat(graph.getVertices().size(), is(2));
 
         Vertex rootVertex = graph.getVertices().get("/");
@@ -105,7 +107,7 @@ public class MonzoCrawlerTest {
                         aResponse().withStatus(404)
                 )
         );
-        queue.add(buildResourceForRelativePath("/", ""));
+        frontier.add(buildResourceForRelativePath("/", ""));
 
         // When crawler crawls
         monzoCrawler.run();
@@ -113,7 +115,7 @@ public class MonzoCrawlerTest {
         // Then I expect the crawler to ignore the error and continue on with other operations
         verify(1, getRequestedFor(urlPathEqualTo("/")));
         verify(1, getRequestedFor(urlPathEqualTo("/page")));
-        assertThat(queue.size(), is(0));
+        assertThat(frontier.size(), is(0));
         assertThat(graph.getVertices().size(), is(1));
     }
 
@@ -126,21 +128,25 @@ public class MonzoCrawlerTest {
         Client mockClient = Mockito.mock(Client.class);
         WebTarget mockWebTarget = Mockito.mock(WebTarget.class);
         Invocation.Builder mockBuilder = Mockito.mock(Invocation.Builder.class);
+        Response mockResponse = Mockito.mock(Response.class);
 
         when(mockClient.target(baseURL)).thenReturn(mockWebTarget);
         when(mockWebTarget.request(MediaType.TEXT_HTML)).thenReturn(mockBuilder);
-        when(mockBuilder.get(String.class)).thenReturn(baseURLContent);
+        when(mockBuilder.get()).thenReturn(mockResponse);
+        when(mockResponse.getStatus()).thenReturn(200);
+        when(mockResponse.readEntity(InputStream.class)).thenReturn(new ByteArrayInputStream(baseURLContent.getBytes(StandardCharsets.UTF_8)));
         monzoCrawler = MonzoCrawler.builder()
                 .client(mockClient)
-                .visitQueue(queue)
-                .synchronizedVisitedURLs(new HashSet<>())
-                .graph(graph)
-                .rootURL(new URL(HOST_URL))
-                .addExternalLinks(true)
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .addExternalLinks(true)
+                        .build())
                 .build();
 
         // And that the crawler is to crawl a page with an external link
-        queue.add(buildResourceForRelativePath("/", ""));
+        frontier.add(buildResourceForRelativePath("/", ""));
 
         // When crawler crawls
         monzoCrawler.run();
@@ -152,7 +158,7 @@ public class MonzoCrawlerTest {
         // And that
         assertThat(graph.getVertices().size(), is(1));
         assertThat(graph.getVertices().get("/").getAdjacentVertices().size(), is(1));
-        assertThat(graph.getVertices().get("/").getAdjacentVertices().contains("http://google.com"), is(true));
+        assertThat(graph.getVertices().get("/").getAdjacentVertices().contains("http://google.com/"), is(true));
     }
 
     @Test
@@ -160,15 +166,16 @@ public class MonzoCrawlerTest {
         // Given a crawler that does not add external links
         monzoCrawler = MonzoCrawler.builder()
                 .client(JerseyClientBuilder.createClient())
-                .visitQueue(queue)
-                .synchronizedVisitedURLs(new HashSet<>())
-                .graph(graph)
-                .rootURL(new URL(HOST_URL))
-                .addExternalLinks(false)
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .addExternalLinks(false)
+                        .build())
                 .build();
         stubURIWithContent("/", "<a href=\"/page1\">Page1</a><a href=\"http://google.com\">Google</a>");
         stubURIWithContent("/page1", "");
-        queue.add(buildResourceForRelativePath("/", ""));
+        frontier.add(buildResourceForRelativePath("/", ""));
 
         // When crawler crawls
         monzoCrawler.run();
@@ -176,7 +183,26 @@ public class MonzoCrawlerTest {
         // Then I expect the external link to not be added
         assertThat(graph.getVertices().size(), is(2));
         assertThat(graph.getVertices().get("/").getAdjacentVertices().size(), is(1));
-        assertThat(graph.getVertices().get("/").getAdjacentVertices().contains("http://google.com"), is(false));
+        assertThat(graph.getVertices().get("/").getAdjacentVertices().contains("http://google.com/"), is(false));
+    }
+
+
+    @Test
+    public void doesNotParsePagesThatAreNotHtml() throws Exception {
+        // Given a page that links to a PDF, which happens to contain something that looks like a link
+        stubURIWithContent("/", "<a href=\"/report.pdf\">Report</a>");
+        stubFor(get(urlEqualTo("/report.pdf")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/pdf")
+                .withBody("<a href=\"/hidden\">Hidden</a>")));
+        frontier.add(buildResourceForRelativePath("/", ""));
+
+        // When I crawl from the root URL
+        monzoCrawler.run();
+
+        // Then the PDF is part of the graph, but nothing is found inside it
+        verify(0, getRequestedFor(urlPathEqualTo("/hidden")));
+        assertThat(graph.getVertices().size(), is(2));
+        assertThat(graph.getVertices().get("/report.pdf").getAdjacentVertices().isEmpty(), is(true));
     }
 
     private static Resource buildResourceForRelativePath(String path, String title) throws MalformedURLException {
@@ -0,0 +1,85 @@
+package com.williamheng.monzocrawler.crawler;
+
+import org.apache.commons.io.IOUtils;
+import org.jsoup.nodes.Element;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class MonzoLinkExtractorTest {
+
+    @Test
+    public void extractsCorrectLinks() throws Exception {
+        List<String> hrefs = MonzoLinkExtractor.extract("<a href=\"1\">1</a>  <a href=\"2\">2</a>  <a>3</a>");
+
+        assertThat(hrefs, is(Arrays.asList("1", "2")));
+    }
+
+    @Test
+    public void returnsNothingIfNoLinks() throws Exception {
+        assertThat(MonzoLinkExtractor.extract("<p>Some text</p>").size(), is(0));
+    }
+
+    @Test
+    public void returnsNothingIfLinkIsNotValid() throws Exception {
+        assertThat(MonzoLinkExtractor.extract("<a>What is this</a>").size(), is(0));
+    }
+
+    @Test
+    public void handlesAttributeQuotingAndCase() throws Exception {
+        List<String> hrefs = MonzoLinkExtractor.extract(
+                "<A HREF='/single'></A><a class=\"x\" href=/unquoted>x</a><a\nhref = \"/spaced\" >x</a><abbr href=\"/no\">"
+        );
+
+        assertThat(hrefs, is(Arrays.asList("/single", "/unquoted", "/spaced")));
+    }
+
+    @Test
+    public void decodesEntities() throws Exception {
+        assertThat(MonzoLinkExtractor.extract("<a href=\"/search?a=1&amp;b=2\">x</a>"), is(Arrays.asList("/search?a=1&b=2")));
+    }
+
+    @Test
+    public void ignoresLinksInCommentsAndScripts() throws Exception {
+        List<String> hrefs = MonzoLinkExtractor.extract(
+                "<!-- <a href=\"/comment\"> -->" +
+                        "<script>document.write('<a href=\"/script\">');</script>" +
+                        "<style>a:after { content: '<a href=\"/style\">' }</style>" +
+                        "<a href=\"/real\">x</a>"
+        );
+
+        assertThat(hrefs, is(Arrays.asList("/real")));
+    }
+
+    @Test
+    public void readsFromStream() throws Exception {
+        InputStream inputStream = new ByteArrayInputStream("<a href=\"/café\">x</a>".getBytes(StandardCharsets.UTF_8));
+        List<String> hrefs = new ArrayList<>();
+
+        MonzoLinkExtractor.extract(inputStream, StandardCharsets.UTF_8, hrefs::add);
+
+        assertThat(hrefs, is(Arrays.asList("/café")));
+    }
+
+    @Test
+    public void findsSameLinksAsScraperForFixtures() throws Exception {
+        for (String fixture : Arrays.asList("index.html", "page2.html", "page3.html", "page4.html")) {
+            String HTML = IOUtils.toString(getClass().getResourceAsStream("/__files/" + fixture), StandardCharsets.UTF_8);
+
+            List<String> scrapedHrefs = MonzoHTMLScraper.scrape(HTML).stream()
+                    .map((Element e) -> e.attr("href"))
+                    .collect(Collectors.toList());
+
+            assertThat(MonzoLinkExtractor.extract(HTML), is(scrapedHrefs));
+        }
+    }
+}
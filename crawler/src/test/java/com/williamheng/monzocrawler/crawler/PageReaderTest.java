@@ -0,0 +1,146 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class PageReaderTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static String HOST_URL = "http://localhost:8080";
+    private static Charset ISO_8859_1 = StandardCharsets.ISO_8859_1;
+
+    private Client client;
+
+    @Before
+    public void setUp() {
+        client = JerseyClientBuilder.createClient();
+    }
+
+    @Test
+    public void skipsBodiesThatAreNotHtml() throws Exception {
+        // Given a page that is an image
+        stubFor(get(urlEqualTo("/image.png")).willReturn(aResponse()
+                .withHeader("Content-Type", "image/png")
+                .withBody(new byte[]{(byte) 0x89, 'P', 'N', 'G'})));
+
+        // When it is read
+        PageBuffer body = new PageReader(1024).read(fetch("/image.png"));
+
+        // Then its body is skipped
+        assertThat(body, nullValue());
+    }
+
+    @Test
+    public void readsBodiesWithoutAContentType() throws Exception {
+        // Given a page that does not say what it is
+        stubFor(get(urlEqualTo("/")).willReturn(aResponse().withBody("<a href=\"/page\">Page</a>")));
+
+        // When it is read
+        PageBuffer body = new PageReader(1024).read(fetch("/"));
+
+        // Then it is read as HTML
+        assertThat(body, notNullValue());
+        assertThat(links(body), is(List.of("/page")));
+    }
+
+    @Test
+    public void skipsBodiesLargerThanTheMaximumPageSize() throws Exception {
+        // Given a page of 2048 bytes, and another of exactly 1024 bytes
+        stubFor(get(urlEqualTo("/large")).willReturn(aResponse().withBody(new byte[2048])));
+        stubFor(get(urlEqualTo("/exact")).willReturn(aResponse().withBody(new byte[1024])));
+
+        // When they are read with a maximum page size of 1024 bytes
+        PageReader pageReader = new PageReader(1024);
+        PageBuffer large = pageReader.read(fetch("/large"));
+        PageBuffer exact = pageReader.read(fetch("/exact"));
+
+        // Then only the page that fits is read
+        assertThat(large, nullValue());
+        assertThat(exact.length(), is(1024));
+    }
+
+    @Test
+    public void reusesBuffers() throws Exception {
+        // Given a page that has been read, and whose buffer has been given back
+        stubFor(get(urlEqualTo("/")).willReturn(aResponse().withBody("<a href=\"/page\">Page</a>")));
+        PageReader pageReader = new PageReader(1024);
+        PageBuffer first = pageReader.read(fetch("/"));
+        pageReader.release(first);
+
+        // When another page is read
+        PageBuffer second = pageReader.read(fetch("/"));
+
+        // Then it is read into the same buffer
+        assertThat(second == first, is(true));
+    }
+
+    @Test
+    public void readsPagesInTheCharsetTheyDeclare() throws Exception {
+        // Given pages encoded in ISO-8859-1, saying so in a meta tag, in a header and not at all
+        byte[] page = "<meta charset=\"iso-8859-1\"><a href=\"/café\">Café</a>".getBytes(ISO_8859_1);
+        byte[] undeclared = "<a href=\"/café\">Café</a>".getBytes(ISO_8859_1);
+        stubFor(get(urlEqualTo("/meta")).willReturn(aResponse().withBody(page)));
+        stubFor(get(urlEqualTo("/header")).willReturn(aResponse()
+                .withHeader("Content-Type", "text/html; charset=ISO-8859-1")
+                .withBody(undeclared)));
+
+        // When they are read
+        PageReader pageReader = new PageReader(1024);
+        PageBuffer meta = pageReader.read(fetch("/meta"));
+        PageBuffer header = pageReader.read(fetch("/header"));
+
+        // Then their links are decoded with the charset they declare
+        assertThat(meta.getCharset(), is(ISO_8859_1));
+        assertThat(links(meta), is(List.of("/café")));
+        assertThat(header.getCharset(), is(ISO_8859_1));
+        assertThat(links(header), is(List.of("/café")));
+    }
+
+    @Test
+    public void detectsCharsets() throws Exception {
+        // Given a page starting with a UTF-16 byte order mark, one declaring a charset with http-equiv, and one with
+        // a charset that does not exist
+        ByteArrayOutputStream bom = new ByteArrayOutputStream();
+        bom.write(new byte[]{(byte) 0xFE, (byte) 0xFF});
+        bom.write("<a href=\"/\">".getBytes(StandardCharsets.UTF_16BE));
+        byte[] httpEquiv = "<meta http-equiv=\"Content-Type\" content=\"text/html; charset=windows-1252\">".getBytes(ISO_8859_1);
+        byte[] unknown = "<meta charset=\"made-up\">".getBytes(ISO_8859_1);
+
+        // When their charsets are detected
+        // Then the byte order mark wins over the header, and anything unknown falls back to UTF-8
+        assertThat(CharsetDetector.detect(bom.toByteArray(), bom.size(), ISO_8859_1), is(StandardCharsets.UTF_16BE));
+        assertThat(CharsetDetector.detect(httpEquiv, httpEquiv.length, null), is(Charset.forName("windows-1252")));
+        assertThat(CharsetDetector.detect(unknown, unknown.length, null), is(StandardCharsets.UTF_8));
+        assertThat(CharsetDetector.contentTypeCharset("text/html"), nullValue());
+    }
+
+    private Response fetch(String path) {
+        return client.target(HOST_URL + path).request().get();
+    }
+
+    private static List<String> links(PageBuffer body) throws Exception {
+        List<String> hrefs = new ArrayList<>();
+        MonzoLinkExtractor.extract(body.inputStream(), body.getCharset(), hrefs::add);
+        return hrefs;
+    }
+}
@@ -0,0 +1,106 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.metrics.CrawlMetrics;
+import com.williamheng.monzocrawler.metrics.StageMetrics;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithFilename;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class PipelinedMonzoCrawlerTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    private Frontier frontier;
+    private Graph graph;
+    private CrawlMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        frontier = new ConcurrentFrontier();
+        graph = new Graph();
+        metrics = new CrawlMetrics();
+    }
+
+    @Test
+    public void crawlsEveryLinkedPageOnceThroughEveryStage() throws Exception {
+        // Given a small site
+        stubURIWithFilename("/", "index.html");
+        stubURIWithFilename("/page2", "page2.html");
+        stubURIWithFilename("/page3", "page3.html");
+        stubURIWithFilename("/page4", "page4.html");
+        frontier.add(buildResourceForRelativePath("/"));
+
+        // When it is crawled in a pipeline
+        crawler(4, 2, 1).run();
+
+        // Then every page is fetched exactly once and parsed into the graph
+        verify(1, getRequestedFor(urlEqualTo("/")));
+        verify(1, getRequestedFor(urlEqualTo("/page2")));
+        verify(1, getRequestedFor(urlEqualTo("/page3")));
+        verify(1, getRequestedFor(urlEqualTo("/page4")));
+        assertThat(graph.getVertices().size(), is(4));
+
+        // And every page went through every stage, leaving none waiting
+        for (StageMetrics stage : metrics.getStages()) {
+            assertThat(stage.getName(), stage.getItems(), is(4L));
+            assertThat(stage.getName(), stage.getQueueSize(), is(0));
+        }
+        assertThat(metrics.getStageQueueSizes().keySet(), is(new HashSet<>(Arrays.asList("fetch", "parse", "insert"))));
+    }
+
+    @Test
+    public void finishesWhenPagesCannotBeFetched() throws Exception {
+        // Given a root page linking to one page that exists and two that do not
+        stubURIWithContent("/", "<a href=\"/found\"></a><a href=\"/missing\"></a><a href=\"/broken\"></a>");
+        stubURIWithContent("/found", "<p>Found</p>");
+        stubFor(get(urlEqualTo("/missing")).willReturn(aResponse().withStatus(404)));
+        stubFor(get(urlEqualTo("/broken")).willReturn(aResponse().withStatus(500)));
+        frontier.add(buildResourceForRelativePath("/"));
+
+        // When it is crawled with a single page allowed between stages
+        crawler(2, 1, 1).run();
+
+        // Then the crawl ends with only the pages that could be fetched in the graph
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/found"))));
+        assertThat(metrics.getStages().get(0).getItems(), is(4L));
+        assertThat(metrics.getStages().get(2).getItems(), is(2L));
+    }
+
+    private PipelinedMonzoCrawler crawler(int fetchThreads, int parseThreads, int queueCapacity) throws MalformedURLException {
+        return PipelinedMonzoCrawler.builder()
+                .client(JerseyClientBuilder.createClient())
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .metrics(metrics)
+                        .build())
+                .fetchThreads(fetchThreads)
+                .parseThreads(parseThreads)
+                .queueCapacity(queueCapacity)
+                .build();
+    }
+
+    private static Resource buildResourceForRelativePath(String path) throws MalformedURLException {
+        return new Resource(new URL(String.format("%s%s", HOST_URL, path)), path);
+    }
+}
@@ -0,0 +1,148 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class PoliteFrontierTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    @Test
+    public void admitsResourceOnlyOnce() throws Exception {
+        Frontier frontier = new PoliteFrontier(Double.POSITIVE_INFINITY, 1);
+
+        assertThat(frontier.add(resource("http://a.com/page")), is(true));
+        assertThat(frontier.add(resource("http://a.com/page")), is(false));
+        assertThat(frontier.size(), is(1));
+    }
+
+    @Test
+    public void handsOutResourcesFromReadyHostFirst() throws Exception {
+        // Given a host that can only take one request at a time, with one request already in flight
+        Frontier frontier = new PoliteFrontier(Double.POSITIVE_INFINITY, 1);
+        frontier.add(resource("http://a.com/1"));
+        frontier.add(resource("http://a.com/2"));
+        frontier.add(resource("http://b.com/1"));
+        Resource inFlight = frontier.poll(0, TimeUnit.SECONDS);
+
+        // Then the next resource comes from the other host instead of waiting
+        assertThat(inFlight.getUrl().getHost(), is("a.com"));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().getHost(), is("b.com"));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+
+        // And the busy host is ready again once its request finishes
+        frontier.release(inFlight);
+        assertThat(frontier.poll(0, TimeUnit.SECONDS).getUrl().toString(), is("http://a.com/2"));
+    }
+
+    @Test
+    public void limitsRequestRatePerHost() throws Exception {
+        // Given a host that can be fetched from twice a second
+        Frontier frontier = new PoliteFrontier(2, Integer.MAX_VALUE);
+        frontier.add(resource("http://a.com/1"));
+        frontier.add(resource("http://a.com/2"));
+
+        // When both of its resources are taken
+        long start = System.nanoTime();
+        frontier.poll(0, TimeUnit.SECONDS);
+        assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+        frontier.poll(1, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then the second one is only handed out after half a second
+        assertThat(elapsedMillis >= 450, is(true));
+        assertThat(frontier.isEmpty(), is(true));
+    }
+
+    @Test
+    public void givesUpRetryingAfterMaxRetries() throws Exception {
+        Frontier frontier = new PoliteFrontier(Double.POSITIVE_INFINITY, 1, 1);
+        Resource resource = resource("http://a.com/1");
+        frontier.add(resource);
+
+        assertThat(frontier.retry(frontier.poll(0, TimeUnit.SECONDS), 0), is(true));
+        frontier.release(resource);
+        assertThat(frontier.retry(frontier.poll(1, TimeUnit.SECONDS), 0), is(false));
+    }
+
+    @Test
+    public void retriesThrottledResourceAfterRetryAfter() throws Exception {
+        // Given a page that is throttled the first time it is requested
+        stubFor(get(urlEqualTo("/")).inScenario("throttled").whenScenarioStateIs(STARTED)
+                .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "1"))
+                .willSetStateTo("recovered"));
+        stubFor(get(urlEqualTo("/")).inScenario("throttled").whenScenarioStateIs("recovered")
+                .willReturn(aResponse().withBody("<a href=\"/page\">Page</a>")));
+        stubURIWithContent("/page", "");
+        Frontier frontier = new PoliteFrontier(Double.POSITIVE_INFINITY, 2);
+        frontier.add(resource(HOST_URL + "/"));
+        Graph graph = new Graph();
+
+        // When it is crawled
+        long start = System.nanoTime();
+        MonzoCrawler.builder()
+                .client(JerseyClientBuilder.createClient())
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .build())
+                .build()
+                .run();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then it is retried after the server's delay and the crawl carries on
+        verify(2, getRequestedFor(urlEqualTo("/")));
+        verify(1, getRequestedFor(urlEqualTo("/page")));
+        assertThat(graph.getVertices().size(), is(2));
+        assertThat(elapsedMillis >= 1000, is(true));
+    }
+
+    @Test
+    public void doesNotRetryForeverWhenAlwaysThrottled() throws Exception {
+        // Given a page that is always throttled
+        stubFor(get(urlEqualTo("/")).willReturn(aResponse().withStatus(429).withHeader("Retry-After", "0")));
+        Frontier frontier = new PoliteFrontier(Double.POSITIVE_INFINITY, 1, 2);
+        frontier.add(resource(HOST_URL + "/"));
+        Graph graph = new Graph();
+
+        // When it is crawled
+        MonzoCrawler.builder()
+                .client(JerseyClientBuilder.createClient())
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .build())
+                .build()
+                .run();
+
+        // Then the crawler gives up after the maximum number of retries
+        verify(3, getRequestedFor(urlEqualTo("/")));
+        assertThat(graph.getVertices().size(), is(0));
+    }
+
+    private static Resource resource(String url) throws MalformedURLException {
+        URL resourceURL = new URL(url);
+        return new Resource(resourceURL, resourceURL.getPath());
+    }
+}
@@ -0,0 +1,155 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.williamheng.monzocrawler.model.Resource;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class PriorityFrontierTest {
+
+    @Test
+    public void admitsResourceOnlyOnce() throws Exception {
+        Frontier frontier = new PriorityFrontier();
+
+        assertThat(frontier.add(resource("/page", 1)), is(true));
+        assertThat(frontier.add(resource("/page", 1)), is(false));
+        assertThat(frontier.size(), is(1));
+
+        frontier.poll(0, TimeUnit.SECONDS);
+        assertThat(frontier.add(resource("/page", 1)), is(false));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+    }
+
+    @Test
+    public void handsOutShallowResourcesFirst() throws Exception {
+        // Given resources found deep in pagination before ones close to the root
+        Frontier frontier = new PriorityFrontier();
+        frontier.add(resource("/page/9", 9));
+        frontier.add(resource("/page/8", 8));
+        frontier.add(resource("/about", 1));
+        frontier.add(resource("/contact", 1));
+
+        // Then the shallow ones come first, in the order they were found
+        assertThat(pollPath(frontier), is("/about"));
+        assertThat(pollPath(frontier), is("/contact"));
+        assertThat(pollPath(frontier), is("/page/8"));
+        assertThat(pollPath(frontier), is("/page/9"));
+    }
+
+    @Test
+    public void movesResourcesUpAsMorePagesLinkToThem() throws Exception {
+        // Given two resources at the same depth
+        Frontier frontier = new PriorityFrontier();
+        frontier.add(resource("/rarely-linked", 2));
+        frontier.add(resource("/popular", 2));
+
+        // When other pages link to the second one
+        frontier.add(resource("/popular", 3));
+        frontier.add(resource("/popular", 2));
+
+        // Then it comes first
+        assertThat(pollPath(frontier), is("/popular"));
+        assertThat(pollPath(frontier), is("/rarely-linked"));
+    }
+
+    @Test
+    public void weighsResourcesByTheirPath() throws Exception {
+        // Given pagination that is worth less than anything else
+        Frontier frontier = new PriorityFrontier(100, Collections.singletonList(PriorityFrontier.PathWeight.parse("^/page/\\d+=0.1")));
+        frontier.add(resource("/page/2", 1));
+        frontier.add(resource("/blog/post", 3));
+
+        // Then a deeper page comes before it
+        assertThat(pollPath(frontier), is("/blog/post"));
+        assertThat(pollPath(frontier), is("/page/2"));
+    }
+
+    @Test
+    public void dropsTheLeastImportantResourcesOnceFull() throws Exception {
+        // Given a frontier that only has room for a few resources
+        Frontier frontier = new PriorityFrontier(3, Collections.emptyList());
+        for (int depth = 1; depth <= 3; depth++) {
+            assertThat(frontier.add(resource("/same", depth, "?depth=" + depth)), is(true));
+        }
+
+        // When a more important resource is found
+        assertThat(frontier.add(resource("/same", 0, "?depth=0")), is(true));
+
+        // Then it takes the place of the least important one, which is counted as evicted, and the frontier stays the same size
+        assertThat(frontier.drainEvicted(), is(1));
+        assertThat(frontier.drainEvicted(), is(0));
+        assertThat(frontier.size(), is(3));
+        Set<String> polled = new HashSet<>();
+        for (int i = 0; i < 3; i++) polled.add(frontier.poll(0, TimeUnit.SECONDS).getUrl().getFile());
+        assertThat(polled, is(new HashSet<>(Arrays.asList("/same?depth=0", "/same?depth=1", "/same?depth=2"))));
+        assertThat(frontier.poll(0, TimeUnit.SECONDS), nullValue());
+
+        // And the dropped resource can be admitted again
+        assertThat(frontier.add(resource("/same", 3, "?depth=3")), is(true));
+    }
+
+    @Test
+    public void handsOutEveryResourceOnceFromManyThreads() throws Exception {
+        // Given many threads adding overlapping resources and taking them out
+        PriorityFrontier frontier = new PriorityFrontier();
+        int numberOfResources = 5000;
+        AtomicInteger polled = new AtomicInteger();
+        Set<String> seen = Collections.synchronizedSet(new HashSet<>());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 4; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < numberOfResources; i++) frontier.add(resource("/page/" + i, i % 7));
+                return null;
+            });
+            executor.submit(() -> {
+                Resource resource;
+                while ((resource = frontier.poll(500, TimeUnit.MILLISECONDS)) != null) {
+                    polled.incrementAndGet();
+                    seen.add(resource.getUrl().getFile());
+                }
+                return null;
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS), is(true));
+
+        // Then every resource was handed out exactly once
+        assertThat(polled.get(), is(numberOfResources));
+        assertThat(seen.size(), is(numberOfResources));
+        assertThat(frontier.size(), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPathWeights() {
+        PriorityFrontier.PathWeight.parse("/page=0");
+    }
+
+    private static String pollPath(Frontier frontier) throws InterruptedException {
+        return frontier.poll(0, TimeUnit.SECONDS).getUrl().getFile();
+    }
+
+    private static Resource resource(String path, int depth) {
+        return resource(path, depth, "");
+    }
+
+    private static Resource resource(String path, int depth, String query) {
+        try {
+            return new Resource(new URL("http://localhost:8080" + path + query), path).atDepth(depth);
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class RobotsCacheTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    @Test
+    public void fetchesRobotsTxtOncePerHost() throws Exception {
+        // Given a host with a robots.txt
+        stubURIWithContent("/robots.txt", "User-agent: *\nDisallow: /private\n");
+        RobotsCache robots = new RobotsCache(JerseyClientBuilder.createClient());
+
+        // When several of its URLs are checked
+        boolean isPublicAllowed = robots.isAllowed(resource("/public"));
+        boolean isPrivateAllowed = robots.isAllowed(resource("/private/page"));
+        robots.isAllowed(resource("/public/again"));
+
+        // Then robots.txt is only fetched once
+        assertThat(isPublicAllowed, is(true));
+        assertThat(isPrivateAllowed, is(false));
+        verify(1, getRequestedFor(urlEqualTo("/robots.txt")));
+    }
+
+    @Test
+    public void allowsEverythingWhenThereIsNoRobotsTxt() throws Exception {
+        // Given a host without a robots.txt
+        stubFor(get(urlEqualTo("/robots.txt")).willReturn(aResponse().withStatus(404)));
+
+        // Then every path is allowed
+        assertThat(new RobotsCache(JerseyClientBuilder.createClient()).isAllowed(resource("/anything")), is(true));
+    }
+
+    @Test
+    public void disallowsEverythingWhenRobotsTxtFails() throws Exception {
+        // Given a host whose robots.txt fails
+        stubFor(get(urlEqualTo("/robots.txt")).willReturn(aResponse().withStatus(503)));
+
+        // Then no path is allowed
+        assertThat(new RobotsCache(JerseyClientBuilder.createClient()).isAllowed(resource("/anything")), is(false));
+    }
+
+    @Test
+    public void doesNotQueueLinksRobotsTxtDisallows() throws Exception {
+        // Given a site that disallows part of itself
+        stubURIWithContent("/robots.txt", "User-agent: *\nDisallow: /private\n");
+        stubURIWithContent("/", "<a href=\"/about\">About</a><a href=\"/private/account\">Account</a>");
+        stubURIWithContent("/about", "<a href=\"/\">Home</a>");
+        stubURIWithContent("/private/account", "<a href=\"/\">Home</a>");
+
+        // When it is crawled
+        Graph graph = crawl(CrawlConfiguration.builder().numberOfCrawlers(2).respectRobots(true).build());
+
+        // Then the disallowed page is linked to but never fetched
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/about"))));
+        assertThat(graph.getVertices().get("/").getAdjacentVertices().contains("/private/account"), is(true));
+        verify(0, getRequestedFor(urlEqualTo("/private/account")));
+        verify(1, getRequestedFor(urlEqualTo("/robots.txt")));
+    }
+
+    @Test
+    public void crawlsDisallowedLinksWhenToldToIgnoreRobotsTxt() throws Exception {
+        // Given a site that disallows part of itself
+        stubURIWithContent("/robots.txt", "User-agent: *\nDisallow: /private\n");
+        stubURIWithContent("/", "<a href=\"/private/account\">Account</a>");
+        stubURIWithContent("/private/account", "<a href=\"/\">Home</a>");
+
+        // When it is crawled ignoring robots.txt
+        Graph graph = crawl(CrawlConfiguration.builder().numberOfCrawlers(2).respectRobots(false).build());
+
+        // Then every page is crawled, and robots.txt is never asked for
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/private/account"))));
+        verify(0, getRequestedFor(urlEqualTo("/robots.txt")));
+    }
+
+    @Test
+    public void slowsAHostDownToItsCrawlDelay() throws Exception {
+        // Given a site of three pages that asks for half a second between requests
+        stubURIWithContent("/robots.txt", "User-agent: *\nCrawl-delay: 0.5\n");
+        stubURIWithContent("/", "<a href=\"/a\">A</a><a href=\"/b\">B</a>");
+        stubURIWithContent("/a", "<a href=\"/\">Home</a>");
+        stubURIWithContent("/b", "<a href=\"/\">Home</a>");
+
+        // When it is crawled with a frontier that would otherwise fetch from it as fast as it can
+        Graph graph = crawl(new PoliteFrontier(Double.POSITIVE_INFINITY, Integer.MAX_VALUE),
+                CrawlConfiguration.builder().numberOfCrawlers(3).respectRobots(true).build());
+
+        // Then every page is crawled, but each one after the first waits for the crawl delay
+        assertThat(graph.getVertices().size(), is(3));
+        List<Long> fetchedMillis = findAll(getRequestedFor(urlMatching("/[ab]?"))).stream()
+                .map(request -> request.getLoggedDate().getTime())
+                .sorted()
+                .collect(Collectors.toList());
+        assertThat(fetchedMillis.get(1) - fetchedMillis.get(0) >= 450, is(true));
+        assertThat(fetchedMillis.get(2) - fetchedMillis.get(1) >= 450, is(true));
+    }
+
+    private static Graph crawl(CrawlConfiguration configuration) throws Exception {
+        return crawl(new ConcurrentFrontier(), configuration);
+    }
+
+    private static Graph crawl(Frontier frontier, CrawlConfiguration configuration) throws Exception {
+        Client client = JerseyClientBuilder.createClient();
+        MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(client, HOST_URL, frontier, configuration);
+        Graph graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+        return graph;
+    }
+
+    private static Resource resource(String path) throws Exception {
+        return new Resource(new URL(HOST_URL + path), path);
+    }
+}
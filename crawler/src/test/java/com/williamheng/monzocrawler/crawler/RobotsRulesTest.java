@@ -0,0 +1,113 @@
+package com.williamheng.monzocrawler.crawler;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class RobotsRulesTest {
+
+    @Test
+    public void disallowsPathsStartingWithADisallowedPrefix() {
+        // Given rules for every crawler
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /private\n");
+
+        // Then paths under the prefix are disallowed and every other path is allowed
+        assertThat(rules.isAllowed("/private"), is(false));
+        assertThat(rules.isAllowed("/private/account?id=1"), is(false));
+        assertThat(rules.isAllowed("/privacy"), is(true));
+        assertThat(rules.isAllowed("/"), is(true));
+    }
+
+    @Test
+    public void theLongestMatchingRuleWinsAndAllowWinsTies() {
+        // Given an allowed path inside a disallowed one, and a path both allowed and disallowed
+        RobotsRules rules = RobotsRules.parse("User-agent: *\n"
+                + "Disallow: /blog\n"
+                + "Allow: /blog/public\n"
+                + "Disallow: /same\n"
+                + "Allow: /same\n");
+
+        // Then the more specific rule applies
+        assertThat(rules.isAllowed("/blog/draft"), is(false));
+        assertThat(rules.isAllowed("/blog/public/post"), is(true));
+        assertThat(rules.isAllowed("/same/page"), is(true));
+    }
+
+    @Test
+    public void matchesWildcardsAndEndAnchors() {
+        // Given rules with wildcards and an end anchor
+        RobotsRules rules = RobotsRules.parse("User-agent: *\n"
+                + "Disallow: /*.pdf$\n"
+                + "Disallow: /search*q=\n"
+                + "Disallow: /exact$\n");
+
+        // Then wildcards match any run of characters, and anchored rules only match whole paths
+        assertThat(rules.isAllowed("/docs/statement.pdf"), is(false));
+        assertThat(rules.isAllowed("/docs/statement.pdf?download=1"), is(true));
+        assertThat(rules.isAllowed("/search?lang=en&q=monzo"), is(false));
+        assertThat(rules.isAllowed("/search"), is(true));
+        assertThat(rules.isAllowed("/exact"), is(false));
+        assertThat(rules.isAllowed("/exact/more"), is(true));
+    }
+
+    @Test(timeout = 5000)
+    public void matchesPatternsFullOfWildcardsQuickly() {
+        // Given a rule with many wildcards, and a long path that almost matches it in a great many ways
+        RobotsRules rules = RobotsRules.parse("User-agent: *\nDisallow: /*a*a*a*a*a*a*a*a*a*a*a*a*b\n");
+        String path = "/" + "a".repeat(500);
+
+        // Then matching it does not try every one of those ways
+        assertThat(rules.isAllowed(path), is(true));
+        assertThat(rules.isAllowed(path + "b"), is(false));
+    }
+
+    @Test
+    public void followsTheGroupForThisCrawlerOverTheGroupForEveryCrawler() {
+        // Given a group for this crawler, shared with another, and one for every crawler
+        RobotsRules rules = RobotsRules.parse("# Rules\n"
+                + "User-agent: *\n"
+                + "Disallow: /\n"
+                + "\n"
+                + "User-agent: OtherBot\n"
+                + "User-agent: MonzoCrawler\n"
+                + "Disallow: /admin # not for crawlers\n"
+                + "Disallow:\n"
+                + "\n"
+                + "Sitemap: http://localhost:8080/sitemap.xml\n");
+
+        // Then only this crawler's group applies, and sitemaps are listed whatever the group
+        assertThat(rules.isAllowed("/about"), is(true));
+        assertThat(rules.isAllowed("/admin/users"), is(false));
+        assertThat(rules.getSitemaps(), is(Arrays.asList("http://localhost:8080/sitemap.xml")));
+    }
+
+    @Test
+    public void readsTheCrawlDelayOfTheGroupThatApplies() {
+        // Given a crawl delay for every crawler, and a group for this crawler with one of its own
+        RobotsRules rules = RobotsRules.parse("User-agent: *\n"
+                + "Crawl-delay: 10\n"
+                + "\n"
+                + "User-agent: MonzoCrawler\n"
+                + "Crawl-delay: 1.5\n");
+
+        // Then this crawler's delay applies, and a group that only sets a delay still replaces the one for "*"
+        assertThat(rules.getCrawlDelayMillis(), is(1500L));
+        assertThat(RobotsRules.parse("User-agent: *\nCrawl-delay: 2\nDisallow: /private\n").getCrawlDelayMillis(), is(2000L));
+        assertThat(RobotsRules.parse("User-agent: *\nCrawl-delay: soon\n").getCrawlDelayMillis(), is(0L));
+        assertThat(RobotsRules.parse("User-agent: *\nDisallow: /\nUser-agent: MonzoCrawler\nCrawl-delay: 1\n").isAllowed("/"), is(true));
+    }
+
+    @Test
+    public void allowsEverythingWithoutRulesForThisCrawler() {
+        // Given rules for another crawler only
+        RobotsRules rules = RobotsRules.parse("User-agent: OtherBot\nDisallow: /\n");
+
+        // Then every path is allowed
+        assertThat(rules.isAllowed("/"), is(true));
+        assertThat(RobotsRules.ALLOW_ALL.isAllowed("/anything"), is(true));
+        assertThat(RobotsRules.DISALLOW_ALL.isAllowed("/anything"), is(false));
+    }
+}
@@ -0,0 +1,69 @@
+package com.williamheng.monzocrawler.crawler;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class SimHashTest {
+
+    private static final String ARTICLE = "Monzo is a bank that lives on your phone. You can see where your money goes, "
+            + "split bills with friends, save into pots and get paid a day early. Sign up in minutes with just your ID "
+            + "and a short video of yourself, and your card arrives in a few days.";
+
+    @Test
+    public void givesPagesWithAlmostTheSameTextAlmostTheSameFingerprint() {
+        // Given the same article with a session ID and a date in it
+        long original = fingerprint(ARTICLE + " Session 9f8e7d6c, 1 May 2024");
+        long variant = fingerprint(ARTICLE + " Session 1a2b3c4d, 2 May 2024");
+
+        // Then their fingerprints differ in only a few bits
+        assertThat(SimHash.distance(original, variant) <= FingerprintIndex.MAX_DISTANCE, is(true));
+    }
+
+    @Test
+    public void givesDifferentPagesDifferentFingerprints() {
+        // Given two unrelated articles
+        long article = fingerprint(ARTICLE);
+        long other = fingerprint("Our careers page lists every open role in engineering, design, operations and "
+                + "customer support, along with how we interview, what we pay and where our offices are.");
+
+        // Then their fingerprints are far apart
+        assertThat(SimHash.distance(article, other) > FingerprintIndex.MAX_DISTANCE, is(true));
+    }
+
+    @Test
+    public void ignoresCasePunctuationAndMarkup() throws Exception {
+        // Given the same text in another case, with other punctuation, and inside markup next to a script
+        long plain = fingerprint("pay your friends back in seconds with a link that works with any bank");
+        String page = "<p>Pay your <b>friends</b> back</p><p>in seconds, with a <a href=\"/link\">LINK</a></p>"
+                + "<script>var ignored = true;</script><p>that works with any bank!</p>";
+
+        // When the page's links are extracted
+        SimHash markedUp = new SimHash();
+        MonzoLinkExtractor.extract(new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, href -> { }, markedUp);
+
+        // Then its fingerprint is that of the plain text
+        assertThat(markedUp.value(), is(plain));
+    }
+
+    @Test
+    public void doesNotFingerprintPagesWithTooLittleText() {
+        // Given a page of a few words
+        SimHash fingerprint = new SimHash();
+        fingerprint.accept("Moved permanently");
+
+        // Then it has too little text to compare
+        assertThat(fingerprint.hasEnoughText(), is(false));
+    }
+
+    private static long fingerprint(String text) {
+        SimHash fingerprint = new SimHash();
+        fingerprint.accept(text);
+        assertThat(fingerprint.hasEnoughText(), is(true));
+        return fingerprint.value();
+    }
+}
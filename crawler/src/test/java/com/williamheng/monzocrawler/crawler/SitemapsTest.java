@@ -0,0 +1,115 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.model.Graph;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class SitemapsTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    @Test
+    public void readsEveryURLOfAGzippedSitemapIndex() throws Exception {
+        // Given a gzipped sitemap index that lists a plain sitemap, a gzipped one and itself
+        stubGzipped("/sitemap-index.xml.gz", sitemapIndex("/sitemap-1.xml", "/sitemap-2.xml.gz", "/sitemap-index.xml.gz"));
+        stubURIWithContent("/sitemap-1.xml", urlSet("/a", "/b"));
+        stubGzipped("/sitemap-2.xml.gz", urlSet("/c"));
+
+        // When it is read
+        List<String> pages = new ArrayList<>();
+        int sitemaps = new Sitemaps(JerseyClientBuilder.createClient())
+                .read(Collections.singletonList(HOST_URL + "/sitemap-index.xml.gz"), url -> pages.add(url.getPath()));
+
+        // Then every page of every sitemap is read, and each sitemap only once
+        assertThat(pages, is(Arrays.asList("/a", "/b", "/c")));
+        assertThat(sitemaps, is(3));
+        verify(1, getRequestedFor(urlEqualTo("/sitemap-index.xml.gz")));
+    }
+
+    @Test
+    public void skipsSitemapsThatCannotBeRead() throws Exception {
+        // Given an index listing a missing sitemap and a broken one before a good one
+        stubURIWithContent("/sitemap.xml", sitemapIndex("/missing.xml", "/broken.xml", "/good.xml"));
+        stubFor(get(urlEqualTo("/missing.xml")).willReturn(aResponse().withStatus(404)));
+        stubURIWithContent("/broken.xml", "<urlset><url><loc>" + HOST_URL + "/before</loc></url><url><loc>");
+        stubURIWithContent("/good.xml", urlSet("/good"));
+
+        // When it is read
+        List<URL> pages = new ArrayList<>();
+        new Sitemaps(JerseyClientBuilder.createClient()).read(Collections.singletonList(HOST_URL + "/sitemap.xml"), pages::add);
+
+        // Then the URLs read before the broken sitemap broke are kept, and the good sitemap is still read
+        assertThat(pages, is(Arrays.asList(new URL(HOST_URL + "/before"), new URL(HOST_URL + "/good"))));
+    }
+
+    @Test
+    public void seedsTheFrontierWithTheSitemapsRobotsTxtLists() throws Exception {
+        // Given a root that links to nothing, and a sitemap robots.txt lists with pages both allowed and disallowed
+        stubURIWithContent("/robots.txt", "User-agent: *\nDisallow: /private\nSitemap: " + HOST_URL + "/sitemap-index.xml.gz\n");
+        stubGzipped("/sitemap-index.xml.gz", sitemapIndex("/sitemap-1.xml"));
+        stubURIWithContent("/sitemap-1.xml", urlSet("/", "/orphan", "/private/page"));
+        stubURIWithContent("/", "<p>Nothing to see</p>");
+        stubURIWithContent("/orphan", "<a href=\"/linked\">Linked</a>");
+        stubURIWithContent("/linked", "<a href=\"/\">Home</a>");
+
+        // When it is crawled using sitemaps
+        Client client = JerseyClientBuilder.createClient();
+        MonzoCrawlerOrchestrator orchestrator = new MonzoCrawlerOrchestrator(client, HOST_URL, new ConcurrentFrontier(),
+                CrawlConfiguration.builder().numberOfCrawlers(2).respectRobots(true).useSitemaps(true).build());
+        Graph graph = orchestrator.initCrawlOperation().get(10, TimeUnit.SECONDS);
+        orchestrator.shutdown();
+
+        // Then pages no link leads to are crawled from the sitemap, except those robots.txt disallows
+        assertThat(graph.getVertices().keySet(), is(new HashSet<>(Arrays.asList("/", "/orphan", "/linked"))));
+        verify(0, getRequestedFor(urlEqualTo("/private/page")));
+        assertThat(orchestrator.getMetrics().getSitemapURLs(), is(1L));
+        assertThat(orchestrator.getMetrics().getLinksDisallowed(), is(1L));
+    }
+
+    private static String urlSet(String... paths) {
+        StringBuilder sitemap = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<urlset xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+        for (String path : paths) sitemap.append("  <url><loc>").append(HOST_URL).append(path).append("</loc><priority>0.5</priority></url>\n");
+        return sitemap.append("</urlset>\n").toString();
+    }
+
+    private static String sitemapIndex(String... paths) {
+        StringBuilder index = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<sitemapindex xmlns=\"http://www.sitemaps.org/schemas/sitemap/0.9\">\n");
+        for (String path : paths) index.append("  <sitemap><loc>").append(HOST_URL).append(path).append("</loc></sitemap>\n");
+        return index.append("</sitemapindex>\n").toString();
+    }
+
+    private static void stubGzipped(String path, String content) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        stubFor(get(urlEqualTo(path)).willReturn(aResponse()
+                .withHeader("Content-Type", "application/gzip")
+                .withBody(bytes.toByteArray())));
+    }
+}
@@ -0,0 +1,92 @@
+package com.williamheng.monzocrawler.crawler;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithFilename;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class VirtualThreadMonzoCrawlerTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    private static String HOST_URL = "http://localhost:8080";
+
+    private Frontier frontier;
+    private Graph graph;
+
+    @Before
+    public void setUp() throws Exception {
+        frontier = new ConcurrentFrontier();
+        graph = new Graph();
+    }
+
+    @Test
+    public void crawlsEveryLinkedPageOnce() throws Exception {
+        // Given a small site
+        stubURIWithFilename("/", "index.html");
+        stubURIWithFilename("/page2", "page2.html");
+        stubURIWithFilename("/page3", "page3.html");
+        stubURIWithFilename("/page4", "page4.html");
+        frontier.add(buildResourceForRelativePath("/"));
+
+        // When it is crawled on virtual threads
+        crawler(16).run();
+
+        // Then every page is fetched exactly once and parsed into the graph
+        verify(1, getRequestedFor(urlEqualTo("/")));
+        verify(1, getRequestedFor(urlEqualTo("/page2")));
+        verify(1, getRequestedFor(urlEqualTo("/page3")));
+        verify(1, getRequestedFor(urlEqualTo("/page4")));
+        assertThat(graph.getVertices().size(), is(4));
+    }
+
+    @Test
+    public void boundsResourcesInFlight() throws Exception {
+        // Given a root page linking to four slow pages
+        int delay = 300;
+        stubURIWithContent("/", "<a href=\"/1\"></a><a href=\"/2\"></a><a href=\"/3\"></a><a href=\"/4\"></a>");
+        for (int i = 1; i <= 4; i++) {
+            stubFor(get(urlEqualTo("/" + i)).willReturn(aResponse().withBody("").withFixedDelay(delay)));
+        }
+        frontier.add(buildResourceForRelativePath("/"));
+
+        // When only two resources may be crawled at once
+        long start = System.currentTimeMillis();
+        crawler(2).run();
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Then the slow pages are fetched in at least two rounds
+        assertThat(graph.getVertices().size(), is(5));
+        assertThat(elapsed >= 2L * delay, is(true));
+    }
+
+    private VirtualThreadMonzoCrawler crawler(int maxInFlight) throws MalformedURLException {
+        return VirtualThreadMonzoCrawler.builder()
+                .client(JerseyClientBuilder.createClient())
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(graph)
+                        .rootURL(new URL(HOST_URL))
+                        .build())
+                .maxInFlight(maxInFlight)
+                .build();
+    }
+
+    private static Resource buildResourceForRelativePath(String path) throws MalformedURLException {
+        return new Resource(new URL(String.format("%s%s", HOST_URL, path)), path);
+    }
+}
@@ -0,0 +1,145 @@
+package com.williamheng.monzocrawler.http;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class HttpClientsTest {
+
+    private static final String HOST_URL = "http://localhost:8080";
+    private static final String PAGE = "<a href=\"/page1\">Page1</a>";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    @Test
+    public void decompressesPagesWithEveryConnector() throws Exception {
+        // Given a page that is served compressed to clients that ask for it
+        stubFor(get(urlEqualTo("/"))
+                .withHeader("Accept-Encoding", containing("gzip"))
+                .willReturn(aResponse().withHeader("Content-Encoding", "gzip").withBody(gzip(PAGE))));
+
+        for (ConnectorType connectorType : ConnectorType.values()) {
+            Client client = HttpClients.create(ConnectionSettings.builder().connectorType(connectorType).build());
+
+            // When it is fetched
+            Response response = client.target(HOST_URL + "/").request().get();
+
+            // Then it is read uncompressed
+            assertThat(connectorType.getOption(), response.getStatus(), is(200));
+            assertThat(connectorType.getOption(), response.readEntity(String.class), is(PAGE));
+            client.close();
+        }
+    }
+
+    @Test
+    public void followsRedirects() {
+        stubFor(get(urlEqualTo("/old")).willReturn(aResponse().withStatus(301).withHeader("Location", HOST_URL + "/new")));
+        stubURIWithContent("/new", PAGE);
+
+        Client client = HttpClients.create(ConnectionSettings.builder().build());
+        Response response = client.target(HOST_URL + "/old").request().get();
+
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.readEntity(String.class), is(PAGE));
+        client.close();
+    }
+
+    @Test
+    public void timesOutPagesThatNeverArrive() {
+        // Given a server that takes longer to answer than the client waits
+        stubFor(get(urlEqualTo("/")).willReturn(aResponse().withFixedDelay(2000).withBody(PAGE)));
+        Client client = HttpClients.create(ConnectionSettings.builder().readTimeoutMillis(200).build());
+
+        // When the page is fetched, then it fails rather than waiting
+        long start = System.nanoTime();
+        try {
+            client.target(HOST_URL + "/").request().get();
+            fail("Expected the request to time out");
+        } catch (ProcessingException e) {
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000, is(true));
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void fetchesAsynchronously() throws Exception {
+        stubFor(get(urlEqualTo("/")).willReturn(aResponse().withHeader("Content-Encoding", "gzip").withBody(gzip(PAGE))));
+        Client client = HttpClients.create(ConnectionSettings.builder().build());
+
+        CompletableFuture<String> page = new CompletableFuture<>();
+        client.target(HOST_URL + "/").request().async().get(new InvocationCallback<Response>() {
+            @Override
+            public void completed(Response response) {
+                page.complete(response.readEntity(String.class));
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                page.completeExceptionally(throwable);
+            }
+        });
+
+        assertThat(page.get(5, TimeUnit.SECONDS), is(PAGE));
+        client.close();
+    }
+
+    @Test
+    public void failsAsynchronousBodiesLargerThanTheMaximum() throws Exception {
+        // Given a page of 2048 bytes, and a client that holds at most 1024 bytes of a body
+        stubFor(get(urlEqualTo("/large")).willReturn(aResponse().withBody(new byte[2048])));
+        Client client = HttpClients.create(ConnectionSettings.builder().compression(false).maxBodySize(1024).build());
+
+        // When it is fetched asynchronously
+        CompletableFuture<Response> page = new CompletableFuture<>();
+        client.target(HOST_URL + "/large").request().async().get(new InvocationCallback<Response>() {
+            @Override
+            public void completed(Response response) {
+                page.complete(response);
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                page.completeExceptionally(throwable);
+            }
+        });
+
+        // Then the request fails rather than holding on to the whole body
+        try {
+            page.get(5, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof ProcessingException, is(true));
+        } finally {
+            client.close();
+        }
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -1,9 +1,9 @@
 package com.williamheng.monzocrawler.integration;
 
 import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
 import com.williamheng.monzocrawler.crawler.MonzoCrawlerOrchestrator;
 import com.williamheng.monzocrawler.model.Graph;
-import com.williamheng.monzocrawler.model.Resource;
 import com.williamheng.monzocrawler.model.Vertex;
 import org.glassfish.jersey.client.JerseyClientBuilder;
 import org.junit.Before;
@@ -11,7 +11,7 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import java.util.Arrays;
-import java.util.concurrent.*;
+import java.util.concurrent.Future;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
@@ -26,15 +26,13 @@ public class MonzoIntegrationTest {
     public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
 
     private MonzoCrawlerOrchestrator crawler;
-    private BlockingQueue<Resource> visitQueue;
 
     @Before
     public void setUp() throws Exception {
-        visitQueue = new LinkedBlockingQueue<>();
         crawler = new MonzoCrawlerOrchestrator(
                 JerseyClientBuilder.createClient(),
                 "http://localhost:8080",
-                visitQueue,
+                new ConcurrentFrontier(),
                 3,
                 1,
                 false
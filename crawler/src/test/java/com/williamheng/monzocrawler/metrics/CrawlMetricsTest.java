@@ -0,0 +1,99 @@
+package com.williamheng.monzocrawler.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.williamheng.monzocrawler.crawler.ConcurrentFrontier;
+import com.williamheng.monzocrawler.crawler.Frontier;
+import com.williamheng.monzocrawler.crawler.MonzoCrawler;
+import com.williamheng.monzocrawler.crawler.MonzoPageProcessor;
+import com.williamheng.monzocrawler.model.Graph;
+import com.williamheng.monzocrawler.model.Resource;
+import org.glassfish.jersey.client.JerseyClientBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.williamheng.monzocrawler.testutil.TestUtil.stubURIWithContent;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class CrawlMetricsTest {
+
+    private static final String HOST_URL = "http://localhost:8080";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(8080));
+
+    @Test
+    public void histogramFindsPercentiles() {
+        // Given durations of 1 to 1000 milliseconds
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        // Then percentiles are within the precision of the buckets
+        assertThat(histogram.count(), is(1000L));
+        assertThat(Math.abs(histogram.percentileMillis(50) - 500) <= 500 / 16d, is(true));
+        assertThat(Math.abs(histogram.percentileMillis(99) - 990) <= 990 / 16d, is(true));
+        assertThat(histogram.percentileMillis(100), is(1000d));
+        assertThat(histogram.maxMillis(), is(1000d));
+        assertThat(histogram.meanMillis(), is(500.5));
+    }
+
+    @Test
+    public void histogramBucketsHoldTheirValues() {
+        for (long micros : new long[]{0, 31, 32, 33, 1000, 123456789, Long.MAX_VALUE}) {
+            long value = LatencyHistogram.value(LatencyHistogram.bucket(micros));
+            assertThat(Math.abs(value - micros) <= micros / 16, is(true));
+        }
+    }
+
+    @Test
+    public void recordsACrawl() throws Exception {
+        // Given a page linking to itself, a page that exists and one that does not
+        stubURIWithContent("/", "<a href=\"/\">Home</a><a href=\"/page\">Page</a><a href=\"/missing\">Missing</a>");
+        stubURIWithContent("/page", "<a href=\"/\">Home</a>");
+        stubFor(get(urlEqualTo("/missing")).willReturn(aResponse().withStatus(404)));
+
+        // When it is crawled
+        CrawlMetrics metrics = new CrawlMetrics();
+        Frontier frontier = new ConcurrentFrontier();
+        frontier.add(new Resource(new URL(HOST_URL + "/"), "/"));
+        MonzoCrawler.builder()
+                .client(JerseyClientBuilder.createClient())
+                .pageProcessor(MonzoPageProcessor.builder()
+                        .frontier(frontier)
+                        .graph(new Graph())
+                        .rootURL(new URL(HOST_URL))
+                        .metrics(metrics)
+                        .build())
+                .build()
+                .run();
+        metrics.finish();
+
+        // Then every response, page and link is accounted for
+        assertThat(metrics.getPagesFetched(), is(3L));
+        assertThat(metrics.getStatusCodes().get("200"), is(2L));
+        assertThat(metrics.getStatusCodes().get("404"), is(1L));
+        assertThat(metrics.getLinksFound(), is(4L));
+        assertThat(metrics.getLinksAdmitted(), is(2L));
+        assertThat(metrics.getDuplicateLinkRate(), is(0.5));
+        assertThat(metrics.getBytesDownloaded() > 0, is(true));
+
+        // And they are summarised as JSON
+        ByteArrayOutputStream summary = new ByteArrayOutputStream();
+        metrics.writeSummary(summary);
+        JsonNode json = new ObjectMapper().readTree(summary.toByteArray());
+        assertThat(json.get("pagesFetched").asLong(), is(3L));
+        assertThat(json.get("statusCodes").get("404").asLong(), is(1L));
+        assertThat(json.get("fetchLatencyMillis").get("count").asLong(), is(3L));
+        assertThat(json.get("parseTimeMillis").get("count").asLong(), is(2L));
+    }
+}
@@ -0,0 +1,114 @@
+package com.williamheng.monzocrawler.model;
+
+import org.junit.Test;
+
+import java.net.URL;
+
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class CanonicalUrlTest {
+
+    @Test
+    public void lowerCasesSchemeAndHost() throws Exception {
+        assertThat(CanonicalUrl.parse("HTTP://Example.COM/Path").toString(), is("http://example.com/Path"));
+    }
+
+    @Test
+    public void dropsDefaultPorts() throws Exception {
+        assertThat(CanonicalUrl.parse("http://example.com:80/").toString(), is("http://example.com/"));
+        assertThat(CanonicalUrl.parse("https://example.com:443/").toString(), is("https://example.com/"));
+        assertThat(CanonicalUrl.parse("http://example.com:8080/").toString(), is("http://example.com:8080/"));
+    }
+
+    @Test
+    public void dropsFragment() throws Exception {
+        assertThat(CanonicalUrl.parse("http://example.com/page#section").toString(), is("http://example.com/page"));
+    }
+
+    @Test
+    public void addsRootPathWhenEmpty() throws Exception {
+        assertThat(CanonicalUrl.parse("http://example.com").toString(), is("http://example.com/"));
+    }
+
+    @Test
+    public void resolvesDotSegments() throws Exception {
+        assertThat(CanonicalUrl.parse("http://example.com/a/./b/../c").getPath(), is("/a/c"));
+        assertThat(CanonicalUrl.parse("http://example.com/a/b/..").getPath(), is("/a/"));
+        assertThat(CanonicalUrl.parse("http://example.com/../../a").getPath(), is("/a"));
+        assertThat(CanonicalUrl.parse("http://example.com/.well-known/a").getPath(), is("/.well-known/a"));
+    }
+
+    @Test
+    public void sortsQueryParameters() throws Exception {
+        CanonicalUrl url = CanonicalUrl.parse("http://example.com/search?q=crawler&page=2&&lang=en");
+
+        assertThat(url.getQuery(), is("lang=en&page=2&q=crawler"));
+        assertThat(url.getFile(), is("/search?lang=en&page=2&q=crawler"));
+    }
+
+    @Test
+    public void dropsEmptyQuery() throws Exception {
+        assertThat(CanonicalUrl.parse("http://example.com/page?").toString(), is("http://example.com/page"));
+    }
+
+    @Test
+    public void normalisesPercentEncoding() throws Exception {
+        assertThat(CanonicalUrl.parse("http://example.com/%7euser/a%2fb").getPath(), is("/~user/a%2Fb"));
+    }
+
+    @Test
+    public void encodesCharactersAURICannotHold() throws Exception {
+        CanonicalUrl url = CanonicalUrl.parse("http://example.com/").resolveRelative("/a b/café?q=x|y&r=100%");
+
+        assertThat(url.getFile(), is("/a%20b/caf%C3%A9?q=x%7Cy&r=100%25"));
+        assertThat(CanonicalUrl.parse(url.toString()), is(url));
+        assertThat(url.toURL().toString(), is(url.toString()));
+    }
+
+    @Test
+    public void equivalentURLsAreEqual() throws Exception {
+        CanonicalUrl url = CanonicalUrl.parse("http://example.com:80/a/../page?b=2&a=1#top");
+        CanonicalUrl equivalentURL = CanonicalUrl.of(new URL("HTTP://EXAMPLE.com/page?a=1&b=2"));
+
+        assertThat(url, is(equivalentURL));
+        assertThat(url.hashCode(), is(equivalentURL.hashCode()));
+    }
+
+    @Test
+    public void differentHostsAreNotEqual() throws Exception {
+        assertThat(CanonicalUrl.parse("http://example.com/"), not(CanonicalUrl.parse("http://example.org/")));
+    }
+
+    @Test
+    public void resolvesRelativeReferencesAsURLDoes() throws Exception {
+        URL base = new URL("http://example.com:8080/blog/2017/post?page=2");
+        String[] references = {
+                "", "#top", "?page=3", "?b=2&a=1#comments", "/", "/about", "/about?", "/a/./b/../c", "/%7euser/%2f",
+                "next", "./next", "../archive/", "../../../../up", ".", "..", " /padded\n", "/a b", "/page#x?y=1",
+                "1a:b", "a/b?c=d#e",
+        };
+
+        CanonicalUrl canonicalBase = CanonicalUrl.of(base);
+        for (String reference : references) {
+            assertThat(reference, canonicalBase.resolveRelative(reference), is(CanonicalUrl.of(new URL(base, reference))));
+        }
+    }
+
+    @Test
+    public void leavesReferencesWithASchemeOrHostToURL() throws Exception {
+        CanonicalUrl base = CanonicalUrl.parse("http://example.com/blog/");
+
+        assertThat(base.resolveRelative("https://example.org/"), nullValue());
+        assertThat(base.resolveRelative("//example.org/page"), nullValue());
+        assertThat(base.resolveRelative("mailto:someone@example.com"), nullValue());
+        assertThat(CanonicalUrl.parse("mailto:someone@example.com").resolveRelative("/page"), nullValue());
+    }
+
+    @Test
+    public void keepsNonHierarchicalURLs() throws Exception {
+        assertThat(CanonicalUrl.parse("mailto:someone@example.com").toString(), is("mailto:someone@example.com"));
+    }
+}
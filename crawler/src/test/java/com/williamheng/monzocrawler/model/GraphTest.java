@@ -0,0 +1,110 @@
+package com.williamheng.monzocrawler.model;
+
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class GraphTest {
+
+    private static final String HOST_URL = "http://localhost:8080";
+
+    @Test
+    public void readsVerticesAndTheirLinks() throws Exception {
+        // Given a page with internal and external links
+        Graph graph = new Graph();
+        graph.addVertex(resource("/"), Arrays.asList("/page2", "/page3", "http://google.com/"));
+
+        // When the graph is read
+        Vertex vertex = graph.getVertices().get("/");
+
+        // Then every link is adjacent to it
+        assertThat(graph.getVertices().size(), is(1));
+        assertThat(vertex.getId(), is("/"));
+        assertThat(vertex.getAdjacentVertices(), is(new HashSet<>(Arrays.asList("/page2", "/page3", "http://google.com/"))));
+        assertThat(vertex.getAdjacentVertices().contains("/page4"), is(false));
+    }
+
+    @Test
+    public void onlyCrawledPagesAreVertices() throws Exception {
+        // Given a page linking to a page that has not been crawled
+        Graph graph = new Graph();
+        graph.addVertex(resource("/"), Collections.singletonList("/page2"));
+
+        // Then only the crawled page is a vertex
+        assertThat(graph.getVertices().containsKey("/"), is(true));
+        assertThat(graph.getVertices().get("/page2"), nullValue());
+        assertThat(graph.getVertices().get("/unknown"), nullValue());
+    }
+
+    @Test
+    public void dropsDuplicateLinks() throws Exception {
+        // Given a page linking to the same page twice
+        Graph graph = new Graph();
+        graph.addVertex(resource("/"), Arrays.asList("/page2", "/page2", "/"));
+
+        // Then the link only appears once
+        assertThat(graph.getVertices().get("/").getAdjacentVertices().size(), is(2));
+    }
+
+    @Test
+    public void keepsVerticesAcrossCompactions() throws Exception {
+        // Given a graph that is compacted part way through the crawl
+        Graph graph = new Graph();
+        graph.addVertex(resource("/"), Arrays.asList("/page2", "/page3"));
+        graph.compact();
+        graph.addVertex(resource("/page2"), Collections.singletonList("/"));
+        graph.addVertex(resource("/"), Collections.singletonList("/page3"));
+
+        // Then every vertex is kept and a vertex added again is replaced
+        assertThat(graph.getVertices().size(), is(2));
+        assertThat(graph.getVertices().get("/").getAdjacentVertices(), is(Collections.singleton("/page3")));
+        assertThat(graph.getVertices().get("/page2").getAdjacentVertices(), is(Collections.singleton("/")));
+    }
+
+    @Test
+    public void addsVerticesFromManyThreads() throws Exception {
+        // Given many threads adding pages that link to each other
+        Graph graph = new Graph();
+        int numberOfPages = 2000;
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < numberOfPages; i++) {
+            int page = i;
+            executorService.execute(() -> {
+                List<String> links = new ArrayList<>();
+                for (int j = 1; j <= 10; j++) links.add("/page" + ((page + j) % numberOfPages));
+                graph.addVertex(resource("/page" + page), links);
+                if (page % 500 == 0) graph.compact();
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+        // Then every vertex and link is in the graph
+        assertThat(graph.getVertices().size(), is(numberOfPages));
+        for (int i = 0; i < numberOfPages; i++) {
+            Vertex vertex = graph.getVertices().get("/page" + i);
+            assertThat(vertex.getAdjacentVertices().size(), is(10));
+            assertThat(vertex.getAdjacentVertices().contains("/page" + ((i + 10) % numberOfPages)), is(true));
+        }
+    }
+
+    private static Resource resource(String path) {
+        try {
+            return new Resource(new URL(HOST_URL + path), path);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
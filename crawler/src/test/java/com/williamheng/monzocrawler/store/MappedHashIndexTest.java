@@ -0,0 +1,63 @@
+package com.williamheng.monzocrawler.store;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+public class MappedHashIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void storesValuesForFingerprints() throws Exception {
+        try (MappedHashIndex index = new MappedHashIndex(temporaryFolder.newFile().toPath(), 16)) {
+            assertThat(index.putIfAbsent(1, 100, value -> true), is(true));
+            assertThat(index.putIfAbsent(1, 200, value -> true), is(false));
+            assertThat(index.get(1, value -> true), is(100L));
+            assertThat(index.get(2, value -> true), is(-1L));
+        }
+    }
+
+    @Test
+    public void replacesValuesForFingerprints() throws Exception {
+        try (MappedHashIndex index = new MappedHashIndex(temporaryFolder.newFile().toPath(), 16)) {
+            index.put(1, 100, value -> true);
+            index.put(1, 200, value -> value == 100);
+
+            assertThat(index.get(1, value -> true), is(200L));
+            assertThat(index.size(), is(1));
+        }
+    }
+
+    @Test
+    public void confirmsCollidingFingerprintsWithPredicate() throws Exception {
+        try (MappedHashIndex index = new MappedHashIndex(temporaryFolder.newFile().toPath(), 16)) {
+            // Two different keys with the same fingerprint, told apart by their values
+            assertThat(index.putIfAbsent(7, 100, value -> value == 100), is(true));
+            assertThat(index.putIfAbsent(7, 200, value -> value == 200), is(true));
+
+            assertThat(index.get(7, value -> value == 200), is(200L));
+            assertThat(index.size(), is(2));
+        }
+    }
+
+    @Test
+    public void growsAndReopens() throws Exception {
+        Path path = temporaryFolder.getRoot().toPath().resolve("index");
+
+        try (MappedHashIndex index = new MappedHashIndex(path, 16)) {
+            for (long i = 0; i < 10_000; i++) index.putIfAbsent(i, i * 2, value -> true);
+        }
+
+        try (MappedHashIndex index = new MappedHashIndex(path, 16)) {
+            assertThat(index.size(), is(10_000));
+            for (long i = 0; i < 10_000; i++) assertThat(index.get(i, value -> true), is(i * 2));
+        }
+    }
+}
@@ -1,9 +0,0 @@
-package com.williamheng.monzocrawler.model.json;
-
-import lombok.Value;
-
-@Value
-public class JSONNode {
-    private final String id;
-    private final int group;
-}